@@ -0,0 +1,164 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH-Messungen für Import und Export in {@link IcsUtil}.
+ *
+ * Gemessen werden {@code importIcs}, {@code exportIcs}, {@code importVcs}, {@code exportVcs}
+ * und {@code importAuto} (auf einer VCS-Datei, damit die Formaterkennung mitläuft) bei
+ * 1k/10k/100k/1M Terminen, jeweils mit kurzen und mit großen Beschreibungen. {@code exportIcs}
+ * leert vor jedem Aufruf den {@link IcsFragmentCache} und misst damit einen kalten Export;
+ * {@code exportIcsWarm} misst den wiederholten Export unveränderter Termine aus dem Cache. Neben den
+ * Operationen pro Sekunde wird über den Hilfszähler {@code events} der Durchsatz in
+ * Terminen pro Sekunde ausgegeben; {@link #main} schaltet zusätzlich den GC-Profiler ein
+ * ({@code gc.alloc.rate}, {@code gc.alloc.rate.norm}). Die Eingabedateien erzeugt
+ * {@link SyntheticCalendar} mit festem Seed, sodass alle Läufe dieselben Daten messen.
+ *
+ * Aufruf:
+ * <pre>
+ * mvn -pl calendar-bench -am package -DskipTests
+ * java -jar calendar-bench/target/benchmarks.jar IcsUtilBenchmark -prof gc
+ * java -jar calendar-bench/target/benchmarks.jar IcsUtilBenchmark -p events=10000 -p descriptions=small
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class IcsUtilBenchmark {
+
+    /** Anteil großer Beschreibungen bei {@code descriptions=huge}. */
+    private static final double HUGE_SHARE = 0.1;
+    /** Größe einer großen Beschreibung; liegt über {@link IcsUtil#LAZY_DESCRIPTION_THRESHOLD}. */
+    private static final int HUGE_SIZE = 16 * 1024;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int events;
+
+    /** {@code small}: kurze Beschreibungen; {@code huge}: zusätzlich 10 % Beschreibungen mit 16 KiB. */
+    @Param({"small", "huge"})
+    public String descriptions;
+
+    private Path dir;
+    private Path icsFile;
+    private Path vcsFile;
+    private Path icsOut;
+    private Path vcsOut;
+    private List<CalendarEntry> entries;
+
+    /** Hilfszähler: verarbeitete Termine, von JMH als Durchsatz pro Sekunde ausgegeben. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long events;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            events = 0;
+        }
+    }
+
+    /** Leert den Fragment-Cache vor jedem Aufruf, damit jeder Export alle Termine serialisiert. */
+    @State(Scope.Thread)
+    public static class ColdCache {
+        @Setup(Level.Invocation)
+        public void clear() {
+            IcsFragmentCache.shared().clear();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void prepare() throws Exception {
+        dir = Files.createTempDirectory("ics-bench-");
+        icsFile = dir.resolve("input.ics");
+        vcsFile = dir.resolve("input.vcs");
+        icsOut = dir.resolve("output.ics");
+        vcsOut = dir.resolve("output.vcs");
+        SyntheticCalendar.Spec spec = SyntheticCalendar.Spec.defaults().withEvents(events);
+        if ("huge".equals(descriptions)) spec = spec.withDescriptions(spec.descriptionBytes(), HUGE_SHARE, HUGE_SIZE);
+        SyntheticCalendar.write(spec, icsFile);
+        SyntheticCalendar.write(spec, vcsFile);
+        entries = IcsUtil.importIcs(icsFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanup() throws Exception {
+        entries = null;
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+
+    @Benchmark
+    public List<CalendarEntry> importIcs(Counters counters) throws Exception {
+        List<CalendarEntry> result = IcsUtil.importIcs(icsFile);
+        counters.events += result.size();
+        return result;
+    }
+
+    @Benchmark
+    public void exportIcs(ColdCache cold, Counters counters) throws Exception {
+        IcsUtil.exportIcs(icsOut, entries);
+        counters.events += entries.size();
+    }
+
+    @Benchmark
+    public void exportIcsWarm(Counters counters) throws Exception {
+        IcsUtil.exportIcs(icsOut, entries);
+        counters.events += entries.size();
+    }
+
+    @Benchmark
+    public List<CalendarEntry> importVcs(Counters counters) throws Exception {
+        List<CalendarEntry> result = IcsUtil.importVcs(vcsFile);
+        counters.events += result.size();
+        return result;
+    }
+
+    @Benchmark
+    public void exportVcs(Counters counters) throws Exception {
+        IcsUtil.exportVcs(vcsOut, entries);
+        counters.events += entries.size();
+    }
+
+    @Benchmark
+    public List<CalendarEntry> importAuto(Counters counters) throws Exception {
+        List<CalendarEntry> result = IcsUtil.importAuto(vcsFile);
+        counters.events += result.size();
+        return result;
+    }
+
+    /** Startet alle Messungen dieser Klasse mit GC-Profiler; weitere JMH-Optionen über benchmarks.jar. */
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(IcsUtilBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,70 @@
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Misst den Kaltstart der kopflosen Verarbeitung in einer frischen JVM: Zeit vom JVM-Start bis
+ * {@code main}, bis zum ersten Import und bis zum ersten Export sowie die Anzahl geladener
+ * Klassen. Die Ausgabe besteht aus {@code schlüssel=wert}-Zeilen.
+ *
+ * Aufruf (je Messung eine neue JVM):
+ * <pre>
+ * java -cp calendar-core/target/calendar-core-&lt;v&gt;-headless.jar:calendar-bench/target/classes StartupBench [datei.ics]
+ * </pre>
+ * Mit {@code --load=<klasse>} wird vor dem Import zusätzlich eine Klasse geladen, z. B.
+ * {@code --load=CalendarProjektController} mit dem Fat-JAR der Oberfläche auf dem Klassenpfad,
+ * um die bisherigen Kosten von JavaFX auf dem Klassenpfad zu vergleichen.
+ */
+public final class StartupBench {
+
+    private StartupBench() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        long atMain = uptime();
+        Path file = null;
+        String load = null;
+        for (String a : args) {
+            if (a.startsWith("--load=")) load = a.substring("--load=".length());
+            else file = Path.of(a);
+        }
+        if (load != null) Class.forName(load, false, StartupBench.class.getClassLoader());
+        long afterLoad = uptime();
+
+        Path tmp = Files.createTempDirectory("startup-");
+        long sampleStart = uptime();
+        if (file == null) file = sample(tmp.resolve("sample.ics"), 1000);
+        long importStart = uptime();
+        List<CalendarEntry> entries = IcsUtil.importIcs(file);
+        long afterImport = uptime();
+        IcsUtil.exportIcs(tmp.resolve("out.ics"), entries);
+        long afterExport = uptime();
+
+        System.out.println("startup.events=" + entries.size());
+        System.out.println("startup.jvm_to_main_ms=" + atMain);
+        if (load != null) System.out.println("startup.load_ms=" + (afterLoad - atMain));
+        if (importStart > sampleStart) System.out.println("startup.sample_ms=" + (importStart - sampleStart));
+        System.out.println("startup.first_import_ms=" + (afterImport - importStart));
+        System.out.println("startup.first_export_ms=" + (afterExport - afterImport));
+        System.out.println("startup.jvm_to_first_export_ms=" + afterExport);
+        System.out.println("startup.loaded_classes=" + ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount());
+    }
+
+    private static long uptime() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    /** Beispielkalender mit {@code count} Terminen. */
+    private static Path sample(Path path, int count) throws Exception {
+        List<EntryValue> values = new ArrayList<>(count);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 8, 0);
+        for (int i = 0; i < count; i++) {
+            values.add(EntryValue.of("Termin " + i, "Beschreibung " + i, start.plusHours(i), start.plusHours(i + 1)));
+        }
+        IcsUtil.exportIcsValues(path, values);
+        return path;
+    }
+}
@@ -0,0 +1,58 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Verweis auf eine beim Import abgelegte ATTACH-Eigenschaft eines Termins.
+ *
+ * Die Rohbytes der Eigenschaft (Name, Parameter, Base64-Wert, Faltung und Zeilenende) liegen
+ * komprimiert in einem {@link DescriptionStore} und werden nie dekodiert. Beim Export schreibt
+ * {@link #writeTo(OutputStream)} sie byte-identisch zurück.
+ */
+public final class AttachmentRef {
+
+    private final LazyText blob;
+
+    AttachmentRef(LazyText blob) {
+        this.blob = blob;
+    }
+
+    /** Größe der Eigenschaft in Bytes (unkomprimiert). */
+    public long size() {
+        return blob.rawLength();
+    }
+
+    /** Inhaltsschlüssel (SHA-1 der Rohbytes). */
+    public String key() {
+        return blob.key();
+    }
+
+    /** Schreibt die Eigenschaft unverändert in den Strom. */
+    public void writeTo(OutputStream out) throws IOException {
+        blob.writeRaw(out);
+    }
+
+    /** Strom über die Rohbytes der Eigenschaft; muss geschlossen werden. */
+    public InputStream openStream() {
+        return blob.openRaw();
+    }
+
+    LazyText blob() {
+        return blob;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof AttachmentRef that && blob.key().equals(that.blob.key()));
+    }
+
+    @Override
+    public int hashCode() {
+        return blob.key().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "AttachmentRef{" + blob.rawLength() + " B}";
+    }
+}
@@ -0,0 +1,530 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Gleicht einen Kalender mit einer CalDAV-Sammlung auf dem Server ab, ohne jedes Mal die ganze
+ * Sammlung herunterzuladen.
+ *
+ * {@link #sync()} fragt per {@code sync-collection}-REPORT (RFC 6578) nur die seit dem letzten
+ * Sync-Token geänderten Ressourcen ab und lädt deren Inhalt gesammelt per
+ * {@code calendar-multiget}. Unterstützt der Server keine Sync-Token, wird der {@code getctag}
+ * der Sammlung verglichen und nur bei einer Änderung die ETag-Liste geholt. Ohne Änderungen
+ * genügt in beiden Fällen eine einzige kleine Anfrage. Ressourcen, deren ETag schon bekannt ist
+ * (z. B. nach eigenem Hochladen), werden nicht erneut geladen.
+ *
+ * {@link #push(List, Collection)} schreibt lokale Änderungen einzeln per {@code PUT} bzw.
+ * {@code DELETE} je UID zurück, abgesichert mit {@code If-Match} bzw. {@code If-None-Match: *}.
+ * Gelöscht werden nur ausdrücklich als entfernt gemeldete UIDs, damit ein Teilstand (z. B. ohne
+ * archivierte oder noch nicht geladene Termine) nichts löscht; {@link #push(List)} behandelt
+ * {@code local} dagegen als vollständigen Stand. Hat ein anderer Client die Ressource
+ * inzwischen geändert, wird die UID als Konflikt gemeldet; der nächste {@link #sync()} holt
+ * dann den Serverstand.
+ *
+ * Eine Ressource enthält wie in RFC 4791 alle VEVENTs einer UID: die Serie samt ihren Ausnahmen
+ * (RECURRENCE-ID). Sie wird vollständig übernommen und immer als Ganzes hochgeladen, damit ein
+ * {@code PUT} der Serie die Ausnahmen auf dem Server nicht löscht. Sync-Token, ctag sowie Href,
+ * ETag und Inhaltshash je UID werden in einer Zustandsdatei gehalten, damit auch nach einem Neustart nur Änderungen
+ * übertragen werden. Aufrufe sind nicht threadsicher und müssen nacheinander erfolgen.
+ */
+public final class CalDavSyncClient {
+
+    static final String DAV = "DAV:";
+    static final String CALDAV = "urn:ietf:params:xml:ns:caldav";
+    static final String CALSERVER = "http://calendarserver.org/ns/";
+    /** Höchstzahl Ressourcen je {@code calendar-multiget}. */
+    static final int MULTIGET_BATCH = 100;
+    static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * Vom Server übernommene Änderungen eines {@link #sync()}; {@code removals} sind Schlüssel
+     * ({@link EntryValue#key()}).
+     */
+    public record Changes(List<EntryValue> upserts, List<String> removals, int requests) {
+
+        public boolean isEmpty() {
+            return upserts.isEmpty() && removals.isEmpty();
+        }
+    }
+
+    /** Ergebnis eines {@link #push(List, Collection)}. */
+    public record PushResult(int puts, int deletes, List<String> conflicts, int requests) {
+    }
+
+    /**
+     * Bekannter Stand einer Ressource: alle Termine einer UID, nach Schlüssel sortiert. {@code values}
+     * fehlt nach einem Neustart bis {@link #adopt}.
+     */
+    private static final class Resource {
+        final String href;
+        String etag;
+        long hash;
+        List<EntryValue> values;
+
+        Resource(String href, String etag, long hash, List<EntryValue> values) {
+            this.href = href;
+            this.etag = etag;
+            this.hash = hash;
+            this.values = values;
+        }
+    }
+
+    private final URI collection;
+    private final String authorization;
+    private final Path stateFile;
+    private final HttpClient http;
+
+    private final Map<String, Resource> byUid = new LinkedHashMap<>();
+    private final Map<String, String> uidByHref = new HashMap<>();
+    private String syncToken;
+    private String ctag;
+    /** {@code false}, sobald der Server {@code sync-collection} abgelehnt hat. */
+    private boolean syncCollection = true;
+    private int requests;
+
+    /**
+     * @param collection URL der Kalendersammlung (mit abschließendem {@code /})
+     * @param user       Benutzername für Basic-Authentifizierung oder {@code null}
+     * @param password   Passwort oder {@code null}
+     * @param stateFile  Zustandsdatei oder {@code null}, wenn nichts gespeichert werden soll
+     */
+    public CalDavSyncClient(URI collection, String user, String password, Path stateFile) throws IOException {
+        String url = collection.toString();
+        this.collection = url.endsWith("/") ? collection : URI.create(url + "/");
+        this.authorization = user == null ? null : "Basic " + Base64.getEncoder().encodeToString(
+                (user + ":" + (password == null ? "" : password)).getBytes(StandardCharsets.UTF_8));
+        this.stateFile = stateFile;
+        this.http = HttpClient.newBuilder().connectTimeout(REQUEST_TIMEOUT).build();
+        if (stateFile != null && Files.exists(stateFile)) loadState();
+    }
+
+    public String getSyncToken() {
+        return syncToken;
+    }
+
+    /** Zuletzt bekannter Serverstand aller Termine, deren Inhalt vorliegt. */
+    public List<EntryValue> values() {
+        List<EntryValue> out = new ArrayList<>(byUid.size());
+        for (Resource r : byUid.values()) if (r.values != null) out.addAll(r.values);
+        return Collections.unmodifiableList(out);
+    }
+
+    /**
+     * Übernimmt nach einem Neustart die lokalen Termine als bekannten Serverstand, soweit ihr
+     * Inhaltshash dem gespeicherten entspricht. Abweichende Termine gelten als lokal geändert.
+     */
+    public void adopt(List<EntryValue> local) {
+        for (Map.Entry<String, List<EntryValue>> e : resources(local).entrySet()) {
+            Resource r = byUid.get(e.getKey());
+            if (r != null && r.values == null && r.hash == hashOf(e.getValue())) r.values = e.getValue();
+        }
+    }
+
+    /**
+     * Holt die Änderungen seit dem letzten Abgleich. Der bekannte Serverstand ({@link #values()})
+     * wird dabei fortgeschrieben.
+     */
+    public Changes sync() throws Exception {
+        int before = requests;
+        Map<String, EntryValue> upserts = new LinkedHashMap<>();
+        List<String> removals = new ArrayList<>();
+        boolean done = false;
+        if (syncCollection) {
+            done = syncByToken(upserts, removals);
+            if (!done && syncToken != null && syncCollection) {
+                // Token abgelaufen: vollständig neu abgleichen
+                syncToken = null;
+                done = syncByToken(upserts, removals);
+            }
+        }
+        if (!done) syncByCtag(upserts, removals);
+        saveState();
+        return new Changes(List.copyOf(upserts.values()), removals, requests - before);
+    }
+
+    /**
+     * Abgleich per {@code sync-collection}. Liefert {@code false}, wenn der Server das Token
+     * ablehnt oder den REPORT nicht unterstützt ({@link #syncCollection} ist dann {@code false}).
+     */
+    private boolean syncByToken(Map<String, EntryValue> upserts, List<String> removals) throws Exception {
+        String body = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n"
+                + "<d:sync-collection xmlns:d=\"DAV:\">"
+                + "<d:sync-token>" + (syncToken != null ? xml(syncToken) : "") + "</d:sync-token>"
+                + "<d:sync-level>1</d:sync-level>"
+                + "<d:prop><d:getetag/></d:prop>"
+                + "</d:sync-collection>";
+        HttpResponse<byte[]> response = send("REPORT", collection, "0", body);
+        int status = response.statusCode();
+        if (status == 403 || status == 409) {
+            // valid-sync-token verletzt; ohne Token lehnt der Server den REPORT grundsätzlich ab
+            if (syncToken == null) syncCollection = false;
+            return false;
+        }
+        if (status != 207) {
+            syncCollection = false;
+            return false;
+        }
+        Document doc = parse(response.body());
+        Set<String> initial = syncToken == null ? new HashSet<>(byUid.keySet()) : null;
+        Map<String, String> changed = new LinkedHashMap<>();
+        for (Element r : children(doc.getDocumentElement(), DAV, "response")) {
+            String href = resolve(text(r, DAV, "href"));
+            if (href == null || href.equals(collection.getRawPath())) continue;
+            String etag = propText(r, DAV, "getetag");
+            if (etag == null || isNotFound(r)) {
+                String uid = uidByHref.get(href);
+                if (uid != null) remove(uid, removals);
+            } else {
+                changed.put(href, etag);
+                if (initial != null) {
+                    String uid = uidByHref.get(href);
+                    if (uid != null) initial.remove(uid);
+                }
+            }
+        }
+        fetchChanged(changed, upserts, removals);
+        // Erstabgleich liefert alle Ressourcen: nicht genannte gibt es nicht mehr
+        if (initial != null) for (String uid : initial) remove(uid, removals);
+        String token = text(doc.getDocumentElement(), DAV, "sync-token");
+        if (token != null) syncToken = token;
+        return true;
+    }
+
+    /** Abgleich über {@code getctag} und die ETag-Liste der Sammlung. */
+    private void syncByCtag(Map<String, EntryValue> upserts, List<String> removals) throws Exception {
+        HttpResponse<byte[]> head = send("PROPFIND", collection, "0", "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n"
+                + "<d:propfind xmlns:d=\"DAV:\" xmlns:cs=\"" + CALSERVER + "\"><d:prop><cs:getctag/></d:prop></d:propfind>");
+        expect(head, 207);
+        String current = null;
+        for (Element r : children(parse(head.body()).getDocumentElement(), DAV, "response")) {
+            String tag = propText(r, CALSERVER, "getctag");
+            if (tag != null) current = tag;
+        }
+        if (current != null && current.equals(ctag)) return;
+
+        HttpResponse<byte[]> list = send("PROPFIND", collection, "1", "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n"
+                + "<d:propfind xmlns:d=\"DAV:\"><d:prop><d:getetag/></d:prop></d:propfind>");
+        expect(list, 207);
+        Map<String, String> etags = new LinkedHashMap<>();
+        for (Element r : children(parse(list.body()).getDocumentElement(), DAV, "response")) {
+            String href = resolve(text(r, DAV, "href"));
+            String etag = propText(r, DAV, "getetag");
+            if (href != null && etag != null && !href.equals(collection.getRawPath())) etags.put(href, etag);
+        }
+        for (String uid : new ArrayList<>(byUid.keySet())) {
+            if (!etags.containsKey(byUid.get(uid).href)) remove(uid, removals);
+        }
+        fetchChanged(etags, upserts, removals);
+        ctag = current;
+    }
+
+    /** Lädt alle Ressourcen, deren ETag vom bekannten abweicht, per {@code calendar-multiget}. */
+    private void fetchChanged(Map<String, String> etags, Map<String, EntryValue> upserts, List<String> removals) throws Exception {
+        List<String> hrefs = new ArrayList<>();
+        for (Map.Entry<String, String> e : etags.entrySet()) {
+            String uid = uidByHref.get(e.getKey());
+            Resource known = uid != null ? byUid.get(uid) : null;
+            // Unveränderte und selbst hochgeladene Ressourcen nicht erneut laden
+            if (known == null || known.values == null || !e.getValue().equals(known.etag)) hrefs.add(e.getKey());
+        }
+        for (int i = 0; i < hrefs.size(); i += MULTIGET_BATCH) {
+            StringBuilder body = new StringBuilder("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n")
+                    .append("<c:calendar-multiget xmlns:d=\"DAV:\" xmlns:c=\"").append(CALDAV).append("\">")
+                    .append("<d:prop><d:getetag/><c:calendar-data/></d:prop>");
+            for (String href : hrefs.subList(i, Math.min(hrefs.size(), i + MULTIGET_BATCH))) {
+                body.append("<d:href>").append(xml(href)).append("</d:href>");
+            }
+            body.append("</c:calendar-multiget>");
+            HttpResponse<byte[]> response = send("REPORT", collection, "1", body.toString());
+            expect(response, 207);
+            for (Element r : children(parse(response.body()).getDocumentElement(), DAV, "response")) {
+                String href = resolve(text(r, DAV, "href"));
+                String data = propText(r, CALDAV, "calendar-data");
+                if (href == null || data == null) continue;
+                List<EntryValue> parsed = EntryValue.snapshot(IcsUtil.importIcs(
+                        new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8))));
+                if (parsed.isEmpty() || parsed.get(0).uid() == null) continue;
+                // Alle VEVENTs der UID übernehmen (Serie und Ausnahmen)
+                String uid = parsed.get(0).uid();
+                List<EntryValue> values = resources(parsed).get(uid);
+                String previous = uidByHref.get(href);
+                if (previous != null && !previous.equals(uid)) remove(previous, removals);
+                Resource old = byUid.get(uid);
+                if (old != null && !old.href.equals(href)) uidByHref.remove(old.href);
+                byUid.put(uid, new Resource(href, propText(r, DAV, "getetag"), hashOf(values), values));
+                uidByHref.put(href, uid);
+
+                Map<String, EntryValue> before = new HashMap<>();
+                if (old != null && old.values != null) for (EntryValue v : old.values) before.put(v.key(), v);
+                for (EntryValue v : values) {
+                    EntryValue prev = before.remove(v.key());
+                    if (prev == null || prev.contentHash() != v.contentHash()) upserts.put(v.key(), v);
+                }
+                // Auf dem Server entfernte Ausnahmen
+                for (String key : before.keySet()) {
+                    upserts.remove(key);
+                    removals.add(key);
+                }
+            }
+        }
+    }
+
+    private void remove(String uid, List<String> removals) {
+        Resource r = byUid.remove(uid);
+        if (r == null) return;
+        uidByHref.remove(r.href);
+        if (r.values == null) removals.add(uid);
+        else for (EntryValue v : r.values) removals.add(v.key());
+    }
+
+    /** Gruppiert Termine je UID zu Ressourcen (normalisiert, je UID nach Schlüssel sortiert). */
+    private static Map<String, List<EntryValue>> resources(List<EntryValue> values) {
+        Map<String, List<EntryValue>> out = new LinkedHashMap<>();
+        for (EntryValue v : values) {
+            if (v.uid() == null) continue;
+            out.computeIfAbsent(v.uid(), u -> new ArrayList<>(1)).add(normalize(v));
+        }
+        for (List<EntryValue> group : out.values()) {
+            // Die Serie (Schlüssel = UID) steht vor ihren Ausnahmen
+            if (group.size() > 1) group.sort(java.util.Comparator.comparing(EntryValue::key));
+        }
+        return out;
+    }
+
+    /** Inhaltshash einer Ressource; bei einem einzelnen Termin dessen Inhaltshash. */
+    static long hashOf(List<EntryValue> values) {
+        if (values.size() == 1) return values.get(0).contentHash();
+        long h = values.size();
+        for (EntryValue v : values) h = (h ^ v.contentHash()) * 0x100000001b3L;
+        return h;
+    }
+
+    /**
+     * Schreibt die Unterschiede zwischen dem vollständigen Stand {@code local} und dem bekannten
+     * Serverstand zurück: neue und geänderte Termine per {@code PUT}, fehlende per {@code DELETE}.
+     * Termine ohne UID werden übergangen. Ressourcen werden je UID hochgeladen bzw. gelöscht.
+     */
+    public PushResult push(List<EntryValue> local) throws Exception {
+        Set<String> removed = new HashSet<>(byUid.keySet());
+        for (EntryValue v : local) removed.remove(v.uid());
+        return push(local, removed);
+    }
+
+    /**
+     * Lädt neue und geänderte Termine aus {@code local} per {@code PUT} hoch und löscht nur die
+     * bekannten UIDs aus {@code removed} per {@code DELETE}. In {@code local} fehlende, aber nicht
+     * als entfernt gemeldete Termine bleiben auf dem Server. Termine ohne UID werden übergangen.
+     */
+    public PushResult push(List<EntryValue> local, Collection<String> removed) throws Exception {
+        int before = requests;
+        int puts = 0;
+        int deletes = 0;
+        List<String> conflicts = new ArrayList<>();
+        Map<String, List<EntryValue>> resources = resources(local);
+        Set<String> present = resources.keySet();
+        for (Map.Entry<String, List<EntryValue>> e : resources.entrySet()) {
+            Resource r = byUid.get(e.getKey());
+            if (r != null && r.hash == hashOf(e.getValue())) continue;
+            if (put(e.getKey(), e.getValue(), r)) puts++;
+            else conflicts.add(e.getKey());
+        }
+        for (String uid : removed) {
+            if (present.contains(uid) || !byUid.containsKey(uid)) continue;
+            if (delete(uid)) deletes++;
+            else conflicts.add(uid);
+        }
+        saveState();
+        return new PushResult(puts, deletes, conflicts, requests - before);
+    }
+
+    /** Lädt alle Termine einer UID als eine Ressource hoch; {@code false} bei einem Konflikt. */
+    private boolean put(String uid, List<EntryValue> values, Resource known) throws Exception {
+        String href = known != null ? known.href
+                : collection.getRawPath() + URLEncoder.encode(uid, StandardCharsets.UTF_8).replace("+", "%20") + ".ics";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IcsUtil.exportIcsValues(out, values);
+        HttpRequest.Builder request = request(collection.resolve(href))
+                .header("Content-Type", "text/calendar; charset=utf-8")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(out.toByteArray()));
+        if (known != null && known.etag != null) request.header("If-Match", known.etag);
+        else if (known == null) request.header("If-None-Match", "*");
+        HttpResponse<byte[]> response = send(request);
+        if (response.statusCode() == 412) return false;
+        expect(response, 200, 201, 204);
+        byUid.put(uid, new Resource(href, response.headers().firstValue("ETag").orElse(null),
+                hashOf(values), values));
+        uidByHref.put(href, uid);
+        return true;
+    }
+
+    /** Löscht einen Termin auf dem Server; {@code false} bei einem Konflikt. */
+    private boolean delete(String uid) throws Exception {
+        Resource r = byUid.get(uid);
+        HttpRequest.Builder request = request(collection.resolve(r.href)).DELETE();
+        if (r.etag != null) request.header("If-Match", r.etag);
+        HttpResponse<byte[]> response = send(request);
+        if (response.statusCode() == 412) return false;
+        if (response.statusCode() != 404) expect(response, 200, 204);
+        byUid.remove(uid);
+        uidByHref.remove(r.href);
+        return true;
+    }
+
+    /** Die lokale ID gehört nicht zum Serverstand und darf den Inhaltshash nicht verändern. */
+    static EntryValue normalize(EntryValue v) {
+        return v.id() != null ? v.withId(null) : v;
+    }
+
+    // --- HTTP und XML ---
+
+    private HttpRequest.Builder request(URI uri) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(uri).timeout(REQUEST_TIMEOUT);
+        if (authorization != null) b.header("Authorization", authorization);
+        return b;
+    }
+
+    private HttpResponse<byte[]> send(String method, URI uri, String depth, String body) throws Exception {
+        return send(request(uri)
+                .header("Depth", depth)
+                .header("Content-Type", "application/xml; charset=utf-8")
+                .method(method, HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8)));
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest.Builder request) throws Exception {
+        requests++;
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static void expect(HttpResponse<?> response, int... allowed) throws IOException {
+        for (int s : allowed) if (response.statusCode() == s) return;
+        throw new IOException("HTTP " + response.statusCode() + " für " + response.request().method() + " " + response.uri());
+    }
+
+    /** Pfadanteil eines Hrefs (absolut oder relativ), bezogen auf die Sammlung. */
+    private String resolve(String href) {
+        if (href == null || href.isBlank()) return null;
+        return collection.resolve(href.trim()).getRawPath();
+    }
+
+    private static boolean isNotFound(Element response) {
+        String status = text(response, DAV, "status");
+        return status != null && status.contains(" 404");
+    }
+
+    /** Wert einer Eigenschaft aus einem {@code propstat} mit Status 200. */
+    private static String propText(Element response, String ns, String name) {
+        for (Element propstat : children(response, DAV, "propstat")) {
+            String status = text(propstat, DAV, "status");
+            if (status != null && !status.contains(" 200")) continue;
+            for (Element prop : children(propstat, DAV, "prop")) {
+                String value = text(prop, ns, name);
+                if (value != null) return value;
+            }
+        }
+        return null;
+    }
+
+    private static String text(Element parent, String ns, String name) {
+        List<Element> found = children(parent, ns, name);
+        return found.isEmpty() ? null : found.get(0).getTextContent();
+    }
+
+    private static List<Element> children(Element parent, String ns, String name) {
+        List<Element> out = new ArrayList<>();
+        NodeList nodes = parent.getChildNodes();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            Node n = nodes.item(i);
+            if (n instanceof Element e && ns.equals(e.getNamespaceURI()) && name.equals(e.getLocalName())) out.add(e);
+        }
+        return out;
+    }
+
+    private static Document parse(byte[] body) throws Exception {
+        DocumentBuilderFactory f = DocumentBuilderFactory.newInstance();
+        f.setNamespaceAware(true);
+        f.setExpandEntityReferences(false);
+        f.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        DocumentBuilder b = f.newDocumentBuilder();
+        return b.parse(new ByteArrayInputStream(body));
+    }
+
+    private static String xml(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    // --- Zustandsdatei ---
+
+    /**
+     * Format (UTF-8, Tabulator-getrennt): Kopfzeile {@code caldav <token> <ctag>} ({@code -} für
+     * fehlend), danach je Ressource {@code <uid> <href> <etag> <hash>}.
+     */
+    private void saveState() throws IOException {
+        if (stateFile == null) return;
+        StringBuilder sb = new StringBuilder("caldav\t").append(orDash(syncToken)).append('\t').append(orDash(ctag)).append('\n');
+        for (Map.Entry<String, Resource> e : byUid.entrySet()) {
+            Resource r = e.getValue();
+            sb.append(e.getKey()).append('\t').append(r.href).append('\t').append(orDash(r.etag))
+                    .append('\t').append(r.hash).append('\n');
+        }
+        Path tmp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        Files.writeString(tmp, sb, StandardCharsets.UTF_8);
+        Files.move(tmp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void loadState() throws IOException {
+        List<String> lines = Files.readAllLines(stateFile, StandardCharsets.UTF_8);
+        if (lines.isEmpty()) return;
+        String[] head = lines.get(0).split("\t");
+        if (head.length < 3 || !"caldav".equals(head[0])) return;
+        try {
+            for (String line : lines.subList(1, lines.size())) {
+                String[] f = line.split("\t");
+                if (f.length < 4) continue;
+                byUid.put(f[0], new Resource(f[1], dashToNull(f[2]), Long.parseLong(f[3]), null));
+                uidByHref.put(f[1], f[0]);
+            }
+            syncToken = dashToNull(head[1]);
+            ctag = dashToNull(head[2]);
+            // Nur ctag bekannt: der Server unterstützt kein sync-collection
+            syncCollection = syncToken != null || ctag == null;
+        } catch (NumberFormatException e) {
+            // Beschädigt: vollständig neu abgleichen
+            byUid.clear();
+            uidByHref.clear();
+        }
+    }
+
+    private static String orDash(String s) {
+        return s == null || s.isEmpty() ? "-" : s;
+    }
+
+    private static String dashToNull(String s) {
+        return "-".equals(s) ? null : s;
+    }
+}
@@ -0,0 +1,588 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Kommandozeile für den Stapelbetrieb ohne Oberfläche ({@code convert}, {@code merge},
+ * {@code split}, {@code stats}, {@code generate}).
+ *
+ * Eingaben sind Dateien, Verzeichnisse (rekursiv alle {@code .ics}/{@code .vcs}, auch
+ * {@code .gz}) oder {@code -} für die Standardeingabe; {@code -o -} bzw. ein fehlendes
+ * {@code -o} schreibt auf die Standardausgabe. Mehrere Dateien werden in einem Pool mit
+ * {@code --threads} Threads gleichzeitig gelesen. Termine werden fortlaufend über
+ * {@link IcsUtil#streamEvents} und {@link IcsUtil.EventWriter} durchgereicht, sodass nie ein
+ * ganzer Kalender im Speicher liegt. Der Durchsatz (Termine/s) wird auf stderr gemeldet.
+ *
+ * {@code convert} in ein Verzeichnis behält den Pfad relativ zum Eingabeverzeichnis bei; würden
+ * zwei Eingaben dieselbe Ausgabedatei ergeben (z. B. {@code x.ics} und {@code x.vcs}), wird der
+ * Aufruf abgewiesen. {@code merge} und {@code split} schreiben die Termine in Quellenreihenfolge
+ * (Reihenfolge der Argumente, Verzeichnisse sortiert); bei {@code merge} gewinnt bei doppelter
+ * UID das erste Vorkommen in dieser Reihenfolge.
+ */
+public final class CalendarCli {
+
+    static final String USAGE = String.join("\n",
+            "Verwendung:",
+            "  convert <eingabe...> [-o <datei|verzeichnis|->] [--format=ics|vcs]",
+            "  merge   <eingabe...> [-o <datei|->] [--format=ics|vcs]   (doppelte UID: erste Quelle gewinnt)",
+            "  split   <eingabe...> -o <verzeichnis> [--by=month|year|category] [--format=ics|vcs]",
+            "  stats   <eingabe...>",
+            "  generate -o <datei|-> [--format=ics|vcs] [--events=<n>] [--seed=<n>] [--start=<yyyy-MM-dd>]",
+            "           [--spread-days=<n>] [--overlap=<0..1>] [--recurrence=<0..1>] [--categories=<n>]",
+            "           [--description=<bytes>] [--huge-share=<0..1>] [--huge-bytes=<n>] [--alarms=<0..1>] [--fold=true|false]",
+            "Optionen: --threads=<n> (Standard: Anzahl Prozessoren)");
+
+    /** Anzahl Stapel, die zwischen Lese-Threads und Schreiber gepuffert werden. */
+    static final int QUEUE_BATCHES = 16;
+
+    /**
+     * Höchstzahl gleichzeitig offener Ausgabedateien bei {@code split}; weitere Dateien werden
+     * unterbrochen und bei Bedarf im Anhängemodus fortgesetzt.
+     */
+    static final int MAX_OPEN_SPLIT_FILES = 64;
+
+    /**
+     * Eingabequelle; ohne Pfad die Standardeingabe. {@code relative} ist der Pfad relativ zum
+     * angegebenen Verzeichnis (bei Dateien nur der Dateiname) und bestimmt den Ausgabenamen.
+     */
+    private record Source(String name, Path path, Path relative) {
+    }
+
+    /** Kennzahlen einer Quelle für {@code stats}. */
+    private static final class Stats {
+        long count;
+        LocalDateTime first;
+        LocalDateTime last;
+        final Map<String, Long> categories = new TreeMap<>();
+
+        void add(EntryValue v) {
+            count++;
+            if (first == null || v.start().isBefore(first)) first = v.start();
+            if (last == null || v.end().isAfter(last)) last = v.end();
+            categories.merge(v.category() != null ? v.category() : "(ohne)", 1L, Long::sum);
+        }
+
+        void add(Stats other) {
+            count += other.count;
+            if (other.first != null && (first == null || other.first.isBefore(first))) first = other.first;
+            if (other.last != null && (last == null || other.last.isAfter(last))) last = other.last;
+            other.categories.forEach((k, n) -> categories.merge(k, n, Long::sum));
+        }
+    }
+
+    /** Befehlszeile nach dem Zerlegen. */
+    private static final class Options {
+        String command;
+        final List<String> inputs = new ArrayList<>();
+        String output;
+        String format;
+        String by = "month";
+        int threads = Runtime.getRuntime().availableProcessors();
+        /** Generator-Optionen für {@code generate} (ohne führendes {@code --}). */
+        final Map<String, String> generator = new HashMap<>();
+    }
+
+    private final InputStream stdin;
+    private final PrintStream stdout;
+    private final PrintStream stderr;
+    private boolean stdinUsed;
+
+    private CalendarCli(InputStream stdin, PrintStream stdout, PrintStream stderr) {
+        this.stdin = stdin;
+        this.stdout = stdout;
+        this.stderr = stderr;
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.in, System.out, System.err));
+    }
+
+    /**
+     * Führt einen Befehl aus.
+     *
+     * @return Exit-Code: 0 bei Erfolg, 1 bei Fehlern einzelner Eingaben, 2 bei falscher Verwendung
+     */
+    static int run(String[] args, InputStream stdin, PrintStream stdout, PrintStream stderr) {
+        Options o;
+        try {
+            o = parse(args);
+        } catch (IllegalArgumentException e) {
+            stderr.println(e.getMessage());
+            stderr.println(USAGE);
+            return 2;
+        }
+        CalendarCli cli = new CalendarCli(stdin, stdout, stderr);
+        long t0 = System.nanoTime();
+        try {
+            if (o.command.equals("generate")) {
+                long events = cli.generate(o);
+                double seconds = Math.max(1e-9, (System.nanoTime() - t0) / 1e9);
+                stderr.printf(Locale.ROOT, "[CLI] generate: %d Termine in %.2f s (%.0f Termine/s)%n",
+                        events, seconds, events / seconds);
+                return 0;
+            }
+            List<Source> sources = cli.expand(o.inputs);
+            if (sources.isEmpty()) throw new IllegalArgumentException("Keine Kalenderdateien gefunden");
+            AtomicInteger failed = new AtomicInteger();
+            long events = switch (o.command) {
+                case "convert" -> cli.convert(o, sources, failed);
+                case "merge" -> cli.merge(o, sources, failed, false);
+                case "split" -> cli.merge(o, sources, failed, true);
+                case "stats" -> cli.stats(o, sources, failed);
+                default -> throw new IllegalArgumentException("Unbekannter Befehl: " + o.command);
+            };
+            double seconds = Math.max(1e-9, (System.nanoTime() - t0) / 1e9);
+            stderr.printf(Locale.ROOT, "[CLI] %s: %d Termine aus %d Quelle(n) in %.2f s (%.0f Termine/s)%n",
+                    o.command, events, sources.size(), seconds, events / seconds);
+            return failed.get() > 0 ? 1 : 0;
+        } catch (IllegalArgumentException e) {
+            stderr.println(e.getMessage());
+            stderr.println(USAGE);
+            return 2;
+        } catch (Exception e) {
+            stderr.println("[CLI] Fehler: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static Options parse(String[] args) {
+        if (args.length == 0) throw new IllegalArgumentException("Kein Befehl angegeben");
+        Options o = new Options();
+        o.command = args[0];
+        for (int i = 1; i < args.length; i++) {
+            String a = args[i];
+            if (a.equals("-o") || a.equals("--output")) {
+                if (++i >= args.length) throw new IllegalArgumentException("Nach " + a + " fehlt die Ausgabe");
+                o.output = args[i];
+            } else if (a.startsWith("--output=")) {
+                o.output = a.substring("--output=".length());
+            } else if (a.startsWith("--format=")) {
+                o.format = a.substring("--format=".length()).toLowerCase(Locale.ROOT);
+                if (!o.format.equals("ics") && !o.format.equals("vcs")) throw new IllegalArgumentException("Unbekanntes Format: " + o.format);
+            } else if (a.startsWith("--by=")) {
+                o.by = a.substring("--by=".length()).toLowerCase(Locale.ROOT);
+                if (!Set.of("month", "year", "category").contains(o.by)) throw new IllegalArgumentException("Unbekannte Aufteilung: " + o.by);
+            } else if (a.startsWith("--threads=")) {
+                try {
+                    o.threads = Math.max(1, Integer.parseInt(a.substring("--threads=".length())));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Ungültige Thread-Anzahl: " + a);
+                }
+            } else if (o.command.equals("generate") && a.startsWith("--") && a.indexOf('=') > 2
+                    && SyntheticCalendar.Spec.KEYS.contains(a.substring(2, a.indexOf('=')))) {
+                o.generator.put(a.substring(2, a.indexOf('=')), a.substring(a.indexOf('=') + 1));
+            } else if (a.startsWith("--")) {
+                throw new IllegalArgumentException("Unbekannte Option: " + a);
+            } else {
+                o.inputs.add(a);
+            }
+        }
+        if (o.command.equals("generate")) {
+            if (!o.inputs.isEmpty()) throw new IllegalArgumentException("generate erwartet keine Eingaben");
+            if (o.output == null) throw new IllegalArgumentException("generate benötigt eine Ausgabe (-o)");
+            return o;
+        }
+        if (o.inputs.isEmpty()) throw new IllegalArgumentException("Keine Eingabe angegeben");
+        if (o.command.equals("split") && (o.output == null || o.output.equals("-"))) {
+            throw new IllegalArgumentException("split benötigt ein Ausgabeverzeichnis (-o)");
+        }
+        return o;
+    }
+
+    /** Löst Verzeichnisse rekursiv in Kalenderdateien auf (sortiert). */
+    private List<Source> expand(List<String> inputs) throws Exception {
+        List<Source> out = new ArrayList<>();
+        for (String in : inputs) {
+            if (in.equals("-")) {
+                out.add(new Source("<stdin>", null, Paths.get("stdin.ics")));
+                continue;
+            }
+            Path p = Paths.get(in);
+            if (Files.isDirectory(p)) {
+                try (Stream<Path> files = Files.walk(p)) {
+                    files.filter(Files::isRegularFile).filter(CalendarCli::isCalendarFile).sorted()
+                            .forEach(f -> out.add(new Source(f.toString(), f, p.relativize(f))));
+                }
+            } else if (Files.isRegularFile(p)) {
+                out.add(new Source(p.toString(), p, p.getFileName()));
+            } else {
+                throw new IllegalArgumentException("Eingabe nicht gefunden: " + in);
+            }
+        }
+        return out;
+    }
+
+    private static boolean isCalendarFile(Path p) {
+        String name = baseName(p.getFileName().toString()).toLowerCase(Locale.ROOT);
+        return name.endsWith(".ics") || name.endsWith(".vcs");
+    }
+
+    /** Dateiname ohne {@code .gz}. */
+    private static String baseName(String name) {
+        return name.toLowerCase(Locale.ROOT).endsWith(IcsUtil.GZIP_SUFFIX)
+                ? name.substring(0, name.length() - IcsUtil.GZIP_SUFFIX.length()) : name;
+    }
+
+    private InputStream open(Source s) throws Exception {
+        if (s.path() != null) return IcsUtil.openForStreaming(s.path());
+        synchronized (this) {
+            if (stdinUsed) throw new IllegalArgumentException("Standardeingabe kann nur einmal gelesen werden");
+            stdinUsed = true;
+        }
+        // Standardeingabe nicht schließen
+        return new java.io.FilterInputStream(stdin) {
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /** Ausgabestrom zu {@code target}; {@code -} bzw. {@code null} ist die Standardausgabe (bleibt offen). */
+    private OutputStream create(String target) throws Exception {
+        if (target == null || target.equals("-")) {
+            return new BufferedOutputStream(new java.io.FilterOutputStream(stdout) {
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    stdout.write(b, off, len);
+                }
+
+                @Override
+                public void close() {
+                    stdout.flush();
+                }
+            }, 1 << 16);
+        }
+        Path p = Paths.get(target);
+        if (p.getParent() != null) Files.createDirectories(p.getParent());
+        return IcsUtil.createForStreaming(p);
+    }
+
+    /** Zielformat: {@code --format}, sonst nach Endung der Ausgabe, sonst ICS. */
+    private static boolean isVcs(Options o, String target) {
+        if (o.format != null) return o.format.equals("vcs");
+        return target != null && baseName(target).toLowerCase(Locale.ROOT).endsWith(".vcs");
+    }
+
+    // --- convert ---
+
+    private long convert(Options o, List<Source> sources, AtomicInteger failed) throws Exception {
+        boolean toDirectory = o.output != null && !o.output.equals("-")
+                && (sources.size() > 1 || Files.isDirectory(Paths.get(o.output)) || o.output.endsWith("/"));
+        if (!toDirectory) {
+            if (sources.size() > 1) throw new IllegalArgumentException("Mehrere Eingaben benötigen ein Ausgabeverzeichnis (-o)");
+            try (InputStream in = open(sources.get(0)); OutputStream out = create(o.output)) {
+                return copy(in, out, isVcs(o, o.output));
+            }
+        }
+        Path dir = Paths.get(o.output);
+        boolean vcs = o.format != null && o.format.equals("vcs");
+        List<Path> targets = convertTargets(dir, sources, vcs);
+        Files.createDirectories(dir);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(o.threads, sources.size()));
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < sources.size(); i++) {
+                Source s = sources.get(i);
+                Path target = targets.get(i);
+                results.add(pool.submit(() -> {
+                    try (InputStream in = open(s); OutputStream out = create(target.toString())) {
+                        return copy(in, out, vcs);
+                    }
+                }));
+            }
+            return collect(sources, results, failed);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Ausgabedatei je Quelle: relativer Pfad der Quelle unter {@code dir} mit der Endung des
+     * Zielformats. Gleiche Ziele (ohne Beachtung der Groß-/Kleinschreibung) oder ein Ziel, das
+     * eine Eingabe überschreiben würde, werden vor dem ersten Schreiben abgewiesen.
+     */
+    private static List<Path> convertTargets(Path dir, List<Source> sources, boolean vcs) throws Exception {
+        List<Path> targets = new ArrayList<>(sources.size());
+        Map<String, Source> byTarget = new HashMap<>();
+        for (Source s : sources) {
+            String base = baseName(s.relative().getFileName().toString());
+            int dot = base.lastIndexOf('.');
+            String name = (dot > 0 ? base.substring(0, dot) : base) + (vcs ? ".vcs" : ".ics");
+            Path parent = s.relative().getParent();
+            Path target = (parent != null ? dir.resolve(parent) : dir).resolve(name).normalize();
+            Source other = byTarget.putIfAbsent(target.toAbsolutePath().toString().toLowerCase(Locale.ROOT), s);
+            if (other != null) {
+                throw new IllegalArgumentException("Gleiche Ausgabedatei " + target + " für " + other.name() + " und " + s.name());
+            }
+            if (s.path() != null && Files.exists(target) && Files.isSameFile(target, s.path())) {
+                throw new IllegalArgumentException("Ausgabe würde die Eingabe überschreiben: " + s.name());
+            }
+            targets.add(target);
+        }
+        return targets;
+    }
+
+    private static long copy(InputStream in, OutputStream out, boolean vcs) throws Exception {
+        IcsUtil.EventWriter writer = new IcsUtil.EventWriter(out, vcs);
+        try (writer) {
+            IcsUtil.streamEvents(in, writer::write);
+        }
+        return writer.getCount();
+    }
+
+    // --- merge / split ---
+
+    /**
+     * Liest die Quellen gleichzeitig und reicht ihre Termine stapelweise über je eine begrenzte
+     * Warteschlange an einen einzigen Schreiber weiter. Der Schreiber leert die Warteschlangen
+     * in Quellenreihenfolge; spätere Quellen lesen bis zu {@link #QUEUE_BATCHES} Stapel voraus.
+     * Die Leser starten in derselben Reihenfolge, daher läuft die gerade geleerte Quelle immer.
+     * Bei {@code merge} wird jeder Termin (UID, bei Serienausnahmen mit RECURRENCE-ID) nur einmal
+     * geschrieben, und zwar sein erstes Vorkommen in Quellenreihenfolge (im Speicher liegen dafür
+     * nur die Schlüssel). Bricht der Schreiber ab, reihen unterbrochene Leser nichts mehr ein.
+     */
+    private long merge(Options o, List<Source> sources, AtomicInteger failed, boolean split) throws Exception {
+        List<BlockingQueue<List<EntryValue>>> queues = new ArrayList<>(sources.size());
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(o.threads, sources.size()));
+        List<Future<Long>> results = new ArrayList<>();
+        for (Source s : sources) {
+            BlockingQueue<List<EntryValue>> queue = new ArrayBlockingQueue<>(QUEUE_BATCHES);
+            queues.add(queue);
+            results.add(pool.submit(() -> {
+                List<EntryValue> chunk = new ArrayList<>(IcsUtil.STREAM_BATCH);
+                try (InputStream in = open(s)) {
+                    return IcsUtil.streamEvents(in, v -> {
+                        chunk.add(v);
+                        if (chunk.size() >= IcsUtil.STREAM_BATCH) {
+                            queue.put(new ArrayList<>(chunk));
+                            chunk.clear();
+                        }
+                    });
+                } catch (InterruptedException e) {
+                    // Abbruch über shutdownNow: es liest niemand mehr, put würde ewig warten
+                    Thread.currentThread().interrupt();
+                    throw e;
+                } finally {
+                    if (!Thread.currentThread().isInterrupted()) {
+                        if (!chunk.isEmpty()) queue.put(new ArrayList<>(chunk));
+                        // Leerer Stapel: Quelle beendet
+                        queue.put(List.of());
+                    }
+                }
+            }));
+        }
+        pool.shutdown();
+
+        long written;
+        try {
+            written = split ? writeSplit(o, queues) : writeMerged(o, queues);
+        } catch (Exception e) {
+            pool.shutdownNow();
+            throw e;
+        }
+        long read = collect(sources, results, failed);
+        if (!split && read > written) stderr.println("[CLI] Doppelte UIDs übersprungen: " + (read - written));
+        return written;
+    }
+
+    /** Übergibt alle Termine der Warteschlangen in Quellenreihenfolge an {@code sink}. */
+    private static void drain(List<BlockingQueue<List<EntryValue>>> queues, IcsUtil.EventSink sink) throws Exception {
+        for (BlockingQueue<List<EntryValue>> queue : queues) {
+            // Leerer Stapel: Quelle beendet
+            for (List<EntryValue> chunk = queue.take(); !chunk.isEmpty(); chunk = queue.take()) {
+                for (EntryValue v : chunk) sink.accept(v);
+            }
+        }
+    }
+
+    private long writeMerged(Options o, List<BlockingQueue<List<EntryValue>>> queues) throws Exception {
+        Set<String> seen = new HashSet<>();
+        long[] written = new long[1];
+        try (OutputStream out = create(o.output);
+             IcsUtil.EventWriter writer = new IcsUtil.EventWriter(out, isVcs(o, o.output))) {
+            drain(queues, v -> {
+                if (v.uid() != null && !seen.add(v.key())) return;
+                writer.write(v);
+                written[0]++;
+            });
+        }
+        return written[0];
+    }
+
+    /**
+     * Verteilt die Termine nach Monat, Jahr oder Kategorie auf je eine Datei im Ausgabeverzeichnis.
+     * Schlüssel, die sich nur in Groß-/Kleinschreibung unterscheiden, landen in derselben Datei
+     * (Name nach dem ersten Vorkommen), da sie auf manchen Dateisystemen ohnehin dieselbe Datei
+     * wären. Höchstens {@link #MAX_OPEN_SPLIT_FILES} Dateien sind gleichzeitig offen; die am
+     * längsten unbenutzte wird unterbrochen und bei Bedarf im Anhängemodus fortgesetzt.
+     */
+    private long writeSplit(Options o, List<BlockingQueue<List<EntryValue>>> queues) throws Exception {
+        Path dir = Paths.get(o.output);
+        Files.createDirectories(dir);
+        boolean vcs = o.format != null && o.format.equals("vcs");
+        String suffix = vcs ? ".vcs" : ".ics";
+        Map<String, Path> files = new HashMap<>();
+        Map<String, OutputStream> streams = new HashMap<>();
+        // Zugriffsreihenfolge: der älteste Eintrag ist die am längsten unbenutzte Datei
+        Map<String, IcsUtil.EventWriter> writers = new LinkedHashMap<>(16, 0.75f, true);
+        long[] written = new long[1];
+        Exception failure = null;
+        try {
+            drain(queues, v -> {
+                String key = splitKey(o.by, v);
+                String folded = key.toLowerCase(Locale.ROOT);
+                IcsUtil.EventWriter w = writers.get(folded);
+                if (w == null) {
+                    if (writers.size() >= MAX_OPEN_SPLIT_FILES) {
+                        Map.Entry<String, IcsUtil.EventWriter> eldest = writers.entrySet().iterator().next();
+                        eldest.getValue().flush();
+                        streams.remove(eldest.getKey()).close();
+                        writers.remove(eldest.getKey());
+                    }
+                    Path file = files.get(folded);
+                    OutputStream out;
+                    if (file == null) {
+                        file = dir.resolve(key + suffix);
+                        files.put(folded, file);
+                        out = create(file.toString());
+                        w = new IcsUtil.EventWriter(out, vcs);
+                    } else {
+                        out = append(file);
+                        w = new IcsUtil.EventWriter(out, vcs, false);
+                    }
+                    streams.put(folded, out);
+                    writers.put(folded, w);
+                }
+                w.write(v);
+                written[0]++;
+            });
+        } catch (Exception e) {
+            failure = e;
+        }
+        // Offene Dateien abschließen, unterbrochene um den Abschluss ergänzen
+        for (Map.Entry<String, Path> e : files.entrySet()) {
+            try {
+                IcsUtil.EventWriter w = writers.get(e.getKey());
+                OutputStream out = streams.get(e.getKey());
+                if (w == null) {
+                    out = append(e.getValue());
+                    w = new IcsUtil.EventWriter(out, vcs, false);
+                }
+                try {
+                    w.close();
+                } finally {
+                    out.close();
+                }
+            } catch (Exception ex) {
+                if (failure == null) failure = ex;
+            }
+        }
+        if (failure != null) throw failure;
+        stderr.println("[CLI] Aufgeteilt in " + files.size() + " Datei(en) unter " + dir);
+        return written[0];
+    }
+
+    private static OutputStream append(Path file) throws IOException {
+        return new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.APPEND), 1 << 16);
+    }
+
+    static String splitKey(String by, EntryValue v) {
+        return switch (by) {
+            case "year" -> String.format(Locale.ROOT, "%04d", v.start().getYear());
+            case "category" -> {
+                String c = v.category() != null && !v.category().isBlank() ? v.category() : "allgemein";
+                yield c.replaceAll("[^\\p{L}\\p{N}._-]+", "_");
+            }
+            default -> String.format(Locale.ROOT, "%04d-%02d", v.start().getYear(), v.start().getMonthValue());
+        };
+    }
+
+    // --- generate ---
+
+    /** Schreibt einen synthetischen Kalender ({@link SyntheticCalendar}) nach {@code -o}. */
+    private long generate(Options o) throws Exception {
+        SyntheticCalendar.Spec spec = SyntheticCalendar.Spec.parse(o.generator);
+        try (OutputStream out = create(o.output)) {
+            return SyntheticCalendar.write(spec, out, isVcs(o, o.output));
+        }
+    }
+
+    // --- stats ---
+
+    private long stats(Options o, List<Source> sources, AtomicInteger failed) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(o.threads, sources.size()));
+        try {
+            List<Future<Stats>> results = new ArrayList<>();
+            for (Source s : sources) {
+                results.add(pool.submit(() -> {
+                    Stats st = new Stats();
+                    try (InputStream in = open(s)) {
+                        IcsUtil.streamEvents(in, st::add);
+                    }
+                    return st;
+                }));
+            }
+            Stats total = new Stats();
+            for (int i = 0; i < sources.size(); i++) {
+                try {
+                    Stats st = results.get(i).get();
+                    total.add(st);
+                    stdout.println(sources.get(i).name() + ": " + describe(st));
+                } catch (java.util.concurrent.ExecutionException e) {
+                    failed.incrementAndGet();
+                    stderr.println("[CLI] " + sources.get(i).name() + ": " + e.getCause().getMessage());
+                }
+            }
+            stdout.println("Gesamt: " + describe(total));
+            StringBuilder cats = new StringBuilder("Kategorien:");
+            total.categories.forEach((k, n) -> cats.append(' ').append(k).append('=').append(n));
+            stdout.println(cats);
+            stdout.flush();
+            return total.count;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static String describe(Stats st) {
+        if (st.count == 0) return "0 Termine";
+        return st.count + " Termine, " + st.first.toLocalDate() + " bis " + st.last.toLocalDate();
+    }
+
+    /** Wartet auf alle Quellen; Fehler einzelner Quellen werden gemeldet und gezählt. */
+    private long collect(List<Source> sources, List<Future<Long>> results, AtomicInteger failed) throws InterruptedException {
+        long total = 0;
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                total += results.get(i).get();
+            } catch (java.util.concurrent.ExecutionException e) {
+                failed.incrementAndGet();
+                stderr.println("[CLI] " + sources.get(i).name() + ": " + e.getCause().getMessage());
+            }
+        }
+        return total;
+    }
+}
@@ -1,4 +1,5 @@
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -16,6 +17,11 @@ public class CalendarEntry {
     // Optionale Eigenschaften
     private Integer reminderMinutesBefore; // Minuten vor Beginn für Erinnerung
     private String category;               // Logische Kategorie/Label
+    private LazyText lazyDescription;      // Ausgelagerte, noch nicht geladene Beschreibung
+    private List<AttachmentRef> attachments = List.of(); // Beim Import abgelegte ATTACH-Eigenschaften
+    private String uid;                    // iCalendar-UID (stabil über Speichervorgänge)
+    private String recurrenceId;           // RECURRENCE-ID einer Ausnahme (Rohtext ohne Namen)
+    private String extraProperties;        // Unbekannte X-Eigenschaften aus dem Import (Rohtext)
 
     /** Standardkonstruktor. */
     public CalendarEntry() {}
@@ -45,8 +51,28 @@ public class CalendarEntry {
     public String getTitle() { return title; }
     public void setTitle(String title) { this.title = title; }
 
-    public String getDescription() { return description; }
-    public void setDescription(String description) { this.description = description; }
+    /** Liefert die Beschreibung; eine ausgelagerte Beschreibung wird beim ersten Zugriff geladen. */
+    public String getDescription() {
+        if (lazyDescription != null) {
+            description = lazyDescription.load();
+            lazyDescription = null;
+        }
+        return description;
+    }
+    public void setDescription(String description) {
+        this.description = description;
+        this.lazyDescription = null;
+    }
+
+    /** Ausgelagerte Beschreibung (null, wenn bereits geladen oder nie ausgelagert). */
+    public LazyText getLazyDescription() { return lazyDescription; }
+    /** Setzt eine Beschreibung, die erst bei Bedarf aus dem Seitenspeicher geladen wird. */
+    public void setLazyDescription(LazyText lazyDescription) {
+        this.lazyDescription = lazyDescription;
+        this.description = null;
+    }
+    /** Gibt an, ob die Beschreibung im Speicher liegt (nicht mehr ausgelagert ist). */
+    public boolean isDescriptionLoaded() { return lazyDescription == null; }
 
     public LocalDateTime getStart() { return start; }
     public void setStart(LocalDateTime start) { this.start = start; }
@@ -60,6 +86,23 @@ public class CalendarEntry {
     public String getCategory() { return category; }
     public void setCategory(String category) { this.category = category; }
 
+    public String getUid() { return uid; }
+    public void setUid(String uid) { this.uid = uid; }
+
+    /** RECURRENCE-ID einer Serienausnahme als Rohtext ohne Eigenschaftsnamen, sonst null. */
+    public String getRecurrenceId() { return recurrenceId; }
+    public void setRecurrenceId(String recurrenceId) { this.recurrenceId = recurrenceId; }
+
+    /** Unbekannte X-Eigenschaften des Originals als unveränderter iCalendar-Text (oder null). */
+    public String getExtraProperties() { return extraProperties; }
+    public void setExtraProperties(String extraProperties) { this.extraProperties = extraProperties; }
+
+    /** Beim Import abgelegte Anhänge (unveränderliche Liste, nie null). */
+    public List<AttachmentRef> getAttachments() { return attachments; }
+    public void setAttachments(List<AttachmentRef> attachments) {
+        this.attachments = attachments != null ? List.copyOf(attachments) : List.of();
+    }
+
     @Override
     public String toString() {
         return "CalendarEntry{" +
@@ -0,0 +1,395 @@
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Kopfloser Modus: veröffentlicht den konfigurierten Kalender als ICS über HTTP.
+ *
+ * {@code GET /calendar.ics} liefert den ganzen Kalender, optional gefiltert über
+ * {@code ?from=&to=&category=} (Datum {@code 2025-01-31} oder Zeitpunkt {@code 2025-01-31T08:00};
+ * geliefert werden Termine, die {@code [from, to)} berühren). Antworten werden einmal
+ * serialisiert (unkomprimiert und GZIP) und mit starkem ETag zwischengespeichert, gefilterte
+ * Antworten in einem nach Bytes begrenzten Cache je Abfrage (große Antworten werden nicht
+ * zwischengespeichert). {@link #publish} ersetzt den Stand und
+ * verwirft damit alle zwischengespeicherten Antworten.
+ *
+ * Bereichsabfragen laufen über einen nach Start sortierten Index (je Kategorie ein eigener),
+ * begrenzt durch die längste Termindauer; Anfragen werden in virtuellen Threads bearbeitet.
+ */
+public final class CalendarServer implements AutoCloseable {
+
+    static final String PATH = "/calendar.ics";
+    static final String CONTENT_TYPE = "text/calendar; charset=UTF-8";
+    /** Höchstgröße (unkomprimiert plus GZIP) aller zwischengespeicherten gefilterten Antworten je Stand. */
+    static final long QUERY_CACHE_BYTES = 32L << 20;
+    /** Gefilterte Antworten ab dieser Größe (unkomprimiert plus GZIP) werden nicht zwischengespeichert. */
+    static final long QUERY_CACHE_MAX_ENTRY = 2L << 20;
+
+    /** Einmal serialisierte Antwort mit ETags für beide Kodierungen. */
+    record Response(byte[] plain, byte[] gzip, String etag, String gzipEtag, int count) {
+
+        /** Speicherbedarf beider Kodierungen in Bytes. */
+        long bytes() {
+            return (long) plain.length + gzip.length;
+        }
+    }
+
+    /**
+     * LRU-Cache für gefilterte Antworten, begrenzt durch die Summe von {@link Response#bytes()}.
+     * Antworten ab {@code maxEntry} Bytes werden nicht aufgenommen.
+     */
+    static final class QueryCache {
+        private final long maxBytes;
+        private final long maxEntry;
+        private final LinkedHashMap<String, Response> map = new LinkedHashMap<>(16, 0.75f, true);
+        private long bytes;
+
+        QueryCache(long maxBytes, long maxEntry) {
+            this.maxBytes = maxBytes;
+            this.maxEntry = maxEntry;
+        }
+
+        synchronized Response get(String key) {
+            return map.get(key);
+        }
+
+        synchronized void put(String key, Response r) {
+            if (r.bytes() >= maxEntry) return;
+            Response old = map.put(key, r);
+            if (old != null) bytes -= old.bytes();
+            bytes += r.bytes();
+            var it = map.values().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                bytes -= it.next().bytes();
+                it.remove();
+            }
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+
+        synchronized long bytes() {
+            return bytes;
+        }
+    }
+
+    /** Unveränderlicher veröffentlichter Stand mit Index und Antwort-Cache. */
+    private static final class Published {
+        final List<EntryValue> byStart;
+        final Map<String, List<EntryValue>> byCategory = new HashMap<>();
+        final long maxDuration;
+        final Response full;
+        final QueryCache queries = new QueryCache(QUERY_CACHE_BYTES, QUERY_CACHE_MAX_ENTRY);
+
+        Published(List<EntryValue> values) throws IOException {
+            List<EntryValue> sorted = new ArrayList<>(values);
+            sorted.sort(Comparator.comparingLong(EntryValue::startEpoch));
+            byStart = Collections.unmodifiableList(sorted);
+            long max = 0;
+            for (EntryValue v : sorted) {
+                max = Math.max(max, v.endEpoch() - v.startEpoch());
+                byCategory.computeIfAbsent(categoryKey(v.category()), k -> new ArrayList<>()).add(v);
+            }
+            maxDuration = max;
+            full = serialize(byStart);
+        }
+
+        /** Termine, die {@code [from, to)} berühren, aus dem Startindex. */
+        List<EntryValue> range(List<EntryValue> index, long from, long to) {
+            int i = lowerBound(index, from - maxDuration);
+            List<EntryValue> out = new ArrayList<>();
+            for (; i < index.size() && index.get(i).startEpoch() < to; i++) {
+                EntryValue v = index.get(i);
+                if (v.endEpoch() > from || v.startEpoch() >= from) out.add(v);
+            }
+            return out;
+        }
+
+        private static int lowerBound(List<EntryValue> index, long epoch) {
+            int lo = 0, hi = index.size();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (index.get(mid).startEpoch() < epoch) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    static {
+        // Ohne TCP_NODELAY verzögert Nagle kleine Antworten auf Keep-Alive-Verbindungen um ~40 ms
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile Published published;
+
+    private CalendarServer(HttpServer server) {
+        this.server = server;
+    }
+
+    /** Startet den Server; bis zum ersten {@link #publish} ist der Kalender leer. */
+    public static CalendarServer start(InetSocketAddress address) throws IOException {
+        CalendarServer cs = new CalendarServer(HttpServer.create(address, 0));
+        cs.publish(List.of());
+        cs.server.setExecutor(cs.executor);
+        cs.server.createContext("/", cs::handle);
+        cs.server.start();
+        return cs;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /** Veröffentlicht einen neuen Stand und verwirft alle zwischengespeicherten Antworten. */
+    public void publish(List<EntryValue> values) throws IOException {
+        published = new Published(values);
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        try {
+            String path = ex.getRequestURI().getPath();
+            if (!PATH.equals(path) && !"/".equals(path)) {
+                send(ex, 404, "Nicht gefunden\n");
+                return;
+            }
+            boolean head = "HEAD".equals(ex.getRequestMethod());
+            if (!head && !"GET".equals(ex.getRequestMethod())) {
+                ex.getResponseHeaders().set("Allow", "GET, HEAD");
+                send(ex, 405, "Methode nicht erlaubt\n");
+                return;
+            }
+            Response response;
+            try {
+                response = lookup(published, ex.getRequestURI().getRawQuery());
+            } catch (IllegalArgumentException e) {
+                send(ex, 400, e.getMessage() + "\n");
+                return;
+            }
+            respond(ex, response, head);
+        } finally {
+            ex.close();
+        }
+    }
+
+    /** Liefert die (zwischengespeicherte) Antwort zu einer Abfrage. */
+    private static Response lookup(Published p, String rawQuery) throws IOException {
+        if (rawQuery == null || rawQuery.isEmpty()) return p.full;
+        Map<String, String> q = parseQuery(rawQuery);
+        String key = q.getOrDefault("from", "") + "|" + q.getOrDefault("to", "") + "|"
+                + q.getOrDefault("category", "").toLowerCase(Locale.ROOT);
+        if ("||".equals(key)) return p.full;
+        Response cached = p.queries.get(key);
+        if (cached != null) return cached;
+
+        List<EntryValue> index = p.byStart;
+        if (q.containsKey("category")) {
+            index = p.byCategory.getOrDefault(categoryKey(q.get("category")), List.of());
+        }
+        long from = q.containsKey("from") ? parseTime(q.get("from")) : Long.MIN_VALUE / 2;
+        long to = q.containsKey("to") ? parseTime(q.get("to")) : Long.MAX_VALUE / 2;
+        List<EntryValue> hits = q.containsKey("from") || q.containsKey("to") ? p.range(index, from, to) : index;
+        Response response = serialize(hits);
+        p.queries.put(key, response);
+        return response;
+    }
+
+    private void respond(HttpExchange ex, Response r, boolean head) throws IOException {
+        Headers in = ex.getRequestHeaders();
+        Headers out = ex.getResponseHeaders();
+        boolean gzip = acceptsGzip(in.getFirst("Accept-Encoding"));
+        String etag = gzip ? r.gzipEtag() : r.etag();
+        out.set("Content-Type", CONTENT_TYPE);
+        out.set("ETag", etag);
+        out.set("Vary", "Accept-Encoding");
+        out.set("Cache-Control", "no-cache");
+
+        String match = in.getFirst("If-None-Match");
+        if (match != null && etagMatches(match, r)) {
+            ex.sendResponseHeaders(304, -1);
+            return;
+        }
+        byte[] body = gzip ? r.gzip() : r.plain();
+        if (gzip) out.set("Content-Encoding", "gzip");
+        if (head) {
+            out.set("Content-Length", Integer.toString(body.length));
+            ex.sendResponseHeaders(200, -1);
+            return;
+        }
+        ex.sendResponseHeaders(200, body.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static void send(HttpExchange ex, int status, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        ex.sendResponseHeaders(status, body.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    static Response serialize(List<EntryValue> values) throws IOException {
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        try {
+            IcsUtil.exportIcsValues(plain, values);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Serialisierung fehlgeschlagen", e);
+        }
+        byte[] bytes = plain.toByteArray();
+        ByteArrayOutputStream zipped = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(zipped)) {
+            gz.write(bytes);
+        }
+        String hash;
+        try {
+            hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes), 0, 16);
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        return new Response(bytes, zipped.toByteArray(), "\"" + hash + "\"", "\"" + hash + "-gz\"", values.size());
+    }
+
+    private static boolean etagMatches(String header, Response r) {
+        for (String tag : header.split(",")) {
+            String t = tag.trim();
+            if (t.equals("*") || t.equals(r.etag()) || t.equals(r.gzipEtag())) return true;
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(String header) {
+        if (header == null) return false;
+        for (String part : header.split(",")) {
+            String[] p = part.trim().split(";");
+            if (!"gzip".equalsIgnoreCase(p[0].trim())) continue;
+            return p.length < 2 || !p[1].trim().replace(" ", "").equals("q=0");
+        }
+        return false;
+    }
+
+    private static Map<String, String> parseQuery(String raw) {
+        Map<String, String> out = new HashMap<>();
+        for (String pair : raw.split("&")) {
+            if (pair.isEmpty()) continue;
+            int eq = pair.indexOf('=');
+            String k = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String v = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            if (!v.isEmpty()) out.put(k, v.trim());
+        }
+        return out;
+    }
+
+    private static long parseTime(String s) {
+        try {
+            if (s.length() <= 10) return LocalEpoch.toSeconds(LocalDate.parse(s).atStartOfDay());
+            return LocalEpoch.toSeconds(LocalDateTime.parse(s));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Ungültiges Datum: " + s);
+        }
+    }
+
+    private static String categoryKey(String category) {
+        return category == null || category.isBlank() ? "allgemein" : category.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    // ----- Kopfloser Start -----
+
+    /** Lädt den Kalender entsprechend {@code storage.mode}. */
+    static List<EntryValue> loadConfigured() throws Exception {
+        switch (ConfigUtil.getStorageMode()) {
+            case "segments":
+                SegmentedIcsStore segments = SegmentedIcsStore.open(ConfigUtil.getSegmentDir(),
+                        SegmentedIcsStore.Granularity.parse(ConfigUtil.getSegmentGranularity()));
+                return EntryValue.snapshot(segments.loadAll());
+            case "db":
+                try (JdbcCalendarStore db = JdbcCalendarStore.open(ConfigUtil.getDbUrl())) {
+                    return EntryValue.snapshot(db.loadAll());
+                }
+            default:
+                Path path = ConfigUtil.getIcsPath();
+                return EntryValue.snapshot(new IcsFileStore(path, false).loadAll());
+        }
+    }
+
+    /**
+     * Startet den Server ohne Oberfläche ({@code --port=}, {@code --bind=}; sonst
+     * {@code server.port}/{@code server.bind}). Im ICS-Modus werden Änderungen an der Datei
+     * automatisch neu veröffentlicht.
+     */
+    public static void main(String[] args) throws Exception {
+        int port = ConfigUtil.getServerPort();
+        String bind = ConfigUtil.getServerBind();
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) port = Integer.parseInt(arg.substring(7));
+            else if (arg.startsWith("--bind=")) bind = arg.substring(7);
+        }
+        CalendarServer cs = start(new InetSocketAddress(bind, port));
+        List<EntryValue> values = loadConfigured();
+        cs.publish(values);
+        System.out.println("[SERVER] " + values.size() + " Termine unter http://" + bind + ":" + cs.getPort() + PATH);
+
+        IcsFileWatcher watcher = null;
+        if ("ics".equals(ConfigUtil.getStorageMode())) {
+            watcher = IcsFileWatcher.start(ConfigUtil.getIcsPath(), hash -> {
+                try {
+                    List<EntryValue> next = loadConfigured();
+                    cs.publish(next);
+                    System.out.println("[SERVER] Neu veröffentlicht: " + next.size() + " Termine");
+                } catch (Exception e) {
+                    System.out.println("[SERVER] Neu laden fehlgeschlagen: " + e.getMessage());
+                }
+            });
+        }
+        IcsFileWatcher w = watcher;
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            cs.close();
+            try {
+                if (w != null) w.close();
+            } catch (Exception ignored) {
+            }
+            stopped.countDown();
+        }, "server-shutdown"));
+        stopped.await();
+    }
+}
@@ -0,0 +1,96 @@
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Schnittstelle der Terminablage.
+ *
+ * Termine werden über ihren Schlüssel ({@link EntryValue#key()}) adressiert: die UID, bei
+ * Ausnahmen einer Serie zusätzlich die RECURRENCE-ID. Implementierungen sind die ICS-Datei
+ * ({@link IcsFileStore}) und eine eingebettete Datenbank über JDBC ({@link JdbcCalendarStore});
+ * ICS bleibt unabhängig davon das Austauschformat für Import und Export.
+ *
+ * Änderungen innerhalb von {@link #inTransaction(Transaction)} werden gemeinsam übernommen oder
+ * bei einer Ausnahme vollständig verworfen.
+ */
+public interface CalendarStore extends AutoCloseable {
+
+    /** Arbeitsschritt innerhalb einer Transaktion. */
+    @FunctionalInterface
+    interface Transaction {
+        void run(CalendarStore store) throws Exception;
+    }
+
+    /** Alle Termine, aufsteigend nach Start. */
+    List<CalendarEntry> loadAll() throws Exception;
+
+    /** Termine, die das Intervall {@code [from, to)} berühren, aufsteigend nach Start. */
+    List<CalendarEntry> findRange(LocalDateTime from, LocalDateTime to) throws Exception;
+
+    /** Fügt Termine ein oder ersetzt Termine mit gleichem Schlüssel. */
+    void upsert(Collection<EntryValue> values) throws Exception;
+
+    /** Löscht die Termine mit den angegebenen Schlüsseln. */
+    void delete(Collection<String> keys) throws Exception;
+
+    /** Führt {@code work} als eine Transaktion aus; verschachtelte Aufrufe laufen in der äußeren mit. */
+    void inTransaction(Transaction work) throws Exception;
+
+    /** Gibt an, ob noch keine Termine abgelegt sind. */
+    boolean isEmpty() throws Exception;
+
+    /**
+     * Gleicht den Bestand mit einem vollständigen Snapshot ab: neue und geänderte Termine werden
+     * geschrieben, fehlende gelöscht. Jeder Termin braucht eine UID
+     * (vergeben beim Import bzw. beim Anlegen).
+     *
+     * @return Anzahl der geschriebenen und gelöschten Termine
+     */
+    default int replaceAll(List<EntryValue> values) throws Exception {
+        Map<String, Long> stored = new HashMap<>();
+        for (CalendarEntry ce : loadAll()) {
+            EntryValue v = EntryValue.of(ce);
+            stored.put(v.key(), v.contentHash());
+        }
+        return applyChanges(stored, values);
+    }
+
+    /**
+     * Schreibt nur die Abweichungen eines Snapshots gegenüber einem bekannten Stand, ohne den
+     * Bestand zu lesen: {@code known} enthält Schlüssel → Inhaltshash der geladenen bzw. zuletzt
+     * geschriebenen Termine. Neue und geänderte Termine werden geschrieben, bekannte, im Snapshot
+     * fehlende gelöscht; nie geladene Termine bleiben unberührt. Danach entspricht {@code known}
+     * dem Snapshot.
+     *
+     * @return Anzahl der geschriebenen und gelöschten Termine
+     */
+    default int applyChanges(Map<String, Long> known, List<EntryValue> values) throws Exception {
+        List<EntryValue> changed = new ArrayList<>();
+        Map<String, Long> next = new HashMap<>(values.size() * 2);
+        for (EntryValue v : values) {
+            String key = v.key();
+            next.put(key, v.contentHash());
+            Long hash = known.get(key);
+            if (hash == null || hash != v.contentHash()) changed.add(v);
+        }
+        List<String> removed = new ArrayList<>();
+        for (String key : known.keySet()) if (!next.containsKey(key)) removed.add(key);
+        if (!changed.isEmpty() || !removed.isEmpty()) {
+            inTransaction(tx -> {
+                if (!changed.isEmpty()) tx.upsert(changed);
+                if (!removed.isEmpty()) tx.delete(removed);
+            });
+        }
+        known.clear();
+        known.putAll(next);
+        return changed.size() + removed.size();
+    }
+
+    /** Schließt die Ablage; nur die Datenbank-Ablage kann dabei scheitern (Verbindung). */
+    @Override
+    void close() throws SQLException;
+}
@@ -0,0 +1,179 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Komprimiertes Archiv (kalte Ebene) für vergangene Termine.
+ *
+ * Je Jahr (nach Startzeitpunkt) gibt es eine GZIP-komprimierte ICS-Datei {@code <jahr>.ics.gz}.
+ * Die Anwendung liest das Archiv nur jahrweise bei Bedarf und ändert archivierte Termine nicht;
+ * geschrieben wird ausschließlich beim Archivieren über {@link #add(Collection)}, wobei Termine
+ * mit gleichem Schlüssel ersetzt werden. Die heiße ICS-Datei enthält danach nur noch die jüngeren Termine.
+ *
+ * Optional ({@code mapped}) liegt je Jahr zusätzlich ein {@link MappedEventStore} ({@code <jahr>.evs})
+ * daneben. Ein Jahr wird dann aus den gemappten Sätzen gelesen statt die ICS-Datei zu entpacken und
+ * zu parsen; fehlt die Datei oder ist sie älter als das ICS-Archiv, wird sie beim Laden neu erzeugt.
+ */
+public final class ColdArchive {
+
+    /** Dateiendung eines Jahresarchivs. */
+    public static final String FILE_SUFFIX = ".ics.gz";
+    /** Dateiendung des gemappten Ereignisspeichers eines Jahres. */
+    public static final String MAPPED_SUFFIX = ".evs";
+
+    private final Path dir;
+    private final boolean mapped;
+    private final TreeSet<Integer> years = new TreeSet<>();
+
+    private ColdArchive(Path dir, boolean mapped) {
+        this.dir = dir;
+        this.mapped = mapped;
+    }
+
+    /** Öffnet das Archiv im Verzeichnis {@code dir}; das Verzeichnis wird erst beim Schreiben angelegt. */
+    public static ColdArchive open(Path dir) throws Exception {
+        return open(dir, false);
+    }
+
+    /**
+     * Wie {@link #open(Path)}; mit {@code mapped} werden Jahre über einen {@link MappedEventStore}
+     * gelesen.
+     */
+    public static ColdArchive open(Path dir, boolean mapped) throws Exception {
+        ColdArchive archive = new ColdArchive(dir, mapped);
+        if (Files.isDirectory(dir)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + FILE_SUFFIX)) {
+                for (Path p : files) {
+                    String name = p.getFileName().toString();
+                    try {
+                        archive.years.add(Integer.parseInt(name.substring(0, name.length() - FILE_SUFFIX.length())));
+                    } catch (NumberFormatException ignored) {
+                        // fremde Datei im Archivverzeichnis
+                    }
+                }
+            }
+        }
+        return archive;
+    }
+
+    public Path getDirectory() {
+        return dir;
+    }
+
+    /** Archivierte Jahre, aufsteigend. */
+    public synchronized List<Integer> years() {
+        return new ArrayList<>(years);
+    }
+
+    public synchronized boolean contains(int year) {
+        return years.contains(year);
+    }
+
+    public synchronized boolean isEmpty() {
+        return years.isEmpty();
+    }
+
+    public Path fileFor(int year) {
+        return dir.resolve(year + FILE_SUFFIX);
+    }
+
+    public Path mappedFileFor(int year) {
+        return dir.resolve(year + MAPPED_SUFFIX);
+    }
+
+    /** Liest die archivierten Termine eines Jahres (leer, wenn es kein Archiv dafür gibt). */
+    public List<CalendarEntry> load(int year) throws Exception {
+        Path file = fileFor(year);
+        if (!Files.exists(file)) return new ArrayList<>();
+        if (mapped) return loadMapped(year);
+        return loadIcs(file);
+    }
+
+    private static List<CalendarEntry> loadIcs(Path file) throws Exception {
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file)), 1 << 16)) {
+            return IcsUtil.importIcs(in);
+        }
+    }
+
+    /** Liest ein Jahr aus dem gemappten Speicher; die Mappings werden danach sofort freigegeben. */
+    private synchronized List<CalendarEntry> loadMapped(int year) throws Exception {
+        Path file = fileFor(year);
+        Path evs = mappedFileFor(year);
+        if (!Files.exists(evs) || Files.getLastModifiedTime(evs).compareTo(Files.getLastModifiedTime(file)) < 0) {
+            List<EntryValue> values = new ArrayList<>(EntryValue.snapshot(loadIcs(file)));
+            values.sort(Comparator.comparingLong(EntryValue::startEpoch));
+            writeMapped(evs, values);
+        }
+        try (MappedEventStore store = MappedEventStore.open(evs)) {
+            return new ArrayList<>(store);
+        }
+    }
+
+    private void writeMapped(Path evs, List<EntryValue> sorted) throws Exception {
+        Path tmp = dir.resolve(evs.getFileName() + ".tmp");
+        MappedEventStore.write(tmp, sorted);
+        Files.move(tmp, evs, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Nimmt Termine ins Archiv auf. Betroffene Jahresdateien werden mit ihrem bisherigen Inhalt
+     * zusammengeführt (gleicher Schlüssel wird ersetzt) und atomar neu geschrieben.
+     *
+     * @return Anzahl der geschriebenen Jahresdateien
+     */
+    public synchronized int add(Collection<EntryValue> values) throws Exception {
+        Map<Integer, List<EntryValue>> byYear = new TreeMap<>();
+        for (EntryValue v : values) {
+            byYear.computeIfAbsent(v.start().getYear(), y -> new ArrayList<>()).add(v);
+        }
+        if (byYear.isEmpty()) return 0;
+        Files.createDirectories(dir);
+
+        for (Map.Entry<Integer, List<EntryValue>> e : byYear.entrySet()) {
+            Map<String, EntryValue> merged = new LinkedHashMap<>();
+            Path existing = fileFor(e.getKey());
+            for (CalendarEntry ce : Files.exists(existing) ? loadIcs(existing) : List.<CalendarEntry>of()) {
+                EntryValue v = EntryValue.of(ce);
+                merged.put(v.key(), v);
+            }
+            for (EntryValue v : e.getValue()) merged.put(v.key(), v);
+            List<EntryValue> list = new ArrayList<>(merged.values());
+            list.sort(Comparator.comparingLong(EntryValue::startEpoch));
+
+            Path file = fileFor(e.getKey());
+            Path tmp = dir.resolve(file.getFileName() + ".tmp");
+            try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)), 1 << 16)) {
+                IcsUtil.exportIcsValues(out, list);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (mapped) writeMapped(mappedFileFor(e.getKey()), list);
+            years.add(e.getKey());
+        }
+        return byYear.size();
+    }
+
+    /** Termine aus {@code values}, deren Ende vor {@code cutoff} liegt. */
+    public static List<EntryValue> olderThan(Collection<EntryValue> values, LocalDateTime cutoff) {
+        List<EntryValue> out = new ArrayList<>();
+        for (EntryValue v : values) {
+            if (v.end().isBefore(cutoff)) out.add(v);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,586 @@
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+
+/**
+ * Spaltenorientierter Speicher für sehr viele Termine (Struct-of-Arrays).
+ *
+ * Statt je Termin ein {@link CalendarEntry} mit Boxing und zwei {@link LocalDateTime}-Objekten
+ * zu halten, liegen die Felder in primitiven Arrays: Start/Ende als lokale Epochensekunden
+ * ({@link LocalEpoch}), Erinnerung und ID als {@code int}, Kategorien als Ordinalzahlen und
+ * Texte als Indizes in eine String-Tabelle mit Referenzzählung (ersetzte Texte werden wieder frei). Seltene Felder (UID, X-Eigenschaften, Anhänge,
+ * ausgelagerte Beschreibung) liegen in eigenen Objektspalten. Nach {@link #sortByStart()} sind Bereichsabfragen
+ * per Binärsuche möglich und laufen ohne Objektallokation über zusammenhängenden Speicher.
+ *
+ * Für bestehenden Code liefert {@link #view(int)} bzw. {@link #asList()} eine Flyweight-Sicht,
+ * die sich wie ein {@link CalendarEntry} verhält und Änderungen direkt in die Spalten schreibt.
+ * Jede Zeile hat einen Start; ein fehlendes Ende wird wie in {@link #add(CalendarEntry)} als
+ * Zeitpunkt-Termin (Ende = Start) abgelegt.
+ *
+ * Nicht threadsicher.
+ */
+public final class ColumnarEntryStore {
+
+    /** Platzhalter für fehlende int-Werte (ID, Erinnerung, Text-/Kategorie-Index). */
+    public static final int NO_VALUE = Integer.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private long[] starts;
+    private long[] ends;
+    private int[] ids;
+    private int[] reminders;
+    private int[] categories;
+    private int[] titles;
+    private int[] descriptions;
+    private int[] extras;
+    private String[] uids;
+    private String[] recurrenceIds;
+    private LazyText[] lazyDescriptions;
+    private AttachmentRef[][] attachments;
+    private int size;
+
+    /** Größte Dauer eines Termins, begrenzt die Rückwärtssuche bei Bereichsabfragen. */
+    private long maxDuration;
+    private boolean sorted = true;
+
+    private final StringTable strings = new StringTable();
+    private final StringTable categoryTable = new StringTable();
+
+    public ColumnarEntryStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public ColumnarEntryStore(int capacity) {
+        int cap = Math.max(capacity, 1);
+        starts = new long[cap];
+        ends = new long[cap];
+        ids = new int[cap];
+        reminders = new int[cap];
+        categories = new int[cap];
+        titles = new int[cap];
+        descriptions = new int[cap];
+        extras = new int[cap];
+        uids = new String[cap];
+        recurrenceIds = new String[cap];
+        lazyDescriptions = new LazyText[cap];
+        attachments = new AttachmentRef[cap][];
+    }
+
+    /** Erzeugt einen nach Start sortierten Speicher aus einer Liste von Terminen. */
+    public static ColumnarEntryStore of(Collection<CalendarEntry> entries) {
+        ColumnarEntryStore store = new ColumnarEntryStore(entries.size());
+        store.addAll(entries);
+        store.sortByStart();
+        return store;
+    }
+
+    // ----- Befüllen -----
+
+    /**
+     * Übernimmt einen Termin. Termine ohne Start werden ignoriert.
+     *
+     * @return Index des neuen Eintrags oder -1
+     */
+    public int add(CalendarEntry entry) {
+        if (entry == null || entry.getStart() == null) return -1;
+        ensureCapacity(size + 1);
+        int i = size++;
+        LocalDateTime end = entry.getEnd() != null ? entry.getEnd() : entry.getStart();
+        starts[i] = LocalEpoch.toSeconds(entry.getStart());
+        ends[i] = LocalEpoch.toSeconds(end);
+        ids[i] = entry.getId() != null ? entry.getId() : NO_VALUE;
+        reminders[i] = entry.getReminderMinutesBefore() != null ? entry.getReminderMinutesBefore() : NO_VALUE;
+        categories[i] = categoryTable.acquire(entry.getCategory());
+        titles[i] = strings.acquire(entry.getTitle());
+        // Ausgelagerte Beschreibungen bleiben ausgelagert
+        lazyDescriptions[i] = entry.getLazyDescription();
+        descriptions[i] = lazyDescriptions[i] != null ? NO_VALUE : strings.acquire(entry.getDescription());
+        extras[i] = strings.acquire(entry.getExtraProperties());
+        uids[i] = entry.getUid();
+        recurrenceIds[i] = entry.getRecurrenceId();
+        attachments[i] = toArray(entry.getAttachments());
+        maxDuration = Math.max(maxDuration, ends[i] - starts[i]);
+        if (i > 0 && compare(i - 1, i) > 0) sorted = false;
+        return i;
+    }
+
+    /** Übernimmt mehrere Termine. */
+    public void addAll(Collection<CalendarEntry> entries) {
+        ensureCapacity(size + entries.size());
+        for (CalendarEntry e : entries) add(e);
+    }
+
+    /** Entfernt alle Einträge; die Kapazität bleibt erhalten. */
+    public void clear() {
+        Arrays.fill(uids, 0, size, null);
+        Arrays.fill(recurrenceIds, 0, size, null);
+        Arrays.fill(lazyDescriptions, 0, size, null);
+        Arrays.fill(attachments, 0, size, null);
+        size = 0;
+        maxDuration = 0;
+        sorted = true;
+        strings.clear();
+        categoryTable.clear();
+    }
+
+    public int size() { return size; }
+
+    public boolean isSorted() { return sorted; }
+
+    // ----- Spaltenzugriff ohne Allokation -----
+
+    public long startEpoch(int i) { check(i); return starts[i]; }
+    public long endEpoch(int i) { check(i); return ends[i]; }
+    public int idValue(int i) { check(i); return ids[i]; }
+    public int reminderValue(int i) { check(i); return reminders[i]; }
+    public int categoryOrdinal(int i) { check(i); return categories[i]; }
+    public String title(int i) { check(i); return strings.get(titles[i]); }
+    public String uid(int i) { check(i); return uids[i]; }
+    public String recurrenceId(int i) { check(i); return recurrenceIds[i]; }
+    public String extraProperties(int i) { check(i); return strings.get(extras[i]); }
+    public List<AttachmentRef> attachments(int i) { check(i); return attachments[i] != null ? List.of(attachments[i]) : List.of(); }
+
+    /** Beschreibung; eine ausgelagerte Beschreibung wird dabei geladen und übernommen. */
+    public String description(int i) {
+        check(i);
+        if (lazyDescriptions[i] != null) {
+            descriptions[i] = strings.acquire(lazyDescriptions[i].load());
+            lazyDescriptions[i] = null;
+        }
+        return strings.get(descriptions[i]);
+    }
+
+    /** Ausgelagerte, noch nicht geladene Beschreibung oder null. */
+    public LazyText lazyDescription(int i) { check(i); return lazyDescriptions[i]; }
+    public String category(int i) { check(i); return categoryTable.get(categories[i]); }
+
+    /** Ordinalzahl einer Kategorie oder {@link #NO_VALUE}, falls unbekannt. */
+    public int categoryOrdinalOf(String category) {
+        return categoryTable.find(category);
+    }
+
+    /** Anzahl unterschiedlicher Kategorien. */
+    public int categoryCount() {
+        return categoryTable.size();
+    }
+
+    /** Anzahl unterschiedlicher Texte (Titel, Beschreibungen, X-Eigenschaften), die noch referenziert werden. */
+    public int stringCount() {
+        return strings.size();
+    }
+
+    // ----- Sortierung und Bereichsabfragen -----
+
+    /**
+     * Sortiert alle Spalten in-place nach Start (bei Gleichstand nach Ende).
+     * Kommt ohne Hilfsarrays aus.
+     */
+    public void sortByStart() {
+        if (sorted) return;
+        quickSort(0, size - 1);
+        sorted = true;
+    }
+
+    /**
+     * Erster Index, dessen Start {@code >= epochSeconds} ist (setzt Sortierung voraus).
+     */
+    public int lowerBound(long epochSeconds) {
+        requireSorted();
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[mid] < epochSeconds) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Ruft {@code action} für jeden Index auf, dessen Termin das Intervall [from, to) überschneidet.
+     * Zeitpunkt-Termine (Start = Ende) zählen, wenn sie in [from, to) liegen.
+     */
+    public void forEachInRange(LocalDateTime from, LocalDateTime to, IntConsumer action) {
+        forEachInRange(LocalEpoch.toSeconds(from), LocalEpoch.toSeconds(to), action);
+    }
+
+    /** Variante von {@link #forEachInRange(LocalDateTime, LocalDateTime, IntConsumer)} mit Epochensekunden. */
+    public void forEachInRange(long fromEpoch, long toEpoch, IntConsumer action) {
+        requireSorted();
+        int first = lowerBound(fromEpoch - maxDuration);
+        for (int i = first; i < size && starts[i] < toEpoch; i++) {
+            if (ends[i] > fromEpoch || starts[i] >= fromEpoch) {
+                action.accept(i);
+            }
+        }
+    }
+
+    /** Anzahl der Termine im Intervall [from, to). */
+    public int countInRange(long fromEpoch, long toEpoch) {
+        int[] count = new int[1];
+        forEachInRange(fromEpoch, toEpoch, i -> count[0]++);
+        return count[0];
+    }
+
+    // ----- Flyweight-Sichten -----
+
+    /** Liefert eine Sicht auf den Eintrag mit dem gegebenen Index. */
+    public EntryView view(int index) {
+        check(index);
+        return new EntryView(this, index);
+    }
+
+    /**
+     * Liefert eine wiederverwendbare Sicht, die per {@link EntryView#moveTo(int)} bewegt wird.
+     * Sichten sind an den Index gebunden; nach {@link #sortByStart()} zeigen sie ggf. auf andere Termine.
+     */
+    public EntryView cursor() {
+        return new EntryView(this, size > 0 ? 0 : -1);
+    }
+
+    /** Liste aller Einträge als Flyweight-Sichten (nur lesend in der Struktur, Felder schreibbar). */
+    public List<CalendarEntry> asList() {
+        return new ViewList();
+    }
+
+    /** Materialisiert alle Einträge als eigenständige {@link CalendarEntry}-Objekte. */
+    public List<CalendarEntry> toEntries() {
+        List<CalendarEntry> out = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            CalendarEntry ce = new CalendarEntry(
+                    ids[i] != NO_VALUE ? ids[i] : null,
+                    title(i), strings.get(descriptions[i]),
+                    LocalEpoch.toDateTime(starts[i]), LocalEpoch.toDateTime(ends[i]));
+            if (lazyDescriptions[i] != null) ce.setLazyDescription(lazyDescriptions[i]);
+            ce.setReminderMinutesBefore(reminders[i] != NO_VALUE ? reminders[i] : null);
+            ce.setCategory(category(i));
+            ce.setUid(uids[i]);
+            ce.setRecurrenceId(recurrenceIds[i]);
+            ce.setExtraProperties(extraProperties(i));
+            ce.setAttachments(attachments(i));
+            out.add(ce);
+        }
+        return out;
+    }
+
+    /**
+     * Flyweight-Sicht auf eine Zeile des Speichers. Getter lesen aus, Setter schreiben in die Spalten;
+     * alle Felder von {@link CalendarEntry} sind überschrieben, nichts liegt in der Sicht selbst.
+     * {@code setStart(null)} ist nicht möglich, {@code setEnd(null)} macht einen Zeitpunkt-Termin.
+     */
+    public static final class EntryView extends CalendarEntry {
+        private final ColumnarEntryStore store;
+        private int index;
+
+        private EntryView(ColumnarEntryStore store, int index) {
+            this.store = store;
+            this.index = index;
+        }
+
+        /** Positioniert die Sicht auf einen anderen Index und liefert sich selbst zurück. */
+        public EntryView moveTo(int index) {
+            store.check(index);
+            this.index = index;
+            return this;
+        }
+
+        public int index() { return index; }
+
+        @Override public Integer getId() {
+            int v = store.ids[index];
+            return v != NO_VALUE ? v : null;
+        }
+        @Override public void setId(Integer id) { store.ids[index] = id != null ? id : NO_VALUE; }
+
+        @Override public String getTitle() { return store.title(index); }
+        @Override public void setTitle(String title) { store.titles[index] = store.strings.replace(store.titles[index], title); }
+
+        @Override public String getDescription() { return store.description(index); }
+        @Override public void setDescription(String description) {
+            store.descriptions[index] = store.strings.replace(store.descriptions[index], description);
+            store.lazyDescriptions[index] = null;
+        }
+
+        @Override public LazyText getLazyDescription() { return store.lazyDescriptions[index]; }
+        @Override public void setLazyDescription(LazyText lazyDescription) {
+            store.lazyDescriptions[index] = lazyDescription;
+            store.descriptions[index] = store.strings.replace(store.descriptions[index], null);
+        }
+        @Override public boolean isDescriptionLoaded() { return store.lazyDescriptions[index] == null; }
+
+        @Override public LocalDateTime getStart() { return LocalEpoch.toDateTime(store.starts[index]); }
+        @Override public void setStart(LocalDateTime start) {
+            if (start == null) throw new IllegalArgumentException("Termine im Spaltenspeicher benötigen einen Start");
+            store.starts[index] = LocalEpoch.toSeconds(start);
+            store.touched(index);
+        }
+
+        @Override public LocalDateTime getEnd() { return LocalEpoch.toDateTime(store.ends[index]); }
+        @Override public void setEnd(LocalDateTime end) {
+            store.ends[index] = end != null ? LocalEpoch.toSeconds(end) : store.starts[index];
+            store.touched(index);
+        }
+
+        @Override public Integer getReminderMinutesBefore() {
+            int v = store.reminders[index];
+            return v != NO_VALUE ? v : null;
+        }
+        @Override public void setReminderMinutesBefore(Integer minutes) { store.reminders[index] = minutes != null ? minutes : NO_VALUE; }
+
+        @Override public String getCategory() { return store.category(index); }
+        @Override public void setCategory(String category) {
+            store.categories[index] = store.categoryTable.replace(store.categories[index], category);
+        }
+
+        @Override public String getUid() { return store.uids[index]; }
+        @Override public void setUid(String uid) { store.uids[index] = uid; }
+
+        @Override public String getRecurrenceId() { return store.recurrenceIds[index]; }
+        @Override public void setRecurrenceId(String recurrenceId) { store.recurrenceIds[index] = recurrenceId; }
+
+        @Override public String getExtraProperties() { return store.strings.get(store.extras[index]); }
+        @Override public void setExtraProperties(String extraProperties) {
+            store.extras[index] = store.strings.replace(store.extras[index], extraProperties);
+        }
+
+        @Override public List<AttachmentRef> getAttachments() { return store.attachments(index); }
+        @Override public void setAttachments(List<AttachmentRef> attachments) { store.attachments[index] = toArray(attachments); }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof EntryView that)) return false;
+            return Objects.equals(getId(), that.getId());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getId());
+        }
+
+        @Override
+        public String toString() {
+            return "CalendarEntry{id=" + getId() + ", title='" + getTitle() + "', start=" + getStart() + ", end=" + getEnd() + '}';
+        }
+    }
+
+    private final class ViewList extends AbstractList<CalendarEntry> implements RandomAccess {
+        @Override public CalendarEntry get(int index) { return view(index); }
+        @Override public int size() { return size; }
+    }
+
+    // ----- Interna -----
+
+    private static AttachmentRef[] toArray(List<AttachmentRef> list) {
+        return list == null || list.isEmpty() ? null : list.toArray(new AttachmentRef[0]);
+    }
+
+    private void touched(int i) {
+        maxDuration = Math.max(maxDuration, ends[i] - starts[i]);
+        sorted = false;
+    }
+
+    private void check(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Index " + i + ", Größe " + size);
+    }
+
+    private void requireSorted() {
+        if (!sorted) throw new IllegalStateException("Speicher ist nicht sortiert – zuerst sortByStart() aufrufen");
+    }
+
+    private void ensureCapacity(int min) {
+        if (min <= starts.length) return;
+        int cap = Math.max(min, starts.length + (starts.length >> 1));
+        starts = Arrays.copyOf(starts, cap);
+        ends = Arrays.copyOf(ends, cap);
+        ids = Arrays.copyOf(ids, cap);
+        reminders = Arrays.copyOf(reminders, cap);
+        categories = Arrays.copyOf(categories, cap);
+        titles = Arrays.copyOf(titles, cap);
+        descriptions = Arrays.copyOf(descriptions, cap);
+        extras = Arrays.copyOf(extras, cap);
+        uids = Arrays.copyOf(uids, cap);
+        recurrenceIds = Arrays.copyOf(recurrenceIds, cap);
+        lazyDescriptions = Arrays.copyOf(lazyDescriptions, cap);
+        attachments = Arrays.copyOf(attachments, cap);
+    }
+
+    private int compare(int a, int b) {
+        int c = Long.compare(starts[a], starts[b]);
+        return c != 0 ? c : Long.compare(ends[a], ends[b]);
+    }
+
+    private int compareTo(int i, long start, long end) {
+        int c = Long.compare(starts[i], start);
+        return c != 0 ? c : Long.compare(ends[i], end);
+    }
+
+    private void quickSort(int lo, int hi) {
+        while (hi - lo > INSERTION_SORT_THRESHOLD) {
+            // Median-of-three als Pivot, 3-Wege-Partitionierung (robust bei vielen gleichen Zeiten)
+            int mid = (lo + hi) >>> 1;
+            int m = compare(lo, mid) < 0
+                    ? (compare(mid, hi) < 0 ? mid : (compare(lo, hi) < 0 ? hi : lo))
+                    : (compare(lo, hi) < 0 ? lo : (compare(mid, hi) < 0 ? hi : mid));
+            long ps = starts[m], pe = ends[m];
+            int lt = lo, i = lo, gt = hi;
+            while (i <= gt) {
+                int c = compareTo(i, ps, pe);
+                if (c < 0) swap(lt++, i++);
+                else if (c > 0) swap(i, gt--);
+                else i++;
+            }
+            // Kleinere Hälfte rekursiv, größere iterativ: Stacktiefe O(log n)
+            if (lt - lo < hi - gt) {
+                quickSort(lo, lt - 1);
+                lo = gt + 1;
+            } else {
+                quickSort(gt + 1, hi);
+                hi = lt - 1;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo && compare(j - 1, j) > 0; j--) swap(j - 1, j);
+        }
+    }
+
+    private void swap(int a, int b) {
+        if (a == b) return;
+        long l = starts[a]; starts[a] = starts[b]; starts[b] = l;
+        l = ends[a]; ends[a] = ends[b]; ends[b] = l;
+        int t = ids[a]; ids[a] = ids[b]; ids[b] = t;
+        t = reminders[a]; reminders[a] = reminders[b]; reminders[b] = t;
+        t = categories[a]; categories[a] = categories[b]; categories[b] = t;
+        t = titles[a]; titles[a] = titles[b]; titles[b] = t;
+        t = descriptions[a]; descriptions[a] = descriptions[b]; descriptions[b] = t;
+        t = extras[a]; extras[a] = extras[b]; extras[b] = t;
+        String u = uids[a]; uids[a] = uids[b]; uids[b] = u;
+        u = recurrenceIds[a]; recurrenceIds[a] = recurrenceIds[b]; recurrenceIds[b] = u;
+        LazyText z = lazyDescriptions[a]; lazyDescriptions[a] = lazyDescriptions[b]; lazyDescriptions[b] = z;
+        AttachmentRef[] r = attachments[a]; attachments[a] = attachments[b]; attachments[b] = r;
+    }
+
+    /**
+     * String-Tabelle mit Referenzzählung: jeder unterschiedliche Wert wird genau einmal gespeichert,
+     * {@code null} wird als {@link #NO_VALUE} abgebildet. Fällt die Zählung eines Werts auf null
+     * (weil ein Setter ihn ersetzt hat), wird der Eintrag freigegeben und sein Index wiederverwendet.
+     * Der Index Wert → Position ist eine offene Adressierung über {@code int[]} (lineares Sondieren),
+     * damit weder {@code Integer} noch Map-Knoten je Wert anfallen.
+     */
+    static final class StringTable {
+        private String[] values = new String[16];
+        private int[] refs = new int[16];
+        /** Position + 1 je Slot, 0 = leer. Höchstens halb gefüllt. */
+        private int[] slots = new int[32];
+        private int[] free = new int[8];
+        private int freeCount;
+        /** Erster nie belegter Index. */
+        private int end;
+        private int live;
+
+        /** Liefert den Index von {@code s} und zählt eine Referenz hinzu. */
+        int acquire(String s) {
+            if (s == null) return NO_VALUE;
+            int slot = slotOf(s);
+            int idx = slots[slot] - 1;
+            if (idx >= 0) {
+                refs[idx]++;
+                return idx;
+            }
+            idx = freeCount > 0 ? free[--freeCount] : end++;
+            if (idx == values.length) {
+                values = Arrays.copyOf(values, idx * 2);
+                refs = Arrays.copyOf(refs, idx * 2);
+            }
+            values[idx] = StringPool.shared().intern(s);
+            refs[idx] = 1;
+            slots[slot] = idx + 1;
+            if (++live * 2 > slots.length) rehash(slots.length * 2);
+            return idx;
+        }
+
+        /** Gibt eine Referenz auf {@code idx} zurück; der letzte gibt den Eintrag frei. */
+        void release(int idx) {
+            if (idx == NO_VALUE || --refs[idx] > 0) return;
+            removeSlot(slotOf(values[idx]));
+            values[idx] = null;
+            if (freeCount == free.length) free = Arrays.copyOf(free, freeCount * 2);
+            free[freeCount++] = idx;
+            live--;
+        }
+
+        /** Ersetzt die Referenz {@code old} durch {@code s}. */
+        int replace(int old, String s) {
+            int idx = acquire(s);
+            release(old);
+            return idx;
+        }
+
+        int find(String s) {
+            if (s == null) return NO_VALUE;
+            int idx = slots[slotOf(s)] - 1;
+            return idx >= 0 ? idx : NO_VALUE;
+        }
+
+        String get(int i) {
+            return i == NO_VALUE ? null : values[i];
+        }
+
+        int size() {
+            return live;
+        }
+
+        void clear() {
+            Arrays.fill(values, 0, end, null);
+            Arrays.fill(refs, 0, end, 0);
+            Arrays.fill(slots, 0);
+            freeCount = 0;
+            end = 0;
+            live = 0;
+        }
+
+        private int home(String s) {
+            int h = s.hashCode();
+            return (h ^ (h >>> 16)) & (slots.length - 1);
+        }
+
+        /** Slot mit {@code s} oder der leere Slot, an dem es einzufügen wäre. */
+        private int slotOf(String s) {
+            int mask = slots.length - 1;
+            int i = home(s);
+            for (int v; (v = slots[i]) != 0; i = (i + 1) & mask) {
+                if (values[v - 1].equals(s)) return i;
+            }
+            return i;
+        }
+
+        /** Leert einen Slot und schiebt nachfolgende Einträge der Sondierkette zurück (keine Grabsteine). */
+        private void removeSlot(int hole) {
+            int mask = slots.length - 1;
+            slots[hole] = 0;
+            for (int j = (hole + 1) & mask, v; (v = slots[j]) != 0; j = (j + 1) & mask) {
+                int home = home(values[v - 1]);
+                // Nur verschieben, wenn der Heimatslot nicht zyklisch in (hole, j] liegt
+                boolean reachable = hole <= j ? hole < home && home <= j : hole < home || home <= j;
+                if (!reachable) {
+                    slots[hole] = v;
+                    slots[j] = 0;
+                    hole = j;
+                }
+            }
+        }
+
+        private void rehash(int capacity) {
+            slots = new int[capacity];
+            for (int idx = 0; idx < end; idx++) {
+                if (values[idx] != null) slots[slotOf(values[idx])] = idx + 1;
+            }
+        }
+    }
+}
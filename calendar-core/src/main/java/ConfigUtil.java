@@ -0,0 +1,301 @@
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Zentrale Konfigurations-Hilfsklasse für Anwendungseinstellungen.
+ * Werte werden aus einer externen config.properties gelesen und geschrieben;
+ * Klassenpfad-Defaults dienen als Fallback.
+ */
+public class ConfigUtil {
+    private static final String FILE_NAME = "config.properties";
+
+    /** Interner Speicher für Konfigurationswerte. */
+    private static Properties props;
+
+    /** Pfad zur externen Konfigurationsdatei. */
+    private static Path externalConfigPath = Paths.get(FILE_NAME);
+
+    static {
+        load();
+    }
+
+    /** Test-Hook: externen Konfigurationspfad für Tests überschreiben und neu laden. */
+    public static synchronized void setExternalConfigPathForTest(Path path) {
+        if (path != null) {
+            externalConfigPath = path;
+            load();
+        }
+    }
+
+    /** Konfiguration aus externer Datei oder Klassenpfad laden und sinnvolle Defaults setzen. */
+    public static synchronized void load() {
+        Properties p = new Properties();
+        boolean loaded = false;
+
+        if (Files.exists(externalConfigPath)) {
+            try (FileInputStream fis = new FileInputStream(externalConfigPath.toFile())) {
+                p.load(fis);
+                loaded = true;
+            } catch (Exception ignored) {}
+        }
+        if (!loaded) {
+            try (InputStream is = ConfigUtil.class.getClassLoader().getResourceAsStream(FILE_NAME)) {
+                if (is != null) {
+                    p.load(is);
+                    loaded = true;
+                }
+            } catch (Exception ignored) {}
+        }
+
+        if (p.getProperty("ics.path") == null) {
+            String defaultPath = "calendar.ics";
+            Path testPath = Paths.get(defaultPath);
+            try {
+                Path parent = testPath.getParent();
+                if (parent == null) parent = Paths.get(".");
+                if (!Files.isWritable(parent)) {
+                    defaultPath = Paths.get(System.getProperty("user.home"), "calendar.ics").toString();
+                }
+            } catch (Exception ignored) {
+                defaultPath = Paths.get(System.getProperty("user.home"), "calendar.ics").toString();
+            }
+            p.setProperty("ics.path", defaultPath);
+        }
+        if (p.getProperty("ui.darkMode") == null) {
+            p.setProperty("ui.darkMode", "false");
+        }
+        props = p;
+    }
+
+    /** Aktuelle Konfiguration in die externe Datei schreiben. */
+    public static synchronized void save() throws Exception {
+        Path parent = externalConfigPath.getParent();
+        if (parent != null && !Files.exists(parent)) {
+            Files.createDirectories(parent);
+        }
+        if (!Files.exists(externalConfigPath)) {
+            Files.createFile(externalConfigPath);
+        }
+        try (FileOutputStream fos = new FileOutputStream(externalConfigPath.toFile())) {
+            props.store(fos, "Application configuration");
+        }
+    }
+
+    // Zugriff
+    /** Pfad der Kalenderdatei; mit Endung {@code .gz} (z. B. {@code calendar.ics.gz}) wird komprimiert gespeichert. */
+    public static Path getIcsPath() {
+        return Paths.get(props.getProperty("ics.path", "calendar.ics"));
+    }
+    public static void setIcsPath(Path path) {
+        props.setProperty("ics.path", path.toString());
+    }
+    public static boolean isDarkMode() {
+        return Boolean.parseBoolean(props.getProperty("ui.darkMode", "false"));
+    }
+    public static void setDarkMode(boolean dark) {
+        props.setProperty("ui.darkMode", Boolean.toString(dark));
+    }
+    /** Byte-Index ({@code <ics>.idx}) für Einzeländerungen an der ICS-Datei verwenden. */
+    public static boolean isIcsIndexEnabled() {
+        return Boolean.parseBoolean(props.getProperty("ics.index", "false"));
+    }
+    public static void setIcsIndexEnabled(boolean enabled) {
+        props.setProperty("ics.index", Boolean.toString(enabled));
+    }
+
+    /** Erinnerungen über einen nach Start sortierten Spaltenindex ({@link ColumnarEntryStore}) prüfen. */
+    public static boolean isRemindersColumnar() {
+        return Boolean.parseBoolean(props.getProperty("reminders.columnar", "false"));
+    }
+    public static void setRemindersColumnar(boolean enabled) {
+        props.setProperty("reminders.columnar", Boolean.toString(enabled));
+    }
+
+    /** ICS-Datei mit anderen Instanzen teilen (Sperre und Generationszähler in {@code <ics>.gen}). */
+    public static boolean isIcsSharedEnabled() {
+        return Boolean.parseBoolean(props.getProperty("ics.shared", "false"));
+    }
+    public static void setIcsSharedEnabled(boolean enabled) {
+        props.setProperty("ics.shared", Boolean.toString(enabled));
+    }
+
+    /**
+     * Speicherart: {@code ics} (eine Datei, Standard), {@code segments} (Monats-/Jahressegmente)
+     * oder {@code db} (eingebettete Datenbank, siehe {@link #getDbUrl()}).
+     */
+    public static String getStorageMode() {
+        return props.getProperty("storage.mode", "ics").trim().toLowerCase(java.util.Locale.ROOT);
+    }
+    public static void setStorageMode(String mode) {
+        props.setProperty("storage.mode", mode);
+    }
+
+    /** Verzeichnis der Segmente; Standard ist {@code <ics.path ohne .ics>.segments} daneben. */
+    public static Path getSegmentDir() {
+        return dirProperty("storage.segments.dir", ".segments");
+    }
+
+    /** Segmentgröße: {@code month} (Standard) oder {@code year}. */
+    public static String getSegmentGranularity() {
+        return props.getProperty("storage.segments.granularity", "month");
+    }
+
+    /** Termine, die länger als so viele Tage vorbei sind, kommen ins Archiv; {@code 0} schaltet es ab. */
+    public static int getArchiveAfterDays() {
+        return intProperty("archive.afterDays", 0);
+    }
+    public static void setArchiveAfterDays(int days) {
+        props.setProperty("archive.afterDays", Integer.toString(days));
+    }
+
+    /** Archivjahre zusätzlich als gemappten Ereignisspeicher ({@code <jahr>.evs}) ablegen und daraus lesen. */
+    public static boolean isArchiveMapped() {
+        return Boolean.parseBoolean(props.getProperty("archive.mapped", "false"));
+    }
+    public static void setArchiveMapped(boolean enabled) {
+        props.setProperty("archive.mapped", Boolean.toString(enabled));
+    }
+
+    /** Verzeichnis des Archivs; Standard ist {@code <ics.path ohne .ics>.archive} daneben. */
+    public static Path getArchiveDir() {
+        return dirProperty("archive.dir", ".archive");
+    }
+
+    /** Alle Versionen der letzten so vielen Tage behalten; {@code 0} schaltet den Verlauf ab. */
+    public static int getHistoryKeepDays() {
+        return intProperty("history.keepDays", 30);
+    }
+    public static void setHistoryKeepDays(int days) {
+        props.setProperty("history.keepDays", Integer.toString(days));
+    }
+
+    /** Danach bis zu so vielen Tagen eine Version pro Stunde behalten. */
+    public static int getHistoryHourlyDays() {
+        return intProperty("history.hourlyDays", 90);
+    }
+
+    /** Verzeichnis des Versionsverlaufs; Standard ist {@code <ics.path ohne .ics>.history} daneben. */
+    public static Path getHistoryDir() {
+        return dirProperty("history.dir", ".history");
+    }
+
+    private static int intProperty(String key, int def) {
+        try {
+            return Math.max(0, Integer.parseInt(props.getProperty(key, Integer.toString(def)).trim()));
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
+    /**
+     * JDBC-URL der eingebetteten Datenbank für {@code storage.mode=db}; Standard ist eine
+     * H2-Datei neben der ICS-Datei ({@code jdbc:h2:file:<ics.path ohne .ics>}).
+     */
+    public static String getDbUrl() {
+        String url = props.getProperty("db.url");
+        if (url != null && !url.isBlank()) return url.trim();
+        return "jdbc:h2:file:" + icsBase("").toAbsolutePath();
+    }
+    public static void setDbUrl(String url) {
+        props.setProperty("db.url", url);
+    }
+
+    /**
+     * Abonnierte ICS-Feeds, sortiert nach Name. Je Feed {@code feeds.<name>.url} und optional
+     * {@code feeds.<name>.refreshMinutes}; ohne eigenes Intervall gilt {@code feeds.refreshMinutes}
+     * (Standard 60). Die ältere Liste {@code feeds.urls} (kommagetrennt) wird ebenfalls gelesen,
+     * ihre Feeds heißen nach dem Host. {@code webcal://}-Adressen werden per {@code https://} abgerufen.
+     */
+    public static java.util.List<FeedSubscription> getFeeds() {
+        int defaultMinutes = Math.max(1, intProperty("feeds.refreshMinutes", 60));
+        java.util.Map<String, FeedSubscription> feeds = new java.util.TreeMap<>();
+        for (String key : props.stringPropertyNames()) {
+            if (!key.startsWith("feeds.") || !key.endsWith(".url")) continue;
+            String name = key.substring("feeds.".length(), key.length() - ".url".length());
+            String url = props.getProperty(key).trim();
+            if (name.isEmpty() || url.isEmpty()) continue;
+            int minutes = Math.max(1, intProperty("feeds." + name + ".refreshMinutes", defaultMinutes));
+            feeds.put(name, new FeedSubscription(name, httpUrl(url), minutes));
+        }
+        String list = props.getProperty("feeds.urls", "");
+        for (String url : list.split(",")) {
+            url = url.trim();
+            if (url.isEmpty()) continue;
+            String host = java.net.URI.create(url).getHost();
+            String name = host != null ? host : url;
+            for (int n = 2; feeds.containsKey(name); n++) name = (host != null ? host : url) + " (" + n + ")";
+            feeds.put(name, new FeedSubscription(name, httpUrl(url), defaultMinutes));
+        }
+        return new java.util.ArrayList<>(feeds.values());
+    }
+
+    /** {@code webcal://} ist nur ein Schema für Kalender-Abos; abgerufen wird per HTTPS. */
+    static String httpUrl(String url) {
+        return url.regionMatches(true, 0, "webcal://", 0, 9) ? "https://" + url.substring(9) : url;
+    }
+    public static void setFeed(String name, String url, int refreshMinutes) {
+        props.setProperty("feeds." + name + ".url", url);
+        props.setProperty("feeds." + name + ".refreshMinutes", Integer.toString(refreshMinutes));
+    }
+
+    /** Höchstzahl gleichzeitiger Abrufe je Host ({@code feeds.maxPerHost}, Standard 4). */
+    public static int getFeedsMaxPerHost() {
+        return Math.max(1, intProperty("feeds.maxPerHost", 4));
+    }
+
+    /** Port des kopflosen Servers ({@code server.port}, Standard 8080). */
+    public static int getServerPort() {
+        return intProperty("server.port", 8080);
+    }
+    /** Adresse, an die der kopflose Server bindet ({@code server.bind}, Standard nur lokal). */
+    public static String getServerBind() {
+        String bind = props.getProperty("server.bind");
+        return bind != null && !bind.isBlank() ? bind.trim() : "127.0.0.1";
+    }
+
+    /** URL der abzugleichenden CalDAV-Sammlung ({@code caldav.url}) oder {@code null}. */
+    public static String getCalDavUrl() {
+        String url = props.getProperty("caldav.url");
+        return url != null && !url.isBlank() ? url.trim() : null;
+    }
+    public static void setCalDavUrl(String url) {
+        props.setProperty("caldav.url", url);
+    }
+    public static String getCalDavUser() {
+        String user = props.getProperty("caldav.user");
+        return user != null && !user.isBlank() ? user.trim() : null;
+    }
+    public static String getCalDavPassword() {
+        return props.getProperty("caldav.password");
+    }
+    /** Abstand der CalDAV-Abgleiche in Minuten ({@code caldav.syncMinutes}, Standard 15). */
+    public static int getCalDavSyncMinutes() {
+        return Math.max(1, intProperty("caldav.syncMinutes", 15));
+    }
+    /** Zustandsdatei des CalDAV-Abgleichs (Sync-Token, ETags) neben der ICS-Datei. */
+    public static Path getCalDavStatePath() {
+        return icsBase(".caldav");
+    }
+
+    /** Pfad aus {@code key} oder ein Verzeichnis neben der ICS-Datei mit der Endung {@code suffix}. */
+    private static Path dirProperty(String key, String suffix) {
+        String dir = props.getProperty(key);
+        if (dir != null && !dir.isBlank()) return Paths.get(dir.trim());
+        return icsBase(suffix);
+    }
+
+    /** Pfad der ICS-Datei ohne {@code .ics}/{@code .ics.gz}, ergänzt um {@code suffix}. */
+    private static Path icsBase(String suffix) {
+        Path ics = getIcsPath();
+        String name = ics.getFileName().toString();
+        String lower = name.toLowerCase(java.util.Locale.ROOT);
+        if (lower.endsWith(".ics.gz")) name = name.substring(0, name.length() - 7);
+        else if (lower.endsWith(".ics")) name = name.substring(0, name.length() - 4);
+        return ics.resolveSibling(name + suffix);
+    }
+}
@@ -0,0 +1,254 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Komprimierter Seitenspeicher für große Eigenschaften (DESCRIPTION, ATTACH) eines Imports.
+ *
+ * Die Rohbytes einer Eigenschaft werden beim Import direkt deflate-komprimiert in eine
+ * temporäre Datei geschrieben, ohne vollständig im Heap zu liegen. Termine verweisen über
+ * {@link LazyText} (Offset + Länge) darauf und laden den Text erst beim ersten Zugriff.
+ * Identische Werte werden anhand eines SHA-1 über die Rohbytes nur einmal abgelegt.
+ *
+ * Die Datei wird gelöscht, sobald weder der Speicher noch ein {@link LazyText} mehr erreichbar ist.
+ */
+public final class DescriptionStore {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Map<String, LazyText> byKey = new HashMap<>();
+    private BlobWriter openWriter;
+
+    private DescriptionStore(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+    }
+
+    /** Legt einen neuen, leeren Speicher in einer temporären Datei an. */
+    public static DescriptionStore create() throws IOException {
+        // Kein deleteOnExit: dessen Pfadliste wächst bis zum JVM-Ende; gelöscht wird über den Cleaner
+        Path file = Files.createTempFile("caljava-desc-", ".bin");
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        DescriptionStore store = new DescriptionStore(file, ch);
+        CLEANER.register(store, new Cleanup(file, ch));
+        return store;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /** Aktuelle Größe der (komprimierten) Speicherdatei in Bytes. */
+    public synchronized long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Öffnet einen Schreiber für einen neuen Wert. Es kann jeweils nur ein Schreiber offen sein.
+     */
+    public synchronized BlobWriter newBlob() throws IOException {
+        if (openWriter != null) {
+            throw new IllegalStateException("Es ist bereits ein Schreiber geöffnet");
+        }
+        openWriter = new BlobWriter(channel.size());
+        return openWriter;
+    }
+
+    /** Liest einen komprimierten Bereich und entpackt ihn. */
+    byte[] read(long offset, int length, int rawLength) {
+        try {
+            ByteBuffer buf = ByteBuffer.allocate(length);
+            while (buf.hasRemaining()) {
+                int n = channel.read(buf, offset + buf.position());
+                if (n < 0) throw new IOException("Unerwartetes Dateiende in " + file);
+            }
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(buf.array());
+                byte[] out = new byte[rawLength];
+                int done = 0;
+                while (done < rawLength && !inflater.finished()) {
+                    int n = inflater.inflate(out, done, rawLength - done);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                    done += n;
+                }
+                return out;
+            } finally {
+                inflater.end();
+            }
+        } catch (Exception e) {
+            throw new UncheckedIOException(new IOException("Beschreibung konnte nicht geladen werden: " + e.getMessage(), e));
+        }
+    }
+
+    /**
+     * Entpackt einen komprimierten Bereich streamend nach {@code out}, ohne ihn vollständig
+     * in den Heap zu laden.
+     */
+    void transferRaw(long offset, int length, OutputStream out) throws IOException {
+        try (InputStream in = openRaw(offset, length)) {
+            in.transferTo(out);
+        }
+    }
+
+    /** Strom über die entpackten Bytes eines komprimierten Bereichs; muss geschlossen werden. */
+    InputStream openRaw(long offset, int length) {
+        InputStream region = new InputStream() {
+            private long pos = offset;
+            private final long end = offset + length;
+
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (pos >= end) return -1;
+                int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - pos)), pos);
+                if (n < 0) throw new IOException("Unerwartetes Dateiende in " + file);
+                pos += n;
+                return n;
+            }
+        };
+        Inflater inflater = new Inflater();
+        return new InflaterInputStream(region, inflater, 8192) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * Schreiber für einen einzelnen Wert. Komprimiert direkt in die Speicherdatei.
+     */
+    public final class BlobWriter extends OutputStream {
+        private final long offset;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final DeflaterOutputStream out;
+        private final MessageDigest digest;
+        private long rawLength;
+
+        private BlobWriter(long offset) throws IOException {
+            this.offset = offset;
+            channel.position(offset);
+            OutputStream sink = new OutputStream() {
+                @Override public void write(int b) throws IOException { write(new byte[]{(byte) b}, 0, 1); }
+                @Override public void write(byte[] b, int off, int len) throws IOException {
+                    ByteBuffer bb = ByteBuffer.wrap(b, off, len);
+                    while (bb.hasRemaining()) channel.write(bb);
+                }
+            };
+            this.out = new DeflaterOutputStream(sink, deflater, 8192);
+            try {
+                this.digest = MessageDigest.getInstance("SHA-1");
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            checkLength(1);
+            out.write(b);
+            digest.update((byte) b);
+            rawLength++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            checkLength(len);
+            out.write(b, off, len);
+            digest.update(b, off, len);
+            rawLength += len;
+        }
+
+        /** Lehnt Werte ab, deren Länge nicht mehr in die int-Felder von {@link LazyText} passt. */
+        private void checkLength(int len) throws IOException {
+            if (rawLength + len > Integer.MAX_VALUE) {
+                throw new IOException("Wert zu groß für den Beschreibungsspeicher (max. " + Integer.MAX_VALUE + " Bytes)");
+            }
+        }
+
+        /**
+         * Schließt den Wert ab und liefert den Verweis darauf.
+         *
+         * @param preview kurzer Anfang des dekodierten Textes für die Anzeige
+         */
+        public LazyText finish(String preview) throws IOException {
+            synchronized (DescriptionStore.this) {
+                try {
+                    out.finish();
+                    deflater.end();
+                    long length = channel.position() - offset;
+                    if (length > Integer.MAX_VALUE) {
+                        channel.truncate(offset);
+                        throw new IOException("Wert zu groß für den Beschreibungsspeicher: " + length + " Bytes");
+                    }
+                    String key = HexFormat.of().formatHex(digest.digest());
+                    LazyText existing = byKey.get(key);
+                    if (existing != null) {
+                        // Duplikat: gerade geschriebene Bytes verwerfen
+                        channel.truncate(offset);
+                        return existing;
+                    }
+                    LazyText text = new LazyText(DescriptionStore.this, offset, (int) length, (int) rawLength, key, preview);
+                    byKey.put(key, text);
+                    return text;
+                } finally {
+                    openWriter = null;
+                }
+            }
+        }
+
+        /** Verwirft den angefangenen Wert. */
+        public void abort() {
+            synchronized (DescriptionStore.this) {
+                try {
+                    deflater.end();
+                    channel.truncate(offset);
+                } catch (IOException ignored) {
+                } finally {
+                    openWriter = null;
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            // Abschluss erfolgt über finish()/abort()
+        }
+    }
+
+    /** Schließt und löscht die Datei, sobald der Speicher nicht mehr erreichbar ist. */
+    private record Cleanup(Path file, FileChannel channel) implements Runnable {
+        @Override
+        public void run() {
+            try { channel.close(); } catch (IOException ignored) {}
+            try { Files.deleteIfExists(file); } catch (IOException ignored) {}
+        }
+    }
+}
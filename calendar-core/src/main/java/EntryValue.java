@@ -0,0 +1,334 @@
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Unveränderliche, kompakte Darstellung eines Termins.
+ *
+ * Im Gegensatz zum veränderlichen {@link CalendarEntry} ist ein {@code EntryValue} nach der
+ * Erzeugung fest: Zeiten liegen als lokale Epochensekunden vor ({@link LocalEpoch}), fehlende
+ * ID/Erinnerung als {@link #NO_VALUE}. Gleichheit und Hash beziehen sich auf den gesamten
+ * Inhalt; der 64-Bit-Inhaltshash wird einmalig im Konstruktor berechnet.
+ *
+ * Ausgelagerte Beschreibungen ({@link LazyText}) bleiben ausgelagert und werden über ihren
+ * Inhaltsschlüssel verglichen; {@link #description()} lädt sie bei Bedarf, ohne sie zu behalten.
+ *
+ * Instanzen können ohne Kopie zwischen Threads geteilt, als Map-Schlüssel verwendet und in
+ * Snapshots für Speichern, Export und Vergleich wiederverwendet werden. Änderungen erfolgen
+ * über die {@code with*}-Methoden, die nur das geänderte Feld neu setzen.
+ */
+public final class EntryValue {
+
+    /** Platzhalter für fehlende ID bzw. Erinnerung. */
+    public static final int NO_VALUE = ColumnarEntryStore.NO_VALUE;
+
+    /** Trennt UID und RECURRENCE-ID im {@link #key() Schlüssel}; kommt in keiner der beiden vor. */
+    public static final char KEY_SEPARATOR = '\n';
+
+    private final int id;
+    private final String title;
+    private final String description;
+    private final LazyText lazyDescription;
+    private final long startEpoch;
+    private final long endEpoch;
+    private final int reminderMinutes;
+    private final String category;
+    private final List<AttachmentRef> attachments;
+    private final String uid;
+    private final String recurrenceId;
+    private final String extraProperties;
+
+    private final long contentHash;
+
+    private EntryValue(int id, String title, String description, LazyText lazyDescription,
+                       long startEpoch, long endEpoch, int reminderMinutes, String category,
+                       List<AttachmentRef> attachments, String uid, String recurrenceId, String extraProperties) {
+        this.id = id;
+        this.title = title;
+        this.description = lazyDescription != null ? null : description;
+        this.lazyDescription = lazyDescription;
+        this.startEpoch = startEpoch;
+        this.endEpoch = endEpoch;
+        this.reminderMinutes = reminderMinutes;
+        this.category = category;
+        this.attachments = attachments;
+        this.uid = uid;
+        this.recurrenceId = recurrenceId;
+        this.extraProperties = extraProperties;
+        this.contentHash = computeHash();
+    }
+
+    /**
+     * Erzeugt einen Wert mit den Pflichtfeldern.
+     */
+    public static EntryValue of(String title, String description, LocalDateTime start, LocalDateTime end) {
+        Objects.requireNonNull(start, "start");
+        Objects.requireNonNull(end, "end");
+        return new EntryValue(NO_VALUE, title, description, null,
+                LocalEpoch.toSeconds(start), LocalEpoch.toSeconds(end), NO_VALUE, null, List.of(), null, null, null);
+    }
+
+    /**
+     * Übernimmt den aktuellen Zustand eines {@link CalendarEntry}. Fehlt das Ende, entsteht ein
+     * Zeitpunkt-Termin (Ende = Start); {@link #snapshot(Collection)} nimmt solche Einträge nicht auf.
+     */
+    public static EntryValue of(CalendarEntry entry) {
+        Objects.requireNonNull(entry.getStart(), "start");
+        LocalDateTime end = entry.getEnd() != null ? entry.getEnd() : entry.getStart();
+        return new EntryValue(
+                entry.getId() != null ? entry.getId() : NO_VALUE,
+                entry.getTitle(),
+                entry.isDescriptionLoaded() ? entry.getDescription() : null,
+                entry.getLazyDescription(),
+                LocalEpoch.toSeconds(entry.getStart()), LocalEpoch.toSeconds(end),
+                entry.getReminderMinutesBefore() != null ? entry.getReminderMinutesBefore() : NO_VALUE,
+                entry.getCategory(),
+                entry.getAttachments(),
+                entry.getUid(),
+                entry.getRecurrenceId(),
+                entry.getExtraProperties());
+    }
+
+    /**
+     * Erstellt einen unveränderlichen Snapshot einer Terminliste.
+     * Einträge ohne Start oder Ende werden übersprungen (wie beim ICS-Export).
+     */
+    public static List<EntryValue> snapshot(Collection<? extends CalendarEntry> entries) {
+        List<EntryValue> out = new ArrayList<>(entries.size());
+        for (CalendarEntry e : entries) {
+            if (complete(e)) out.add(of(e));
+        }
+        return Collections.unmodifiableList(out);
+    }
+
+    /**
+     * Wie {@link #snapshot(Collection)}, übernimmt aber den Wert aus {@code cache}, solange dieselbe
+     * Eintragsinstanz inhaltlich unverändert ist; nur geänderte und neue Einträge werden neu
+     * erzeugt und gehasht. {@code cache} muss nach Identität vergleichen ({@link IdentityHashMap})
+     * und enthält danach genau die Einträge des Snapshots.
+     */
+    public static List<EntryValue> snapshot(Collection<? extends CalendarEntry> entries,
+                                            Map<CalendarEntry, EntryValue> cache) {
+        List<EntryValue> out = new ArrayList<>(entries.size());
+        Map<CalendarEntry, EntryValue> next = new IdentityHashMap<>(entries.size());
+        for (CalendarEntry e : entries) {
+            if (!complete(e)) continue;
+            EntryValue v = cache.get(e);
+            if (v == null || !v.matches(e)) v = of(e);
+            next.put(e, v);
+            out.add(v);
+        }
+        cache.clear();
+        cache.putAll(next);
+        return Collections.unmodifiableList(out);
+    }
+
+    private static boolean complete(CalendarEntry e) {
+        return e != null && e.getStart() != null && e.getEnd() != null;
+    }
+
+    /** Prüft ohne Allokation, ob {@code entry} (mit Start und Ende) denselben Inhalt hat. */
+    boolean matches(CalendarEntry entry) {
+        if (entry.getLazyDescription() != lazyDescription) return false;
+        if (lazyDescription == null && !Objects.equals(description, entry.getDescription())) return false;
+        Integer entryId = entry.getId();
+        Integer reminder = entry.getReminderMinutesBefore();
+        return (entryId != null ? entryId : NO_VALUE) == id
+                && (reminder != null ? reminder : NO_VALUE) == reminderMinutes
+                && LocalEpoch.toSeconds(entry.getStart()) == startEpoch
+                && LocalEpoch.toSeconds(entry.getEnd()) == endEpoch
+                && Objects.equals(title, entry.getTitle())
+                && Objects.equals(category, entry.getCategory())
+                && Objects.equals(uid, entry.getUid())
+                && Objects.equals(recurrenceId, entry.getRecurrenceId())
+                && Objects.equals(extraProperties, entry.getExtraProperties())
+                && attachments.equals(entry.getAttachments());
+    }
+
+    /** Schlüssel aus UID und optionaler RECURRENCE-ID, siehe {@link #key()}. */
+    public static String key(String uid, String recurrenceId) {
+        return recurrenceId != null ? uid + KEY_SEPARATOR + recurrenceId : uid;
+    }
+
+    /** UID-Anteil eines {@link #key() Schlüssels}. */
+    public static String uidOf(String key) {
+        int sep = key.indexOf(KEY_SEPARATOR);
+        return sep >= 0 ? key.substring(0, sep) : key;
+    }
+
+    /** Erzeugt einen neuen, veränderlichen {@link CalendarEntry} mit denselben Werten. */
+    public CalendarEntry toEntry() {
+        CalendarEntry ce = new CalendarEntry(id(), title, description, start(), end());
+        if (lazyDescription != null) ce.setLazyDescription(lazyDescription);
+        ce.setReminderMinutesBefore(reminderMinutesBefore());
+        ce.setCategory(category);
+        ce.setAttachments(attachments);
+        ce.setUid(uid);
+        ce.setRecurrenceId(recurrenceId);
+        ce.setExtraProperties(extraProperties);
+        return ce;
+    }
+
+    // ----- Zugriff -----
+
+    public Integer id() { return id != NO_VALUE ? id : null; }
+    public String title() { return title; }
+    /** Beschreibung; eine ausgelagerte Beschreibung wird dafür geladen (nicht zwischengespeichert). */
+    public String description() { return lazyDescription != null ? lazyDescription.load() : description; }
+    /** Ausgelagerte Beschreibung oder {@code null}. */
+    public LazyText lazyDescription() { return lazyDescription; }
+    public long startEpoch() { return startEpoch; }
+    public long endEpoch() { return endEpoch; }
+    public LocalDateTime start() { return LocalEpoch.toDateTime(startEpoch); }
+    public LocalDateTime end() { return LocalEpoch.toDateTime(endEpoch); }
+    public Integer reminderMinutesBefore() { return reminderMinutes != NO_VALUE ? reminderMinutes : null; }
+    public String category() { return category; }
+    /** Beim Import abgelegte Anhänge (unveränderlich). */
+    public List<AttachmentRef> attachments() { return attachments; }
+    /** iCalendar-UID oder {@code null}, falls der Termin noch keine hat. */
+    public String uid() { return uid; }
+    /** RECURRENCE-ID einer Serienausnahme (Rohtext ohne Namen) oder {@code null}. */
+    public String recurrenceId() { return recurrenceId; }
+    /**
+     * Speicherschlüssel: die UID, bei einer Serienausnahme zusätzlich deren RECURRENCE-ID.
+     * Alle Ereignisse einer UID teilen sich dieselbe UID, unterscheiden sich aber im Schlüssel.
+     *
+     * @throws IllegalStateException wenn der Termin noch keine UID hat
+     */
+    public String key() {
+        if (uid == null) throw new IllegalStateException("Termin ohne UID: " + this);
+        return key(uid, recurrenceId);
+    }
+    /** Unbekannte X-Eigenschaften als unveränderter iCalendar-Text oder {@code null}. */
+    public String extraProperties() { return extraProperties; }
+
+    /** Einmalig berechneter 64-Bit-Hash über alle Inhaltsfelder. */
+    public long contentHash() { return contentHash; }
+
+    // ----- Kopieren mit Änderung -----
+
+    public EntryValue withId(Integer newId) {
+        return new EntryValue(newId != null ? newId : NO_VALUE, title, description, lazyDescription, startEpoch, endEpoch, reminderMinutes, category, attachments, uid, recurrenceId, extraProperties);
+    }
+
+    public EntryValue withUid(String newUid) {
+        return new EntryValue(id, title, description, lazyDescription, startEpoch, endEpoch, reminderMinutes, category, attachments, newUid, recurrenceId, extraProperties);
+    }
+
+    public EntryValue withRecurrenceId(String newRecurrenceId) {
+        return new EntryValue(id, title, description, lazyDescription, startEpoch, endEpoch, reminderMinutes, category, attachments, uid, newRecurrenceId, extraProperties);
+    }
+
+    public EntryValue withTitle(String newTitle) {
+        return new EntryValue(id, newTitle, description, lazyDescription, startEpoch, endEpoch, reminderMinutes, category, attachments, uid, recurrenceId, extraProperties);
+    }
+
+    public EntryValue withDescription(String newDescription) {
+        return new EntryValue(id, title, newDescription, null, startEpoch, endEpoch, reminderMinutes, category, attachments, uid, recurrenceId, extraProperties);
+    }
+
+    public EntryValue withStart(LocalDateTime newStart) {
+        return new EntryValue(id, title, description, lazyDescription, LocalEpoch.toSeconds(newStart), endEpoch, reminderMinutes, category, attachments, uid, recurrenceId, extraProperties);
+    }
+
+    public EntryValue withEnd(LocalDateTime newEnd) {
+        return new EntryValue(id, title, description, lazyDescription, startEpoch, LocalEpoch.toSeconds(newEnd), reminderMinutes, category, attachments, uid, recurrenceId, extraProperties);
+    }
+
+    public EntryValue withReminderMinutesBefore(Integer minutes) {
+        return new EntryValue(id, title, description, lazyDescription, startEpoch, endEpoch, minutes != null ? minutes : NO_VALUE, category, attachments, uid, recurrenceId, extraProperties);
+    }
+
+    public EntryValue withCategory(String newCategory) {
+        return new EntryValue(id, title, description, lazyDescription, startEpoch, endEpoch, reminderMinutes, newCategory, attachments, uid, recurrenceId, extraProperties);
+    }
+
+    // ----- Gleichheit -----
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof EntryValue that)) return false;
+        return contentHash == that.contentHash
+                && id == that.id
+                && startEpoch == that.startEpoch
+                && endEpoch == that.endEpoch
+                && reminderMinutes == that.reminderMinutes
+                && Objects.equals(title, that.title)
+                && Objects.equals(description, that.description)
+                && Objects.equals(lazyKey(), that.lazyKey())
+                && Objects.equals(category, that.category)
+                && attachments.equals(that.attachments)
+                && Objects.equals(uid, that.uid)
+                && Objects.equals(recurrenceId, that.recurrenceId)
+                && Objects.equals(extraProperties, that.extraProperties);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (contentHash ^ (contentHash >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "EntryValue{" +
+                "id=" + id() +
+                ", title='" + title + '\'' +
+                ", start=" + start() +
+                ", end=" + end() +
+                '}';
+    }
+
+    private String lazyKey() {
+        return lazyDescription != null ? lazyDescription.key() : null;
+    }
+
+    // ----- Hash (FNV-1a, 64 Bit) -----
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private long computeHash() {
+        long h = FNV_OFFSET;
+        h = mix(h, id);
+        h = mix(h, title);
+        h = mix(h, description);
+        h = mix(h, lazyKey());
+        h = mix(h, startEpoch);
+        h = mix(h, endEpoch);
+        h = mix(h, reminderMinutes);
+        h = mix(h, category);
+        for (AttachmentRef a : attachments) h = mix(h, a.key());
+        h = mix(h, uid);
+        h = mix(h, recurrenceId);
+        h = mix(h, extraProperties);
+        return h;
+    }
+
+    private static long mix(long h, long v) {
+        for (int i = 0; i < 8; i++) {
+            h ^= (v >>> (i * 8)) & 0xFF;
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+
+    private static long mix(long h, String s) {
+        if (s == null) {
+            return mix(h, -1L);
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        h = mix(h, bytes.length);
+        for (byte b : bytes) {
+            h ^= b & 0xFF;
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+}
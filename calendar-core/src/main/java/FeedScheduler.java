@@ -0,0 +1,254 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Ruft abonnierte ICS-Feeds ({@link FeedSubscription}) regelmäßig im Hintergrund ab.
+ *
+ * Jeder Abruf läuft in einem eigenen virtuellen Thread; gleichzeitige Abrufe beim selben Host
+ * sind auf {@code maxPerHost} begrenzt. Abgefragt wird bedingt ({@code If-None-Match} bzw.
+ * {@code If-Modified-Since}); unveränderte Antworten (304 oder gleicher Inhaltshash) werden
+ * nicht geparst. Geänderte Feeds werden per UID mit dem letzten Stand verglichen und als
+ * {@link Update} mit nur den neuen, geänderten und entfernten Terminen gemeldet.
+ *
+ * Nach einem Fehler wird mit exponentiell wachsender, zufällig gestreuter Wartezeit erneut
+ * versucht ({@link #backoffMillis}); auch reguläre Intervalle werden leicht gestreut, damit
+ * viele Feeds nicht im Gleichtakt abgerufen werden.
+ */
+public final class FeedScheduler implements AutoCloseable {
+
+    /** Wartezeit nach dem ersten Fehler; verdoppelt sich je weiterem Fehler. */
+    static final long BACKOFF_BASE_MILLIS = 30_000;
+    /** Streuung regulärer Intervalle (±). */
+    static final double INTERVAL_JITTER = 0.1;
+    static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    /** Änderungen eines Feeds gegenüber dem vorherigen Abruf; {@code removals} sind Schlüssel ({@link EntryValue#key()}). */
+    public record Update(String feed, List<EntryValue> upserts, List<String> removals, int total) {
+    }
+
+    /** Empfänger der Abrufergebnisse; wird im Abruf-Thread aufgerufen. */
+    public interface Listener {
+        void updated(Update update);
+
+        default void failed(String feed, Exception error, long retryMillis) {
+        }
+    }
+
+    private final class Feed {
+        final FeedSubscription subscription;
+        final URI uri;
+        String etag;
+        String lastModified;
+        byte[] bodyHash;
+        Map<String, EntryValue> values = Map.of();
+        int failures;
+        CompletableFuture<Update> inFlight;
+        ScheduledFuture<?> next;
+
+        Feed(FeedSubscription subscription) {
+            this.subscription = subscription;
+            this.uri = URI.create(subscription.url());
+        }
+    }
+
+    private final Map<String, Feed> feeds = new LinkedHashMap<>();
+    private final Map<String, Semaphore> hostLimits = new ConcurrentHashMap<>();
+    private final int maxPerHost;
+    private final Listener listener;
+    private final ExecutorService workers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("feed-", 0).factory());
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "feed-scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+    private final HttpClient http;
+    private volatile boolean closed;
+
+    public FeedScheduler(List<FeedSubscription> subscriptions, int maxPerHost, Listener listener) {
+        for (FeedSubscription s : subscriptions) feeds.put(s.name(), new Feed(s));
+        this.maxPerHost = Math.max(1, maxPerHost);
+        this.listener = listener;
+        this.http = HttpClient.newBuilder()
+                .executor(workers)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /** Ruft alle Feeds sofort ab und plant danach die regelmäßigen Abrufe. */
+    public void start() {
+        refreshAll();
+    }
+
+    public List<String> names() {
+        return new ArrayList<>(feeds.keySet());
+    }
+
+    /** Ruft alle Feeds gleichzeitig ab; erfüllt, wenn alle Abrufe beendet sind. */
+    public CompletableFuture<Void> refreshAll() {
+        List<CompletableFuture<Update>> all = new ArrayList<>();
+        for (String name : feeds.keySet()) all.add(refresh(name).exceptionally(e -> null));
+        return CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Ruft einen Feed sofort ab. Läuft bereits ein Abruf, wird dessen Ergebnis geliefert.
+     * Das Ergebnis ist {@code null}, wenn sich der Feed nicht geändert hat.
+     */
+    public CompletableFuture<Update> refresh(String name) {
+        Feed feed = feeds.get(name);
+        if (feed == null) return CompletableFuture.failedFuture(new IllegalArgumentException("Unbekannter Feed: " + name));
+        synchronized (feed) {
+            if (feed.inFlight != null) return feed.inFlight;
+            if (feed.next != null) feed.next.cancel(false);
+            // Ergebnis erst nach der Meldung an den Empfänger und dem Planen des nächsten Abrufs.
+            // inFlight wird vor dem Start gesetzt: ein sofort beendeter Abruf räumt es sonst in
+            // completed() ab, bevor es hier gesetzt würde, und der Feed bliebe für immer "in Arbeit".
+            CompletableFuture<Update> fetched = new CompletableFuture<>();
+            CompletableFuture<Update> f = fetched.whenComplete((update, error) -> completed(feed, update, error));
+            feed.inFlight = f;
+            try {
+                workers.execute(() -> {
+                    try {
+                        fetched.complete(fetch(feed));
+                    } catch (Exception e) {
+                        fetched.completeExceptionally(new java.util.concurrent.CompletionException(e));
+                    }
+                });
+            } catch (java.util.concurrent.RejectedExecutionException e) {
+                fetched.completeExceptionally(new java.util.concurrent.CompletionException(e));
+            }
+            return f;
+        }
+    }
+
+    private void completed(Feed feed, Update update, Throwable error) {
+        long delay;
+        synchronized (feed) {
+            feed.inFlight = null;
+            long interval = TimeUnit.MINUTES.toMillis(feed.subscription.refreshMinutes());
+            if (error == null) {
+                feed.failures = 0;
+                delay = jittered(interval);
+            } else {
+                feed.failures++;
+                delay = backoffMillis(feed.failures, BACKOFF_BASE_MILLIS, interval);
+            }
+            if (!closed) feed.next = timer.schedule(() -> refresh(feed.subscription.name()), delay, TimeUnit.MILLISECONDS);
+        }
+        try {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                listener.failed(feed.subscription.name(), cause instanceof Exception e ? e : new Exception(cause), delay);
+            } else if (update != null) {
+                listener.updated(update);
+            }
+        } catch (RuntimeException ignored) {
+            // Fehler des Empfängers dürfen die Planung nicht stören
+        }
+    }
+
+    /**
+     * Wartezeit vor dem nächsten Versuch nach {@code failures} Fehlern in Folge: exponentiell ab
+     * {@code base}, höchstens {@code cap}, davon zufällig zwischen der Hälfte und dem Ganzen.
+     */
+    static long backoffMillis(int failures, long base, long cap) {
+        int shift = Math.min(Math.max(failures - 1, 0), 30);
+        long exp = Math.min(cap, base << shift);
+        long half = Math.max(1, exp / 2);
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    private static long jittered(long interval) {
+        double f = 1 + (ThreadLocalRandom.current().nextDouble() * 2 - 1) * INTERVAL_JITTER;
+        return Math.max(1, (long) (interval * f));
+    }
+
+    private Update fetch(Feed feed) throws Exception {
+        String host = feed.uri.getHost() != null ? feed.uri.getHost() + ":" + feed.uri.getPort() : "";
+        Semaphore limit = hostLimits.computeIfAbsent(host, h -> new Semaphore(maxPerHost));
+        HttpResponse<byte[]> response;
+        limit.acquire();
+        try {
+            HttpRequest.Builder request = HttpRequest.newBuilder(feed.uri)
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Accept", "text/calendar")
+                    .header("Accept-Encoding", "gzip")
+                    .GET();
+            synchronized (feed) {
+                if (feed.etag != null) request.header("If-None-Match", feed.etag);
+                if (feed.lastModified != null) request.header("If-Modified-Since", feed.lastModified);
+            }
+            response = http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } finally {
+            limit.release();
+        }
+
+        if (response.statusCode() == 304) return null;
+        if (response.statusCode() != 200) {
+            throw new IOException("HTTP " + response.statusCode() + " für " + feed.uri);
+        }
+        byte[] body = response.body();
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+        synchronized (feed) {
+            feed.etag = response.headers().firstValue("ETag").orElse(null);
+            feed.lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+            if (Arrays.equals(hash, feed.bodyHash)) return null;
+        }
+
+        InputStream in = new ByteArrayInputStream(body);
+        if (response.headers().firstValue("Content-Encoding").map("gzip"::equalsIgnoreCase).orElse(false)) {
+            in = new GZIPInputStream(in);
+        }
+        List<EntryValue> values = EntryValue.snapshot(IcsUtil.importIcs(in));
+
+        synchronized (feed) {
+            Map<String, EntryValue> before = feed.values;
+            Map<String, EntryValue> after = new HashMap<>(values.size() * 2);
+            List<EntryValue> upserts = new ArrayList<>();
+            for (EntryValue v : values) {
+                after.put(v.key(), v);
+                EntryValue old = before.get(v.key());
+                if (old == null || old.contentHash() != v.contentHash()) upserts.add(v);
+            }
+            List<String> removals = new ArrayList<>();
+            for (String key : before.keySet()) if (!after.containsKey(key)) removals.add(key);
+            feed.values = after;
+            feed.bodyHash = hash;
+            if (upserts.isEmpty() && removals.isEmpty()) return null;
+            return new Update(feed.subscription.name(), Collections.unmodifiableList(upserts),
+                    Collections.unmodifiableList(removals), after.size());
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        timer.shutdownNow();
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,9 @@
+/**
+ * Schreibgeschütztes Abonnement eines entfernten ICS-Feeds.
+ *
+ * @param name           Anzeigename, zugleich Name des Kalenders in der Ansicht
+ * @param url            Adresse des Feeds ({@code http}/{@code https})
+ * @param refreshMinutes Abrufintervall in Minuten
+ */
+public record FeedSubscription(String name, String url, int refreshMinutes) {
+}
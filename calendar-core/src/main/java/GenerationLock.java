@@ -0,0 +1,210 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sperre und Generationszähler für eine von mehreren Prozessen gemeinsam genutzte Kalenderdatei.
+ *
+ * Die Sperre liegt als {@link FileChannel#lock} auf der Begleitdatei {@code <ics>.gen}; Lesen
+ * nimmt eine gemeinsame, Schreiben eine exklusive Sperre. Die Begleitdatei enthält die aktuelle
+ * Generation und ein Journal der zuletzt geänderten UIDs je Generation. Wer eine ältere
+ * Generation kennt, kann damit nur die seither geänderten Termine nachlesen.
+ *
+ * Format (UTF-8, Tabulator-getrennt):
+ * <pre>
+ * generation  &lt;n&gt;  &lt;floor&gt;  &lt;Größe ICS&gt;  &lt;Änderungszeit ICS&gt;
+ * &lt;gen&gt;  &lt;uid&gt;
+ * ...
+ * </pre>
+ * Das Journal ist für alle Generationen größer {@code floor} vollständig. Größe und
+ * Änderungszeit der ICS-Datei beim letzten Commit zeigen, ob seither ein Programm ohne diese
+ * Sperre geschrieben hat; dann ist das Journal nicht mehr verlässlich.
+ */
+public final class GenerationLock {
+
+    static final String SUFFIX = ".gen";
+    /** Maximale Anzahl Journalzeilen; ältere Generationen werden ganz verworfen. */
+    static final int JOURNAL_LIMIT = 2048;
+    static final long LOCK_TIMEOUT_MILLIS = 10_000;
+
+    private final Path file;
+
+    private GenerationLock(Path file) {
+        this.file = file;
+    }
+
+    /** Sperre zur ICS-Datei {@code ics} (Begleitdatei {@code <ics>.gen}). */
+    public static GenerationLock forFile(Path ics) {
+        return new GenerationLock(Path.of(ics.toString() + SUFFIX));
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Sperrt die Begleitdatei und liest ihren Stand. Wartet höchstens
+     * {@link #LOCK_TIMEOUT_MILLIS} auf Sperren anderer Instanzen im selben Prozess.
+     */
+    public Held acquire(boolean shared) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long deadline = System.currentTimeMillis() + LOCK_TIMEOUT_MILLIS;
+            FileLock lock;
+            while (true) {
+                try {
+                    // Blockiert, solange ein anderer Prozess die Sperre hält
+                    lock = ch.lock(0, Long.MAX_VALUE, shared);
+                    break;
+                } catch (OverlappingFileLockException e) {
+                    // Sperre wird im selben Prozess gehalten
+                    if (System.currentTimeMillis() > deadline) throw new IOException("Kalenderdatei ist gesperrt: " + file);
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Warten auf Sperre unterbrochen", ie);
+                    }
+                }
+            }
+            Held held = new Held(ch, lock);
+            held.read();
+            return held;
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /** Gehaltene Sperre mit dem gelesenen Stand der Begleitdatei. */
+    public static final class Held implements AutoCloseable {
+
+        private record Change(long generation, String uid) {
+        }
+
+        private final FileChannel channel;
+        private final FileLock lock;
+        private long generation;
+        private long floor;
+        private long icsSize = -1;
+        private long icsModified = -1;
+        private final List<Change> journal = new ArrayList<>();
+
+        private Held(FileChannel channel, FileLock lock) {
+            this.channel = channel;
+            this.lock = lock;
+        }
+
+        public long generation() {
+            return generation;
+        }
+
+        /** Gibt an, ob die ICS-Datei noch so aussieht wie beim letzten Commit. */
+        public boolean matches(long size, long modified) {
+            return size == icsSize && modified == icsModified;
+        }
+
+        /**
+         * UIDs, die seit Generation {@code known} geändert wurden, oder {@code null}, wenn das
+         * Journal diesen Zeitraum nicht mehr vollständig abdeckt.
+         */
+        public Set<String> changedSince(long known) {
+            if (known == generation) return Set.of();
+            if (known < floor || known > generation) return null;
+            Set<String> out = new LinkedHashSet<>();
+            for (Change c : journal) {
+                if (c.generation() > known) out.add(c.uid());
+            }
+            return out;
+        }
+
+        /**
+         * Erhöht die Generation, vermerkt die geänderten UIDs und den neuen Dateistand der
+         * ICS-Datei. Nur mit exklusiver Sperre.
+         *
+         * @param uids geänderte UIDs oder {@code null}, wenn sie unbekannt sind
+         * @return neue Generation
+         */
+        public long commit(Collection<String> uids, long size, long modified) throws IOException {
+            if (lock.isShared()) throw new IllegalStateException("Commit erfordert eine exklusive Sperre");
+            generation++;
+            if (uids == null) {
+                journal.clear();
+                floor = generation;
+            } else {
+                for (String uid : uids) journal.add(new Change(generation, uid));
+            }
+            // Älteste Generationen verwerfen, bis das Journal in die Grenze passt
+            int drop = 0;
+            while (journal.size() - drop > JOURNAL_LIMIT) {
+                long g = journal.get(drop).generation();
+                while (drop < journal.size() && journal.get(drop).generation() == g) drop++;
+                floor = g;
+            }
+            if (drop > 0) journal.subList(0, drop).clear();
+            icsSize = size;
+            icsModified = modified;
+            write();
+            return generation;
+        }
+
+        private void read() throws IOException {
+            long size = channel.size();
+            if (size == 0) return;
+            ByteBuffer buf = ByteBuffer.allocate((int) Math.min(size, Integer.MAX_VALUE));
+            while (buf.hasRemaining() && channel.read(buf, buf.position()) > 0) {
+                // weiterlesen
+            }
+            String[] lines = new String(buf.array(), 0, buf.position(), StandardCharsets.UTF_8).split("\n");
+            try {
+                String[] head = lines[0].split("\t");
+                if (head.length < 5 || !"generation".equals(head[0])) return;
+                generation = Long.parseLong(head[1]);
+                floor = Long.parseLong(head[2]);
+                icsSize = Long.parseLong(head[3]);
+                icsModified = Long.parseLong(head[4]);
+                for (int i = 1; i < lines.length; i++) {
+                    int tab = lines[i].indexOf('\t');
+                    if (tab <= 0) continue;
+                    journal.add(new Change(Long.parseLong(lines[i].substring(0, tab)), lines[i].substring(tab + 1)));
+                }
+            } catch (NumberFormatException e) {
+                // Beschädigt: Journal verwerfen, Leser lesen die ganze Datei
+                journal.clear();
+                floor = generation;
+                icsSize = -1;
+                icsModified = -1;
+            }
+        }
+
+        private void write() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            sb.append("generation\t").append(generation).append('\t').append(floor)
+                    .append('\t').append(icsSize).append('\t').append(icsModified).append('\n');
+            for (Change c : journal) sb.append(c.generation()).append('\t').append(c.uid()).append('\n');
+            ByteBuffer buf = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+            channel.truncate(0);
+            while (buf.hasRemaining()) channel.write(buf, buf.position());
+            channel.force(true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                lock.release();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,282 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link CalendarStore} über eine einzelne ICS-Datei (optional {@code .gz}-komprimiert).
+ *
+ * Die Datei wird bei jeder Änderung als Ganzes geschrieben, innerhalb einer Transaktion nur
+ * einmal am Ende. Mit Byte-Index ({@code ics.index}) werden wenige Änderungen direkt in der
+ * Datei ersetzt ({@link IcsIndex#applyDiff}). Bereichsabfragen filtern den zuletzt geladenen
+ * bzw. geschriebenen Stand im Speicher.
+ *
+ * Im gemeinsamen Modus ({@code ics.shared}) koordinieren sich mehrere Prozesse über eine
+ * {@link GenerationLock}-Sperre. Geschrieben wird nur, wenn die Datei seit dem eigenen letzten
+ * Lesen bzw. Schreiben unverändert ist, sonst mit {@link StaleException} abgebrochen; der
+ * Aufrufer holt dann über {@link #pull()} die fremden Änderungen, gleicht ab und versucht es
+ * erneut. {@link #pull()} liest dabei mit Byte-Index nur die laut Journal geänderten Termine.
+ */
+public final class IcsFileStore implements CalendarStore {
+
+    /** Die Datei wurde seit dem letzten eigenen Zugriff von einem anderen Prozess geändert. */
+    public static final class StaleException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public StaleException(Path path, long generation) {
+            super("Kalenderdatei wurde zwischenzeitlich geändert (Generation " + generation + "): " + path);
+        }
+    }
+
+    private final Path path;
+    private final boolean indexed;
+    /** Sperre im gemeinsamen Modus, sonst {@code null}. */
+    private final GenerationLock lock;
+    /** Zuletzt gesehene Generation und Dateistand (Größe, Änderungszeit). */
+    private long generation = -1;
+    private long[] stamp = NO_STAMP;
+    private static final long[] NO_STAMP = {-1, -1};
+
+    /** Stand der Datei (nach dem letzten Laden oder Schreiben), {@code null} bis zum ersten Zugriff. */
+    private List<EntryValue> saved;
+    /** Ausstehender Stand innerhalb einer Transaktion. */
+    private List<EntryValue> pending;
+    private int txDepth;
+
+    public IcsFileStore(Path path, boolean indexed) {
+        this(path, indexed, false);
+    }
+
+    /** @param shared mit anderen Prozessen über {@link GenerationLock} koordinieren */
+    public IcsFileStore(Path path, boolean indexed, boolean shared) {
+        this.path = path;
+        this.indexed = indexed;
+        this.lock = shared ? GenerationLock.forFile(path) : null;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public synchronized List<CalendarEntry> loadAll() throws Exception {
+        if (lock == null) return readAll();
+        try (GenerationLock.Held held = lock.acquire(true)) {
+            List<CalendarEntry> entries = readAll();
+            generation = held.generation();
+            stamp = stat();
+            return entries;
+        }
+    }
+
+    private List<CalendarEntry> readAll() throws Exception {
+        List<CalendarEntry> entries = Files.exists(path) ? IcsUtil.importIcs(path) : new ArrayList<>();
+        entries.sort(Comparator.comparing(CalendarEntry::getStart));
+        saved = EntryValue.snapshot(entries);
+        return entries;
+    }
+
+    /**
+     * Übernimmt Änderungen anderer Prozesse und liefert den aktuellen Stand der Datei. Deckt das
+     * Journal den Zeitraum seit dem letzten Zugriff ab, werden mit Byte-Index nur die geänderten
+     * Termine gelesen, sonst die ganze Datei.
+     */
+    public synchronized List<EntryValue> pull() throws Exception {
+        if (lock == null) {
+            readAll();
+            return saved;
+        }
+        try (GenerationLock.Held held = lock.acquire(true)) {
+            long[] now = stat();
+            if (saved != null && held.generation() == generation && Arrays.equals(stamp, now)) return saved;
+
+            Set<String> changed = saved != null && held.matches(now[0], now[1]) ? held.changedSince(generation) : null;
+            if (changed != null && indexed && !IcsUtil.isCompressed(path)) {
+                saved = patch(saved, changed);
+            } else {
+                readAll();
+            }
+            generation = held.generation();
+            stamp = now;
+            return saved;
+        }
+    }
+
+    /**
+     * Ersetzt die Termine der geänderten UIDs (Serie samt Ausnahmen) im Stand durch die Blöcke
+     * aus der Datei.
+     */
+    private List<EntryValue> patch(List<EntryValue> base, Set<String> changed) throws Exception {
+        Map<String, EntryValue> byKey = byKey(base);
+        byKey.keySet().removeIf(key -> changed.contains(EntryValue.uidOf(key)));
+        IcsIndex index = IcsIndex.load(path);
+        for (IcsIndex.Slot slot : index.slots()) {
+            if (!changed.contains(EntryValue.uidOf(slot.key()))) continue;
+            CalendarEntry ce = index.readEvent(slot.key());
+            if (ce != null) byKey.put(slot.key(), EntryValue.of(ce));
+        }
+        return Collections.unmodifiableList(new ArrayList<>(byKey.values()));
+    }
+
+    /** Generation der zuletzt gelesenen bzw. geschriebenen Datei ({@code -1} ohne gemeinsamen Modus). */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    @Override
+    public synchronized List<CalendarEntry> findRange(LocalDateTime from, LocalDateTime to) throws Exception {
+        long f = LocalEpoch.toSeconds(from);
+        long t = LocalEpoch.toSeconds(to);
+        List<CalendarEntry> out = new ArrayList<>();
+        for (EntryValue v : current()) {
+            if (v.startEpoch() < t && (v.endEpoch() > f || v.startEpoch() >= f)) out.add(v.toEntry());
+        }
+        out.sort(Comparator.comparing(CalendarEntry::getStart));
+        return out;
+    }
+
+    @Override
+    public synchronized void upsert(Collection<EntryValue> values) throws Exception {
+        Map<String, EntryValue> byKey = byKey(current());
+        for (EntryValue v : values) byKey.put(v.key(), v);
+        apply(new ArrayList<>(byKey.values()));
+    }
+
+    @Override
+    public synchronized void delete(Collection<String> keys) throws Exception {
+        Map<String, EntryValue> byKey = byKey(current());
+        byKey.keySet().removeAll(new HashSet<>(keys));
+        apply(new ArrayList<>(byKey.values()));
+    }
+
+    @Override
+    public synchronized void inTransaction(Transaction work) throws Exception {
+        if (txDepth++ == 0) pending = current();
+        boolean ok = false;
+        try {
+            work.run(this);
+            ok = true;
+        } finally {
+            if (--txDepth == 0) {
+                List<EntryValue> next = pending;
+                pending = null;
+                if (ok && next != saved) write(next);
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean isEmpty() throws Exception {
+        return current().isEmpty();
+    }
+
+    /** Schreibt den Snapshot nur, wenn er sich vom Stand der Datei unterscheidet. */
+    @Override
+    public synchronized int replaceAll(List<EntryValue> values) throws Exception {
+        List<EntryValue> next = List.copyOf(values);
+
+        int changes = 0;
+        Map<String, EntryValue> before = byKey(current());
+        Set<String> live = new HashSet<>(next.size() * 2);
+        for (EntryValue v : next) {
+            live.add(v.key());
+            EntryValue old = before.get(v.key());
+            if (old == null || old.contentHash() != v.contentHash()) changes++;
+        }
+        for (String key : before.keySet()) if (!live.contains(key)) changes++;
+        if (changes == 0 && Files.exists(path)) return 0;
+
+        apply(next);
+        return changes;
+    }
+
+    /**
+     * Übernimmt einen extern geänderten Dateistand als Ausgangspunkt für das nächste Schreiben,
+     * ohne die Datei erneut zu lesen.
+     */
+    public synchronized void refresh(List<EntryValue> onDisk) {
+        saved = Collections.unmodifiableList(new ArrayList<>(onDisk));
+    }
+
+    @Override
+    public void close() {
+        // Keine offenen Ressourcen; die Datei wird nur während des Schreibens geöffnet
+    }
+
+    private List<EntryValue> current() throws Exception {
+        if (pending != null) return pending;
+        if (saved == null) loadAll();
+        return saved;
+    }
+
+    private void apply(List<EntryValue> next) throws Exception {
+        if (txDepth > 0) {
+            pending = next;
+        } else {
+            write(next);
+        }
+    }
+
+    private void write(List<EntryValue> next) throws Exception {
+        if (lock == null) {
+            writeFile(next);
+            saved = next;
+            return;
+        }
+        try (GenerationLock.Held held = lock.acquire(false)) {
+            if (saved == null || held.generation() != generation || !Arrays.equals(stamp, stat())) {
+                throw new StaleException(path, held.generation());
+            }
+            Set<String> changed = changedUids(saved, next);
+            writeFile(next);
+            stamp = stat();
+            generation = held.commit(changed, stamp[0], stamp[1]);
+        }
+        saved = next;
+    }
+
+    private void writeFile(List<EntryValue> next) throws Exception {
+        if (!indexed || IcsUtil.isCompressed(path)) {
+            IcsUtil.exportIcsValues(path, next);
+        } else if (saved == null || !IcsIndex.applyDiff(path, saved, next, IcsIndex.MAX_PATCH_CHANGES)) {
+            IcsUtil.exportIcsIndexed(path, next);
+        }
+    }
+
+    /** UIDs mit geänderten Terminen; das Journal führt UIDs, {@link #patch} liest je UID alle Blöcke. */
+    private static Set<String> changedUids(List<EntryValue> before, List<EntryValue> after) {
+        Map<String, EntryValue> old = byKey(before);
+        Set<String> out = new HashSet<>();
+        for (EntryValue v : after) {
+            EntryValue prev = old.remove(v.key());
+            if (prev == null || prev.contentHash() != v.contentHash()) out.add(v.uid());
+        }
+        for (String key : old.keySet()) out.add(EntryValue.uidOf(key));
+        return out;
+    }
+
+    private long[] stat() {
+        try {
+            return new long[]{Files.size(path), Files.getLastModifiedTime(path).toMillis()};
+        } catch (IOException e) {
+            return NO_STAMP;
+        }
+    }
+
+    private static Map<String, EntryValue> byKey(List<EntryValue> values) {
+        Map<String, EntryValue> out = new LinkedHashMap<>(values.size() * 2);
+        for (EntryValue v : values) out.put(v.key(), v);
+        return out;
+    }
+}
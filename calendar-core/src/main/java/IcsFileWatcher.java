@@ -0,0 +1,167 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Überwacht eine Kalenderdatei auf Änderungen durch andere Programme (z. B. Sync-Clients).
+ *
+ * Beobachtet wird das Verzeichnis der Datei über einen {@link WatchService}. Nach einer
+ * Änderung wartet der Watcher kurz, bis keine weiteren Ereignisse eintreffen, und meldet die
+ * Datei nur, wenn sich ihr Inhaltshash (SHA-256) vom bekannten Stand unterscheidet. Eigene
+ * Schreibvorgänge werden über {@link #acknowledge()} als bekannt markiert. Größe und
+ * Änderungszeit dienen als Vorprüfung, damit unveränderte Dateien nicht gehasht werden.
+ *
+ * Der Rückruf läuft im Watcher-Thread und erhält den neuen Inhaltshash.
+ */
+public final class IcsFileWatcher implements AutoCloseable {
+
+    /** Wartezeit nach dem letzten Ereignis, bevor die Datei geprüft wird. */
+    static final long SETTLE_MILLIS = 250;
+
+    private final Path file;
+    private final WatchService service;
+    private final Consumer<String> onChange;
+    private final Thread thread;
+
+    private String knownHash;
+    private long knownSize = -1;
+    private long knownModified = -1;
+    private String reportedHash;
+
+    private IcsFileWatcher(Path file, WatchService service, Consumer<String> onChange) throws Exception {
+        this.file = file;
+        this.service = service;
+        this.onChange = onChange;
+        acknowledge();
+        this.thread = new Thread(this::run, "ics-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    /** Startet die Überwachung; der aktuelle Inhalt gilt als bekannt. */
+    public static IcsFileWatcher start(Path file, Consumer<String> onChange) throws Exception {
+        Path abs = file.toAbsolutePath();
+        Path dir = abs.getParent();
+        WatchService service = FileSystems.getDefault().newWatchService();
+        try {
+            dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            IcsFileWatcher watcher = new IcsFileWatcher(abs, service, onChange);
+            watcher.thread.start();
+            return watcher;
+        } catch (Exception e) {
+            service.close();
+            throw e;
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /** Markiert den aktuellen Inhalt der Datei als bekannt (nach eigenem Laden oder Speichern). */
+    public synchronized String acknowledge() throws Exception {
+        long[] stat = stat();
+        known(Files.exists(file) ? hash(file) : "", stat);
+        return knownHash;
+    }
+
+    /** Markiert einen bereits gelesenen Stand als bekannt, sofern die Datei ihn noch enthält. */
+    public synchronized void acknowledge(String hash) throws Exception {
+        long[] stat = stat();
+        if (hash.equals(Files.exists(file) ? hash(file) : "")) known(hash, stat);
+    }
+
+    /**
+     * Liefert den Inhaltshash, falls die Datei seit dem bekannten Stand geändert wurde, sonst
+     * {@code null}.
+     */
+    public synchronized String changedHash() throws Exception {
+        long[] stat = stat();
+        if (stat[0] == knownSize && stat[1] == knownModified) return null;
+        String hash = Files.exists(file) ? hash(file) : "";
+        if (!hash.equals(knownHash)) return hash;
+        // Nur berührt, Inhalt unverändert
+        known(hash, stat);
+        return null;
+    }
+
+    private void known(String hash, long[] stat) {
+        knownHash = hash;
+        knownSize = stat[0];
+        knownModified = stat[1];
+        reportedHash = null;
+    }
+
+    private long[] stat() {
+        try {
+            BasicFileAttributes a = Files.readAttributes(file, BasicFileAttributes.class);
+            return new long[]{a.size(), a.lastModifiedTime().toMillis()};
+        } catch (Exception e) {
+            return new long[]{-1, -1};
+        }
+    }
+
+    /** SHA-256 über den Dateiinhalt (Rohbytes, bei {@code .gz} also komprimiert). */
+    static String hash(Path path) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        byte[] buf = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(path)) {
+            int n;
+            while ((n = in.read(buf)) > 0) md.update(buf, 0, n);
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private void run() {
+        Path name = file.getFileName();
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean relevant = false;
+                do {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context())) relevant = true;
+                    }
+                    if (!key.reset()) return;
+                    // Weitere Ereignisse desselben Schreibvorgangs abwarten
+                    key = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                } while (key != null);
+                if (relevant) check();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Überwachung beendet
+        }
+    }
+
+    private void check() {
+        String hash;
+        synchronized (this) {
+            try {
+                hash = changedHash();
+            } catch (Exception e) {
+                // Datei wird gerade ersetzt; das nächste Ereignis prüft erneut
+                return;
+            }
+            if (hash == null || hash.equals(reportedHash)) return;
+            reportedHash = hash;
+        }
+        onChange.accept(hash);
+    }
+
+    @Override
+    public void close() throws IOException {
+        service.close();
+        thread.interrupt();
+    }
+}
@@ -0,0 +1,78 @@
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache der serialisierten VEVENT-Blöcke für den ICS-Export.
+ *
+ * Ein Eintrag ist über den Schlüssel des Termins ({@link EntryValue#key()}) und den Inhaltshash seines {@link EntryValue}
+ * adressiert. Ändert sich ein Termin, ändert sich der Hash und der Block wird neu erzeugt;
+ * unveränderte Termine werden beim nächsten Speichern nur noch als Bytes kopiert.
+ *
+ * Nach jedem Export werden Blöcke entfernt, deren Schlüssel im exportierten Snapshot nicht mehr
+ * vorkommt, sodass der Cache nie größer als der aktuelle Kalender wird.
+ */
+public final class IcsFragmentCache {
+
+    private static final IcsFragmentCache SHARED = new IcsFragmentCache();
+
+    /**
+     * Serialisierter VEVENT-Block. Zwischen {@code head} und {@code tail} werden die abgelegten
+     * Rohbytes ({@code blobs}, z. B. Anhänge) unverändert eingefügt.
+     */
+    public record Fragment(long contentHash, ByteBuffer head, List<LazyText> blobs, ByteBuffer tail) {
+        /** Größe in Bytes ohne die abgelegten Rohbytes. */
+        public int size() {
+            return head.remaining() + tail.remaining();
+        }
+    }
+
+    /** Kennzahlen seit dem letzten {@link #clear()}. */
+    public record Stats(long hits, long misses, int size) {
+        @Override
+        public String toString() {
+            return "hits=" + hits + ", misses=" + misses + ", cached=" + size;
+        }
+    }
+
+    private final Map<String, Fragment> byKey = new HashMap<>();
+    private long hits;
+    private long misses;
+
+    /** Gemeinsamer Cache des Exporters. */
+    public static IcsFragmentCache shared() {
+        return SHARED;
+    }
+
+    /** Liefert den Block zu Schlüssel und Inhaltshash oder {@code null}. */
+    public synchronized Fragment get(String key, long contentHash) {
+        Fragment f = byKey.get(key);
+        if (f != null && f.contentHash() == contentHash) {
+            hits++;
+            return f;
+        }
+        misses++;
+        return null;
+    }
+
+    public synchronized void put(String key, Fragment fragment) {
+        byKey.put(key, fragment);
+    }
+
+    /** Entfernt alle Blöcke, deren Schlüssel nicht in {@code live} enthalten ist. */
+    public synchronized void retain(Set<String> live) {
+        byKey.keySet().retainAll(live);
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, byKey.size());
+    }
+
+    public synchronized void clear() {
+        byKey.clear();
+        hits = 0;
+        misses = 0;
+    }
+}
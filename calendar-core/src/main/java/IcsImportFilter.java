@@ -0,0 +1,347 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Vorfilter für den ICS-Import, der den Eingabestrom byteweise durchreicht und große
+ * Eigenschaften von VEVENTs abzweigt, bevor Biweekly sie dekodiert.
+ *
+ * Große DESCRIPTION-Werte (über {@code threshold} Byte) werden komprimiert in einen
+ * {@link DescriptionStore} geschrieben und aus dem Strom entfernt. Das betroffene VEVENT
+ * erhält stattdessen eine Eigenschaft {@value #REF_PROPERTY} mit dem Index seiner
+ * {@link EventExtras}, über die der Importer die Verweise wiederfindet.
+ *
+ * ATTACH-Eigenschaften von VEVENTs werden unabhängig von ihrer Größe vollständig abgelegt
+ * ({@link AttachmentRef}) und nie dekodiert; der Speicherbedarf des Imports hängt damit nicht
+ * von der Größe eingebetteter Anhänge ab.
+ *
+ * Unbekannte X-Eigenschaften eines VEVENTs werden als Rohtext gesammelt
+ * ({@link EventExtras#getExtraProperties()}), damit der Export sie unverändert übernehmen kann.
+ * Ebenso wird die RECURRENCE-ID einer Serienausnahme als Rohtext abgelegt
+ * ({@link EventExtras#getRecurrenceId()}); sie bildet zusammen mit der UID den Speicherschlüssel.
+ *
+ * Der Filter arbeitet streamend: Auch sehr große Eigenschaften werden nie vollständig im
+ * Speicher gehalten. Zeilenfaltungen, CRLF/LF und alle übrigen Bytes bleiben unverändert.
+ */
+public final class IcsImportFilter extends InputStream {
+
+    /** Interne Eigenschaft, die ein VEVENT mit seinen abgezweigten Daten verknüpft. */
+    public static final String REF_PROPERTY = "X-CALJAVA-REF";
+
+    /** Zeichen, die als Vorschau einer ausgelagerten Beschreibung erhalten bleiben. */
+    static final int PREVIEW_CHARS = 200;
+
+    private static final int MAX_NAME = 256;
+
+    /** Abgezweigte Daten eines VEVENTs. */
+    public static final class EventExtras {
+        private LazyText description;
+        private final List<AttachmentRef> attachments = new ArrayList<>();
+        private StringBuilder extraProperties;
+        private String recurrenceId;
+
+        /** Ausgelagerte Beschreibung oder {@code null}. */
+        public LazyText getDescription() { return description; }
+
+        /** Abgelegte Anhänge in Originalreihenfolge. */
+        public List<AttachmentRef> getAttachments() { return attachments; }
+
+        /** Unbekannte X-Eigenschaften als Rohtext (inkl. Faltung und Zeilenenden) oder {@code null}. */
+        public String getExtraProperties() { return extraProperties != null ? extraProperties.toString() : null; }
+
+        /**
+         * RECURRENCE-ID ohne Eigenschaftsnamen, entfaltet und ohne Zeilenende
+         * (z. B. {@code ;TZID=Europe/Berlin:20250105T090000}) oder {@code null}.
+         */
+        public String getRecurrenceId() { return recurrenceId; }
+    }
+
+    private enum Phase { LINE_START, NAME, BODY }
+    private enum Route { KEEP, CAPTURE, DESCRIPTION, ATTACH, EXTRA, RECURRENCE_ID }
+
+    private final InputStream in;
+    private final int threshold;
+    private DescriptionStore store;
+
+    private final List<EventExtras> extras = new ArrayList<>();
+    private final Deque<String> components = new ArrayDeque<>();
+    private EventExtras currentExtras;
+    private int currentExtrasIndex;   // Position von currentExtras in extras
+
+    // Zustand der aktuellen Eigenschaft
+    private Phase phase = Phase.LINE_START;
+    private Route route;
+    private final ByteBuf name = new ByteBuf(64);
+    private final ByteBuf capture = new ByteBuf(256);
+    private DescriptionStore.BlobWriter blob;
+    private final ByteBuf blobChunk = new ByteBuf(8 * 1024);
+
+    // Ausgabe
+    private final ByteBuf out = new ByteBuf(16 * 1024);
+    private int outPos;
+    private final byte[] inBuf = new byte[16 * 1024];
+    private boolean eof;
+
+    /**
+     * @param in        ursprünglicher ICS-Strom
+     * @param threshold Größe in Byte, ab der eine DESCRIPTION ausgelagert wird
+     */
+    public IcsImportFilter(InputStream in, int threshold) {
+        this.in = in;
+        this.threshold = threshold;
+    }
+
+    /** Abgezweigte Daten zum Wert von {@value #REF_PROPERTY}. */
+    public EventExtras getExtras(String ref) {
+        try {
+            int i = Integer.parseInt(ref.trim());
+            return i >= 0 && i < extras.size() ? extras.get(i) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** Speicher der ausgelagerten Eigenschaften (null, falls keine ausgelagert wurde). */
+    public DescriptionStore getDescriptionStore() {
+        return store;
+    }
+
+    // ----- InputStream -----
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        int n = read(one, 0, 1);
+        return n < 0 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        while (outPos >= out.size()) {
+            out.reset();
+            outPos = 0;
+            if (eof) return -1;
+            int n = in.read(inBuf);
+            if (n < 0) {
+                eof = true;
+                finishProperty();
+                if (out.size() == 0) return -1;
+            } else {
+                for (int i = 0; i < n; i++) consume(inBuf[i]);
+            }
+        }
+        int n = Math.min(len, out.size() - outPos);
+        System.arraycopy(out.array(), outPos, b, off, n);
+        outPos += n;
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        blobChunk.reset();
+        if (blob != null) {
+            blob.abort();
+            blob = null;
+        }
+        in.close();
+    }
+
+    // ----- Zustandsautomat -----
+
+    private void consume(byte b) throws IOException {
+        switch (phase) {
+            case LINE_START -> {
+                if ((b == ' ' || b == '\t') && route != null) {
+                    // Fortsetzungszeile der aktuellen Eigenschaft
+                    phase = Phase.BODY;
+                    emit(b);
+                } else {
+                    finishProperty();
+                    route = null;
+                    name.reset();
+                    phase = Phase.NAME;
+                    nameByte(b);
+                }
+            }
+            case NAME -> nameByte(b);
+            case BODY -> {
+                emit(b);
+                if (b == '\n') phase = Phase.LINE_START;
+            }
+        }
+    }
+
+    private void nameByte(byte b) throws IOException {
+        if (b == ';' || b == ':' || b == '\n' || name.size() >= MAX_NAME) {
+            route = decideRoute(propertyName());
+            for (int i = 0; i < name.size(); i++) emit(name.array()[i]);
+            emit(b);
+            phase = b == '\n' ? Phase.LINE_START : Phase.BODY;
+        } else {
+            name.write(b);
+        }
+    }
+
+    private String propertyName() {
+        int start = 0;
+        byte[] a = name.array();
+        // UTF-8-BOM am Dateianfang ignorieren
+        if (name.size() >= 3 && (a[0] & 0xFF) == 0xEF && (a[1] & 0xFF) == 0xBB && (a[2] & 0xFF) == 0xBF) start = 3;
+        return new String(a, start, name.size() - start, StandardCharsets.US_ASCII).trim().toUpperCase(Locale.ROOT);
+    }
+
+    private Route decideRoute(String propName) {
+        if (propName.equals("BEGIN") || propName.equals("END")) return Route.CAPTURE;
+        if ("VEVENT".equals(components.peek())) {
+            if (propName.equals("DESCRIPTION")) return Route.DESCRIPTION;
+            if (propName.equals("ATTACH")) return Route.ATTACH;
+            if (propName.equals("RECURRENCE-ID")) return Route.RECURRENCE_ID;
+            if (propName.startsWith("X-") && !propName.equals(REF_PROPERTY)) return Route.EXTRA;
+        }
+        return Route.KEEP;
+    }
+
+    private void emit(byte b) throws IOException {
+        switch (route) {
+            case KEEP -> out.write(b);
+            case CAPTURE, EXTRA, RECURRENCE_ID -> capture.write(b);
+            case DESCRIPTION -> {
+                if (blob != null) {
+                    blobByte(b);
+                } else {
+                    capture.write(b);
+                    if (capture.size() > threshold) {
+                        openBlob();
+                        blob.write(capture.array(), 0, capture.size());
+                    }
+                }
+            }
+            case ATTACH -> {
+                if (blob == null) openBlob();
+                blobByte(b);
+            }
+        }
+    }
+
+    private void openBlob() throws IOException {
+        if (store == null) store = DescriptionStore.create();
+        blob = store.newBlob();
+    }
+
+    private void blobByte(byte b) throws IOException {
+        blobChunk.write(b);
+        if (blobChunk.size() == 8 * 1024) flushBlobChunk();
+    }
+
+    private void finishProperty() throws IOException {
+        if (route == null) return;
+        switch (route) {
+            case KEEP -> { }
+            case CAPTURE -> finishComponentLine();
+            case DESCRIPTION -> {
+                if (blob != null) {
+                    flushBlobChunk();
+                    String preview = preview(capture);
+                    extrasForCurrentEvent().description = blob.finish(preview);
+                    blob = null;
+                } else {
+                    out.write(capture.array(), 0, capture.size());
+                }
+            }
+            case EXTRA -> {
+                EventExtras ex = extrasForCurrentEvent();
+                if (ex.extraProperties == null) ex.extraProperties = new StringBuilder();
+                ex.extraProperties.append(new String(capture.array(), 0, capture.size(), StandardCharsets.UTF_8));
+            }
+            case RECURRENCE_ID -> extrasForCurrentEvent().recurrenceId = recurrenceId(capture);
+            case ATTACH -> {
+                flushBlobChunk();
+                extrasForCurrentEvent().attachments.add(new AttachmentRef(blob.finish("")));
+                blob = null;
+            }
+        }
+        capture.reset();
+        route = null;
+    }
+
+    private void flushBlobChunk() throws IOException {
+        blob.write(blobChunk.array(), 0, blobChunk.size());
+        blobChunk.reset();
+    }
+
+    /** Verarbeitet BEGIN/END-Zeilen und fügt vor END:VEVENT ggf. den Verweis ein. */
+    private void finishComponentLine() {
+        String line = new String(capture.array(), 0, capture.size(), StandardCharsets.UTF_8);
+        int colon = line.indexOf(':');
+        String key = propertyName();
+        String value = colon >= 0 ? line.substring(colon + 1).trim().toUpperCase(Locale.ROOT) : "";
+        if (key.equals("BEGIN")) {
+            components.push(value);
+            if (value.equals("VEVENT")) currentExtras = null;
+        } else {
+            if (value.equals("VEVENT") && currentExtras != null) {
+                byte[] marker = (REF_PROPERTY + ":" + currentExtrasIndex + "\r\n").getBytes(StandardCharsets.US_ASCII);
+                out.write(marker, 0, marker.length);
+                currentExtras = null;
+            }
+            if (!components.isEmpty() && components.peek().equals(value)) components.pop();
+        }
+        out.write(capture.array(), 0, capture.size());
+    }
+
+    private EventExtras extrasForCurrentEvent() {
+        if (currentExtras == null) {
+            currentExtras = new EventExtras();
+            extras.add(currentExtras);
+            currentExtrasIndex = extras.size() - 1;
+        }
+        return currentExtras;
+    }
+
+    /** Wert einer RECURRENCE-ID-Zeile: ohne Namen, Faltungen und umgebende Leerzeichen. */
+    private static String recurrenceId(ByteBuf line) {
+        String text = new String(line.array(), 0, line.size(), StandardCharsets.UTF_8)
+                .replaceAll("\\r?\\n[ \\t]", "");
+        return text.substring("RECURRENCE-ID".length()).trim();
+    }
+
+    /** Dekodiert den gepufferten Anfang einer Eigenschaft zu einer kurzen Vorschau. */
+    private static String preview(ByteBuf head) {
+        String text = LazyText.decodeProperty(Arrays.copyOf(head.array(), head.size()));
+        // Abgeschnittene Multibyte-Zeichen am Ende entfernen
+        while (!text.isEmpty() && text.charAt(text.length() - 1) == '\uFFFD') {
+            text = text.substring(0, text.length() - 1);
+        }
+        return text.length() > PREVIEW_CHARS ? text.substring(0, PREVIEW_CHARS) : text;
+    }
+
+    /** Minimaler, wiederverwendbarer Byte-Puffer. */
+    private static final class ByteBuf {
+        private byte[] data;
+        private int size;
+
+        ByteBuf(int capacity) { data = new byte[capacity]; }
+
+        void write(byte b) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = b;
+        }
+
+        void write(byte[] b, int off, int len) {
+            if (size + len > data.length) data = Arrays.copyOf(data, Math.max(size + len, size * 2));
+            System.arraycopy(b, off, data, size, len);
+            size += len;
+        }
+
+        byte[] array() { return data; }
+        int size() { return size; }
+        void reset() { size = 0; }
+    }
+}
@@ -0,0 +1,502 @@
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Byte-Index einer ICS-Datei: Schlüssel ({@link EntryValue#key()}) → Bytebereich des
+ * VEVENT-Blocks, sortiert nach DTSTART.
+ *
+ * Der Index liegt als Seitendatei {@code <ics>.idx} neben der ICS-Datei und merkt sich Größe und
+ * Änderungszeit der Datei, zu der er gehört. Passt beides nicht mehr, wird er beim
+ * {@link #load(Path)} durch einen einfachen Zeilenscan (ohne ICS-Parser) neu aufgebaut.
+ *
+ * Mit dem Index lassen sich einzelne Termine lesen ({@link #readEvent(String)}) sowie ersetzen,
+ * einfügen und löschen, ohne die ganze Datei neu zu schreiben: Bei gleicher Länge wird der Block
+ * an Ort und Stelle überschrieben, sonst nur der Rest der Datei ab dem Block.
+ *
+ * Die Änderungen erfolgen direkt in der Datei und sind – wie der normale Export – nicht atomar.
+ */
+public final class IcsIndex {
+
+    /** Ab so vielen geänderten Terminen lohnt sich ein vollständiger Export mehr als Einzelkorrekturen. */
+    public static final int MAX_PATCH_CHANGES = 16;
+
+    private static final int MAGIC = 0x434A4958; // "CJIX"
+    private static final int VERSION = 3;
+    private static final int MAX_LINE = 1024;
+    private static final String FOOTER = "END:VCALENDAR\r\n";
+
+    /** Lage eines VEVENT-Blocks in der ICS-Datei. */
+    public record Slot(String key, long startEpoch, long offset, int length) {
+        public LocalDateTime start() { return LocalEpoch.toDateTime(startEpoch); }
+        long end() { return offset + length; }
+    }
+
+    private static final Comparator<Slot> BY_START =
+            Comparator.comparingLong(Slot::startEpoch).thenComparing(Slot::key);
+
+    private final Path ics;
+    private final List<Slot> slots;           // sortiert nach DTSTART
+    private final Map<String, Slot> byKey;
+    private final int unkeyed;                // Blöcke ohne eigenen Schlüssel (ohne UID/DTSTART, doppelt)
+    private long bodyEnd;                     // Beginn von END:VCALENDAR
+
+    private IcsIndex(Path ics, List<Slot> slots, long bodyEnd, int unkeyed) {
+        this.ics = ics;
+        this.slots = slots;
+        this.slots.sort(BY_START);
+        this.byKey = new HashMap<>(slots.size() * 2);
+        int duplicates = 0;
+        for (Slot s : slots) if (byKey.put(s.key(), s) != null) duplicates++;
+        this.unkeyed = unkeyed + duplicates;
+        this.bodyEnd = bodyEnd;
+    }
+
+    /** Pfad der Index-Seitendatei zu einer ICS-Datei. */
+    public static Path indexPathFor(Path ics) {
+        return ics.resolveSibling(ics.getFileName().toString() + ".idx");
+    }
+
+    /**
+     * Lädt den Index zu einer ICS-Datei. Fehlt er oder passt er nicht mehr zur Datei,
+     * wird er neu aufgebaut und gespeichert.
+     */
+    public static IcsIndex load(Path ics) throws IOException {
+        IcsIndex index = readSidecar(ics);
+        if (index == null) {
+            index = rebuild(ics);
+            index.store();
+        }
+        return index;
+    }
+
+    /** Baut den Index durch einen Zeilenscan der ICS-Datei neu auf (ohne ihn zu speichern). */
+    public static IcsIndex rebuild(Path ics) throws IOException {
+        Scanner scanner = new Scanner();
+        try (InputStream in = Files.newInputStream(ics)) {
+            byte[] buf = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                for (int i = 0; i < n; i++) scanner.accept(buf[i]);
+            }
+        }
+        scanner.finish();
+        long bodyEnd = scanner.bodyEnd >= 0 ? scanner.bodyEnd : Files.size(ics);
+        return new IcsIndex(ics, scanner.slots, bodyEnd, scanner.unkeyed);
+    }
+
+    /** Erzeugt den Index aus einem Export (Werte in Dateireihenfolge) und speichert ihn. */
+    static IcsIndex fromExport(Path ics, List<EntryValue> values, long[] offsets) throws IOException {
+        List<Slot> slots = new ArrayList<>(values.size());
+        int unkeyed = 0;
+        for (int i = 0; i < values.size(); i++) {
+            EntryValue v = values.get(i);
+            if (v.uid() == null) { // wie beim Neuaufbau: ohne UID kein Schlüssel
+                unkeyed++;
+                continue;
+            }
+            slots.add(new Slot(v.key(), v.startEpoch(), offsets[i], (int) (offsets[i + 1] - offsets[i])));
+        }
+        IcsIndex index = new IcsIndex(ics, slots, offsets[values.size()], unkeyed);
+        index.store();
+        return index;
+    }
+
+    // ----- Abfragen -----
+
+    /** Alle Blöcke, sortiert nach DTSTART (unveränderlich). */
+    public List<Slot> slots() {
+        return Collections.unmodifiableList(slots);
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * Anzahl der VEVENT-Blöcke, die über keinen Schlüssel erreichbar sind (ohne UID oder lesbares
+     * DTSTART, oder mit doppeltem Schlüssel). Solche Blöcke kann der Index weder ersetzen noch löschen.
+     */
+    public int unkeyed() {
+        return unkeyed;
+    }
+
+    public Slot find(String key) {
+        return byKey.get(key);
+    }
+
+    /** Blöcke mit Beginn im Intervall [from, to), sortiert nach DTSTART. */
+    public List<Slot> startingBetween(LocalDateTime from, LocalDateTime to) {
+        long lo = LocalEpoch.toSeconds(from);
+        long hi = LocalEpoch.toSeconds(to);
+        int i = lowerBound(lo);
+        List<Slot> out = new ArrayList<>();
+        for (; i < slots.size() && slots.get(i).startEpoch() < hi; i++) out.add(slots.get(i));
+        return out;
+    }
+
+    private int lowerBound(long epoch) {
+        int lo = 0, hi = slots.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (slots.get(mid).startEpoch() < epoch) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Rohbytes eines VEVENT-Blocks oder {@code null}, wenn der Schlüssel unbekannt ist. */
+    public byte[] readRaw(String key) throws IOException {
+        Slot s = byKey.get(key);
+        if (s == null) return null;
+        try (FileChannel ch = FileChannel.open(ics, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(s.length());
+            while (buf.hasRemaining()) {
+                if (ch.read(buf, s.offset() + buf.position()) < 0) throw new IOException("Index passt nicht zu " + ics);
+            }
+            return buf.array();
+        }
+    }
+
+    /** Liest einen einzelnen Termin, ohne den Rest der Datei zu parsen. */
+    public CalendarEntry readEvent(String key) throws Exception {
+        byte[] raw = readRaw(key);
+        if (raw == null) return null;
+        InputStream in = new SequenceInputStream(Collections.enumeration(List.of(
+                new ByteArrayInputStream("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n".getBytes(StandardCharsets.US_ASCII)),
+                new ByteArrayInputStream(raw),
+                new ByteArrayInputStream(FOOTER.getBytes(StandardCharsets.US_ASCII)))));
+        List<CalendarEntry> entries = IcsUtil.importIcs(in);
+        return entries.isEmpty() ? null : entries.get(0);
+    }
+
+    // ----- Änderungen -----
+
+    /**
+     * Überträgt die Unterschiede zwischen zwei Snapshots per Einzelkorrektur in die Datei.
+     * Liefert {@code false} (ohne etwas zu ändern), wenn mehr als {@code maxChanges} Termine
+     * betroffen sind, ein Termin keine UID hat oder der Index nicht genau die Blöcke von
+     * {@code before} enthält; dann ist ein vollständiger Export nötig. Nur so wird ein Termin
+     * genau dann angehängt, wenn sein Schlüssel in {@code before} fehlt.
+     */
+    public static boolean applyDiff(Path ics, List<EntryValue> before, List<EntryValue> after, int maxChanges) throws Exception {
+        Map<String, EntryValue> old = new HashMap<>(before.size() * 2);
+        for (EntryValue v : before) {
+            if (v.uid() == null || old.put(v.key(), v) != null) return false;
+        }
+        List<String> known = new ArrayList<>(old.keySet());
+        List<EntryValue> upserts = new ArrayList<>();
+        for (EntryValue v : after) {
+            if (v.uid() == null) return false;
+            EntryValue prev = old.remove(v.key());
+            if (prev == null || !prev.equals(v)) {
+                upserts.add(v);
+                if (upserts.size() > maxChanges) return false;
+            }
+        }
+        if (upserts.size() + old.size() > maxChanges) return false;
+        if (!Files.exists(ics)) return false;
+
+        IcsIndex index = load(ics);
+        if (index.unkeyed > 0 || index.size() != known.size()) return false;
+        for (String key : known) if (index.find(key) == null) return false;
+        for (String removed : old.keySet()) index.removeInFile(removed);
+        for (EntryValue v : upserts) index.upsertInFile(v);
+        index.store();
+        WriteStats.shared().recordPatch();
+        return true;
+    }
+
+    /** Ersetzt oder ergänzt einen Termin in der Datei und speichert den Index. */
+    public void upsert(EntryValue value) throws Exception {
+        upsertInFile(value);
+        store();
+        WriteStats.shared().recordPatch();
+    }
+
+    /** Entfernt einen Termin aus der Datei und speichert den Index. */
+    public boolean remove(String key) throws IOException {
+        boolean removed = removeInFile(key);
+        if (removed) {
+            store();
+            WriteStats.shared().recordPatch();
+        }
+        return removed;
+    }
+
+    private void upsertInFile(EntryValue value) throws Exception {
+        IcsFragmentCache.Fragment f = IcsUtil.fragmentFor(value);
+        Slot old = byKey.get(value.key());
+        long offset = old != null ? old.offset() : bodyEnd;
+        int oldLength = old != null ? old.length() : 0;
+        long newLength = IcsUtil.fragmentLength(f);
+
+        try (FileChannel ch = FileChannel.open(ics, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            replaceRegion(ch, offset, oldLength, newLength, out -> IcsUtil.writeFragment(f, out));
+        }
+        shift(offset + oldLength, newLength - oldLength);
+        if (old != null) slots.remove(old);
+        Slot slot = new Slot(value.key(), value.startEpoch(), offset, (int) newLength);
+        int pos = Collections.binarySearch(slots, slot, BY_START);
+        slots.add(pos < 0 ? -pos - 1 : pos, slot);
+        byKey.put(slot.key(), slot);
+    }
+
+    private boolean removeInFile(String key) throws IOException {
+        Slot old = byKey.remove(key);
+        if (old == null) return false;
+        try (FileChannel ch = FileChannel.open(ics, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            replaceRegion(ch, old.offset(), old.length(), 0, out -> { });
+        }
+        slots.remove(old);
+        shift(old.end(), -old.length());
+        return true;
+    }
+
+    private interface RegionWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Ersetzt {@code oldLength} Bytes ab {@code offset} durch {@code newLength} neue Bytes.
+     * Bei gleicher Länge wird nur der Bereich überschrieben, sonst zusätzlich der Dateirest
+     * (über eine temporäre Datei) verschoben.
+     */
+    private static void replaceRegion(FileChannel ch, long offset, long oldLength, long newLength, RegionWriter writer) throws IOException {
+        long size = ch.size();
+        long tailStart = offset + oldLength;
+        if (newLength == oldLength) {
+            ch.position(offset);
+            writer.write(Channels.newOutputStream(ch));
+            WriteStats.shared().recordBytes(newLength);
+            return;
+        }
+        Path tmp = Files.createTempFile("caljava-tail-", ".bin");
+        try (FileChannel tail = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            transferFully(ch, tailStart, size - tailStart, tail);
+            ch.position(offset);
+            writer.write(Channels.newOutputStream(ch));
+            long pos = ch.position();
+            long copied = 0;
+            long tailSize = tail.size();
+            while (copied < tailSize) copied += tail.transferTo(copied, tailSize - copied, ch.position(pos + copied));
+            ch.truncate(pos + tailSize);
+            WriteStats.shared().recordBytes(newLength + tailSize);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void transferFully(FileChannel from, long pos, long count, FileChannel to) throws IOException {
+        long done = 0;
+        while (done < count) done += from.transferTo(pos + done, count - done, to);
+    }
+
+    /** Verschiebt alle Blöcke ab {@code from} um {@code delta} Bytes. */
+    private void shift(long from, long delta) {
+        if (delta != 0) {
+            for (int i = 0; i < slots.size(); i++) {
+                Slot s = slots.get(i);
+                if (s.offset() >= from) {
+                    Slot moved = new Slot(s.key(), s.startEpoch(), s.offset() + delta, s.length());
+                    slots.set(i, moved);
+                    byKey.put(moved.key(), moved);
+                }
+            }
+        }
+        if (bodyEnd >= from) bodyEnd += delta;
+    }
+
+    // ----- Seitendatei -----
+
+    /** Schreibt den Index mit Größe und Änderungszeit der aktuellen ICS-Datei. */
+    public void store() throws IOException {
+        Path target = indexPathFor(ics);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new java.io.BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(Files.size(ics));
+            out.writeLong(Files.getLastModifiedTime(ics).toMillis());
+            out.writeLong(bodyEnd);
+            out.writeInt(unkeyed);
+            out.writeInt(slots.size());
+            for (Slot s : slots) {
+                out.writeLong(s.startEpoch());
+                out.writeLong(s.offset());
+                out.writeInt(s.length());
+                out.writeUTF(s.key());
+            }
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Liest die Seitendatei; {@code null}, wenn sie fehlt, defekt ist oder nicht zur Datei passt. */
+    private static IcsIndex readSidecar(Path ics) {
+        Path idx = indexPathFor(ics);
+        if (!Files.exists(idx) || !Files.exists(ics)) return null;
+        try (DataInputStream in = new DataInputStream(new java.io.BufferedInputStream(Files.newInputStream(idx)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+            if (in.readLong() != Files.size(ics)) return null;
+            if (in.readLong() != Files.getLastModifiedTime(ics).toMillis()) return null;
+            long bodyEnd = in.readLong();
+            int unkeyed = in.readInt();
+            int count = in.readInt();
+            List<Slot> slots = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long start = in.readLong();
+                long offset = in.readLong();
+                int length = in.readInt();
+                slots.add(new Slot(in.readUTF(), start, offset, length));
+            }
+            return new IcsIndex(ics, slots, bodyEnd, unkeyed);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // ----- Zeilenscan -----
+
+    /** Zustandsautomat für den Neuaufbau: erkennt VEVENT-Grenzen, UID, RECURRENCE-ID und DTSTART. */
+    private static final class Scanner {
+        final List<Slot> slots = new ArrayList<>();
+        int unkeyed;
+        long bodyEnd = -1;
+
+        private final byte[] line = new byte[MAX_LINE];
+        private int lineLen;
+        private long pos;
+        private long lineStart;
+
+        private int depth;
+        private boolean inEvent;
+        private long eventStart;
+        private String uid;
+        private String recurrenceId;
+        private String dtStart;
+        private StringBuilder pending;   // aktuelle UID/RECURRENCE-ID/DTSTART-Zeile (für Faltungen)
+
+        void accept(byte b) {
+            if (lineLen < MAX_LINE) line[lineLen++] = b;
+            pos++;
+            if (b == '\n') {
+                handleLine(lineStart, pos);
+                lineStart = pos;
+                lineLen = 0;
+            }
+        }
+
+        void finish() {
+            if (lineLen > 0) handleLine(lineStart, pos);
+        }
+
+        private void handleLine(long start, long end) {
+            int len = lineLen;
+            while (len > 0 && (line[len - 1] == '\n' || line[len - 1] == '\r')) len--;
+            if (len > 0 && (line[0] == ' ' || line[0] == '\t')) {
+                if (pending != null) pending.append(new String(line, 1, len - 1, StandardCharsets.UTF_8));
+                return;
+            }
+            completePending();
+            String text = new String(line, 0, len, StandardCharsets.UTF_8);
+            String upper = text.toUpperCase(Locale.ROOT);
+            if (upper.startsWith("BEGIN:")) {
+                depth++;
+                if (depth == 2 && upper.equals("BEGIN:VEVENT")) {
+                    inEvent = true;
+                    eventStart = start;
+                    uid = null;
+                    recurrenceId = null;
+                    dtStart = null;
+                }
+            } else if (upper.startsWith("END:")) {
+                if (depth == 2 && inEvent && upper.equals("END:VEVENT")) {
+                    inEvent = false;
+                    Long epoch = dtStart != null ? parseStart(dtStart) : null;
+                    if (uid != null && epoch != null) {
+                        slots.add(new Slot(EntryValue.key(uid, recurrenceId), epoch, eventStart, (int) (end - eventStart)));
+                    } else {
+                        unkeyed++;
+                    }
+                } else if (depth == 1 && upper.equals("END:VCALENDAR")) {
+                    bodyEnd = start;
+                }
+                depth--;
+            } else if (inEvent && depth == 2 && (upper.startsWith("UID") || upper.startsWith("RECURRENCE-ID")
+                    || upper.startsWith("DTSTART"))) {
+                pending = new StringBuilder(text);
+            }
+        }
+
+        private void completePending() {
+            if (pending == null) return;
+            String prop = pending.toString();
+            pending = null;
+            String name = prop.toUpperCase(Locale.ROOT);
+            if (name.startsWith("UID:") || name.startsWith("UID;")) {
+                uid = prop.substring(prop.indexOf(':') + 1).trim();
+            } else if (name.startsWith("RECURRENCE-ID:") || name.startsWith("RECURRENCE-ID;")) {
+                // wie IcsImportFilter: Rohtext ohne Namen
+                recurrenceId = prop.substring("RECURRENCE-ID".length()).trim();
+            } else if (name.startsWith("DTSTART:") || name.startsWith("DTSTART;")) {
+                dtStart = prop;
+            }
+        }
+    }
+
+    private static final DateTimeFormatter BASIC_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    /** Wandelt eine DTSTART-Zeile in lokale Epochensekunden (wie der Import) um. */
+    static Long parseStart(String prop) {
+        try {
+            int colon = prop.indexOf(':');
+            String params = prop.substring(0, colon).toUpperCase(Locale.ROOT);
+            String value = prop.substring(colon + 1).trim();
+            if (value.length() == 8) {
+                return LocalEpoch.toSeconds(LocalDate.parse(value, DateTimeFormatter.BASIC_ISO_DATE).atStartOfDay());
+            }
+            LocalDateTime ldt;
+            if (value.endsWith("Z")) {
+                ldt = LocalDateTime.parse(value.substring(0, value.length() - 1), BASIC_DATE_TIME)
+                        .atOffset(ZoneOffset.UTC).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            } else {
+                ldt = LocalDateTime.parse(value, BASIC_DATE_TIME);
+                int tz = params.indexOf("TZID=");
+                if (tz >= 0) {
+                    String id = prop.substring(tz + 5, colon).split(";", 2)[0].replace("\"", "");
+                    try {
+                        ldt = ldt.atZone(ZoneId.of(id)).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+                    } catch (Exception ignored) {
+                        // Unbekannte Zeitzone: als lokale Zeit behandeln
+                    }
+                }
+            }
+            return LocalEpoch.toSeconds(ldt);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,784 @@
+import biweekly.Biweekly;
+import biweekly.ICalendar;
+import biweekly.component.VEvent;
+import biweekly.component.VAlarm;
+import biweekly.parameter.Related;
+import biweekly.property.*;
+import biweekly.util.Duration;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Hilfsklasse für den Import und Export von Kalenderdaten in den Formaten
+ * ICS (iCalendar) und VCS (vCalendar). ICS wird über die Bibliothek Biweekly
+ * verarbeitet. Die VCS-Unterstützung ist minimal und individuell implementiert.
+ */
+public class IcsUtil {
+
+    /** Ab dieser Größe (Rohbytes) wird eine DESCRIPTION beim Import ausgelagert und erst bei Bedarf geladen. */
+    public static final int LAZY_DESCRIPTION_THRESHOLD = 4096;
+
+    /** Endung komprimierter Kalenderdateien (z. B. {@code calendar.ics.gz}). */
+    public static final String GZIP_SUFFIX = ".gz";
+
+    private static final int STREAM_BUFFER = 1 << 16;
+
+    /**
+     * Importiert Termine aus einer ICS-Datei (Pfad). GZIP-komprimierte Dateien werden an ihren
+     * Magic Bytes erkannt und beim Lesen entpackt.
+     */
+    public static List<CalendarEntry> importIcs(Path path) throws Exception {
+        try (InputStream in = openDecoded(path)) {
+            return importIcs(in);
+        }
+    }
+
+    /** Gibt an, ob eine Kalenderdatei laut Endung komprimiert geschrieben wird. */
+    public static boolean isCompressed(Path path) {
+        return path.getFileName().toString().toLowerCase(java.util.Locale.ROOT).endsWith(GZIP_SUFFIX);
+    }
+
+    /** Öffnet eine Datei zum Lesen; bei GZIP-Signatur (1f 8b) wird der Strom entpackt. */
+    static InputStream openDecoded(Path path) throws Exception {
+        InputStream in = new java.io.BufferedInputStream(Files.newInputStream(path), STREAM_BUFFER);
+        try {
+            in.mark(2);
+            int b0 = in.read();
+            int b1 = in.read();
+            in.reset();
+            if (b0 == 0x1f && b1 == 0x8b) return new java.util.zip.GZIPInputStream(in, STREAM_BUFFER);
+            return in;
+        } catch (Exception e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /** Öffnet eine Datei zum Schreiben; mit Endung {@value #GZIP_SUFFIX} wird GZIP-komprimiert. */
+    private static OutputStream openEncoded(Path path) throws Exception {
+        OutputStream out = new java.io.BufferedOutputStream(Files.newOutputStream(path), STREAM_BUFFER);
+        return isCompressed(path) ? new java.util.zip.GZIPOutputStream(out, STREAM_BUFFER) : out;
+    }
+
+    /**
+     * Importiert Termine aus einer ICS-URL.
+     */
+    public static List<CalendarEntry> importIcsFromUrl(String url) throws Exception {
+        try (InputStream is = new URL(url).openStream()) {
+            return importIcs(is);
+        }
+    }
+
+    /**
+     * Parst Termine aus einem ICS-Eingabestrom.
+     */
+    public static List<CalendarEntry> importIcs(InputStream is) throws Exception {
+        List<CalendarEntry> entries = new ArrayList<>();
+        StringPool pool = StringPool.shared();
+        // Große Beschreibungen werden vor dem Parsen in einen Seitenspeicher ausgelagert
+        IcsImportFilter filter = new IcsImportFilter(is, LAZY_DESCRIPTION_THRESHOLD);
+        List<ICalendar> calendars = Biweekly.parse(filter).all();
+
+        for (ICalendar calendar : calendars) {
+            for (VEvent event : calendar.getEvents()) {
+                if (event.getDateStart() == null) {
+                    continue;
+                }
+                Date startDate = event.getDateStart().getValue();
+                Date endDate = event.getDateEnd() != null ? event.getDateEnd().getValue() : startDate;
+
+                LocalDateTime startLdt = LocalDateTime.ofInstant(startDate.toInstant(), ZoneId.systemDefault());
+                LocalDateTime endLdt = LocalDateTime.ofInstant(endDate.toInstant(), ZoneId.systemDefault());
+
+                // Wiederkehrende Texte teilen sich über den Pool eine Instanz
+                String summary = pool.intern(event.getSummary() != null ? event.getSummary().getValue() : "(Ohne Titel)");
+                String description = pool.intern(event.getDescription() != null ? event.getDescription().getValue() : "");
+
+                CalendarEntry ce = new CalendarEntry(summary, description, startLdt, endLdt);
+
+                RawProperty ref = event.getExperimentalProperty(IcsImportFilter.REF_PROPERTY);
+                IcsImportFilter.EventExtras extras = ref != null ? filter.getExtras(ref.getValue()) : null;
+                ce.setUid(event.getUid() != null && event.getUid().getValue() != null
+                        ? event.getUid().getValue() : UUID.randomUUID().toString());
+                if (extras != null) {
+                    if (extras.getDescription() != null) ce.setLazyDescription(extras.getDescription());
+                    ce.setAttachments(extras.getAttachments());
+                    ce.setExtraProperties(extras.getExtraProperties());
+                    ce.setRecurrenceId(extras.getRecurrenceId());
+                }
+
+                List<Categories> categoriesList = event.getCategories();
+                if (categoriesList != null && !categoriesList.isEmpty()) {
+                    Categories categories = categoriesList.get(0);
+                    if (categories != null && !categories.getValues().isEmpty()) {
+                        ce.setCategory(pool.intern(categories.getValues().get(0)));
+                    }
+                }
+
+                List<VAlarm> alarms = event.getAlarms();
+                if (!alarms.isEmpty()) {
+                    for (VAlarm alarm : alarms) {
+                        Trigger trigger = alarm.getTrigger();
+                        if (trigger != null && trigger.getDuration() != null) {
+                            Duration duration = trigger.getDuration();
+                            Integer mins = parseDurationToMinutes(duration);
+                            if (mins != null) {
+                                ce.setReminderMinutesBefore(mins);
+                                break;
+                            }
+                        }
+                    }
+                }
+
+                entries.add(ce);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Exportiert Termine in eine ICS-Datei.
+     */
+    public static void exportIcs(Path path, List<CalendarEntry> entries) throws Exception {
+        exportIcsValues(path, EntryValue.snapshot(entries != null ? entries : new ArrayList<>()));
+    }
+
+    /**
+     * Exportiert einen unveränderlichen Snapshot in eine ICS-Datei. Der Snapshot kann ohne
+     * Kopie aus einem anderen Thread übergeben werden.
+     *
+     * Jedes VEVENT wird als Block über {@link IcsFragmentCache} bezogen: Nur Termine, deren
+     * Inhalt sich seit dem letzten Export geändert hat, werden neu serialisiert; alle anderen
+     * werden als vorhandene Bytes per Gathering-Write in die Datei kopiert.
+     */
+    public static void exportIcsValues(Path path, List<EntryValue> values) throws Exception {
+        exportFragments(path, values, true);
+    }
+
+    /**
+     * Schreibt einen Snapshot als ICS in einen Strom. Der Fragment-Cache wird dabei weder gelesen
+     * noch gefüllt (z. B. für selten geschriebene, komprimierte Archive).
+     */
+    public static void exportIcsValues(OutputStream out, List<EntryValue> values) throws Exception {
+        out.write(ICS_HEADER.getBytes(StandardCharsets.US_ASCII));
+        if (!values.isEmpty()) {
+            for (IcsFragmentCache.Fragment f : encodeFragments(values)) writeFragment(f, out);
+        }
+        out.write(ICS_FOOTER.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    /**
+     * Export eines Teilbestands (z. B. eines Segments): Blöcke anderer Termine bleiben im Cache;
+     * das Aufräumen übernimmt der Aufrufer.
+     */
+    static void exportIcsSegment(Path path, List<EntryValue> values) throws Exception {
+        exportFragments(path, values, false);
+    }
+
+    /**
+     * Exportiert wie {@link #exportIcsValues(Path, List)} und schreibt zusätzlich den Byte-Index
+     * ({@link IcsIndex}) als Seitendatei, damit spätere Einzeländerungen ohne Vollexport möglich sind.
+     */
+    public static IcsIndex exportIcsIndexed(Path path, List<EntryValue> values) throws Exception {
+        if (isCompressed(path)) {
+            throw new IllegalArgumentException("Byte-Index nur für unkomprimierte ICS-Dateien: " + path);
+        }
+        long[] offsets = exportFragments(path, values, true);
+        return IcsIndex.fromExport(path, values, offsets);
+    }
+
+    /**
+     * Export über den Fragment-Cache; liefert die Startoffsets der Blöcke (plus Ende des letzten).
+     * Termine ohne UID haben keinen Schlüssel und werden ohne Cache serialisiert.
+     */
+    private static long[] exportFragments(Path path, List<EntryValue> values, boolean sweepCache) throws Exception {
+        IcsFragmentCache cache = IcsFragmentCache.shared();
+        List<IcsFragmentCache.Fragment> fragments = new ArrayList<>(values.size());
+        List<EntryValue> dirty = new ArrayList<>();
+        List<Integer> dirtyIndex = new ArrayList<>();
+        Set<String> live = new HashSet<>(values.size() * 2);
+
+        for (EntryValue value : values) {
+            IcsFragmentCache.Fragment f = null;
+            if (value.uid() != null) {
+                live.add(value.key());
+                f = cache.get(value.key(), value.contentHash());
+            }
+            if (f == null) {
+                dirty.add(value);
+                dirtyIndex.add(fragments.size());
+            }
+            fragments.add(f);
+        }
+
+        // Geänderte Termine in einem Durchgang serialisieren und in Blöcke zerlegen
+        if (!dirty.isEmpty()) {
+            List<IcsFragmentCache.Fragment> encoded = encodeFragments(dirty);
+            for (int i = 0; i < dirty.size(); i++) {
+                fragments.set(dirtyIndex.get(i), encoded.get(i));
+                if (dirty.get(i).uid() != null) cache.put(dirty.get(i).key(), encoded.get(i));
+            }
+        }
+        if (sweepCache) cache.retain(live);
+
+        return isCompressed(path) ? writeFragmentsCompressed(path, fragments) : writeFragments(path, fragments);
+    }
+
+    /** Block eines einzelnen Termins (aus dem Cache oder neu serialisiert; ohne UID nie gecacht). */
+    static IcsFragmentCache.Fragment fragmentFor(EntryValue value) {
+        if (value.uid() == null) return encodeFragments(List.of(value)).get(0);
+        IcsFragmentCache cache = IcsFragmentCache.shared();
+        IcsFragmentCache.Fragment f = cache.get(value.key(), value.contentHash());
+        if (f == null) {
+            f = encodeFragments(List.of(value)).get(0);
+            cache.put(value.key(), f);
+        }
+        return f;
+    }
+
+    /** Gesamtlänge eines Blocks inklusive der abgelegten Rohbytes. */
+    static long fragmentLength(IcsFragmentCache.Fragment f) {
+        long n = f.size();
+        for (LazyText blob : f.blobs()) n += blob.rawLength();
+        return n;
+    }
+
+    /** Schreibt einen Block vollständig in einen Strom. */
+    static void writeFragment(IcsFragmentCache.Fragment f, OutputStream out) throws java.io.IOException {
+        java.nio.channels.WritableByteChannel target = Channels.newChannel(out);
+        ByteBuffer head = f.head().duplicate();
+        while (head.hasRemaining()) target.write(head);
+        for (LazyText blob : f.blobs()) blob.writeRaw(out);
+        ByteBuffer tail = f.tail().duplicate();
+        while (tail.hasRemaining()) target.write(tail);
+    }
+
+    private static final String ICS_HEADER = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//Calendar Java//Biweekly//DE\r\n";
+    private static final String ICS_FOOTER = "END:VCALENDAR\r\n";
+    private static final String EVENT_BEGIN = "BEGIN:VEVENT\r\n";
+    private static final String EVENT_END = "END:VEVENT\r\n";
+    private static final int GATHER_BATCH = 512;
+
+    /**
+     * Serialisiert Termine mit Biweekly und zerlegt die Ausgabe in einen Block pro VEVENT.
+     * Abgelegte Eigenschaften (nicht geladene Beschreibung, Anhänge), die RECURRENCE-ID und
+     * unbekannte X-Eigenschaften werden vor den VALARMs eingefügt.
+     */
+    private static List<IcsFragmentCache.Fragment> encodeFragments(List<EntryValue> values) {
+        ICalendar calendar = new ICalendar();
+        for (EntryValue value : values) {
+            calendar.addEvent(toVEvent(value));
+        }
+        String text = Biweekly.write(calendar).go();
+
+        List<IcsFragmentCache.Fragment> out = new ArrayList<>(values.size());
+        int pos = 0;
+        for (EntryValue value : values) {
+            int begin = text.indexOf(EVENT_BEGIN, pos);
+            int end = text.indexOf("\r\n" + EVENT_END, begin) + 2;
+            // VALARM nur innerhalb des eigenen Blocks suchen, sonst läuft jede Suche bis zum Textende
+            int alarm = indexOf(text, "\r\nBEGIN:VALARM\r\n", begin, end);
+            int split = alarm >= 0 ? alarm + 2 : end;
+            pos = end + EVENT_END.length();
+
+            List<LazyText> blobs = new ArrayList<>(value.attachments().size() + 1);
+            if (value.lazyDescription() != null) blobs.add(value.lazyDescription());
+            for (AttachmentRef a : value.attachments()) blobs.add(a.blob());
+
+            String tail = (value.recurrenceId() != null ? "RECURRENCE-ID" + value.recurrenceId() + "\r\n" : "")
+                    + (value.extraProperties() != null ? value.extraProperties() : "") + text.substring(split, pos);
+            out.add(new IcsFragmentCache.Fragment(value.contentHash(),
+                    ByteBuffer.wrap(text.substring(begin, split).getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer(),
+                    List.copyOf(blobs),
+                    ByteBuffer.wrap(tail.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer()));
+        }
+        return out;
+    }
+
+    /** Wie {@link String#indexOf(String, int)}, aber nur Treffer, die vor {@code to} enden. */
+    private static int indexOf(String text, String needle, int from, int to) {
+        int last = to - needle.length();
+        for (int i = from; i <= last; i++) {
+            if (text.startsWith(needle, i)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Schreibt Kopf, Blöcke und Abschluss mit möglichst wenigen Gathering-Writes und liefert
+     * die Startoffsets der Blöcke (das letzte Element ist der Beginn des Abschlusses).
+     */
+    private static long[] writeFragments(Path path, List<IcsFragmentCache.Fragment> fragments) throws Exception {
+        long[] offsets = new long[fragments.size() + 1];
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] batch = new ByteBuffer[GATHER_BATCH];
+            int n = 0;
+            batch[n++] = ByteBuffer.wrap(ICS_HEADER.getBytes(StandardCharsets.US_ASCII));
+            long pos = ICS_HEADER.length();
+            OutputStream raw = null;
+            for (int i = 0; i < fragments.size(); i++) {
+                IcsFragmentCache.Fragment f = fragments.get(i);
+                offsets[i] = pos;
+                pos += fragmentLength(f);
+                batch[n++] = f.head().duplicate();
+                if (!f.blobs().isEmpty()) {
+                    n = gather(ch, batch, n);
+                    if (raw == null) raw = Channels.newOutputStream(ch);
+                    for (LazyText blob : f.blobs()) blob.writeRaw(raw);
+                }
+                if (n == GATHER_BATCH) n = gather(ch, batch, n);
+                batch[n++] = f.tail().duplicate();
+                if (n == GATHER_BATCH) n = gather(ch, batch, n);
+            }
+            offsets[fragments.size()] = pos;
+            batch[n++] = ByteBuffer.wrap(ICS_FOOTER.getBytes(StandardCharsets.US_ASCII));
+            gather(ch, batch, n);
+        }
+        WriteStats.shared().recordExport(offsets[fragments.size()] + ICS_FOOTER.length());
+        return offsets;
+    }
+
+    /**
+     * Schreibt die Blöcke durch den GZIP-Codec; die unkomprimierten Bytes liegen nie vollständig
+     * im Speicher. Die Offsets beziehen sich auf den entpackten Inhalt.
+     */
+    private static long[] writeFragmentsCompressed(Path path, List<IcsFragmentCache.Fragment> fragments) throws Exception {
+        long[] offsets = new long[fragments.size() + 1];
+        try (OutputStream out = openEncoded(path)) {
+            byte[] header = ICS_HEADER.getBytes(StandardCharsets.US_ASCII);
+            out.write(header);
+            long pos = header.length;
+            for (int i = 0; i < fragments.size(); i++) {
+                IcsFragmentCache.Fragment f = fragments.get(i);
+                offsets[i] = pos;
+                pos += fragmentLength(f);
+                writeFragment(f, out);
+            }
+            offsets[fragments.size()] = pos;
+            out.write(ICS_FOOTER.getBytes(StandardCharsets.US_ASCII));
+        }
+        WriteStats.shared().recordExport(Files.size(path));
+        return offsets;
+    }
+
+    private static int gather(FileChannel ch, ByteBuffer[] batch, int n) throws Exception {
+        int first = 0;
+        while (first < n) {
+            ch.write(batch, first, n - first);
+            while (first < n && !batch[first].hasRemaining()) first++;
+        }
+        java.util.Arrays.fill(batch, 0, n, null);
+        return 0;
+    }
+
+    /**
+     * Baut ein VEVENT aus einem Termin-Wert. Abgelegte Eigenschaften und X-Eigenschaften
+     * ergänzt {@link #encodeFragments(List)} als Rohbytes.
+     */
+    private static VEvent toVEvent(EntryValue entry) {
+        VEvent event = new VEvent();
+
+        String title = entry.title() != null ? entry.title() : "(Ohne Titel)";
+        event.setSummary(title);
+
+        Date start = Date.from(entry.start().atZone(ZoneId.systemDefault()).toInstant());
+        Date end = Date.from(entry.end().atZone(ZoneId.systemDefault()).toInstant());
+        event.setDateStart(start);
+        event.setDateEnd(end);
+        event.setUid(entry.uid());
+
+        if (entry.lazyDescription() == null && entry.description() != null && !entry.description().isBlank()) {
+            event.setDescription(entry.description());
+        }
+        if (entry.category() != null && !entry.category().isBlank()) {
+            event.addCategories(entry.category());
+        }
+        if (entry.reminderMinutesBefore() != null && entry.reminderMinutesBefore() > 0) {
+            int minutes = entry.reminderMinutesBefore();
+            Duration duration = new Duration.Builder().prior(true).minutes(minutes).build();
+            Trigger trigger = new Trigger(duration, (Related) null);
+            VAlarm alarm = VAlarm.display(trigger, "Erinnerung");
+            event.addAlarm(alarm);
+        }
+        return event;
+    }
+
+    /**
+     * Ermittelt das Format anhand der Dateiendung und importiert entsprechend.
+     */
+    public static List<CalendarEntry> importAuto(Path path) throws Exception {
+        String name = path.getFileName().toString().toLowerCase(java.util.Locale.ROOT);
+        if (name.endsWith(GZIP_SUFFIX)) name = name.substring(0, name.length() - GZIP_SUFFIX.length());
+        if (name.endsWith(".vcs")) {
+            return importVcs(path);
+        }
+        if (name.endsWith(".ics")) {
+            return importIcs(path);
+        }
+        // Unbekannte Endung: am (ggf. entpackten) Anfang der Datei erkennen
+        return isVcsContent(path) ? importVcs(path) : importIcs(path);
+    }
+
+    /** Prüft, ob die ersten Zeilen eine vCalendar-1.0-Datei ausweisen. */
+    private static boolean isVcsContent(Path path) throws Exception {
+        try (InputStream in = openDecoded(path)) {
+            byte[] head = in.readNBytes(512);
+            String text = new String(head, StandardCharsets.UTF_8).toUpperCase(java.util.Locale.ROOT);
+            return text.contains("VERSION:1.0");
+        }
+    }
+
+    /**
+     * Importiert Termine aus einer VCS-Datei (vCalendar 1.0).
+     */
+    public static List<CalendarEntry> importVcs(Path path) throws Exception {
+        List<String> raw;
+        try (java.io.BufferedReader reader = new java.io.BufferedReader(
+                new java.io.InputStreamReader(openDecoded(path), StandardCharsets.UTF_8))) {
+            raw = reader.lines().toList();
+        }
+        List<CalendarEntry> result = new ArrayList<>();
+        parseVcs(unfoldLines(raw), result);
+        return result;
+    }
+
+    /** Übernimmt die Termine aus entfalteten vCalendar-Zeilen in {@code result}. */
+    private static void parseVcs(List<String> lines, List<CalendarEntry> result) {
+        StringPool pool = StringPool.shared();
+
+        String uid = null;
+        String summary = null;
+        String description = null;
+        LocalDateTime dtStart = null;
+        LocalDateTime dtEnd = null;
+        boolean inEvent = false;
+
+        for (String line : lines) {
+            String upper = line.toUpperCase(java.util.Locale.ROOT);
+            if (upper.equals("BEGIN:VEVENT")) {
+                inEvent = true;
+                uid = null; summary = null; description = null; dtStart = null; dtEnd = null;
+                continue;
+            }
+            if (upper.equals("END:VEVENT")) {
+                if (inEvent && dtStart != null) {
+                    if (dtEnd == null) dtEnd = dtStart;
+                    String s = summary != null ? summary : "(Ohne Titel)";
+                    String d = description != null ? description : "";
+                    CalendarEntry ce = new CalendarEntry(pool.intern(s), pool.intern(d), dtStart, dtEnd);
+                    // Wie beim ICS-Import: fehlende UID einmalig beim Einlesen vergeben
+                    ce.setUid(uid != null && !uid.isBlank() ? uid : UUID.randomUUID().toString());
+                    result.add(ce);
+                }
+                inEvent = false;
+                continue;
+            }
+            if (!inEvent) continue;
+
+            String name = getPropName(line);
+            String value = getPropValue(line);
+
+            switch (name) {
+                case "UID": uid = value.trim(); break;
+                case "SUMMARY": summary = unescapeText(value); break;
+                case "DESCRIPTION": description = unescapeText(value); break;
+                case "DTSTART": dtStart = parseVCalDateTime(value); break;
+                case "DTEND": dtEnd = parseVCalDateTime(value); break;
+                default: // andere ignorieren
+            }
+        }
+    }
+
+    /**
+     * Exportiert Termine in eine VCS-Datei (vCalendar 1.0).
+     */
+    public static void exportVcs(Path path, List<CalendarEntry> entries) throws Exception {
+        exportVcsValues(path, EntryValue.snapshot(entries));
+    }
+
+    /**
+     * Exportiert einen unveränderlichen Snapshot in eine VCS-Datei (vCalendar 1.0).
+     */
+    public static void exportVcsValues(Path path, List<EntryValue> values) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        sb.append("BEGIN:VCALENDAR\r\n");
+        sb.append("VERSION:1.0\r\n");
+        sb.append("PRODID:-//Calendar Java//VCS 1.0//DE\r\n");
+
+        for (EntryValue e : values) appendVcsEvent(sb, e);
+        sb.append("END:VCALENDAR\r\n");
+        try (OutputStream out = openEncoded(path)) {
+            out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void appendVcsEvent(StringBuilder sb, EntryValue e) {
+        sb.append("BEGIN:VEVENT\r\n");
+        if (e.uid() != null) sb.append("UID:").append(e.uid()).append("\r\n");
+        sb.append("DTSTART:").append(formatVCalDateTime(e.start())).append("\r\n");
+        sb.append("DTEND:").append(formatVCalDateTime(e.end())).append("\r\n");
+        if (e.title() != null && !e.title().isBlank()) {
+            sb.append("SUMMARY:").append(escapeText(e.title())).append("\r\n");
+        }
+        if (e.description() != null && !e.description().isBlank()) {
+            sb.append("DESCRIPTION:").append(escapeText(e.description())).append("\r\n");
+        }
+        sb.append("END:VEVENT\r\n");
+    }
+
+    // ----- Fortlaufende Verarbeitung (Stapelbetrieb) -----
+
+    /** Anzahl Termine, die beim fortlaufenden Lesen und Schreiben gemeinsam verarbeitet werden. */
+    static final int STREAM_BATCH = 256;
+
+    /** Empfänger fortlaufend gelesener Termine. */
+    public interface EventSink {
+        void accept(EntryValue value) throws Exception;
+    }
+
+    /**
+     * Liest Termine fortlaufend aus einem ICS- oder VCS-Strom (erkannt an {@code VERSION:1.0})
+     * und übergibt sie einzeln an {@code sink}. Im Speicher liegen höchstens
+     * {@link #STREAM_BATCH} Termine und die Zeitzonen-Definitionen des Kalenders; ICS wird
+     * stapelweise mit Biweekly geparst.
+     *
+     * @return Anzahl gelesener Termine
+     */
+    public static long streamEvents(InputStream in, EventSink sink) throws Exception {
+        java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.InputStreamReader(in, StandardCharsets.UTF_8), STREAM_BUFFER);
+        StringBuilder timezones = new StringBuilder();
+        StringBuilder batch = new StringBuilder();
+        List<String> vcsLines = new ArrayList<>();
+        int batched = 0;
+        long count = 0;
+        boolean vcs = false;
+        boolean inEvent = false;
+        boolean inTimezone = false;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String upper = line.trim().toUpperCase(java.util.Locale.ROOT);
+            if (inEvent) {
+                if (vcs) vcsLines.add(line);
+                else batch.append(line).append("\r\n");
+                if (!upper.equals("END:VEVENT")) continue;
+                inEvent = false;
+                if (vcs) {
+                    List<CalendarEntry> parsed = new ArrayList<>(1);
+                    parseVcs(unfoldLines(vcsLines), parsed);
+                    vcsLines.clear();
+                    for (CalendarEntry ce : parsed) sink.accept(EntryValue.of(ce));
+                    count += parsed.size();
+                } else if (++batched >= STREAM_BATCH) {
+                    count += flushIcsBatch(timezones, batch, sink);
+                    batched = 0;
+                }
+            } else if (inTimezone) {
+                timezones.append(line).append("\r\n");
+                if (upper.equals("END:VTIMEZONE")) inTimezone = false;
+            } else if (upper.equals("BEGIN:VEVENT")) {
+                inEvent = true;
+                if (vcs) vcsLines.add(line);
+                else batch.append(line).append("\r\n");
+            } else if (upper.equals("BEGIN:VTIMEZONE")) {
+                inTimezone = true;
+                timezones.append(line).append("\r\n");
+            } else if (upper.equals("VERSION:1.0")) {
+                vcs = true;
+            }
+        }
+        if (batched > 0) count += flushIcsBatch(timezones, batch, sink);
+        return count;
+    }
+
+    private static int flushIcsBatch(StringBuilder timezones, StringBuilder batch, EventSink sink) throws Exception {
+        String text = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\n" + timezones + batch + ICS_FOOTER;
+        batch.setLength(0);
+        List<CalendarEntry> parsed = importIcs(new java.io.ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+        for (CalendarEntry ce : parsed) sink.accept(EntryValue.of(ce));
+        return parsed.size();
+    }
+
+    /**
+     * Schreibt Termine fortlaufend als ICS oder VCS in einen Strom, ohne den ganzen Kalender im
+     * Speicher zu halten. ICS-Termine werden stapelweise serialisiert; {@link #close()} schreibt
+     * den Abschluss, schließt den Strom selbst aber nicht.
+     */
+    public static final class EventWriter implements AutoCloseable {
+        private final OutputStream out;
+        private final boolean vcs;
+        private final List<EntryValue> pending = new ArrayList<>(STREAM_BATCH);
+        private long count;
+
+        public EventWriter(OutputStream out, boolean vcs) throws java.io.IOException {
+            this(out, vcs, true);
+        }
+
+        /**
+         * @param header {@code false}, um eine mit {@link #flush()} unterbrochene Datei (im
+         *               Anhängemodus geöffnet) ohne erneuten Kalenderkopf fortzusetzen
+         */
+        public EventWriter(OutputStream out, boolean vcs, boolean header) throws java.io.IOException {
+            this.out = out;
+            this.vcs = vcs;
+            if (header) {
+                String text = vcs ? "BEGIN:VCALENDAR\r\nVERSION:1.0\r\nPRODID:-//Calendar Java//VCS 1.0//DE\r\n" : ICS_HEADER;
+                out.write(text.getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+
+        public void write(EntryValue value) throws java.io.IOException {
+            pending.add(value);
+            if (pending.size() >= STREAM_BATCH) flushPending();
+        }
+
+        public long getCount() {
+            return count + pending.size();
+        }
+
+        /** Schreibt gepufferte Termine in den Strom, ohne den Kalender abzuschließen. */
+        public void flush() throws java.io.IOException {
+            flushPending();
+            out.flush();
+        }
+
+        private void flushPending() throws java.io.IOException {
+            if (pending.isEmpty()) return;
+            if (vcs) {
+                StringBuilder sb = new StringBuilder();
+                for (EntryValue v : pending) appendVcsEvent(sb, v);
+                out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            } else {
+                for (IcsFragmentCache.Fragment f : encodeFragments(pending)) writeFragment(f, out);
+            }
+            count += pending.size();
+            pending.clear();
+        }
+
+        @Override
+        public void close() throws java.io.IOException {
+            flushPending();
+            out.write(ICS_FOOTER.getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+    }
+
+    /** Öffnet eine Kalenderdatei zum fortlaufenden Lesen (GZIP wird erkannt). */
+    public static InputStream openForStreaming(Path path) throws Exception {
+        return openDecoded(path);
+    }
+
+    /** Öffnet eine Kalenderdatei zum fortlaufenden Schreiben (Endung {@value #GZIP_SUFFIX} komprimiert). */
+    public static OutputStream createForStreaming(Path path) throws Exception {
+        return openEncoded(path);
+    }
+
+    // ----- Hilfsfunktionen für VCS-Parsing/Formatierung -----
+
+    private static List<String> unfoldLines(List<String> raw) {
+        List<String> out = new ArrayList<>();
+        String prev = null;
+        for (String line : raw) {
+            if (line.startsWith(" ") || line.startsWith("\t")) {
+                if (prev == null) prev = "";
+                prev += line.substring(1);
+            } else {
+                if (prev != null) out.add(prev);
+                prev = line;
+            }
+        }
+        if (prev != null) out.add(prev);
+        return out;
+    }
+
+    private static String getPropName(String line) {
+        int idx = line.indexOf(':');
+        String left = idx >= 0 ? line.substring(0, idx) : line;
+        int semi = left.indexOf(';');
+        if (semi >= 0) left = left.substring(0, semi);
+        return left.toUpperCase(java.util.Locale.ROOT).trim();
+    }
+
+    private static String getPropValue(String line) {
+        int idx = line.indexOf(':');
+        return idx >= 0 ? line.substring(idx + 1).trim() : "";
+    }
+
+    private static LocalDateTime parseVCalDateTime(String value) {
+        String v = value.trim();
+        try {
+            if (v.endsWith("Z")) {
+                String core = v.substring(0, v.length() - 1);
+                java.time.format.DateTimeFormatter dtf = java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+                LocalDateTime ldt = LocalDateTime.parse(core, dtf);
+                return ldt.atOffset(java.time.ZoneOffset.UTC).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            }
+            if (v.length() == 8) {
+                java.time.LocalDate ld = java.time.LocalDate.parse(v, java.time.format.DateTimeFormatter.BASIC_ISO_DATE);
+                return ld.atStartOfDay();
+            }
+            if (v.length() == 15 && v.charAt(8) == 'T') {
+                java.time.format.DateTimeFormatter dtf = java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+                return LocalDateTime.parse(v, dtf);
+            }
+            return LocalDateTime.parse(v);
+        } catch (Exception e) {
+            return LocalDateTime.now();
+        }
+    }
+
+    private static String formatVCalDateTime(LocalDateTime ldt) {
+        java.time.format.DateTimeFormatter dtf = java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+        return ldt.format(dtf);
+    }
+
+    private static String escapeText(String s) {
+        return s.replace("\\", "\\\\")
+                .replace("\n", "\\n")
+                .replace("\r", "")
+                .replace(",", "\\,")
+                .replace(";", "\\;");
+    }
+
+    private static String unescapeText(String s) {
+        return s.replace("\\n", System.lineSeparator())
+                .replace("\\,", ",")
+                .replace("\\;", ";")
+                .replace("\\\\", "\\");
+    }
+
+    /**
+     * Konvertiert eine ICS-Dauer in Minuten (absoluter Wert).
+     */
+    private static Integer parseDurationToMinutes(Duration duration) {
+        if (duration == null) return null;
+        try {
+            int totalMinutes = 0;
+            if (duration.getWeeks() != null) totalMinutes += duration.getWeeks() * 7 * 24 * 60;
+            if (duration.getDays() != null) totalMinutes += duration.getDays() * 24 * 60;
+            if (duration.getHours() != null) totalMinutes += duration.getHours() * 60;
+            if (duration.getMinutes() != null) totalMinutes += duration.getMinutes();
+            return Math.abs(totalMinutes);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link CalendarStore} in einer eingebetteten Datenbank über JDBC (z. B. H2 mit
+ * {@code jdbc:h2:file:...} oder SQLite mit {@code jdbc:sqlite:...}).
+ *
+ * Je Termin gibt es eine Zeile in {@code calendar_entry}, adressiert über den Schlüssel
+ * ({@link EntryValue#key()}), damit Ausnahmen einer Serie (gleiche UID, eigene RECURRENCE-ID)
+ * eigene Zeilen erhalten. Zeiten liegen als lokale Epochensekunden mit
+ * Index auf Start und Ende; Bereichsabfragen lesen nur die betroffenen Zeilen. Geänderte Termine
+ * werden einzeln aktualisiert statt die ganze Ablage neu zu schreiben. ATTACH-Eigenschaften
+ * liegen als Rohbytes in {@code calendar_attachment} und werden beim Laden wieder als
+ * {@link AttachmentRef} abgelegt, damit der ICS-Export sie byte-identisch schreibt.
+ *
+ * Das verwendete SQL beschränkt sich auf Standardbefehle; ein Upsert ist als UPDATE mit
+ * anschließendem INSERT für nicht vorhandene Zeilen umgesetzt.
+ */
+public final class JdbcCalendarStore implements CalendarStore {
+
+    private static final String COLUMNS =
+            "entry_key, uid, recurrence_id, title, description, start_epoch, end_epoch, reminder_minutes, category,"
+                    + " extra_properties, attachment_count, content_hash";
+
+    private final Connection connection;
+    private DescriptionStore blobs;
+    private int txDepth;
+
+    private JdbcCalendarStore(Connection connection) {
+        this.connection = connection;
+    }
+
+    /** Öffnet die Datenbank unter {@code url} und legt das Schema bei Bedarf an. */
+    public static JdbcCalendarStore open(String url) throws Exception {
+        Connection c = DriverManager.getConnection(url);
+        try {
+            c.setAutoCommit(true);
+            try (Statement st = c.createStatement()) {
+                st.execute("CREATE TABLE IF NOT EXISTS calendar_entry ("
+                        + "entry_key VARCHAR(512) NOT NULL PRIMARY KEY, "
+                        + "uid VARCHAR(255) NOT NULL, "
+                        + "recurrence_id VARCHAR(255), "
+                        + "title VARCHAR(4000), "
+                        + "description CLOB, "
+                        + "start_epoch BIGINT NOT NULL, "
+                        + "end_epoch BIGINT NOT NULL, "
+                        + "reminder_minutes INTEGER, "
+                        + "category VARCHAR(255), "
+                        + "extra_properties CLOB, "
+                        + "attachment_count INTEGER NOT NULL, "
+                        + "content_hash BIGINT NOT NULL)");
+                st.execute("CREATE INDEX IF NOT EXISTS calendar_entry_start ON calendar_entry (start_epoch)");
+                st.execute("CREATE INDEX IF NOT EXISTS calendar_entry_end ON calendar_entry (end_epoch)");
+                st.execute("CREATE TABLE IF NOT EXISTS calendar_attachment ("
+                        + "entry_key VARCHAR(512) NOT NULL, "
+                        + "pos INTEGER NOT NULL, "
+                        + "raw BLOB NOT NULL, "
+                        + "PRIMARY KEY (entry_key, pos))");
+            }
+            return new JdbcCalendarStore(c);
+        } catch (SQLException e) {
+            c.close();
+            throw e;
+        }
+    }
+
+    // ----- Lesen -----
+
+    @Override
+    public synchronized List<CalendarEntry> loadAll() throws Exception {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT " + COLUMNS + " FROM calendar_entry ORDER BY start_epoch")) {
+            return read(ps);
+        }
+    }
+
+    @Override
+    public synchronized List<CalendarEntry> findRange(LocalDateTime from, LocalDateTime to) throws Exception {
+        long f = LocalEpoch.toSeconds(from);
+        long t = LocalEpoch.toSeconds(to);
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT " + COLUMNS + " FROM calendar_entry"
+                        + " WHERE start_epoch < ? AND (end_epoch > ? OR start_epoch >= ?) ORDER BY start_epoch")) {
+            ps.setLong(1, t);
+            ps.setLong(2, f);
+            ps.setLong(3, f);
+            return read(ps);
+        }
+    }
+
+    private List<CalendarEntry> read(PreparedStatement ps) throws Exception {
+        List<CalendarEntry> out = new ArrayList<>();
+        Map<CalendarEntry, String> withAttachments = new java.util.LinkedHashMap<>();
+        StringPool pool = StringPool.shared();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String description = rs.getString(5);
+                CalendarEntry ce = new CalendarEntry(pool.intern(rs.getString(4)),
+                        description != null ? pool.intern(description) : "",
+                        LocalEpoch.toDateTime(rs.getLong(6)), LocalEpoch.toDateTime(rs.getLong(7)));
+                ce.setUid(rs.getString(2));
+                ce.setRecurrenceId(rs.getString(3));
+                int reminder = rs.getInt(8);
+                if (!rs.wasNull()) ce.setReminderMinutesBefore(reminder);
+                ce.setCategory(pool.intern(rs.getString(9)));
+                ce.setExtraProperties(rs.getString(10));
+                if (rs.getInt(11) > 0) withAttachments.put(ce, rs.getString(1));
+                out.add(ce);
+            }
+        }
+        if (!withAttachments.isEmpty()) {
+            try (PreparedStatement att = connection.prepareStatement(
+                    "SELECT raw FROM calendar_attachment WHERE entry_key = ? ORDER BY pos")) {
+                for (Map.Entry<CalendarEntry, String> row : withAttachments.entrySet()) {
+                    CalendarEntry ce = row.getKey();
+                    att.setString(1, row.getValue());
+                    List<AttachmentRef> refs = new ArrayList<>();
+                    try (ResultSet rs = att.executeQuery()) {
+                        while (rs.next()) {
+                            try (java.io.InputStream raw = rs.getBinaryStream(1)) {
+                                refs.add(spool(raw));
+                            }
+                        }
+                    }
+                    ce.setAttachments(refs);
+                }
+            }
+        }
+        return out;
+    }
+
+    /** Legt die Rohbytes einer ATTACH-Eigenschaft streamend im Seitenspeicher ab. */
+    private AttachmentRef spool(java.io.InputStream raw) throws Exception {
+        if (blobs == null) blobs = DescriptionStore.create();
+        DescriptionStore.BlobWriter w = blobs.newBlob();
+        try {
+            raw.transferTo(w);
+            return new AttachmentRef(w.finish(""));
+        } catch (Exception e) {
+            w.abort();
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized boolean isEmpty() throws Exception {
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM calendar_entry")) {
+            return !rs.next() || rs.getLong(1) == 0;
+        }
+    }
+
+    // ----- Schreiben -----
+
+    @Override
+    public synchronized void upsert(Collection<EntryValue> values) throws Exception {
+        if (values.isEmpty()) return;
+        // Doppelte Schlüssel (z. B. wiederholte Blöcke in einer ICS-Datei): der letzte gilt
+        Map<String, EntryValue> byKey = new java.util.LinkedHashMap<>(values.size() * 2);
+        for (EntryValue v : values) byKey.put(v.key(), v);
+        List<EntryValue> rows = new ArrayList<>(byKey.values());
+
+        inTransaction(tx -> {
+            List<EntryValue> missing = new ArrayList<>();
+            try (PreparedStatement up = connection.prepareStatement(
+                    "UPDATE calendar_entry SET title = ?, description = ?, start_epoch = ?, end_epoch = ?,"
+                            + " reminder_minutes = ?, category = ?, extra_properties = ?, attachment_count = ?,"
+                            + " content_hash = ? WHERE entry_key = ?")) {
+                for (EntryValue v : rows) {
+                    bind(up, v, 1);
+                    up.setString(10, v.key());
+                    up.addBatch();
+                }
+                int[] counts = up.executeBatch();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) missing.add(rows.get(i));
+                }
+            }
+            if (!missing.isEmpty()) {
+                try (PreparedStatement ins = connection.prepareStatement(
+                        "INSERT INTO calendar_entry (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                    for (EntryValue v : missing) {
+                        ins.setString(1, v.key());
+                        ins.setString(2, v.uid());
+                        ins.setString(3, v.recurrenceId());
+                        bind(ins, v, 4);
+                        ins.addBatch();
+                    }
+                    ins.executeBatch();
+                }
+            }
+            writeAttachments(rows);
+        });
+    }
+
+    /** Setzt die Spalten ab {@code title} beginnend bei Parameter {@code first}. */
+    private static void bind(PreparedStatement ps, EntryValue v, int first) throws SQLException {
+        ps.setString(first, v.title());
+        ps.setString(first + 1, v.description());
+        ps.setLong(first + 2, v.startEpoch());
+        ps.setLong(first + 3, v.endEpoch());
+        if (v.reminderMinutesBefore() != null) ps.setInt(first + 4, v.reminderMinutesBefore());
+        else ps.setNull(first + 4, Types.INTEGER);
+        ps.setString(first + 5, v.category());
+        ps.setString(first + 6, v.extraProperties());
+        ps.setInt(first + 7, v.attachments().size());
+        ps.setLong(first + 8, v.contentHash());
+    }
+
+    /**
+     * Ersetzt die Anhänge der Zeilen. Die Rohbytes werden je Anhang aus dem Seitenspeicher
+     * gestreamt, daher einzeln statt im Stapel eingefügt.
+     */
+    private void writeAttachments(List<EntryValue> rows) throws Exception {
+        try (PreparedStatement del = connection.prepareStatement("DELETE FROM calendar_attachment WHERE entry_key = ?");
+             PreparedStatement ins = connection.prepareStatement("INSERT INTO calendar_attachment (entry_key, pos, raw) VALUES (?, ?, ?)")) {
+            for (EntryValue v : rows) {
+                del.setString(1, v.key());
+                del.addBatch();
+            }
+            del.executeBatch();
+            for (EntryValue v : rows) {
+                int pos = 0;
+                for (AttachmentRef a : v.attachments()) {
+                    try (java.io.InputStream raw = a.openStream()) {
+                        ins.setString(1, v.key());
+                        ins.setInt(2, pos++);
+                        ins.setBinaryStream(3, raw, a.size());
+                        ins.executeUpdate();
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void delete(Collection<String> keys) throws Exception {
+        if (keys.isEmpty()) return;
+        inTransaction(tx -> {
+            try (PreparedStatement de = connection.prepareStatement("DELETE FROM calendar_entry WHERE entry_key = ?");
+                 PreparedStatement da = connection.prepareStatement("DELETE FROM calendar_attachment WHERE entry_key = ?")) {
+                for (String key : keys) {
+                    de.setString(1, key);
+                    de.addBatch();
+                    da.setString(1, key);
+                    da.addBatch();
+                }
+                de.executeBatch();
+                da.executeBatch();
+            }
+        });
+    }
+
+    @Override
+    public synchronized void inTransaction(Transaction work) throws Exception {
+        if (txDepth++ == 0) connection.setAutoCommit(false);
+        boolean ok = false;
+        try {
+            work.run(this);
+            ok = true;
+        } finally {
+            if (--txDepth == 0) {
+                try {
+                    if (ok) connection.commit();
+                    else connection.rollback();
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        }
+    }
+
+    /** Vergleicht über die gespeicherten Inhaltshashes, ohne die Termine zu laden. */
+    @Override
+    public synchronized int replaceAll(List<EntryValue> values) throws Exception {
+        Map<String, Long> stored = new HashMap<>();
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT entry_key, content_hash FROM calendar_entry")) {
+            while (rs.next()) stored.put(rs.getString(1), rs.getLong(2));
+        }
+        return applyChanges(stored, values);
+    }
+
+    @Override
+    public synchronized void close() throws SQLException {
+        connection.close();
+    }
+}
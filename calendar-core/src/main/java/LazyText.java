@@ -0,0 +1,133 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Verweis auf einen großen Textwert in einem {@link DescriptionStore}.
+ *
+ * Gespeichert sind die Rohbytes der kompletten ICS-Eigenschaft (inkl. Parametern und Faltung).
+ * {@link #load()} entpackt sie, entfaltet die Zeilen und hebt das ICS-Escaping auf. Der geladene
+ * Text wird hier nicht zwischengespeichert; das übernimmt bei Bedarf der Aufrufer.
+ */
+public final class LazyText {
+
+    private final DescriptionStore store;
+    private final long offset;
+    private final int length;
+    private final int rawLength;
+    private final String key;
+    private final String preview;
+
+    LazyText(DescriptionStore store, long offset, int length, int rawLength, String key, String preview) {
+        this.store = store;
+        this.offset = offset;
+        this.length = length;
+        this.rawLength = rawLength;
+        this.key = key;
+        this.preview = preview;
+    }
+
+    /** Lädt und dekodiert den vollständigen Text. */
+    public String load() {
+        return decodeProperty(store.read(offset, length, rawLength));
+    }
+
+    /** Schreibt die unveränderten Rohbytes der Eigenschaft streamend in {@code out}. */
+    public void writeRaw(OutputStream out) throws IOException {
+        store.transferRaw(offset, length, out);
+    }
+
+    /** Strom über die unveränderten Rohbytes der Eigenschaft; muss geschlossen werden. */
+    public InputStream openRaw() {
+        return store.openRaw(offset, length);
+    }
+
+    /** Kurzer, bereits dekodierter Anfang des Textes für die Anzeige. */
+    public String preview() {
+        return preview;
+    }
+
+    /** Inhaltsschlüssel (SHA-1 der Rohbytes); gleiche Werte haben gleiche Schlüssel. */
+    public String key() {
+        return key;
+    }
+
+    /** Größe der Rohbytes (unkomprimiert). */
+    public int rawLength() {
+        return rawLength;
+    }
+
+    /** Offset des komprimierten Werts im Seitenspeicher. */
+    public long offset() {
+        return offset;
+    }
+
+    @Override
+    public String toString() {
+        return "LazyText{offset=" + offset + ", raw=" + rawLength + " B, compressed=" + length + " B}";
+    }
+
+    // ----- Dekodierung -----
+
+    /**
+     * Dekodiert die Rohbytes einer ICS-Eigenschaft ("NAME;PARAM=x:wert") zum Textwert.
+     * Funktioniert auch für einen abgeschnittenen Anfang (z. B. für Vorschauen).
+     */
+    static String decodeProperty(byte[] raw) {
+        byte[] unfolded = unfold(raw);
+        int valueStart = valueStart(unfolded);
+        int end = unfolded.length;
+        while (end > valueStart && (unfolded[end - 1] == '\n' || unfolded[end - 1] == '\r')) end--;
+        String value = new String(unfolded, valueStart, end - valueStart, StandardCharsets.UTF_8);
+        return unescape(value);
+    }
+
+    /** Entfernt Zeilenfaltungen (CRLF bzw. LF gefolgt von Leerzeichen oder Tab). */
+    private static byte[] unfold(byte[] raw) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length);
+        for (int i = 0; i < raw.length; i++) {
+            byte b = raw[i];
+            if (b == '\r' && i + 2 < raw.length && raw[i + 1] == '\n' && (raw[i + 2] == ' ' || raw[i + 2] == '\t')) {
+                i += 2;
+                continue;
+            }
+            if (b == '\n' && i + 1 < raw.length && (raw[i + 1] == ' ' || raw[i + 1] == '\t')) {
+                i += 1;
+                continue;
+            }
+            out.write(b);
+        }
+        return out.toByteArray();
+    }
+
+    /** Position nach dem ersten Doppelpunkt außerhalb von Anführungszeichen. */
+    private static int valueStart(byte[] line) {
+        boolean quoted = false;
+        for (int i = 0; i < line.length; i++) {
+            if (line[i] == '"') quoted = !quoted;
+            else if (line[i] == ':' && !quoted) return i + 1;
+        }
+        return line.length;
+    }
+
+    /** Hebt das ICS-Escaping für TEXT-Werte auf (\n, \N, \,, \;, \\). */
+    static String unescape(String s) {
+        if (s.indexOf('\\') < 0) return s;
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                char n = s.charAt(++i);
+                switch (n) {
+                    case 'n', 'N' -> sb.append('\n');
+                    default -> sb.append(n);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,23 @@
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Umrechnung zwischen {@link LocalDateTime} und "lokalen Epochensekunden".
+ *
+ * Die Sekunden werden ohne Zeitzonenbezug gebildet (Wanduhrzeit wie UTC behandelt), sodass
+ * die Umrechnung verlustfrei und unabhängig von Sommerzeitwechseln ist. Sekundenbruchteile
+ * entfallen, wie auch beim ICS-Export.
+ */
+public final class LocalEpoch {
+    private LocalEpoch() {}
+
+    /** Wandelt eine lokale Zeit in Epochensekunden um. */
+    public static long toSeconds(LocalDateTime ldt) {
+        return ldt.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /** Wandelt Epochensekunden zurück in eine lokale Zeit. */
+    public static LocalDateTime toDateTime(long seconds) {
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,502 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+
+/**
+ * Off-Heap-Terminspeicher auf Basis einer memory-mapped Datei.
+ *
+ * Aufbau der Datei:
+ * <pre>
+ *   Header (64 Byte)   Magic, Version, Satzlänge, Anzahl, Offsets, längste Dauer
+ *   Sätze (je 88 Byte) start, end (lokale Epochensekunden), id, reminder, 8 Heap-Referenzen
+ *   Heap               Länge (int) + Bytes: UTF-8-Texte, Rohbytes ausgelagerter Eigenschaften,
+ *                      Anhanglisten (Anzahl + Referenzen)
+ * </pre>
+ * Gespeichert wird der vollständige {@link EntryValue}: neben den Pflichtfeldern auch UID,
+ * RECURRENCE-ID, X-Eigenschaften, ausgelagerte Beschreibung und Anhänge (als Rohbytes der
+ * ICS-Eigenschaft, wie sie der Import ablegt). Die Sätze sind nach Start sortiert,
+ * Bereichsabfragen arbeiten per Binärsuche direkt auf dem gemappten Puffer; das Caching
+ * übernimmt der Page-Cache des Betriebssystems.
+ *
+ * Geschrieben wird fortlaufend über einen {@link Writer}: Sätze und Heap gehen direkt auf die
+ * Platte, im Java-Heap liegt nur eine begrenzte Tabelle zuletzt geschriebener Texte.
+ *
+ * Die Klasse verhält sich wie eine unveränderliche {@code List<CalendarEntry>}. {@link #close()}
+ * gibt die Mappings sofort frei; danach sind keine Zugriffe mehr möglich. Bereits gelieferte
+ * Termine bleiben gültig (ausgelagerte Werte liegen dann in einem eigenen {@link DescriptionStore}).
+ */
+public final class MappedEventStore extends AbstractList<CalendarEntry> implements RandomAccess, AutoCloseable {
+
+    private static final long MAGIC = 0x434A45565354524FL; // "CJEVSTRO"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 88;
+    private static final long NO_REF = -1L;
+    private static final int NO_VALUE = EntryValue.NO_VALUE;
+
+    /** Maximale Größe eines einzelnen Mappings (MappedByteBuffer ist int-adressiert). */
+    private static final long MAX_CHUNK = 1L << 30;
+    /** So viele zuletzt geschriebene Texte werden beim Schreiben wiederverwendet statt erneut abgelegt. */
+    private static final int RECENT_STRINGS = 4096;
+
+    // Feld-Offsets innerhalb eines Satzes
+    private static final int F_START = 0;
+    private static final int F_END = 8;
+    private static final int F_ID = 16;
+    private static final int F_REMINDER = 20;
+    private static final int F_UID = 24;
+    private static final int F_RECURRENCE_ID = 32;
+    private static final int F_TITLE = 40;
+    private static final int F_DESC = 48;        // Text bzw. Vorschau einer ausgelagerten Beschreibung
+    private static final int F_LAZY_DESC = 56;   // Rohbytes der ausgelagerten DESCRIPTION
+    private static final int F_CATEGORY = 64;
+    private static final int F_EXTRA = 72;
+    private static final int F_ATTACH = 80;
+
+    private final Path path;
+    private final int count;
+    private final long maxDuration;
+    private final Region records;
+    private final Region heap;
+    private boolean closed;
+
+    /** Aus der Datei übernommene Blöcke (Heap-Referenz → Verweis), damit jeder nur einmal kopiert wird. */
+    private final Map<Long, LazyText> blobs = new HashMap<>();
+    private DescriptionStore blobStore;
+
+    private MappedEventStore(Path path, int count, long maxDuration, Region records, Region heap) {
+        this.path = path;
+        this.count = count;
+        this.maxDuration = maxDuration;
+        this.records = records;
+        this.heap = heap;
+    }
+
+    // ----- Schreiben -----
+
+    /**
+     * Schreibt nach Start sortierte Termine in eine Speicherdatei.
+     *
+     * @throws IllegalArgumentException wenn die Termine nicht nach Start sortiert sind
+     */
+    public static void write(Path path, Iterable<EntryValue> values) throws IOException {
+        try (Writer writer = new Writer(path)) {
+            for (EntryValue v : values) writer.add(v);
+            writer.finish();
+        }
+    }
+
+    /**
+     * Schreibt eine Speicherdatei fortlaufend. Die Termine müssen nach Start sortiert ankommen.
+     * Sätze werden direkt in die Zieldatei geschrieben, der Heap in eine temporäre Datei daneben,
+     * die {@link #finish()} anhängt. Ohne {@code finish()} löscht {@link #close()} beide Dateien.
+     */
+    public static final class Writer implements Closeable {
+        private final Path path;
+        private final Path heapFile;
+        private final FileChannel channel;
+        private final DataOutputStream records;
+        private final DataOutputStream heap;
+        private final Map<String, Long> recent = new LinkedHashMap<>(RECENT_STRINGS * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > RECENT_STRINGS;
+            }
+        };
+        private long heapLength;
+        private long count;
+        private long lastStart = Long.MIN_VALUE;
+        private long maxDuration;
+        private boolean finished;
+
+        public Writer(Path path) throws IOException {
+            this.path = path;
+            this.heapFile = path.resolveSibling(path.getFileName() + ".heap.tmp");
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER_SIZE);
+            this.records = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            this.heap = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(heapFile), 1 << 16));
+        }
+
+        public void add(EntryValue v) throws IOException {
+            if (v.startEpoch() < lastStart) {
+                throw new IllegalArgumentException("Termine müssen nach Start sortiert sein: " + v);
+            }
+            lastStart = v.startEpoch();
+            maxDuration = Math.max(maxDuration, v.endEpoch() - v.startEpoch());
+            LazyText lazy = v.lazyDescription();
+
+            records.writeLong(v.startEpoch());
+            records.writeLong(v.endEpoch());
+            records.writeInt(v.id() != null ? v.id() : NO_VALUE);
+            records.writeInt(v.reminderMinutesBefore() != null ? v.reminderMinutesBefore() : NO_VALUE);
+            records.writeLong(string(v.uid()));
+            records.writeLong(string(v.recurrenceId()));
+            records.writeLong(string(v.title()));
+            records.writeLong(string(lazy != null ? lazy.preview() : v.description()));
+            records.writeLong(lazy != null ? blob(lazy) : NO_REF);
+            records.writeLong(string(v.category()));
+            records.writeLong(string(v.extraProperties()));
+            records.writeLong(attachments(v.attachments()));
+            count++;
+        }
+
+        /** Hängt den Heap an, schreibt den Header und schließt die Datei ab. */
+        public void finish() throws IOException {
+            records.flush();
+            heap.close();
+            long heapOffset = HEADER_SIZE + count * RECORD_SIZE;
+            try (FileChannel in = FileChannel.open(heapFile, StandardOpenOption.READ)) {
+                long done = 0;
+                while (done < heapLength) done += in.transferTo(done, heapLength - done, channel.position(heapOffset + done));
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putLong(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).putLong(count)
+                    .putLong(HEADER_SIZE).putLong(heapOffset).putLong(heapLength).putLong(maxDuration);
+            header.clear();
+            while (header.hasRemaining()) channel.write(header, header.position());
+            channel.force(false);
+            finished = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                heap.close();
+                channel.close();
+            } finally {
+                Files.deleteIfExists(heapFile);
+                if (!finished) Files.deleteIfExists(path);
+            }
+        }
+
+        private long string(String s) throws IOException {
+            if (s == null) return NO_REF;
+            Long known = recent.get(s);
+            if (known != null) return known;
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            long ref = heapLength;
+            heap.writeInt(bytes.length);
+            heap.write(bytes);
+            heapLength += 4 + bytes.length;
+            recent.put(s, ref);
+            return ref;
+        }
+
+        /** Legt die Rohbytes eines ausgelagerten Werts streamend im Heap ab. */
+        private long blob(LazyText text) throws IOException {
+            long ref = heapLength;
+            heap.writeInt(text.rawLength());
+            text.writeRaw(heap);
+            heapLength += 4 + text.rawLength();
+            return ref;
+        }
+
+        private long attachments(List<AttachmentRef> attachments) throws IOException {
+            if (attachments.isEmpty()) return NO_REF;
+            long[] refs = new long[attachments.size()];
+            for (int i = 0; i < refs.length; i++) refs[i] = blob(attachments.get(i).blob());
+            long ref = heapLength;
+            heap.writeInt(4 + refs.length * 8);
+            heap.writeInt(refs.length);
+            for (long r : refs) heap.writeLong(r);
+            heapLength += 8 + refs.length * 8L;
+            return ref;
+        }
+    }
+
+    // ----- Öffnen und Lesen -----
+
+    /**
+     * Öffnet eine Speicherdatei lesend per Memory-Mapping.
+     */
+    public static MappedEventStore open(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_SIZE) {
+                throw new IOException("Keine gültige Ereignisspeicher-Datei: " + path);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && ch.read(header, header.position()) >= 0) { }
+            if (header.getLong(0) != MAGIC || header.getInt(8) != VERSION || header.getInt(12) != RECORD_SIZE) {
+                throw new IOException("Unbekanntes Format oder Version: " + path);
+            }
+            long n = header.getLong(16);
+            long recordsOffset = header.getLong(24);
+            long heapOffset = header.getLong(32);
+            long heapLength = header.getLong(40);
+            long maxDuration = header.getLong(48);
+            if (n < 0 || n > Integer.MAX_VALUE || recordsOffset + n * RECORD_SIZE > heapOffset
+                    || heapOffset + heapLength > ch.size()) {
+                throw new IOException("Beschädigte Ereignisspeicher-Datei: " + path);
+            }
+            // Satz-Chunks sind ein Vielfaches der Satzlänge, damit kein Satz eine Chunkgrenze kreuzt
+            long recordChunk = (MAX_CHUNK / RECORD_SIZE) * RECORD_SIZE;
+            Region records = Region.map(ch, recordsOffset, n * RECORD_SIZE, recordChunk);
+            Region heap;
+            try {
+                heap = Region.map(ch, heapOffset, heapLength, MAX_CHUNK);
+            } catch (IOException | RuntimeException e) {
+                records.release();
+                throw e;
+            }
+            return new MappedEventStore(path, (int) n, maxDuration, records, heap);
+        }
+    }
+
+    public Path getPath() { return path; }
+
+    @Override
+    public int size() { return count; }
+
+    /** Dekodiert den Termin an Position {@code index} (nach Start sortiert). */
+    @Override
+    public synchronized CalendarEntry get(int index) {
+        check(index);
+        long base = (long) index * RECORD_SIZE;
+        StringPool pool = StringPool.shared();
+        int id = records.getInt(base + F_ID);
+        CalendarEntry ce = new CalendarEntry(
+                id != NO_VALUE ? id : null,
+                pool.intern(readString(records.getLong(base + F_TITLE))),
+                pool.intern(readString(records.getLong(base + F_DESC))),
+                LocalEpoch.toDateTime(records.getLong(base + F_START)),
+                LocalEpoch.toDateTime(records.getLong(base + F_END)));
+        int reminder = records.getInt(base + F_REMINDER);
+        ce.setReminderMinutesBefore(reminder != NO_VALUE ? reminder : null);
+        ce.setCategory(pool.intern(readString(records.getLong(base + F_CATEGORY))));
+        ce.setUid(readString(records.getLong(base + F_UID)));
+        ce.setRecurrenceId(readString(records.getLong(base + F_RECURRENCE_ID)));
+        ce.setExtraProperties(readString(records.getLong(base + F_EXTRA)));
+        long lazy = records.getLong(base + F_LAZY_DESC);
+        if (lazy != NO_REF) ce.setLazyDescription(readBlob(lazy, ce.getDescription()));
+        long attach = records.getLong(base + F_ATTACH);
+        if (attach != NO_REF) {
+            int n = heap.getInt(attach + 4);
+            List<AttachmentRef> list = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) list.add(new AttachmentRef(readBlob(heap.getLong(attach + 8 + i * 8L), "")));
+            ce.setAttachments(list);
+        }
+        return ce;
+    }
+
+    /** Unveränderlicher Wert des Termins an Position {@code index}. */
+    public EntryValue value(int index) {
+        return EntryValue.of(get(index));
+    }
+
+    /** Start des Termins an Position {@code index} in lokalen Epochensekunden, ohne Dekodierung. */
+    public synchronized long startEpoch(int index) {
+        check(index);
+        return records.getLong((long) index * RECORD_SIZE + F_START);
+    }
+
+    /** Ende des Termins an Position {@code index} in lokalen Epochensekunden, ohne Dekodierung. */
+    public synchronized long endEpoch(int index) {
+        check(index);
+        return records.getLong((long) index * RECORD_SIZE + F_END);
+    }
+
+    /** Erster Index, dessen Start {@code >= epochSeconds} ist. */
+    public synchronized int lowerBound(long epochSeconds) {
+        int lo = 0, hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (startEpoch(mid) < epochSeconds) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Ruft {@code action} für jeden Index auf, dessen Termin das Intervall [from, to) überschneidet
+     * (gleiche Semantik wie {@link ColumnarEntryStore#forEachInRange(long, long, IntConsumer)}).
+     */
+    public synchronized void forEachInRange(long fromEpoch, long toEpoch, IntConsumer action) {
+        for (int i = lowerBound(fromEpoch - maxDuration); i < count; i++) {
+            long start = startEpoch(i);
+            if (start >= toEpoch) break;
+            if (endEpoch(i) > fromEpoch || start >= fromEpoch) action.accept(i);
+        }
+    }
+
+    /** Liefert alle Termine, die das Intervall [from, to) überschneiden, nach Start sortiert. */
+    public List<CalendarEntry> range(LocalDateTime from, LocalDateTime to) {
+        List<CalendarEntry> out = new ArrayList<>();
+        forEachInRange(LocalEpoch.toSeconds(from), LocalEpoch.toSeconds(to), i -> out.add(get(i)));
+        return out;
+    }
+
+    /**
+     * Hebt die Mappings sofort auf, statt auf den GC zu warten (unter Windows bleibt die Datei
+     * sonst gesperrt). Lesezugriffe und {@code close()} sind synchronisiert, damit kein Zugriff
+     * auf einen bereits freigegebenen Bereich erfolgt.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        records.release();
+        heap.release();
+    }
+
+    private String readString(long ref) {
+        if (ref == NO_REF) return null;
+        byte[] bytes = new byte[heap.getInt(ref)];
+        heap.get(ref + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Kopiert die Rohbytes eines Blocks einmalig in den eigenen Seitenspeicher. */
+    private LazyText readBlob(long ref, String preview) {
+        LazyText known = blobs.get(ref);
+        if (known != null) return known;
+        try {
+            if (blobStore == null) blobStore = DescriptionStore.create();
+            DescriptionStore.BlobWriter w = blobStore.newBlob();
+            try {
+                int length = heap.getInt(ref);
+                byte[] chunk = new byte[(int) Math.min(length, 64 * 1024)];
+                for (long done = 0; done < length; ) {
+                    int n = (int) Math.min(chunk.length, length - done);
+                    if (n < chunk.length) chunk = new byte[n];
+                    heap.get(ref + 4 + done, chunk);
+                    w.write(chunk, 0, n);
+                    done += n;
+                }
+                LazyText text = w.finish(preview != null ? preview : "");
+                blobs.put(ref, text);
+                return text;
+            } catch (IOException | RuntimeException e) {
+                w.abort();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    private void check(int index) {
+        if (closed) throw new IllegalStateException("Ereignisspeicher ist geschlossen: " + path);
+        if (index < 0 || index >= count) throw new IndexOutOfBoundsException("Index " + index + ", Größe " + count);
+    }
+
+    /**
+     * Gemappter Dateibereich beliebiger Länge, aufgeteilt in Chunks von höchstens {@link #MAX_CHUNK} Byte.
+     * Zugriffe über Chunkgrenzen hinweg werden byteweise zusammengesetzt.
+     */
+    private static final class Region {
+        private MappedByteBuffer[] chunks;
+        private final long chunkSize;
+
+        private Region(MappedByteBuffer[] chunks, long chunkSize) {
+            this.chunks = chunks;
+            this.chunkSize = chunkSize;
+        }
+
+        static Region map(FileChannel ch, long offset, long length, long chunkSize) throws IOException {
+            int n = (int) ((length + chunkSize - 1) / chunkSize);
+            MappedByteBuffer[] chunks = new MappedByteBuffer[n];
+            for (int i = 0; i < n; i++) {
+                long start = (long) i * chunkSize;
+                long len = Math.min(chunkSize, length - start);
+                chunks[i] = ch.map(FileChannel.MapMode.READ_ONLY, offset + start, len);
+            }
+            return new Region(chunks, chunkSize);
+        }
+
+        long getLong(long pos) {
+            int c = (int) (pos / chunkSize);
+            int off = (int) (pos % chunkSize);
+            if (off + 8 <= chunks[c].limit()) return chunks[c].getLong(off);
+            long v = 0;
+            for (int i = 0; i < 8; i++) v = (v << 8) | (getByte(pos + i) & 0xFF);
+            return v;
+        }
+
+        int getInt(long pos) {
+            int c = (int) (pos / chunkSize);
+            int off = (int) (pos % chunkSize);
+            if (off + 4 <= chunks[c].limit()) return chunks[c].getInt(off);
+            int v = 0;
+            for (int i = 0; i < 4; i++) v = (v << 8) | (getByte(pos + i) & 0xFF);
+            return v;
+        }
+
+        void get(long pos, byte[] dst) {
+            int done = 0;
+            while (done < dst.length) {
+                int c = (int) ((pos + done) / chunkSize);
+                int off = (int) ((pos + done) % chunkSize);
+                int n = Math.min(dst.length - done, chunks[c].limit() - off);
+                chunks[c].get(off, dst, done, n);
+                done += n;
+            }
+        }
+
+        private byte getByte(long pos) {
+            return chunks[(int) (pos / chunkSize)].get((int) (pos % chunkSize));
+        }
+
+        void release() {
+            MappedByteBuffer[] old = chunks;
+            chunks = new MappedByteBuffer[0];
+            for (MappedByteBuffer b : old) Unmapper.unmap(b);
+        }
+    }
+
+    /**
+     * Gibt ein Mapping sofort frei. Java 21 bietet dafür keine öffentliche API; genutzt wird
+     * {@code sun.misc.Unsafe#invokeCleaner} (Modul {@code jdk.unsupported}). Fehlt es, bleibt
+     * die Freigabe dem GC überlassen.
+     */
+    private static final class Unmapper {
+        private static final Object UNSAFE;
+        private static final Method INVOKE_CLEANER;
+
+        static {
+            Object unsafe = null;
+            Method invoke = null;
+            try {
+                Class<?> type = Class.forName("sun.misc.Unsafe");
+                Field field = type.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                unsafe = field.get(null);
+                invoke = type.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                unsafe = null;
+                invoke = null;
+            }
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = invoke;
+        }
+
+        static void unmap(MappedByteBuffer buffer) {
+            if (INVOKE_CLEANER == null) return;
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } catch (ReflectiveOperationException | RuntimeException ignored) {
+                // Freigabe durch den GC
+            }
+        }
+    }
+}
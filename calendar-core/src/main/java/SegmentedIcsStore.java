@@ -0,0 +1,267 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Zeitlich partitionierter ICS-Speicher: ein ICS-Segment pro Monat oder Jahr in einem Verzeichnis.
+ *
+ * Ein Manifest ({@value #MANIFEST}) führt für jedes Segment die Anzahl der Termine und einen
+ * reihenfolgeunabhängigen Hash über deren {@link EntryValue#contentHash()}. Beim Speichern werden
+ * nur Segmente neu geschrieben, deren Hash sich geändert hat; leer gewordene Segmente werden
+ * gelöscht. Beim Laden können gezielt einzelne Segmente gelesen werden, z. B. zuerst die um das
+ * aktuelle Datum ({@link #keysByDistance(LocalDate)}).
+ *
+ * Wurden nur einige Segmente geladen, bleiben die übrigen beim Speichern unangetastet. Fallen
+ * Termine in ein nicht geladenes Segment (z. B. verschoben), wird es mit seinem Inhalt auf der
+ * Platte zusammengeführt statt überschrieben.
+ *
+ * Jedes Segment ist eine vollständige ICS-Datei; {@link #exportSingle(Path)} fügt alle Segmente
+ * wieder zu einer einzelnen Datei für den Austausch zusammen.
+ */
+public final class SegmentedIcsStore {
+
+    /** Name der Manifestdatei im Segmentverzeichnis. */
+    public static final String MANIFEST = "manifest.tsv";
+
+    private static final String MANIFEST_HEADER = "# caljava-segments v1 ";
+
+    /** Größe eines Segments. */
+    public enum Granularity {
+        MONTH, YEAR;
+
+        /** Segmentschlüssel eines Zeitpunkts ("2025-03" bzw. "2025"). */
+        public String key(LocalDateTime t) {
+            return this == MONTH
+                    ? String.format(Locale.ROOT, "%04d-%02d", t.getYear(), t.getMonthValue())
+                    : String.format(Locale.ROOT, "%04d", t.getYear());
+        }
+
+        /** Liest den Konfigurationswert ({@code month}/{@code year}); Standard ist MONTH. */
+        public static Granularity parse(String s) {
+            return s != null && s.trim().equalsIgnoreCase("year") ? YEAR : MONTH;
+        }
+    }
+
+    /** Manifest-Eintrag eines Segments. */
+    public record Segment(String key, int count, long hash) {
+        public String fileName() { return key + ".ics"; }
+    }
+
+    private final Path dir;
+    private final Granularity granularity;
+    private final Map<String, Segment> manifest = new TreeMap<>();
+    private final Set<String> loaded = new HashSet<>();
+
+    private SegmentedIcsStore(Path dir, Granularity granularity) {
+        this.dir = dir;
+        this.granularity = granularity;
+    }
+
+    /**
+     * Öffnet (oder legt beim ersten Speichern an) einen Segmentspeicher. Wurde das Verzeichnis mit
+     * einer anderen Granularität angelegt, wird es einmalig neu partitioniert.
+     */
+    public static SegmentedIcsStore open(Path dir, Granularity granularity) throws Exception {
+        SegmentedIcsStore store = new SegmentedIcsStore(dir, granularity);
+        Granularity onDisk = store.readManifest();
+        if (onDisk != null && onDisk != granularity) {
+            SegmentedIcsStore old = new SegmentedIcsStore(dir, onDisk);
+            old.readManifest();
+            List<EntryValue> all = EntryValue.snapshot(old.loadAll());
+            for (Segment s : old.manifest.values()) Files.deleteIfExists(dir.resolve(s.fileName()));
+            store.manifest.clear();
+            store.save(all);
+        }
+        return store;
+    }
+
+    public Path getDirectory() {
+        return dir;
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    /** Gibt an, ob bereits ein Manifest existiert. */
+    public boolean exists() {
+        return Files.exists(dir.resolve(MANIFEST));
+    }
+
+    /** Alle Segmente laut Manifest, aufsteigend nach Schlüssel. */
+    public synchronized List<Segment> segments() {
+        return new ArrayList<>(manifest.values());
+    }
+
+    /**
+     * Segmentschlüssel sortiert nach zeitlichem Abstand zu {@code focus}; bei gleichem Abstand
+     * kommt das spätere Segment zuerst.
+     */
+    public synchronized List<String> keysByDistance(LocalDate focus) {
+        String focusKey = granularity.key(focus.atStartOfDay());
+        long f = ordinal(focusKey);
+        List<String> keys = new ArrayList<>(manifest.keySet());
+        keys.sort(Comparator.<String>comparingLong(k -> Math.abs(ordinal(k) - f))
+                .thenComparing(Comparator.reverseOrder()));
+        return keys;
+    }
+
+    private long ordinal(String key) {
+        if (granularity == Granularity.YEAR) return Long.parseLong(key);
+        YearMonth ym = YearMonth.parse(key);
+        return ym.getYear() * 12L + ym.getMonthValue() - 1;
+    }
+
+    // ----- Laden -----
+
+    /**
+     * Lädt die Termine der angegebenen Segmente (unbekannte Schlüssel werden übersprungen) und
+     * merkt sie als geladen vor.
+     */
+    public synchronized List<CalendarEntry> load(Collection<String> keys) throws Exception {
+        List<CalendarEntry> out = new ArrayList<>();
+        for (String key : keys) {
+            out.addAll(readSegment(key));
+            loaded.add(key);
+        }
+        return out;
+    }
+
+    public synchronized List<CalendarEntry> loadAll() throws Exception {
+        return load(new ArrayList<>(manifest.keySet()));
+    }
+
+    private List<CalendarEntry> readSegment(String key) throws Exception {
+        Segment s = manifest.get(key);
+        if (s == null) return List.of();
+        Path file = dir.resolve(s.fileName());
+        return Files.exists(file) ? IcsUtil.importIcs(file) : List.of();
+    }
+
+    // ----- Speichern -----
+
+    /**
+     * Speichert einen Snapshot der geladenen Segmente. Nur Segmente mit geändertem Inhalt werden
+     * neu geschrieben; nicht geladene Segmente werden nur bei Bedarf zusammengeführt.
+     *
+     * @return Anzahl der geschriebenen oder gelöschten Segmente
+     */
+    public synchronized int save(List<EntryValue> values) throws Exception {
+        Map<String, List<EntryValue>> groups = new TreeMap<>();
+        Set<String> live = new HashSet<>(values.size() * 2);
+        for (EntryValue v : values) {
+            live.add(v.key());
+            groups.computeIfAbsent(granularity.key(v.start()), k -> new ArrayList<>()).add(v);
+        }
+        Files.createDirectories(dir);
+
+        // Neue Segmente gelten als geladen; nicht geladene mit Inhalt von der Platte ergänzen
+        for (Map.Entry<String, List<EntryValue>> g : groups.entrySet()) {
+            if (!manifest.containsKey(g.getKey())) {
+                loaded.add(g.getKey());
+            } else if (!loaded.contains(g.getKey())) {
+                Set<String> present = new HashSet<>();
+                for (EntryValue v : g.getValue()) present.add(v.key());
+                for (CalendarEntry ce : readSegment(g.getKey())) {
+                    EntryValue v = EntryValue.of(ce);
+                    if (present.add(v.key())) {
+                        g.getValue().add(v);
+                        live.add(v.key());
+                    }
+                }
+            }
+        }
+
+        int written = 0;
+        for (Map.Entry<String, List<EntryValue>> g : groups.entrySet()) {
+            List<EntryValue> list = g.getValue();
+            list.sort(Comparator.comparingLong(EntryValue::startEpoch).thenComparing(v -> v.key()));
+            Segment seg = new Segment(g.getKey(), list.size(), combinedHash(list));
+            Segment old = manifest.get(seg.key());
+            Path file = dir.resolve(seg.fileName());
+            if (seg.equals(old) && Files.exists(file)) continue;
+
+            Path tmp = dir.resolve(seg.fileName() + ".tmp");
+            IcsUtil.exportIcsSegment(tmp, list);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            manifest.put(seg.key(), seg);
+            written++;
+        }
+        for (String key : new ArrayList<>(manifest.keySet())) {
+            if (!groups.containsKey(key) && loaded.contains(key)) {
+                Files.deleteIfExists(dir.resolve(manifest.remove(key).fileName()));
+                loaded.remove(key);
+                written++;
+            }
+        }
+        if (written > 0 || !exists()) writeManifest();
+        IcsFragmentCache.shared().retain(live);
+        return written;
+    }
+
+    /** Schreibt alle Segmente nacheinander als eine einzelne ICS-Datei. */
+    public synchronized void exportSingle(Path target) throws Exception {
+        IcsUtil.exportIcsValues(target, EntryValue.snapshot(loadAll()));
+    }
+
+    /** Reihenfolgeunabhängiger Hash über die Inhaltshashes eines Segments. */
+    static long combinedHash(Collection<EntryValue> values) {
+        long h = values.size();
+        for (EntryValue v : values) {
+            long x = v.contentHash() * 0x9E3779B97F4A7C15L;
+            h += x ^ (x >>> 29);
+        }
+        return h;
+    }
+
+    // ----- Manifest -----
+
+    /** Liest das Manifest; liefert die darin vermerkte Granularität oder {@code null}. */
+    private Granularity readManifest() throws IOException {
+        Path file = dir.resolve(MANIFEST);
+        if (!Files.exists(file)) return null;
+        Granularity onDisk = null;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.startsWith(MANIFEST_HEADER)) {
+                onDisk = Granularity.valueOf(line.substring(MANIFEST_HEADER.length()).trim());
+                continue;
+            }
+            if (line.isBlank() || line.startsWith("#")) continue;
+            String[] parts = line.split("\t");
+            if (parts.length < 3) continue;
+            manifest.put(parts[0], new Segment(parts[0], Integer.parseInt(parts[1]), Long.parseUnsignedLong(parts[2], 16)));
+        }
+        return onDisk != null ? onDisk : granularity;
+    }
+
+    private void writeManifest() throws IOException {
+        Path file = dir.resolve(MANIFEST);
+        Path tmp = dir.resolve(MANIFEST + ".tmp");
+        try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            w.write(MANIFEST_HEADER + granularity.name());
+            w.newLine();
+            w.write("# segment\tcount\thash");
+            w.newLine();
+            for (Segment s : manifest.values()) {
+                w.write(s.key() + "\t" + s.count() + "\t" + Long.toHexString(s.hash()));
+                w.newLine();
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,76 @@
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Zeitmarken des Programmstarts, gemessen ab JVM-Start (Laufzeit der JVM).
+ *
+ * Aktiv mit {@code -Dstartup.trace=true}; sonst kostet {@link #mark(String)} nur eine Abfrage.
+ * Jede Marke wird nur beim ersten Erreichen gesetzt, spätere Aufrufe (z. B. erneutes
+ * {@code reloadData}) ändern sie nicht. {@link #print()} gibt die Marken als
+ * {@code startup.<marke>_ms=<wert>}-Zeilen aus, wie {@code StartupBench}.
+ *
+ * Marken der Oberfläche in zeitlicher Reihenfolge: {@code main}, {@code fx_toolkit_ready},
+ * {@code controller_init}, {@code entries_parsed}, {@code calendar_populated},
+ * {@code fxml_loaded}, {@code stage_shown}, {@code first_frame}. FXML-Laden schließt
+ * {@code initialize} und damit das Lesen der Termine ein.
+ */
+public final class StartupTrace {
+
+    public static final String FIRST_FRAME = "first_frame";
+
+    private static final Map<String, Long> MARKS = new LinkedHashMap<>();
+    private static volatile boolean enabled = Boolean.getBoolean("startup.trace");
+    /** Abstand zwischen {@link System#nanoTime()} und der JVM-Laufzeit in Nanosekunden. */
+    private static long origin = System.nanoTime()
+            - ManagementFactory.getRuntimeMXBean().getUptime() * 1_000_000L;
+
+    private StartupTrace() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Setzt die Marke {@code name}, falls aktiv und noch nicht gesetzt. */
+    public static void mark(String name) {
+        if (!enabled) return;
+        long now = System.nanoTime();
+        synchronized (MARKS) {
+            MARKS.putIfAbsent(name, now);
+        }
+    }
+
+    /**
+     * Aktiviert die Aufzeichnung, verwirft bisherige Marken und zählt ab jetzt statt ab JVM-Start
+     * (für wiederholte Starts innerhalb einer JVM).
+     */
+    public static void begin() {
+        synchronized (MARKS) {
+            MARKS.clear();
+            origin = System.nanoTime();
+            enabled = true;
+        }
+    }
+
+    /** Marken in Millisekunden ab JVM-Start bzw. {@link #begin()}, in der Reihenfolge des Setzens. */
+    public static Map<String, Double> snapshot() {
+        Map<String, Double> out = new LinkedHashMap<>();
+        synchronized (MARKS) {
+            for (Map.Entry<String, Long> e : MARKS.entrySet()) {
+                out.put(e.getKey(), (e.getValue() - origin) / 1_000_000.0);
+            }
+        }
+        return out;
+    }
+
+    /** Gibt die Marken auf der Standardausgabe aus (nur wenn aktiv). */
+    public static void print() {
+        if (!enabled) return;
+        for (Map.Entry<String, Double> e : snapshot().entrySet()) {
+            System.out.println("startup." + e.getKey() + "_ms=" + String.format(Locale.ROOT, "%.1f", e.getValue()));
+        }
+        System.out.println("startup.loaded_classes=" + ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount());
+    }
+}
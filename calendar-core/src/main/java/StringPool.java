@@ -0,0 +1,128 @@
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Deduplizierender String-Pool für wiederkehrende Texte (Titel, Beschreibungen, Kategorien).
+ *
+ * Gleiche Werte teilen sich nach {@link #intern(String)} eine einzige Instanz. Einträge werden
+ * nur schwach referenziert: Sobald kein Termin mehr auf einen Wert verweist, entfernt der GC ihn
+ * auch aus dem Pool. Sehr lange Texte werden nicht gepoolt, da sie praktisch nie doppelt vorkommen.
+ *
+ * Die Einsparung wird je gehaltenem Wert gezählt: Räumt der GC einen Wert ab, fällt auch seine
+ * Einsparung aus der Statistik. {@link #resetStats()} beginnt die Zählung neu, etwa beim Neuladen.
+ */
+public final class StringPool {
+
+    /** Standardgrenze: längere Werte werden unverändert durchgereicht. */
+    public static final int DEFAULT_MAX_LENGTH = 1024;
+
+    private static final StringPool SHARED = new StringPool(DEFAULT_MAX_LENGTH);
+
+    private final WeakHashMap<String, Slot> pool = new WeakHashMap<>();
+    private final int maxLength;
+
+    // Statistik für die Diagnose
+    private long lookups;
+    private long hits;
+
+    /** Kanonische Instanz und Anzahl der dafür verworfenen Duplikate. */
+    private static final class Slot {
+        final WeakReference<String> ref;
+        int duplicates;
+
+        Slot(String s) {
+            ref = new WeakReference<>(s);
+        }
+    }
+
+    /**
+     * Momentaufnahme der Pool-Statistik.
+     *
+     * @param lookups    Anzahl der intern()-Aufrufe mit poolbarem Wert
+     * @param hits       Anzahl der Aufrufe, die eine bereits vorhandene Instanz geliefert haben
+     * @param distinct   Anzahl der aktuell gehaltenen unterschiedlichen Werte
+     * @param savedBytes geschätzte eingesparte Heap-Bytes: verworfene Duplikate der aktuell gehaltenen Werte
+     */
+    public record Stats(long lookups, long hits, int distinct, long savedBytes) {
+        @Override
+        public String toString() {
+            return "lookups=" + lookups + ", hits=" + hits + ", distinct=" + distinct
+                    + ", saved=" + (savedBytes / 1024) + " KiB";
+        }
+    }
+
+    /**
+     * @param maxLength maximale Länge eines Werts, der noch gepoolt wird
+     */
+    public StringPool(int maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    /** Gemeinsamer Pool, der von den Importern verwendet wird. */
+    public static StringPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Liefert eine kanonische Instanz für den übergebenen Wert.
+     *
+     * @param s beliebiger Text (null erlaubt)
+     * @return die gepoolte Instanz oder {@code s} selbst, falls nicht poolbar
+     */
+    public synchronized String intern(String s) {
+        if (s == null || s.length() > maxLength) return s;
+        lookups++;
+        Slot slot = pool.get(s);
+        String existing = slot != null ? slot.ref.get() : null;
+        if (existing != null) {
+            if (existing != s) {
+                hits++;
+                slot.duplicates++;
+            }
+            return existing;
+        }
+        pool.put(s, new Slot(s));
+        return s;
+    }
+
+    /** Liefert die aktuelle Statistik des Pools; die Einsparung wird über die gehaltenen Werte summiert. */
+    public synchronized Stats getStats() {
+        long savedBytes = 0;
+        for (var e : pool.entrySet()) {
+            String value = e.getKey();
+            int duplicates = e.getValue().duplicates;
+            if (value != null && duplicates > 0) savedBytes += duplicates * estimateSize(value);
+        }
+        return new Stats(lookups, hits, pool.size(), savedBytes);
+    }
+
+    /**
+     * Setzt die Statistik zurück, ohne den Pool zu leeren. Wird beim Neuladen aufgerufen, damit
+     * Duplikate aus früheren Ladevorgängen nicht weiter als Einsparung zählen.
+     */
+    public synchronized void resetStats() {
+        lookups = 0;
+        hits = 0;
+        for (Slot slot : pool.values()) slot.duplicates = 0;
+    }
+
+    /** Leert den Pool und setzt die Statistik zurück. */
+    public synchronized void clear() {
+        pool.clear();
+        lookups = 0;
+        hits = 0;
+    }
+
+    /**
+     * Schätzt den Heap-Bedarf eines Strings (Objekt-Header + Backing-Array),
+     * unter Berücksichtigung von Compact Strings (Latin-1 = 1 Byte je Zeichen).
+     */
+    static long estimateSize(String s) {
+        boolean latin1 = true;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) { latin1 = false; break; }
+        }
+        long array = 16L + (latin1 ? s.length() : 2L * s.length());
+        return 24L + ((array + 7) & ~7L);
+    }
+}
@@ -0,0 +1,332 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Erzeugt reproduzierbare, synthetische Kalender für Last- und Leistungsmessungen.
+ *
+ * Gleicher {@link Spec} (inklusive Seed) ergibt byte-identische Dateien, unabhängig von
+ * Zeitzone und Plattform: Zeiten werden als lokale (schwebende) Zeiten geschrieben, UIDs und
+ * DTSTAMP hängen nur vom Seed ab. Die Termine werden einzeln erzeugt und direkt in den Strom
+ * geschrieben; der Speicherbedarf ist unabhängig von der Anzahl, sodass auch Dateien mit
+ * zehn Millionen Terminen ohne Heap-Druck entstehen.
+ *
+ * Anders als {@link IcsUtil.EventWriter} schreibt der Generator die Texte selbst, damit auch
+ * Eigenschaften entstehen, die das Modell nicht abbildet, in echten Kalendern aber vorkommen
+ * (RRULE, VALARM bzw. DALARM, gefaltete Zeilen).
+ *
+ * Verwendung aus Tests und Benchmarks über {@link #write(Spec, Path)}, von der Kommandozeile
+ * über {@code generate} in {@link CalendarCli}.
+ */
+public final class SyntheticCalendar {
+
+    /** Maximale Zeilenlänge in Oktetten nach RFC 5545, Abschnitt 3.1. */
+    static final int FOLD_OCTETS = 75;
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss", Locale.ROOT);
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private static final int[] DURATIONS = {15, 30, 30, 45, 60, 60, 60, 90, 120, 180, 240, 480};
+    private static final int[] ALARM_MINUTES = {5, 10, 15, 15, 30, 60, 1440};
+    private static final String[] SUBJECTS = {
+            "Besprechung", "Teammeeting", "Arzttermin", "Zahnarzt", "Mittagessen", "Kundentermin",
+            "Projektabstimmung", "Sport", "Elternabend", "Geburtstag", "Review", "Schulung",
+            "Telefonkonferenz", "Workshop", "Einkauf", "Fahrstunde", "Chorprobe", "Jour fixe",
+            "Übergabe", "Planung", "Retrospektive", "Abnahme", "Vorstellungsgespräch", "Sprechstunde"};
+    private static final String[] PLACES = {
+            "Raum 1.12", "Büro", "Kantine", "Online", "München", "Köln", "Hamburg", "Zuhause", "Praxis", "Halle"};
+    private static final String[] BASE_CATEGORIES = {
+            "Arbeit", "Privat", "Familie", "Sport", "Reise", "Gesundheit", "Schule", "Verein"};
+    private static final String[] WORDS = {
+            "Agenda", "Tagesordnung", "Protokoll", "Rückfrage", "Unterlagen", "Präsentation",
+            "Budget", "Zeitplan", "Meilenstein", "Entwurf", "Änderung", "Ergebnis", "Entscheidung",
+            "Nächste", "Schritte", "bitte", "vorher", "lesen", "mitbringen", "klären", "für",
+            "mit", "und", "der", "die", "das", "über", "zum", "Größe", "Straße", "Frühstück",
+            "Anmerkung;", "siehe", "Anhang,", "Termin", "verschoben", "bestätigt", "Ort", "offen"};
+
+    private SyntheticCalendar() {
+    }
+
+    /**
+     * Beschreibung eines synthetischen Kalenders.
+     *
+     * @param seed             Startwert des Zufallsgenerators
+     * @param events           Anzahl Termine
+     * @param start            Beginn des Zeitraums
+     * @param spreadDays       Länge des Zeitraums in Tagen, über den die Termine gleichmäßig verteilt werden
+     * @param overlap          Anteil Termine, die innerhalb des vorherigen Termins beginnen (0..1)
+     * @param recurrence       Anteil Termine mit Wiederholungsregel (0..1)
+     * @param categories       Anzahl verschiedener Kategorien; 0 = ohne Kategorien
+     * @param descriptionBytes mittlere Beschreibungslänge (exponentialverteilt); 0 = ohne Beschreibung
+     * @param hugeShare        Anteil Termine mit großer Beschreibung (0..1)
+     * @param hugeBytes        Länge einer großen Beschreibung
+     * @param alarms           Anteil Termine mit Erinnerung (0..1)
+     * @param fold             lange Zeilen nach 75 Oktetten falten
+     */
+    public record Spec(long seed, long events, LocalDateTime start, int spreadDays, double overlap,
+                       double recurrence, int categories, int descriptionBytes, double hugeShare,
+                       int hugeBytes, double alarms, boolean fold) {
+
+        public Spec {
+            if (events < 0) throw new IllegalArgumentException("events muss >= 0 sein");
+            if (spreadDays < 1) throw new IllegalArgumentException("spreadDays muss >= 1 sein");
+            if (categories < 0 || descriptionBytes < 0 || hugeBytes < 0) {
+                throw new IllegalArgumentException("categories, descriptionBytes und hugeBytes müssen >= 0 sein");
+            }
+            share("overlap", overlap);
+            share("recurrence", recurrence);
+            share("hugeShare", hugeShare);
+            share("alarms", alarms);
+            if (start == null) throw new IllegalArgumentException("start fehlt");
+        }
+
+        private static void share(String name, double value) {
+            if (!(value >= 0 && value <= 1)) throw new IllegalArgumentException(name + " muss zwischen 0 und 1 liegen");
+        }
+
+        /** Standardwerte: 1000 Termine über ein Jahr ab 2025-01-01, typische Anteile. */
+        public static Spec defaults() {
+            return new Spec(1L, 1000L, LocalDateTime.of(2025, 1, 1, 0, 0), 365, 0.1,
+                    0.05, 8, 120, 0.0, 16 * 1024, 0.25, true);
+        }
+
+        /** Gültige Schlüssel für {@link #parse(Map)}. */
+        static final Set<String> KEYS = Set.of("seed", "events", "start", "spread-days",
+                "overlap", "recurrence", "categories", "description", "huge-share", "huge-bytes", "alarms", "fold");
+
+        /**
+         * Übernimmt Werte aus Schlüssel/Wert-Paaren (Kommandozeile); fehlende Schlüssel behalten
+         * die Standardwerte. Schlüssel: {@code seed}, {@code events}, {@code start} (yyyy-MM-dd),
+         * {@code spread-days}, {@code overlap}, {@code recurrence}, {@code categories},
+         * {@code description}, {@code huge-share}, {@code huge-bytes}, {@code alarms}, {@code fold}.
+         */
+        public static Spec parse(Map<String, String> options) {
+            Spec d = defaults();
+            for (String key : options.keySet()) {
+                if (!KEYS.contains(key)) throw new IllegalArgumentException("Unbekannte Generator-Option: --" + key);
+            }
+            try {
+                return new Spec(
+                        Long.parseLong(options.getOrDefault("seed", String.valueOf(d.seed))),
+                        Long.parseLong(options.getOrDefault("events", String.valueOf(d.events))),
+                        options.containsKey("start") ? LocalDate.parse(options.get("start")).atStartOfDay() : d.start,
+                        Integer.parseInt(options.getOrDefault("spread-days", String.valueOf(d.spreadDays))),
+                        Double.parseDouble(options.getOrDefault("overlap", String.valueOf(d.overlap))),
+                        Double.parseDouble(options.getOrDefault("recurrence", String.valueOf(d.recurrence))),
+                        Integer.parseInt(options.getOrDefault("categories", String.valueOf(d.categories))),
+                        Integer.parseInt(options.getOrDefault("description", String.valueOf(d.descriptionBytes))),
+                        Double.parseDouble(options.getOrDefault("huge-share", String.valueOf(d.hugeShare))),
+                        Integer.parseInt(options.getOrDefault("huge-bytes", String.valueOf(d.hugeBytes))),
+                        Double.parseDouble(options.getOrDefault("alarms", String.valueOf(d.alarms))),
+                        Boolean.parseBoolean(options.getOrDefault("fold", String.valueOf(d.fold))));
+            } catch (java.time.format.DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Ungültige Generator-Option: " + e.getMessage());
+            }
+        }
+
+        public Spec withSeed(long newSeed) {
+            return new Spec(newSeed, events, start, spreadDays, overlap, recurrence, categories, descriptionBytes, hugeShare, hugeBytes, alarms, fold);
+        }
+
+        public Spec withEvents(long newEvents) {
+            return new Spec(seed, newEvents, start, spreadDays, overlap, recurrence, categories, descriptionBytes, hugeShare, hugeBytes, alarms, fold);
+        }
+
+        public Spec withDescriptions(int newDescriptionBytes, double newHugeShare, int newHugeBytes) {
+            return new Spec(seed, events, start, spreadDays, overlap, recurrence, categories, newDescriptionBytes, newHugeShare, newHugeBytes, alarms, fold);
+        }
+
+        public Spec withRecurrence(double newRecurrence) {
+            return new Spec(seed, events, start, spreadDays, overlap, newRecurrence, categories, descriptionBytes, hugeShare, hugeBytes, alarms, fold);
+        }
+
+        public Spec withCategories(int newCategories) {
+            return new Spec(seed, events, start, spreadDays, overlap, recurrence, newCategories, descriptionBytes, hugeShare, hugeBytes, alarms, fold);
+        }
+
+        public Spec withFold(boolean newFold) {
+            return new Spec(seed, events, start, spreadDays, overlap, recurrence, categories, descriptionBytes, hugeShare, hugeBytes, alarms, newFold);
+        }
+    }
+
+    /**
+     * Schreibt den Kalender nach {@code path}; VCS bei Endung {@code .vcs}, GZIP bei
+     * {@value IcsUtil#GZIP_SUFFIX}.
+     *
+     * @return Anzahl geschriebener Termine
+     */
+    public static long write(Spec spec, Path path) throws Exception {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(IcsUtil.GZIP_SUFFIX)) name = name.substring(0, name.length() - IcsUtil.GZIP_SUFFIX.length());
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        try (OutputStream out = IcsUtil.createForStreaming(path)) {
+            return write(spec, out, name.endsWith(".vcs"));
+        }
+    }
+
+    /**
+     * Schreibt den Kalender fortlaufend in {@code out} (der Strom bleibt offen).
+     *
+     * @return Anzahl geschriebener Termine
+     */
+    public static long write(Spec spec, OutputStream out, boolean vcs) throws IOException {
+        Generator g = new Generator(spec, new BufferedOutputStream(out, 1 << 16), vcs);
+        g.line("BEGIN:VCALENDAR");
+        g.line(vcs ? "VERSION:1.0" : "VERSION:2.0");
+        g.line(vcs ? "PRODID:-//Calendar Java//Synthetic VCS//DE" : "PRODID:-//Calendar Java//Synthetic//DE");
+        for (long i = 0; i < spec.events(); i++) g.event(i);
+        g.line("END:VCALENDAR");
+        g.out.flush();
+        return spec.events();
+    }
+
+    /** Zustand beim Erzeugen; alle Zufallswerte stammen in fester Reihenfolge aus einem Generator. */
+    private static final class Generator {
+        final Spec spec;
+        final OutputStream out;
+        final boolean vcs;
+        final SplittableRandom random;
+        final long spreadMinutes;
+        final String stamp;
+        final StringBuilder text = new StringBuilder(256);
+        LocalDateTime previousStart;
+        int previousDuration;
+
+        Generator(Spec spec, OutputStream out, boolean vcs) {
+            this.spec = spec;
+            this.out = out;
+            this.vcs = vcs;
+            this.random = new SplittableRandom(spec.seed());
+            this.spreadMinutes = spec.spreadDays() * 24L * 60L;
+            this.stamp = spec.start().format(DATE_TIME) + "Z";
+        }
+
+        void event(long i) throws IOException {
+            LocalDateTime start;
+            if (previousStart != null && random.nextDouble() < spec.overlap()) {
+                start = previousStart.plusMinutes(5L * random.nextInt(Math.max(1, previousDuration / 5)));
+            } else {
+                // Gleichmäßig über den Zeitraum, auf 15 Minuten gerundet
+                long slot = spec.events() > 0 ? i * spreadMinutes / spec.events() : 0;
+                long jitter = random.nextLong(Math.max(1, spreadMinutes / Math.max(1, spec.events())));
+                start = spec.start().plusMinutes((slot + jitter) / 15 * 15);
+            }
+            int duration = DURATIONS[random.nextInt(DURATIONS.length)];
+            previousStart = start;
+            previousDuration = duration;
+            LocalDateTime end = start.plusMinutes(duration);
+
+            String title = SUBJECTS[random.nextInt(SUBJECTS.length)];
+            if (random.nextInt(3) == 0) title = title + ", " + PLACES[random.nextInt(PLACES.length)];
+            String category = spec.categories() > 0 ? category(random.nextDouble()) : null;
+            String description = description();
+            String rule = random.nextDouble() < spec.recurrence() ? rule() : null;
+            int alarm = random.nextDouble() < spec.alarms() ? ALARM_MINUTES[random.nextInt(ALARM_MINUTES.length)] : -1;
+
+            line("BEGIN:VEVENT");
+            line("UID:syn-" + spec.seed() + "-" + i + "@calendar-java");
+            if (!vcs) line("DTSTAMP:" + stamp);
+            line("DTSTART:" + start.format(DATE_TIME));
+            line("DTEND:" + end.format(DATE_TIME));
+            line("SUMMARY:" + escape(title));
+            if (description != null) line("DESCRIPTION:" + escape(description));
+            if (category != null) line("CATEGORIES:" + escape(category));
+            if (rule != null) line("RRULE:" + rule);
+            if (alarm >= 0) {
+                if (vcs) {
+                    line("DALARM:" + start.minusMinutes(alarm).format(DATE_TIME));
+                } else {
+                    line("BEGIN:VALARM");
+                    line("TRIGGER:-PT" + alarm + "M");
+                    line("ACTION:DISPLAY");
+                    line("DESCRIPTION:Erinnerung");
+                    line("END:VALARM");
+                }
+            }
+            line("END:VEVENT");
+        }
+
+        /** Schiefe Verteilung: niedrige Kategorienummern sind deutlich häufiger. */
+        String category(double u) {
+            int n = spec.categories();
+            int index = (int) Math.min(n - 1, Math.floor(n * u * u));
+            return index < BASE_CATEGORIES.length ? BASE_CATEGORIES[index] : String.format(Locale.ROOT, "Projekt-%03d", index);
+        }
+
+        String description() {
+            int size;
+            if (spec.hugeShare() > 0 && random.nextDouble() < spec.hugeShare()) {
+                size = spec.hugeBytes();
+            } else if (spec.descriptionBytes() > 0) {
+                // Exponentialverteilt, auf das Vierfache des Mittelwerts begrenzt
+                double u = random.nextDouble();
+                size = (int) Math.min(4.0 * spec.descriptionBytes(), -Math.log(1 - u) * spec.descriptionBytes());
+            } else {
+                size = 0;
+            }
+            if (size == 0) return null;
+            text.setLength(0);
+            for (int w = 0; text.length() < size; w++) {
+                if (w > 0) text.append(w % 12 == 0 ? '\n' : ' ');
+                text.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            return text.toString();
+        }
+
+        String rule() {
+            int count = 2 + random.nextInt(19);
+            return switch (random.nextInt(3)) {
+                case 0 -> vcs ? "D1 #" + count : "FREQ=DAILY;COUNT=" + count;
+                case 1 -> vcs ? "W1 #" + count : "FREQ=WEEKLY;COUNT=" + count;
+                default -> vcs ? "MD1 #" + count : "FREQ=MONTHLY;COUNT=" + count;
+            };
+        }
+
+        /** Schreibt eine Inhaltszeile, bei Bedarf nach 75 Oktetten gefaltet (ohne UTF-8-Zeichen zu trennen). */
+        void line(String content) throws IOException {
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            if (!spec.fold() || bytes.length <= FOLD_OCTETS) {
+                out.write(bytes);
+                out.write(CRLF);
+                return;
+            }
+            int pos = 0;
+            int limit = FOLD_OCTETS;
+            while (pos < bytes.length) {
+                int end = Math.min(bytes.length, pos + limit);
+                while (end < bytes.length && end > pos && (bytes[end] & 0xC0) == 0x80) end--;
+                if (pos > 0) out.write(' ');
+                out.write(bytes, pos, end - pos);
+                out.write(CRLF);
+                pos = end;
+                // Folgezeilen beginnen mit einem Leerzeichen
+                limit = FOLD_OCTETS - 1;
+            }
+        }
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 16);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case ',' -> sb.append("\\,");
+                case ';' -> sb.append("\\;");
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dreiwege-Abgleich zweier Terminstände über den Schlüssel ({@link EntryValue#key()}): die UID,
+ * bei Ausnahmen einer Serie zusätzlich die RECURRENCE-ID. Serie und Ausnahmen werden damit
+ * einzeln abgeglichen.
+ *
+ * Verglichen werden der gemeinsame Ausgangsstand ({@code base}, zuletzt gespeichert bzw. geladen),
+ * der lokale Stand der Ansicht und der extern geänderte Stand der Datei. Je Schlüssel gilt: wurde nur
+ * eine Seite geändert, wird deren Stand übernommen (auch Löschungen). Haben beide Seiten
+ * unterschiedlich geändert, bleibt der lokale Stand erhalten und der Schlüssel wird als Konflikt
+ * gemeldet; eine Änderung gewinnt dabei immer gegen eine Löschung.
+ *
+ * Verglichen wird über {@link EntryValue#contentHash()}; Termine ohne UID gelten als lokal neu.
+ */
+public final class ThreeWayMerge {
+
+    private ThreeWayMerge() {
+    }
+
+    /**
+     * Ergebnis des Abgleichs.
+     *
+     * @param merged    abgeglichener Gesamtstand
+     * @param upserts   Termine, die in der Ansicht neu sind oder ersetzt werden müssen
+     * @param removals  Schlüssel, die aus der Ansicht zu entfernen sind
+     * @param conflicts Schlüssel, die beide Seiten unterschiedlich geändert haben (lokal behalten)
+     * @param localOnly {@code true}, wenn der Stand lokale Änderungen enthält, die extern fehlen
+     */
+    public record Result(List<EntryValue> merged, List<EntryValue> upserts, List<String> removals,
+                         List<String> conflicts, boolean localOnly) {
+
+        /** Gibt an, ob die Ansicht unverändert bleibt. */
+        public boolean isEmpty() {
+            return upserts.isEmpty() && removals.isEmpty();
+        }
+    }
+
+    public static Result merge(List<EntryValue> base, List<EntryValue> local, List<EntryValue> remote) {
+        Map<String, EntryValue> b = byKey(base);
+        Map<String, EntryValue> l = byKey(local);
+        Map<String, EntryValue> r = byKey(remote);
+
+        Set<String> keys = new LinkedHashSet<>(l.keySet());
+        keys.addAll(r.keySet());
+        keys.addAll(b.keySet());
+
+        List<EntryValue> merged = new ArrayList<>(keys.size());
+        List<EntryValue> upserts = new ArrayList<>();
+        List<String> removals = new ArrayList<>();
+        List<String> conflicts = new ArrayList<>();
+        boolean localOnly = false;
+
+        for (String key : keys) {
+            EntryValue bv = b.get(key);
+            EntryValue lv = l.get(key);
+            EntryValue rv = r.get(key);
+
+            EntryValue result;
+            if (same(lv, rv)) {
+                result = lv;
+            } else if (same(lv, bv)) {
+                // Nur extern geändert
+                result = rv;
+                if (rv != null) upserts.add(rv);
+                else removals.add(key);
+            } else if (same(rv, bv)) {
+                // Nur lokal geändert
+                result = lv;
+                localOnly = true;
+            } else {
+                // Beide geändert: lokal behalten, bei lokaler Löschung die externe Änderung
+                if (lv == null) {
+                    result = rv;
+                    upserts.add(rv);
+                } else {
+                    result = lv;
+                    localOnly = true;
+                }
+                conflicts.add(key);
+            }
+            if (result != null) merged.add(result);
+        }
+
+        // Termine ohne UID sind lokal neu
+        for (EntryValue v : local) {
+            if (v.uid() == null) {
+                merged.add(v);
+                localOnly = true;
+            }
+        }
+        return new Result(Collections.unmodifiableList(merged), upserts, removals, conflicts, localOnly);
+    }
+
+    private static boolean same(EntryValue a, EntryValue b) {
+        if (a == null || b == null) return a == b;
+        return a.contentHash() == b.contentHash();
+    }
+
+    private static Map<String, EntryValue> byKey(List<EntryValue> values) {
+        Map<String, EntryValue> out = new LinkedHashMap<>(values.size() * 2);
+        for (EntryValue v : values) {
+            if (v.uid() != null) out.putIfAbsent(v.key(), v);
+        }
+        return out;
+    }
+}
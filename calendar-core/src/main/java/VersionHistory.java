@@ -0,0 +1,430 @@
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Versionsverlauf des Kalenders aus inhaltsadressierten Termin-Blöcken.
+ *
+ * Jeder gespeicherte Stand wird als Version mit einem kleinen Manifest abgelegt. Die VEVENT-Blöcke
+ * liegen komprimiert unter {@code objects/} und sind über den SHA-1 ihres Inhalts adressiert;
+ * unveränderte Termine werden von allen Versionen geteilt. Ein Manifest enthält nur die gegenüber
+ * der Vorversion hinzugekommenen und entfallenen Blöcke, in Abständen von {@value #FULL_EVERY}
+ * Versionen eine vollständige Liste. Eine Version kostet damit nur ihre geänderten Termine.
+ *
+ * DTSTAMP wird beim Ablegen entfernt, damit derselbe Termin unabhängig vom Zeitpunkt der
+ * Serialisierung denselben Block ergibt.
+ *
+ * Alte Versionen werden über {@link #prune(Retention, Instant)} ausgedünnt; Blöcke, auf die keine
+ * Version mehr verweist, werden dabei gelöscht.
+ */
+public final class VersionHistory {
+
+    /** Spätestens nach so vielen Delta-Manifesten folgt ein vollständiges. */
+    public static final int FULL_EVERY = 64;
+
+    private static final String MANIFEST_HEADER = "# caljava-version v1";
+    private static final String VERSION_SUFFIX = ".ver";
+    private static final byte[] ICS_HEADER = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//Calendar Java//Biweekly//DE\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ICS_FOOTER = "END:VCALENDAR\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DTSTAMP = "\r\nDTSTAMP:".getBytes(StandardCharsets.US_ASCII);
+
+    /** Gespeicherte Version; die ID ist der Zeitpunkt in Millisekunden. */
+    public record Version(long id, int count) {
+        public Instant time() {
+            return Instant.ofEpochMilli(id);
+        }
+    }
+
+    /**
+     * Aufbewahrung: alle Versionen der letzten {@code keepAll}, danach die letzte Version jeder
+     * Stunde bis {@code keepHourly}; ältere Versionen entfallen. Die neueste bleibt immer erhalten.
+     */
+    public record Retention(Duration keepAll, Duration keepHourly) {}
+
+    /** Ergebnis einer Bereinigung. */
+    public record PruneResult(int versionsRemoved, int blobsRemoved) {}
+
+    private record Manifest(long base, int count, List<String> added, List<String> removed) {
+        boolean isFull() { return base < 0; }
+    }
+
+    private record Memo(long contentHash, String blobId) {}
+
+    private final Path dir;
+    private final Path objects;
+    private final Path versions;
+    private final TreeMap<Long, Integer> index = new TreeMap<>();
+    private final Map<String, Memo> memo = new HashMap<>();
+    private Set<String> head;
+    private int chainLength;
+
+    private VersionHistory(Path dir) {
+        this.dir = dir;
+        this.objects = dir.resolve("objects");
+        this.versions = dir.resolve("versions");
+    }
+
+    /** Öffnet den Verlauf im Verzeichnis {@code dir}; Verzeichnisse werden beim ersten Speichern angelegt. */
+    public static VersionHistory open(Path dir) throws Exception {
+        VersionHistory h = new VersionHistory(dir);
+        if (Files.isDirectory(h.versions)) {
+            try (var files = Files.list(h.versions)) {
+                for (Path p : files.toList()) {
+                    String name = p.getFileName().toString();
+                    if (!name.endsWith(VERSION_SUFFIX)) continue;
+                    try {
+                        long id = Long.parseLong(name.substring(0, name.length() - VERSION_SUFFIX.length()));
+                        h.index.put(id, h.readManifest(id).count());
+                    } catch (NumberFormatException ignored) {
+                        // fremde Datei
+                    }
+                }
+            }
+        }
+        return h;
+    }
+
+    public Path getDirectory() {
+        return dir;
+    }
+
+    /** Alle Versionen, älteste zuerst. */
+    public synchronized List<Version> versions() {
+        List<Version> out = new ArrayList<>(index.size());
+        for (Map.Entry<Long, Integer> e : index.entrySet()) out.add(new Version(e.getKey(), e.getValue()));
+        return out;
+    }
+
+    // ----- Speichern -----
+
+    /**
+     * Legt einen Stand als neue Version ab. Nur Blöcke geänderter Termine werden geschrieben.
+     *
+     * @return die neue Version oder {@code null}, wenn sich gegenüber der letzten nichts geändert hat
+     */
+    public synchronized Version record(List<EntryValue> values) throws Exception {
+        Set<String> ids = new LinkedHashSet<>(values.size() * 2);
+        Map<String, Memo> nextMemo = new HashMap<>(values.size() * 2);
+        for (EntryValue v : values) {
+            String key = v.uid() != null ? v.key() : null;
+            Memo m = key != null ? memo.get(key) : null;
+            if (m == null || m.contentHash() != v.contentHash()) {
+                m = new Memo(v.contentHash(), storeBlob(v));
+            }
+            if (key != null) nextMemo.put(key, m);
+            ids.add(m.blobId());
+        }
+        memo.clear();
+        memo.putAll(nextMemo);
+
+        Set<String> previous = latestSet();
+        if (previous != null && previous.equals(ids)) return null;
+
+        long id = Math.max(System.currentTimeMillis(), index.isEmpty() ? 0 : index.lastKey() + 1);
+        Manifest manifest = manifestFor(ids, previous, index.isEmpty() ? -1 : index.lastKey(), chainLength);
+        writeManifest(id, manifest);
+        index.put(id, ids.size());
+        head = ids;
+        chainLength = manifest.isFull() ? 0 : chainLength + 1;
+        return new Version(id, ids.size());
+    }
+
+    /** Delta zur Vorversion oder vollständige Liste, wenn die Kette zu lang oder das Delta zu groß ist. */
+    private static Manifest manifestFor(Set<String> ids, Set<String> previous, long base, int chain) {
+        if (previous != null && chain + 1 < FULL_EVERY) {
+            List<String> added = new ArrayList<>();
+            for (String s : ids) if (!previous.contains(s)) added.add(s);
+            List<String> removed = new ArrayList<>();
+            for (String s : previous) if (!ids.contains(s)) removed.add(s);
+            if (added.size() + removed.size() < ids.size() / 2 + 1) {
+                return new Manifest(base, ids.size(), added, removed);
+            }
+        }
+        return new Manifest(-1, ids.size(), new ArrayList<>(ids), List.of());
+    }
+
+    /** Schreibt den Block eines Termins, falls noch nicht vorhanden, und liefert seine ID. */
+    private String storeBlob(EntryValue v) throws Exception {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(512);
+        IcsUtil.writeFragment(IcsUtil.fragmentFor(v), buf);
+        byte[] bytes = stripDtstamp(buf.toByteArray());
+
+        String id = sha1(bytes);
+        Path file = blobPath(id);
+        if (Files.exists(file)) return id;
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (OutputStream out = new DeflaterOutputStream(Files.newOutputStream(tmp), deflater)) {
+            out.write(bytes);
+        } finally {
+            deflater.end();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return id;
+    }
+
+    private static byte[] stripDtstamp(byte[] b) {
+        int at = indexOf(b, DTSTAMP, 0);
+        if (at < 0) return b;
+        int from = at + 2;
+        int to = indexOf(b, new byte[] {'\r', '\n'}, from);
+        if (to < 0) return b;
+        to += 2;
+        byte[] out = new byte[b.length - (to - from)];
+        System.arraycopy(b, 0, out, 0, from);
+        System.arraycopy(b, to, out, from, b.length - to);
+        return out;
+    }
+
+    private static int indexOf(byte[] b, byte[] pattern, int from) {
+        outer:
+        for (int i = from; i <= b.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (b[i + j] != pattern[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static String sha1(byte[] bytes) throws Exception {
+        byte[] d = MessageDigest.getInstance("SHA-1").digest(bytes);
+        StringBuilder sb = new StringBuilder(d.length * 2);
+        for (byte x : d) sb.append(Character.forDigit((x >> 4) & 0xF, 16)).append(Character.forDigit(x & 0xF, 16));
+        return sb.toString();
+    }
+
+    private Path blobPath(String id) {
+        return objects.resolve(id.substring(0, 2)).resolve(id.substring(2));
+    }
+
+    // ----- Wiederherstellen -----
+
+    /** Liest die Termine einer Version. */
+    public synchronized List<CalendarEntry> restore(long id) throws Exception {
+        try (InputStream in = open(id)) {
+            return IcsUtil.importIcs(in);
+        }
+    }
+
+    /** Schreibt eine Version als ICS-Datei (atomar) nach {@code target}. */
+    public synchronized void restoreTo(long id, Path target) throws Exception {
+        Path tmp = target.resolveSibling(target.getFileName() + ".restore");
+        try (InputStream in = open(id)) {
+            Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** ICS-Strom einer Version: Kopf, die entpackten Blöcke nacheinander, Abschluss. */
+    private InputStream open(long id) throws Exception {
+        if (!index.containsKey(id)) throw new IllegalArgumentException("Unbekannte Version: " + id);
+        return new SequenceInputStream(new BlobSequence(reconstruct(id).iterator()));
+    }
+
+    /** Liefert Kopf, Blöcke und Abschluss als Folge von Strömen; Blöcke werden erst beim Lesen geöffnet. */
+    private final class BlobSequence implements java.util.Enumeration<InputStream> {
+        private final Iterator<String> ids;
+        private int state;
+
+        BlobSequence(Iterator<String> ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        public boolean hasMoreElements() {
+            return state < 2;
+        }
+
+        @Override
+        public InputStream nextElement() {
+            if (state == 0) {
+                state = 1;
+                return new ByteArrayInputStream(ICS_HEADER);
+            }
+            if (ids.hasNext()) {
+                try {
+                    return new InflaterInputStream(Files.newInputStream(blobPath(ids.next())));
+                } catch (IOException e) {
+                    throw new java.io.UncheckedIOException(e);
+                }
+            }
+            state = 2;
+            return new ByteArrayInputStream(ICS_FOOTER);
+        }
+    }
+
+    /** Blockmenge einer Version: vom letzten vollständigen Manifest aus die Deltas anwenden. */
+    private Set<String> reconstruct(long id) throws IOException {
+        List<Manifest> chain = new ArrayList<>();
+        Manifest m = readManifest(id);
+        chain.add(m);
+        while (!m.isFull()) {
+            m = readManifest(m.base());
+            chain.add(m);
+        }
+        Collections.reverse(chain);
+        Set<String> ids = new LinkedHashSet<>();
+        for (Manifest step : chain) {
+            ids.removeAll(step.removed());
+            ids.addAll(step.added());
+        }
+        return ids;
+    }
+
+    private Set<String> latestSet() throws IOException {
+        if (head == null && !index.isEmpty()) {
+            head = reconstruct(index.lastKey());
+            chainLength = 0;
+            for (Manifest m = readManifest(index.lastKey()); !m.isFull(); m = readManifest(m.base())) chainLength++;
+        }
+        return head;
+    }
+
+    // ----- Aufbewahrung -----
+
+    /**
+     * Dünnt den Verlauf nach {@code retention} aus. Versionen, deren Vorgänger entfällt, werden als
+     * Delta zur nächsten erhaltenen Version neu geschrieben; danach werden nicht mehr referenzierte
+     * Blöcke gelöscht.
+     */
+    public synchronized PruneResult prune(Retention retention, Instant now) throws Exception {
+        if (index.isEmpty()) return new PruneResult(0, 0);
+        long allFrom = now.minus(retention.keepAll()).toEpochMilli();
+        long hourlyFrom = now.minus(retention.keepHourly()).toEpochMilli();
+
+        // Zu behaltende Versionen bestimmen
+        Set<Long> keep = new HashSet<>();
+        Map<Long, Long> lastPerHour = new HashMap<>();
+        for (long id : index.keySet()) {
+            if (id >= allFrom) keep.add(id);
+            else if (id >= hourlyFrom) lastPerHour.merge(id / 3_600_000L, id, Math::max);
+        }
+        keep.addAll(lastPerHour.values());
+        keep.add(index.lastKey());
+
+        int removedVersions = index.size() - keep.size();
+        Set<String> referenced = new HashSet<>();
+        Set<String> current = new LinkedHashSet<>();
+        Set<String> lastKept = null;
+        long lastKeptId = -1;
+        int chain = 0;
+        for (long id : new ArrayList<>(index.keySet())) {
+            Manifest m = readManifest(id);
+            if (m.isFull()) current.clear();
+            current.removeAll(m.removed());
+            current.addAll(m.added());
+            if (!keep.contains(id)) continue;
+            referenced.addAll(current);
+            if (!m.isFull() && m.base() != lastKeptId) {
+                m = manifestFor(current, lastKept, lastKeptId, chain);
+                writeManifest(id, m);
+            }
+            chain = m.isFull() ? 0 : chain + 1;
+            lastKept = new LinkedHashSet<>(current);
+            lastKeptId = id;
+        }
+        for (long id : new ArrayList<>(index.keySet())) {
+            if (!keep.contains(id)) {
+                Files.deleteIfExists(versions.resolve(id + VERSION_SUFFIX));
+                index.remove(id);
+            }
+        }
+        head = lastKept;
+        chainLength = chain;
+
+        // Nicht mehr referenzierte Blöcke löschen
+        int removedBlobs = 0;
+        if (Files.isDirectory(objects)) {
+            try (var files = Files.walk(objects)) {
+                for (Path p : files.filter(Files::isRegularFile).toList()) {
+                    String id = p.getParent().getFileName().toString() + p.getFileName();
+                    if (!referenced.contains(id)) {
+                        Files.deleteIfExists(p);
+                        removedBlobs++;
+                    }
+                }
+            }
+        }
+        memo.values().removeIf(m -> !referenced.contains(m.blobId()));
+        return new PruneResult(removedVersions, removedBlobs);
+    }
+
+    /** Belegter Plattenplatz des Verlaufs in Bytes. */
+    public synchronized long sizeOnDisk() throws IOException {
+        if (!Files.isDirectory(dir)) return 0;
+        long total = 0;
+        try (var files = Files.walk(dir)) {
+            for (Path p : files.filter(Files::isRegularFile).toList()) total += Files.size(p);
+        }
+        return total;
+    }
+
+    // ----- Manifest -----
+
+    private Manifest readManifest(long id) throws IOException {
+        long base = -1;
+        int count = 0;
+        List<String> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        for (String line : Files.readAllLines(versions.resolve(id + VERSION_SUFFIX), StandardCharsets.US_ASCII)) {
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            char c = line.charAt(0);
+            if (c == '+') added.add(line.substring(1));
+            else if (c == '-') removed.add(line.substring(1));
+            else if (line.startsWith("base ")) base = Long.parseLong(line.substring(5).trim());
+            else if (line.startsWith("count ")) count = Integer.parseInt(line.substring(6).trim());
+        }
+        return new Manifest(base, count, added, removed);
+    }
+
+    private void writeManifest(long id, Manifest m) throws IOException {
+        Files.createDirectories(versions);
+        Path file = versions.resolve(id + VERSION_SUFFIX);
+        Path tmp = versions.resolve(id + VERSION_SUFFIX + ".tmp");
+        try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.US_ASCII)) {
+            w.write(MANIFEST_HEADER);
+            w.newLine();
+            w.write("base " + m.base());
+            w.newLine();
+            w.write("count " + m.count());
+            w.newLine();
+            for (String s : m.removed()) {
+                w.write('-');
+                w.write(s);
+                w.newLine();
+            }
+            for (String s : m.added()) {
+                w.write('+');
+                w.write(s);
+                w.newLine();
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
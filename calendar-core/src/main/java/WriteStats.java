@@ -0,0 +1,64 @@
+/**
+ * Zähler für Schreibzugriffe auf ICS-Dateien.
+ *
+ * Erfasst vollständige Exporte ({@link IcsUtil}), Einzelkorrekturen über den Byte-Index
+ * ({@link IcsIndex#applyDiff}) und die dabei in die Kalenderdatei geschriebenen Bytes (bei
+ * GZIP die komprimierte Größe, ohne Index-Seitendateien). Dient Last-Tests und Messungen, um
+ * die Anzahl und Größe der Speichervorgänge pro Änderung zu beziffern.
+ */
+public final class WriteStats {
+
+    private static final WriteStats SHARED = new WriteStats();
+
+    /** Kennzahlen seit dem letzten {@link #clear()}; {@code lastWriteNanos} ist ein {@link System#nanoTime()}-Wert. */
+    public record Stats(long exports, long patches, long bytes, long lastWriteNanos) {
+        /** Differenz zu einem früheren Stand (für Messabschnitte). */
+        public Stats since(Stats before) {
+            return new Stats(exports - before.exports, patches - before.patches, bytes - before.bytes, lastWriteNanos);
+        }
+
+        @Override
+        public String toString() {
+            return "exports=" + exports + ", patches=" + patches + ", bytes=" + bytes;
+        }
+    }
+
+    private long exports;
+    private long patches;
+    private long bytes;
+    private long lastWriteNanos;
+
+    /** Gemeinsame Zähler aller Schreibpfade. */
+    public static WriteStats shared() {
+        return SHARED;
+    }
+
+    /** Vollständiger Export mit {@code written} Bytes. */
+    synchronized void recordExport(long written) {
+        exports++;
+        bytes += written;
+        lastWriteNanos = System.nanoTime();
+    }
+
+    /** Abgeschlossene Einzelkorrektur; die Bytes werden über {@link #recordBytes(long)} gezählt. */
+    synchronized void recordPatch() {
+        patches++;
+        lastWriteNanos = System.nanoTime();
+    }
+
+    /** In die Kalenderdatei geschriebene Bytes einer Einzelkorrektur. */
+    synchronized void recordBytes(long written) {
+        bytes += written;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(exports, patches, bytes, lastWriteNanos);
+    }
+
+    public synchronized void clear() {
+        exports = 0;
+        patches = 0;
+        bytes = 0;
+        lastWriteNanos = 0;
+    }
+}
@@ -0,0 +1,81 @@
+package org.example;
+
+/**
+ * Starter, der eine JavaFX-Anwendung per Reflection startet, um Modul-/Laufzeitprobleme
+ * beim Starten von "shaded" JARs auf einigen Plattformen zu vermeiden.
+ *
+ * Mit {@code --server} wird stattdessen ohne Oberfläche der Kalender per HTTP veröffentlicht
+ * (CalendarServer; weitere Optionen {@code --port=} und {@code --bind=}). Beginnen die Argumente
+ * mit {@code convert}, {@code merge}, {@code split}, {@code stats} oder {@code generate}, läuft
+ * der Stapelbetrieb (CalendarCli).
+ */
+public final class Main {
+    private static final java.util.Set<String> CLI_COMMANDS = java.util.Set.of("convert", "merge", "split", "stats", "generate");
+
+    /** Einstiegspunkt der Anwendung. */
+    public static void main(String[] args) {
+        if (args.length > 0 && CLI_COMMANDS.contains(args[0])) {
+            startCli(args);
+            return;
+        }
+        if (java.util.Arrays.asList(args).contains("--server")) {
+            startServer(args);
+            return;
+        }
+        markStartup();
+        try {
+            Class<?> appClass;
+            try {
+                appClass = Class.forName("CalendarFxmlApp");
+                System.out.println("[LAUNCH] Starte CalendarFxmlApp (FXML Controller)");
+            } catch (ClassNotFoundException nf) {
+                appClass = Class.forName("CalendarProjektApp");
+                System.out.println("[LAUNCH] CalendarFxmlApp nicht gefunden, starte CalendarProjektApp");
+            }
+            Class<?> fxApp = Class.forName("javafx.application.Application");
+            fxApp.getMethod("launch", Class.class, String[].class)
+                .invoke(null, appClass, (Object) args);
+        } catch (Throwable t) {
+            t.printStackTrace();
+            System.err.println("Konnte JavaFX-Anwendung nicht starten. Stellen Sie sicher, dass JavaFX im JAR enthalten ist.");
+        }
+    }
+
+    /** Startmarke {@code main} für StartupTrace ({@code -Dstartup.trace=true}). */
+    private static void markStartup() {
+        if (!Boolean.getBoolean("startup.trace")) return;
+        try {
+            Class.forName("StartupTrace").getMethod("mark", String.class).invoke(null, "main");
+        } catch (Throwable ignored) {
+        }
+    }
+
+    /** Startet den kopflosen Server; JavaFX wird dabei nicht geladen. */
+    private static void startServer(String[] args) {
+        try {
+            System.out.println("[LAUNCH] Starte CalendarServer (ohne Oberfläche)");
+            Class.forName("CalendarServer").getMethod("main", String[].class).invoke(null, (Object) args);
+        } catch (java.lang.reflect.InvocationTargetException e) {
+            e.getCause().printStackTrace();
+            System.exit(1);
+        } catch (Throwable t) {
+            t.printStackTrace();
+            System.err.println("Konnte den Server nicht starten.");
+            System.exit(1);
+        }
+    }
+
+    /** Startet den Stapelbetrieb; JavaFX wird dabei nicht geladen. */
+    private static void startCli(String[] args) {
+        try {
+            Class.forName("CalendarCli").getMethod("main", String[].class).invoke(null, (Object) args);
+        } catch (java.lang.reflect.InvocationTargetException e) {
+            e.getCause().printStackTrace();
+            System.exit(1);
+        } catch (Throwable t) {
+            t.printStackTrace();
+            System.err.println("Konnte den Stapelbetrieb nicht starten.");
+            System.exit(1);
+        }
+    }
+}
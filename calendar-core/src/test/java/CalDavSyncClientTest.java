@@ -0,0 +1,367 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für den CalDAV-Abgleich gegen einen minimalen lokalen Ersatzserver.
+ */
+public class CalDavSyncClientTest {
+
+    private static final String COLLECTION = "/cal/user/";
+    private static final String TOKEN_PREFIX = "http://example.org/sync/";
+
+    /** Ressource auf dem Ersatzserver. */
+    private record Res(String ics, String etag, int changedAt) {
+    }
+
+    private HttpServer server;
+    private final Map<String, Res> resources = new LinkedHashMap<>();
+    private final Map<String, Integer> tombstones = new LinkedHashMap<>();
+    private int version;
+    private volatile boolean syncSupported = true;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicLong lastResponseBytes = new AtomicLong();
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private URI collection() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + COLLECTION);
+    }
+
+    /** Initialer Abgleich lädt alles; ohne Änderungen genügt danach eine kleine Anfrage. */
+    @Test
+    void testIncrementalSyncWithSyncToken() throws Exception {
+        for (int i = 0; i < 50; i++) serverPut(event("srv-" + i, "Termin " + i, i));
+        CalDavSyncClient client = new CalDavSyncClient(collection(), "anna", "geheim", null);
+
+        CalDavSyncClient.Changes first = client.sync();
+        assertEquals(50, first.upserts().size());
+        assertTrue(first.removals().isEmpty());
+        assertEquals(2, first.requests(), "REPORT sync-collection und ein calendar-multiget");
+
+        requests.set(0);
+        CalDavSyncClient.Changes idle = client.sync();
+        assertTrue(idle.isEmpty());
+        assertEquals(1, idle.requests());
+        assertEquals(1, requests.get());
+        assertTrue(lastResponseBytes.get() < 400, "Antwort ohne Änderungen sollte klein sein: " + lastResponseBytes.get());
+
+        serverPut(event("srv-3", "Geändert", 3));
+        serverDelete("srv-7");
+        CalDavSyncClient.Changes delta = client.sync();
+        assertEquals(1, delta.upserts().size());
+        assertEquals("Geändert", delta.upserts().get(0).title());
+        assertEquals(List.of("srv-7"), delta.removals());
+        assertEquals(2, delta.requests());
+        assertEquals(49, client.values().size());
+    }
+
+    /** Lokale Änderungen werden einzeln je UID hochgeladen bzw. gelöscht. */
+    @Test
+    void testPushByUidAndConflicts() throws Exception {
+        for (int i = 0; i < 5; i++) serverPut(event("srv-" + i, "Termin " + i, i));
+        CalDavSyncClient client = new CalDavSyncClient(collection(), null, null, null);
+        client.sync();
+
+        List<EntryValue> local = new ArrayList<>(client.values());
+        local.set(0, local.get(0).withTitle("Lokal geändert"));
+        local.remove(4);
+        local.add(event("lokal-neu", "Neu", 10));
+
+        CalDavSyncClient.PushResult pushed = client.push(local);
+        assertEquals(2, pushed.puts());
+        assertEquals(1, pushed.deletes());
+        assertTrue(pushed.conflicts().isEmpty());
+        assertEquals(3, pushed.requests());
+        assertTrue(resources.get(COLLECTION + "lokal-neu.ics").ics().contains("SUMMARY:Neu"));
+        assertTrue(resources.get(COLLECTION + "srv-0.ics").ics().contains("Lokal geändert"));
+        assertFalse(resources.containsKey(COLLECTION + "srv-4.ics"));
+
+        // Eigene Änderungen werden nicht erneut geladen, unveränderte nicht erneut hochgeladen
+        CalDavSyncClient.Changes own = client.sync();
+        assertTrue(own.isEmpty());
+        assertEquals(1, own.requests());
+        assertEquals(0, client.push(local).requests());
+
+        // Gleichzeitige Änderung auf dem Server: Konflikt, danach Serverstand per sync
+        serverPut(event("srv-1", "Vom Server", 1));
+        local.set(1, local.get(1).withTitle("Von hier"));
+        CalDavSyncClient.PushResult conflict = client.push(local);
+        assertEquals(List.of("srv-1"), conflict.conflicts());
+        CalDavSyncClient.Changes after = client.sync();
+        assertEquals("Vom Server", after.upserts().get(0).title());
+        assertEquals(1, client.push(local).puts(), "mit neuem ETag lässt sich die lokale Fassung speichern");
+        assertTrue(resources.get(COLLECTION + "srv-1.ics").ics().contains("Von hier"));
+    }
+
+    /** Ein Teilstand löscht nur die ausdrücklich entfernten UIDs, nicht die übrigen fehlenden. */
+    @Test
+    void testPartialPushDeletesOnlyRemovedUids() throws Exception {
+        for (int i = 0; i < 6; i++) serverPut(event("srv-" + i, "Termin " + i, i));
+        CalDavSyncClient client = new CalDavSyncClient(collection(), null, null, null);
+        client.sync();
+
+        // Nur srv-0..srv-2 im Stand (Rest archiviert bzw. nicht geladen), srv-2 wurde gelöscht
+        List<EntryValue> local = new ArrayList<>(client.values().subList(0, 2));
+        local.set(1, local.get(1).withTitle("Lokal geändert"));
+        CalDavSyncClient.PushResult pushed = client.push(local, List.of("srv-2", "unbekannt"));
+        assertEquals(1, pushed.puts());
+        assertEquals(1, pushed.deletes());
+        assertTrue(pushed.conflicts().isEmpty());
+        assertFalse(resources.containsKey(COLLECTION + "srv-2.ics"));
+        for (int i = 3; i < 6; i++) assertTrue(resources.containsKey(COLLECTION + "srv-" + i + ".ics"));
+        assertEquals(5, client.values().size());
+    }
+
+    /** Serie und Ausnahme liegen in einer Ressource und werden gemeinsam geladen und hochgeladen. */
+    @Test
+    void testResourceWithOverrideIsSyncedAsWhole() throws Exception {
+        EntryValue master = event("serie", "Jour fixe", 0);
+        EntryValue override = event("serie", "Verschoben", 7).withRecurrenceId(":20250308T090000");
+        serverPut(master, override);
+        CalDavSyncClient client = new CalDavSyncClient(collection(), null, null, null);
+
+        CalDavSyncClient.Changes first = client.sync();
+        assertEquals(List.of("Jour fixe", "Verschoben"), first.upserts().stream().map(EntryValue::title).toList());
+        assertEquals(2, client.values().size());
+
+        // Nur die Serie ändern: die Ausnahme wird mit hochgeladen und bleibt auf dem Server
+        List<EntryValue> local = new ArrayList<>(client.values());
+        local.set(0, local.get(0).withTitle("Jour fixe (neu)"));
+        CalDavSyncClient.PushResult pushed = client.push(local);
+        assertEquals(1, pushed.puts());
+        String ics = resources.get(COLLECTION + "serie.ics").ics();
+        assertTrue(ics.contains("SUMMARY:Jour fixe (neu)"), ics);
+        assertTrue(ics.contains("SUMMARY:Verschoben"), ics);
+        assertTrue(ics.contains("RECURRENCE-ID:20250308T090000"), ics);
+        assertTrue(client.sync().isEmpty());
+
+        // Ausnahme auf dem Server entfernt: nur sie wird als entfernt gemeldet
+        serverPut(master);
+        CalDavSyncClient.Changes delta = client.sync();
+        assertEquals(List.of(override.key()), delta.removals());
+        assertEquals(List.of("Jour fixe"), delta.upserts().stream().map(EntryValue::title).toList());
+        assertEquals(1, client.values().size());
+    }
+
+    /** Ohne sync-collection wird über den ctag abgeglichen; der Zustand übersteht einen Neustart. */
+    @Test
+    void testCtagFallbackAndStateFile() throws Exception {
+        syncSupported = false;
+        for (int i = 0; i < 20; i++) serverPut(event("srv-" + i, "Termin " + i, i));
+        Path state = Files.createTempDirectory("cal-dav-").resolve("calendar.caldav");
+
+        CalDavSyncClient client = new CalDavSyncClient(collection(), null, null, state);
+        assertEquals(20, client.sync().upserts().size());
+        CalDavSyncClient.Changes idle = client.sync();
+        assertTrue(idle.isEmpty());
+        assertEquals(1, idle.requests(), "nur PROPFIND auf den ctag");
+
+        serverDelete("srv-2");
+        CalDavSyncClient.Changes delta = client.sync();
+        assertEquals(List.of("srv-2"), delta.removals());
+        assertTrue(delta.upserts().isEmpty());
+        assertEquals(2, delta.requests(), "ctag und ETag-Liste, kein multiget");
+
+        List<EntryValue> local = client.values();
+        CalDavSyncClient restarted = new CalDavSyncClient(collection(), null, null, state);
+        restarted.adopt(local);
+        assertEquals(1, restarted.sync().requests());
+        assertEquals(0, restarted.push(local).requests());
+        assertEquals(19, restarted.values().size());
+    }
+
+    /** Ein abgelaufenes Sync-Token führt zu einem vollständigen Abgleich. */
+    @Test
+    void testInvalidTokenFallsBackToFullSync() throws Exception {
+        for (int i = 0; i < 3; i++) serverPut(event("srv-" + i, "Termin " + i, i));
+        CalDavSyncClient client = new CalDavSyncClient(collection(), null, null, null);
+        client.sync();
+        synchronized (this) {
+            // Server vergisst seine Historie
+            tombstones.clear();
+            version += 1000;
+            resources.remove(COLLECTION + "srv-0.ics");
+        }
+        serverPut(event("srv-9", "Neu", 9));
+        tokenFloor = version;
+        CalDavSyncClient.Changes changes = client.sync();
+        assertEquals(List.of("srv-0"), changes.removals());
+        assertEquals(List.of("srv-9"), changes.upserts().stream().map(EntryValue::uid).toList());
+        assertEquals(3, client.values().size());
+    }
+
+    // --- Ersatzserver ---
+
+    private volatile int tokenFloor;
+
+    private static EntryValue event(String uid, String title, int day) {
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 9, 0).plusDays(day);
+        return EntryValue.of(title, "Beschreibung " + uid, start, start.plusHours(1)).withUid(uid);
+    }
+
+    /** Legt eine Ressource mit allen übergebenen Terminen (gleiche UID) an bzw. ersetzt sie. */
+    private synchronized void serverPut(EntryValue... values) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IcsUtil.exportIcsValues(out, List.of(values));
+        store(COLLECTION + values[0].uid() + ".ics", out.toString(StandardCharsets.UTF_8));
+    }
+
+    private synchronized void serverDelete(String uid) {
+        String href = COLLECTION + uid + ".ics";
+        resources.remove(href);
+        tombstones.put(href, ++version);
+    }
+
+    private String store(String href, String ics) {
+        version++;
+        String etag = "\"v" + version + "\"";
+        resources.put(href, new Res(ics, etag, version));
+        tombstones.remove(href);
+        return etag;
+    }
+
+    private synchronized void handle(HttpExchange ex) throws IOException {
+        requests.incrementAndGet();
+        String body = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        String path = ex.getRequestURI().getRawPath();
+        Res res = resources.get(path);
+        switch (ex.getRequestMethod()) {
+            case "REPORT" -> {
+                if (body.contains("sync-collection")) syncCollection(ex, body);
+                else multiget(ex, body);
+            }
+            case "PROPFIND" -> {
+                StringBuilder sb = new StringBuilder("<d:multistatus xmlns:d=\"DAV:\" xmlns:cs=\"http://calendarserver.org/ns/\">");
+                sb.append("<d:response><d:href>").append(COLLECTION).append("</d:href><d:propstat><d:prop>")
+                        .append("<cs:getctag>ctag-").append(version).append("</cs:getctag>")
+                        .append("</d:prop><d:status>HTTP/1.1 200 OK</d:status></d:propstat></d:response>");
+                if ("1".equals(ex.getRequestHeaders().getFirst("Depth"))) {
+                    for (Map.Entry<String, Res> e : resources.entrySet()) etagResponse(sb, e.getKey(), e.getValue().etag());
+                }
+                respond(ex, 207, sb.append("</d:multistatus>").toString());
+            }
+            case "PUT" -> {
+                String ifMatch = ex.getRequestHeaders().getFirst("If-Match");
+                String ifNoneMatch = ex.getRequestHeaders().getFirst("If-None-Match");
+                if ((ifMatch != null && (res == null || !ifMatch.equals(res.etag())))
+                        || ("*".equals(ifNoneMatch) && res != null)) {
+                    respond(ex, 412, "");
+                    return;
+                }
+                ex.getResponseHeaders().set("ETag", store(path, body));
+                respond(ex, res == null ? 201 : 204, "");
+            }
+            case "DELETE" -> {
+                String ifMatch = ex.getRequestHeaders().getFirst("If-Match");
+                if (res == null) {
+                    respond(ex, 404, "");
+                } else if (ifMatch != null && !ifMatch.equals(res.etag())) {
+                    respond(ex, 412, "");
+                } else {
+                    resources.remove(path);
+                    tombstones.put(path, ++version);
+                    respond(ex, 204, "");
+                }
+            }
+            default -> respond(ex, 405, "");
+        }
+    }
+
+    private void syncCollection(HttpExchange ex, String body) throws IOException {
+        if (!syncSupported) {
+            respond(ex, 501, "");
+            return;
+        }
+        Matcher m = Pattern.compile("<d:sync-token>(.*?)</d:sync-token>").matcher(body);
+        String token = m.find() ? m.group(1) : "";
+        int since = -1;
+        if (!token.isEmpty()) {
+            since = Integer.parseInt(token.substring(TOKEN_PREFIX.length()));
+            if (since < tokenFloor) {
+                respond(ex, 403, "<d:error xmlns:d=\"DAV:\"><d:valid-sync-token/></d:error>");
+                return;
+            }
+        }
+        StringBuilder sb = new StringBuilder("<d:multistatus xmlns:d=\"DAV:\">");
+        for (Map.Entry<String, Res> e : resources.entrySet()) {
+            if (e.getValue().changedAt() > since) etagResponse(sb, e.getKey(), e.getValue().etag());
+        }
+        if (since >= 0) {
+            for (Map.Entry<String, Integer> e : tombstones.entrySet()) {
+                if (e.getValue() > since) {
+                    sb.append("<d:response><d:href>").append(e.getKey())
+                            .append("</d:href><d:status>HTTP/1.1 404 Not Found</d:status></d:response>");
+                }
+            }
+        }
+        sb.append("<d:sync-token>").append(TOKEN_PREFIX).append(version).append("</d:sync-token></d:multistatus>");
+        respond(ex, 207, sb.toString());
+    }
+
+    private void multiget(HttpExchange ex, String body) throws IOException {
+        StringBuilder sb = new StringBuilder("<d:multistatus xmlns:d=\"DAV:\" xmlns:c=\"urn:ietf:params:xml:ns:caldav\">");
+        Matcher m = Pattern.compile("<d:href>(.*?)</d:href>").matcher(body);
+        while (m.find()) {
+            Res res = resources.get(m.group(1));
+            if (res == null) continue;
+            sb.append("<d:response><d:href>").append(m.group(1)).append("</d:href><d:propstat><d:prop>")
+                    .append("<d:getetag>").append(res.etag()).append("</d:getetag>")
+                    .append("<c:calendar-data>").append(res.ics().replace("&", "&amp;").replace("<", "&lt;"))
+                    .append("</c:calendar-data></d:prop><d:status>HTTP/1.1 200 OK</d:status></d:propstat></d:response>");
+        }
+        respond(ex, 207, sb.append("</d:multistatus>").toString());
+    }
+
+    private static void etagResponse(StringBuilder sb, String href, String etag) {
+        sb.append("<d:response><d:href>").append(href).append("</d:href><d:propstat><d:prop><d:getetag>")
+                .append(etag).append("</d:getetag></d:prop><d:status>HTTP/1.1 200 OK</d:status></d:propstat></d:response>");
+    }
+
+    private void respond(HttpExchange ex, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        lastResponseBytes.set(bytes.length);
+        if (bytes.length == 0) {
+            ex.sendResponseHeaders(status, -1);
+            ex.close();
+            return;
+        }
+        ex.getResponseHeaders().set("Content-Type", "application/xml; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+}
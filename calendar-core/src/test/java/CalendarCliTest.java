@@ -0,0 +1,195 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für den Stapelbetrieb über die Kommandozeile.
+ */
+public class CalendarCliTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    private int run(String stdin, String... args) {
+        out.reset();
+        err.reset();
+        return CalendarCli.run(args, new ByteArrayInputStream(stdin.getBytes(StandardCharsets.UTF_8)),
+                new PrintStream(out, true, StandardCharsets.UTF_8), new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+
+    private static List<EntryValue> events(String prefix, int count, int month) {
+        List<EntryValue> values = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = LocalDateTime.of(2025, month, 1 + i % 28, 8, 0);
+            values.add(EntryValue.of(prefix + " " + i, "Beschreibung " + i, start, start.plusHours(1))
+                    .withUid(prefix + "-" + i).withCategory(i % 2 == 0 ? "Arbeit" : "Privat"));
+        }
+        return values;
+    }
+
+    /** Mehrere Dateien werden parallel konvertiert, eine Datei auch über stdin/stdout. */
+    @Test
+    void testConvertFilesAndStdio() throws Exception {
+        Path dir = Files.createTempDirectory("cal-cli-");
+        Path in = Files.createDirectories(dir.resolve("in"));
+        IcsUtil.exportIcsValues(in.resolve("a.ics"), events("A", 600, 1));
+        IcsUtil.exportIcsValues(in.resolve("b.ics.gz"), events("B", 300, 2));
+        Files.writeString(in.resolve("notiz.txt"), "kein Kalender");
+
+        assertEquals(0, run("", "convert", in.toString(), "-o", dir.resolve("out").toString(), "--format=vcs", "--threads=2"));
+        assertEquals(600, IcsUtil.importVcs(dir.resolve("out/a.vcs")).size());
+        assertEquals(300, IcsUtil.importVcs(dir.resolve("out/b.vcs")).size());
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("Termine/s"));
+
+        String ics = Files.readString(in.resolve("a.ics"));
+        assertEquals(0, run(ics, "convert", "-", "-o", "-", "--format=vcs"));
+        String vcs = out.toString(StandardCharsets.UTF_8);
+        assertTrue(vcs.startsWith("BEGIN:VCALENDAR\r\nVERSION:1.0"));
+        assertEquals(600, vcs.split("BEGIN:VEVENT", -1).length - 1);
+    }
+
+    /** Zusammenführen überspringt doppelte UIDs; Aufteilen legt je Monat eine Datei an. */
+    @Test
+    void testMergeAndSplit() throws Exception {
+        Path dir = Files.createTempDirectory("cal-cli-");
+        IcsUtil.exportIcsValues(dir.resolve("jan.ics"), events("A", 400, 1));
+        IcsUtil.exportIcsValues(dir.resolve("feb.ics"), events("B", 300, 2));
+        IcsUtil.exportIcsValues(dir.resolve("kopie.ics"), events("A", 50, 1));
+        Path merged = dir.resolve("alle.ics");
+
+        assertEquals(0, run("", "merge", dir.resolve("jan.ics").toString(), dir.resolve("feb.ics").toString(),
+                dir.resolve("kopie.ics").toString(), "-o", merged.toString()));
+        assertEquals(700, IcsUtil.importIcs(merged).size());
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("Doppelte UIDs übersprungen: 50"));
+
+        Path parts = dir.resolve("teile");
+        assertEquals(0, run("", "split", merged.toString(), "-o", parts.toString()));
+        assertEquals(400, IcsUtil.importIcs(parts.resolve("2025-01.ics")).size());
+        assertEquals(300, IcsUtil.importIcs(parts.resolve("2025-02.ics")).size());
+
+        assertEquals(0, run("", "split", merged.toString(), "-o", dir.resolve("kat").toString(), "--by=category"));
+        assertEquals(350, IcsUtil.importIcs(dir.resolve("kat/Arbeit.ics")).size());
+    }
+
+    /** Kennzahlen je Datei und gesamt; Fehler und falsche Verwendung liefern eigene Exit-Codes. */
+    @Test
+    void testStatsAndErrors() throws Exception {
+        Path dir = Files.createTempDirectory("cal-cli-");
+        IcsUtil.exportIcsValues(dir.resolve("a.ics"), events("A", 10, 3));
+        IcsUtil.exportVcsValues(dir.resolve("b.vcs"), events("B", 5, 4));
+
+        assertEquals(0, run("", "stats", dir.toString()));
+        String text = out.toString(StandardCharsets.UTF_8);
+        assertTrue(text.contains("a.ics: 10 Termine, 2025-03-01 bis 2025-03-10"), text);
+        assertTrue(text.contains("Gesamt: 15 Termine, 2025-03-01 bis 2025-04-05"), text);
+        assertTrue(text.contains("Arbeit=5"), text);
+
+        assertEquals(2, run("", "frobnicate", dir.toString()));
+        assertEquals(2, run("", "split", dir.toString()));
+        assertEquals(2, run("", "stats", dir.resolve("fehlt.ics").toString()));
+    }
+
+    /** Gleichnamige Dateien in Unterverzeichnissen behalten ihren Pfad; gleiche Ziele werden abgewiesen. */
+    @Test
+    void testConvertKeepsRelativePathsAndRejectsCollisions() throws Exception {
+        Path dir = Files.createTempDirectory("cal-cli-");
+        Path in = dir.resolve("in");
+        Files.createDirectories(in.resolve("a"));
+        Files.createDirectories(in.resolve("b"));
+        IcsUtil.exportIcsValues(in.resolve("a/cal.ics"), events("A", 20, 1));
+        IcsUtil.exportIcsValues(in.resolve("b/cal.ics"), events("B", 30, 2));
+
+        assertEquals(0, run("", "convert", in.toString(), "-o", dir.resolve("out").toString(), "--threads=2"));
+        assertEquals(20, IcsUtil.importIcs(dir.resolve("out/a/cal.ics")).size());
+        assertEquals(30, IcsUtil.importIcs(dir.resolve("out/b/cal.ics")).size());
+
+        IcsUtil.exportVcsValues(in.resolve("a/cal.vcs"), events("C", 5, 3));
+        assertEquals(2, run("", "convert", in.toString(), "-o", dir.resolve("out2").toString()));
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("Gleiche Ausgabedatei"));
+        assertFalse(Files.exists(dir.resolve("out2")));
+
+        assertEquals(2, run("", "convert", in.resolve("a/cal.ics").toString(), in.resolve("b/cal.ics").toString(),
+                "-o", dir.resolve("out3").toString()));
+        assertEquals(2, run("", "convert", in.toString(), "-o", in.toString()));
+        assertEquals(20, IcsUtil.importIcs(in.resolve("a/cal.ics")).size());
+    }
+
+    /** Bei doppelter UID gewinnt unabhängig von der Lesegeschwindigkeit die erste Quelle. */
+    @Test
+    void testMergeKeepsFirstSourceForDuplicateUids() throws Exception {
+        Path dir = Files.createTempDirectory("cal-cli-");
+        // Die erste Quelle ist groß und wird zuletzt fertig gelesen
+        List<EntryValue> big = events("A", 3000, 1);
+        List<EntryValue> small = new ArrayList<>();
+        for (EntryValue v : events("A", 10, 1)) small.add(v.withCategory("Kopie"));
+        IcsUtil.exportIcsValues(dir.resolve("1-gross.ics"), big);
+        IcsUtil.exportIcsValues(dir.resolve("2-klein.ics"), small);
+
+        for (int run = 0; run < 3; run++) {
+            Path merged = dir.resolve("alle-" + run + ".ics");
+            assertEquals(0, run("", "merge", dir.resolve("1-gross.ics").toString(), dir.resolve("2-klein.ics").toString(),
+                    "-o", merged.toString(), "--threads=2"));
+            List<CalendarEntry> back = IcsUtil.importIcs(merged);
+            assertEquals(3000, back.size());
+            assertTrue(back.stream().noneMatch(ce -> "Kopie".equals(ce.getCategory())));
+            assertEquals("A-0", back.get(0).getUid());
+        }
+    }
+
+    /** Zusammenführen behält Serienausnahmen, die dieselbe UID wie ihre Serie tragen. */
+    @Test
+    void testMergeKeepsOverrides() throws Exception {
+        Path dir = Files.createTempDirectory("cal-cli-");
+        EntryValue master = events("S", 1, 5).get(0);
+        EntryValue override = master.withRecurrenceId(":20250508T080000").withTitle("Ausnahme");
+        IcsUtil.exportIcsValues(dir.resolve("a.ics"), List.of(master, override));
+        IcsUtil.exportIcsValues(dir.resolve("b.ics"), List.of(override.withTitle("Doppelt")));
+
+        Path merged = dir.resolve("alle.ics");
+        assertEquals(0, run("", "merge", dir.resolve("a.ics").toString(), dir.resolve("b.ics").toString(),
+                "-o", merged.toString()));
+        List<CalendarEntry> back = IcsUtil.importIcs(merged);
+        assertEquals(List.of("S 0", "Ausnahme"), back.stream().map(CalendarEntry::getTitle).toList());
+        assertEquals(":20250508T080000", back.get(1).getRecurrenceId());
+    }
+
+    /**
+     * Mehr Kategorien als gleichzeitig offene Dateien: unterbrochene Dateien werden fortgesetzt
+     * und bleiben gültig; Schreibweisen einer Kategorie teilen sich eine Datei.
+     */
+    @Test
+    void testSplitBoundsOpenFilesAndFoldsCase() throws Exception {
+        Path dir = Files.createTempDirectory("cal-cli-");
+        int categories = CalendarCli.MAX_OPEN_SPLIT_FILES + 16;
+        List<EntryValue> values = new ArrayList<>();
+        for (int i = 0; i < categories * 3; i++) {
+            int c = i % categories;
+            String name = i / categories == 1 ? "KAT-" + c : "Kat-" + c;
+            LocalDateTime start = LocalDateTime.of(2025, 1, 1, 8, 0).plusHours(i);
+            values.add(EntryValue.of("T " + i, "", start, start.plusHours(1)).withUid("t-" + i).withCategory(name));
+        }
+        IcsUtil.exportIcsValues(dir.resolve("alle.ics"), values);
+
+        Path parts = dir.resolve("teile");
+        assertEquals(0, run("", "split", dir.resolve("alle.ics").toString(), "-o", parts.toString(), "--by=category"));
+        try (var files = Files.list(parts)) {
+            assertEquals(categories, files.count());
+        }
+        for (int c = 0; c < categories; c++) {
+            String text = Files.readString(parts.resolve("Kat-" + c + ".ics"));
+            assertEquals(1, text.split("BEGIN:VCALENDAR", -1).length - 1, "genau ein Kalenderkopf");
+            assertTrue(text.endsWith("END:VCALENDAR\r\n"));
+            assertEquals(3, IcsUtil.importIcs(parts.resolve("Kat-" + c + ".ics")).size());
+        }
+    }
+}
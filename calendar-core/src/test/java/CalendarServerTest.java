@@ -0,0 +1,133 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für den kopflosen HTTP-Server.
+ */
+public class CalendarServerTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2025, 1, 6, 9, 0);
+    private CalendarServer server;
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = CalendarServer.start(new InetSocketAddress("127.0.0.1", 0));
+        List<EntryValue> values = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            EntryValue v = EntryValue.of("Termin " + i, "Notiz " + i, start.plusDays(i), start.plusDays(i).plusHours(2)).withUid("srv-" + i);
+            values.add(i % 3 == 0 ? v.withCategory("Arbeit") : v);
+        }
+        // Mehrtägiger Termin, der vor dem abgefragten Bereich beginnt
+        values.add(EntryValue.of("Urlaub", "", start.plusDays(8), start.plusDays(25)).withUid("srv-urlaub"));
+        server.publish(values);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    private HttpResponse<byte[]> get(String query, String... headers) throws Exception {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + CalendarServer.PATH + query));
+        for (int i = 0; i < headers.length; i += 2) b.header(headers[i], headers[i + 1]);
+        return http.send(b.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static List<CalendarEntry> parse(byte[] body) throws Exception {
+        return IcsUtil.importIcs(new ByteArrayInputStream(body));
+    }
+
+    @Test
+    void testFullCalendarWithEtagAndGzip() throws Exception {
+        HttpResponse<byte[]> r = get("");
+        assertEquals(200, r.statusCode());
+        assertEquals(61, parse(r.body()).size());
+        String etag = r.headers().firstValue("ETag").orElseThrow();
+        assertTrue(etag.startsWith("\"") && !etag.startsWith("W/"), "Starkes ETag erwartet: " + etag);
+
+        assertEquals(304, get("", "If-None-Match", etag).statusCode());
+
+        HttpResponse<byte[]> gz = get("", "Accept-Encoding", "gzip");
+        assertEquals("gzip", gz.headers().firstValue("Content-Encoding").orElse(""));
+        assertNotEquals(etag, gz.headers().firstValue("ETag").orElseThrow());
+        assertTrue(gz.body().length < r.body().length);
+        assertArrayEquals(r.body(), new GZIPInputStream(new ByteArrayInputStream(gz.body())).readAllBytes());
+
+        // Neuer Stand: neues ETag, alte Antwort ungültig
+        server.publish(List.of(EntryValue.of("Einziger", "", start, start.plusHours(1)).withUid("srv-x")));
+        HttpResponse<byte[]> changed = get("", "If-None-Match", etag);
+        assertEquals(200, changed.statusCode());
+        assertEquals(1, parse(changed.body()).size());
+    }
+
+    @Test
+    void testRangeAndCategoryFilters() throws Exception {
+        List<CalendarEntry> range = parse(get("?from=2025-01-20&to=2025-01-23").body());
+        List<String> uids = range.stream().map(CalendarEntry::getUid).sorted().toList();
+        assertEquals(List.of("srv-14", "srv-15", "srv-16", "srv-urlaub"), uids);
+
+        List<CalendarEntry> work = parse(get("?from=2025-01-06&to=2025-01-16&category=arbeit").body());
+        assertEquals(List.of("srv-0", "srv-3", "srv-6", "srv-9"), work.stream().map(CalendarEntry::getUid).sorted().toList());
+
+        HttpResponse<byte[]> filtered = get("?category=Arbeit");
+        assertEquals(20, parse(filtered.body()).size());
+        String etag = filtered.headers().firstValue("ETag").orElseThrow();
+        assertEquals(304, get("?category=Arbeit", "If-None-Match", etag).statusCode());
+
+        assertEquals(400, get("?from=gestern").statusCode());
+    }
+
+    @Test
+    void testManyConcurrentRequests() throws Exception {
+        int requests = 2000;
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + CalendarServer.PATH))
+                .header("Accept-Encoding", "gzip").build();
+        long t0 = System.nanoTime();
+        List<CompletableFuture<HttpResponse<Void>>> all = new ArrayList<>();
+        for (int i = 0; i < requests; i++) all.add(http.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        for (CompletableFuture<HttpResponse<Void>> f : all) assertEquals(200, f.get().statusCode());
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        assertTrue(requests / seconds > 200, "Anfragen/s: " + (requests / seconds));
+    }
+
+    /** Der Abfrage-Cache verdrängt nach Bytes und nimmt zu große Antworten nicht auf. */
+    @Test
+    void testQueryCacheIsBoundedByBytes() {
+        CalendarServer.QueryCache cache = new CalendarServer.QueryCache(300, 150);
+        cache.put("a", response(50, 50));
+        cache.put("b", response(50, 50));
+        cache.put("c", response(50, 50));
+        assertEquals(3, cache.size());
+        assertNotNull(cache.get("a"));
+
+        // "b" ist am längsten ungenutzt und wird verdrängt
+        cache.put("d", response(50, 50));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertEquals(300, cache.bytes());
+
+        cache.put("groß", response(100, 50));
+        assertNull(cache.get("groß"));
+        assertEquals(300, cache.bytes());
+    }
+
+    private static CalendarServer.Response response(int plain, int gzip) {
+        return new CalendarServer.Response(new byte[plain], new byte[gzip], "\"p\"", "\"g\"", 0);
+    }
+}
@@ -0,0 +1,245 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Gemeinsame Tests der Ablage-Schnittstelle für ICS-Datei und JDBC-Datenbank.
+ */
+public class CalendarStoreTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2025, 5, 5, 9, 0);
+
+    private List<EntryValue> sample(int n) {
+        List<EntryValue> values = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            values.add(EntryValue.of("Termin " + i, "Notiz " + i, start.plusDays(i), start.plusDays(i).plusHours(2))
+                    .withUid("store-" + i));
+        }
+        return values;
+    }
+
+    private static List<String> uids(List<CalendarEntry> entries) {
+        return entries.stream().map(CalendarEntry::getUid).sorted().toList();
+    }
+
+    /** Prüft den Vertrag von {@link CalendarStore} an einer leeren Ablage. */
+    private void checkContract(CalendarStore store) throws Exception {
+        assertTrue(store.isEmpty());
+        assertEquals(10, store.replaceAll(sample(10)));
+        assertFalse(store.isEmpty());
+        assertEquals(0, store.replaceAll(sample(10)), "Unveränderter Stand schreibt nichts");
+
+        List<CalendarEntry> all = store.loadAll();
+        assertEquals(10, all.size());
+        assertEquals("store-0", all.get(0).getUid());
+        assertEquals("Notiz 3", all.get(3).getDescription());
+
+        // Bereich [Tag 2, Tag 5): Tag 1 endet vor dem Bereich, Tag 5 beginnt an dessen Ende
+        List<CalendarEntry> range = store.findRange(start.plusDays(2).minusHours(1), start.plusDays(5));
+        assertEquals(List.of("store-2", "store-3", "store-4"), range.stream().map(CalendarEntry::getUid).toList());
+
+        // Einzelne Änderungen
+        store.upsert(List.of(sample(10).get(4).withTitle("Geändert"),
+                EntryValue.of("Neu", "", start.minusDays(1), start.minusDays(1).plusHours(1)).withUid("store-neu")));
+        store.delete(List.of("store-9"));
+        all = store.loadAll();
+        assertEquals(10, all.size());
+        assertEquals("store-neu", all.get(0).getUid());
+        assertEquals("Geändert", all.stream().filter(c -> "store-4".equals(c.getUid())).findFirst().orElseThrow().getTitle());
+        assertFalse(uids(all).contains("store-9"));
+
+        // Fehler in der Transaktion verwirft alle Änderungen
+        assertThrows(IllegalStateException.class, () -> store.inTransaction(tx -> {
+            tx.delete(List.of("store-0", "store-1"));
+            tx.upsert(List.of(sample(1).get(0).withTitle("Verworfen")));
+            throw new IllegalStateException("Abbruch");
+        }));
+        List<CalendarEntry> after = store.loadAll();
+        assertEquals(uids(all), uids(after));
+        assertEquals("Termin 0", after.stream().filter(c -> "store-0".equals(c.getUid())).findFirst().orElseThrow().getTitle());
+
+        // Abgleich zählt geänderte und gelöschte Termine
+        List<EntryValue> next = new ArrayList<>(EntryValue.snapshot(after));
+        next.sort(Comparator.comparing(EntryValue::uid));
+        next.set(0, next.get(0).withTitle("Anders"));
+        next.remove(1);
+        assertEquals(2, store.replaceAll(next));
+        assertEquals(9, store.loadAll().size());
+    }
+
+    @Test
+    void testIcsFileStore() throws Exception {
+        Path file = Files.createTempFile("cal-store-", ".ics");
+        Files.delete(file);
+        try (IcsFileStore store = new IcsFileStore(file, true)) {
+            checkContract(store);
+            assertEquals(9, IcsUtil.importIcs(file).size(), "Datei entspricht dem Stand der Ablage");
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(Path.of(file + ".idx"));
+        }
+    }
+
+    @Test
+    void testIcsFileStoreWritesOnceAfterTransaction() throws Exception {
+        Path file = Files.createTempFile("cal-store-", ".ics");
+        try (IcsFileStore store = new IcsFileStore(file, false)) {
+            store.replaceAll(sample(3));
+            store.inTransaction(tx -> {
+                tx.delete(List.of("store-0"));
+                assertEquals(3, IcsUtil.importIcs(file).size(), "Innerhalb der Transaktion unverändert");
+                tx.upsert(List.of(sample(3).get(1).withTitle("Neu")));
+            });
+            assertEquals(2, IcsUtil.importIcs(file).size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testJdbcStore() throws Exception {
+        assumeTrue(h2Available(), "H2-Treiber nicht im Klassenpfad");
+        try (JdbcCalendarStore store = JdbcCalendarStore.open("jdbc:h2:mem:contract;DB_CLOSE_DELAY=-1")) {
+            checkContract(store);
+        }
+    }
+
+    @Test
+    void testJdbcStoreKeepsAttachmentsByteIdentical() throws Exception {
+        assumeTrue(h2Available(), "H2-Treiber nicht im Klassenpfad");
+        String attach = "ATTACH;FMTTYPE=text/plain;ENCODING=BASE64;VALUE=BINARY:SGFsbG8gV2VsdA==\r\n";
+        String ics = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//Test//DE\r\n"
+                + "BEGIN:VEVENT\r\nUID:att-1\r\nSUMMARY:Mit Anhang\r\n"
+                + "DTSTART:20250505T090000\r\nDTEND:20250505T100000\r\n"
+                + attach
+                + "END:VEVENT\r\nEND:VCALENDAR\r\n";
+        Path src = Files.createTempFile("cal-store-att-", ".ics");
+        Path out = Files.createTempFile("cal-store-att-out-", ".ics");
+        try (JdbcCalendarStore store = JdbcCalendarStore.open("jdbc:h2:mem:attachments;DB_CLOSE_DELAY=-1")) {
+            Files.writeString(src, ics, StandardCharsets.UTF_8);
+            store.replaceAll(EntryValue.snapshot(IcsUtil.importIcs(src)));
+
+            List<CalendarEntry> loaded = store.loadAll();
+            assertEquals(1, loaded.size());
+            assertEquals(1, loaded.get(0).getAttachments().size());
+            IcsUtil.exportIcsValues(out, EntryValue.snapshot(loaded));
+            assertTrue(Files.readString(out, StandardCharsets.UTF_8).contains(attach));
+        } finally {
+            Files.deleteIfExists(src);
+            Files.deleteIfExists(out);
+        }
+    }
+
+    /** Einzeländerungen gegenüber dem geladenen Teil lassen nie geladene Termine unberührt. */
+    @Test
+    void testJdbcApplyChangesKeepsUnloadedRows() throws Exception {
+        assumeTrue(h2Available(), "H2-Treiber nicht im Klassenpfad");
+        try (JdbcCalendarStore store = JdbcCalendarStore.open("jdbc:h2:mem:delta;DB_CLOSE_DELAY=-1")) {
+            store.replaceAll(sample(10));
+            // Nur Tag 0 bis 2 geladen, wie das erste Zeitfenster im Datenbankmodus
+            List<CalendarEntry> window = store.findRange(start, start.plusDays(3));
+            Map<String, Long> known = new HashMap<>();
+            for (CalendarEntry ce : window) known.put(ce.getUid(), EntryValue.of(ce).contentHash());
+
+            List<EntryValue> shown = new ArrayList<>(EntryValue.snapshot(window));
+            shown.sort(Comparator.comparing(EntryValue::uid));
+            shown.set(0, shown.get(0).withTitle("Geändert"));
+            shown.remove(1);
+            shown.add(EntryValue.of("Neu", "", start.minusDays(1), start.minusDays(1).plusHours(1)).withUid("store-neu"));
+            assertEquals(3, store.applyChanges(known, shown));
+            assertEquals(0, store.applyChanges(known, shown), "Unveränderter Stand schreibt nichts");
+
+            List<CalendarEntry> all = store.loadAll();
+            assertEquals(10, all.size());
+            assertFalse(uids(all).contains("store-1"));
+            assertTrue(uids(all).containsAll(List.of("store-3", "store-9", "store-neu")));
+            assertEquals("Geändert", all.stream().filter(c -> "store-0".equals(c.getUid())).findFirst().orElseThrow().getTitle());
+            assertEquals(Set.copyOf(uids(store.findRange(start.minusDays(1), start.plusDays(3)))), known.keySet());
+        }
+    }
+
+    /** Serie mit einer Ausnahme: gleiche UID, die Ausnahme mit RECURRENCE-ID. */
+    private static final String OVERRIDE_ICS = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//Test//DE\r\n"
+            + "BEGIN:VEVENT\r\nUID:serie-1\r\nSUMMARY:Jour fixe\r\n"
+            + "DTSTART:20250505T090000\r\nDTEND:20250505T100000\r\n"
+            + "END:VEVENT\r\n"
+            + "BEGIN:VEVENT\r\nUID:serie-1\r\nRECURRENCE-ID:20250512T090000\r\nSUMMARY:Jour fixe (verschoben)\r\n"
+            + "DTSTART:20250512T140000\r\nDTEND:20250512T150000\r\n"
+            + "END:VEVENT\r\nEND:VCALENDAR\r\n";
+
+    /** Übernimmt eine ICS-Datei mit Serienausnahme und prüft, dass beide Termine erhalten bleiben. */
+    private void checkMigratesOverride(CalendarStore store) throws Exception {
+        Path src = Files.createTempFile("cal-store-rid-", ".ics");
+        Path out = Files.createTempFile("cal-store-rid-out-", ".ics");
+        try {
+            Files.writeString(src, OVERRIDE_ICS, StandardCharsets.UTF_8);
+            assertEquals(2, store.replaceAll(EntryValue.snapshot(IcsUtil.importIcs(src))));
+            assertEquals(0, store.replaceAll(EntryValue.snapshot(IcsUtil.importIcs(src))), "Erneute Übernahme schreibt nichts");
+
+            List<CalendarEntry> loaded = store.loadAll();
+            assertEquals(2, loaded.size());
+            assertEquals(List.of("serie-1", "serie-1"), uids(loaded));
+            assertNull(loaded.get(0).getRecurrenceId());
+            assertEquals(":20250512T090000", loaded.get(1).getRecurrenceId());
+            assertEquals("Jour fixe (verschoben)", loaded.get(1).getTitle());
+
+            // Ausnahme einzeln ändern und löschen, die Serie bleibt unberührt
+            EntryValue override = EntryValue.of(loaded.get(1));
+            store.upsert(List.of(override.withTitle("Entfällt")));
+            assertEquals(List.of("Jour fixe", "Entfällt"), store.loadAll().stream().map(CalendarEntry::getTitle).toList());
+            store.delete(List.of(override.key()));
+            assertEquals(List.of("Jour fixe"), store.loadAll().stream().map(CalendarEntry::getTitle).toList());
+
+            store.upsert(List.of(override));
+            IcsUtil.exportIcsValues(out, EntryValue.snapshot(store.loadAll()));
+            String written = Files.readString(out, StandardCharsets.UTF_8);
+            assertTrue(written.contains("\r\nRECURRENCE-ID:20250512T090000\r\n"), written);
+            assertEquals(2, IcsUtil.importIcs(out).size());
+        } finally {
+            Files.deleteIfExists(src);
+            Files.deleteIfExists(out);
+        }
+    }
+
+    @Test
+    void testIcsFileStoreKeepsOverrides() throws Exception {
+        Path file = Files.createTempFile("cal-store-", ".ics");
+        Files.delete(file);
+        try (IcsFileStore store = new IcsFileStore(file, true)) {
+            checkMigratesOverride(store);
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(Path.of(file + ".idx"));
+        }
+    }
+
+    /** Übernahme einer ICS-Datei mit Serienausnahme in die Datenbank (gleiche UID, zwei Zeilen). */
+    @Test
+    void testJdbcMigrationKeepsOverrides() throws Exception {
+        assumeTrue(h2Available(), "H2-Treiber nicht im Klassenpfad");
+        try (JdbcCalendarStore store = JdbcCalendarStore.open("jdbc:h2:mem:overrides;DB_CLOSE_DELAY=-1")) {
+            checkMigratesOverride(store);
+        }
+    }
+
+    private static boolean h2Available() {
+        try {
+            Class.forName("org.h2.Driver");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für das komprimierte Archiv vergangener Termine.
+ */
+public class ColdArchiveTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2023, 11, 1, 10, 0);
+
+    /** Ein Termin alle zehn Tage ab November 2023 bis Anfang 2024. */
+    private List<EntryValue> sample(int n) {
+        List<EntryValue> values = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            values.add(EntryValue.of("Termin " + i, "Notiz " + i, start.plusDays(i * 10L), start.plusDays(i * 10L).plusHours(1))
+                    .withUid("cold-" + i));
+        }
+        return values;
+    }
+
+    @Test
+    void testAddSplitsByYearAndLoadsCompressed() throws Exception {
+        Path dir = Files.createTempDirectory("cal-cold-").resolve("calendar.archive");
+        try {
+            ColdArchive archive = ColdArchive.open(dir);
+            assertTrue(archive.isEmpty());
+            List<EntryValue> values = sample(12);
+            assertEquals(2, archive.add(values));
+            assertEquals(List.of(2023, 2024), archive.years());
+
+            // GZIP-Signatur
+            try (InputStream in = Files.newInputStream(archive.fileFor(2023))) {
+                assertEquals(0x1f, in.read());
+                assertEquals(0x8b, in.read());
+            }
+
+            ColdArchive reopened = ColdArchive.open(dir);
+            assertEquals(List.of(2023, 2024), reopened.years());
+            List<CalendarEntry> y2023 = reopened.load(2023);
+            List<CalendarEntry> y2024 = reopened.load(2024);
+            assertEquals(12, y2023.size() + y2024.size());
+            assertTrue(y2023.stream().allMatch(c -> c.getStart().getYear() == 2023));
+            CalendarEntry first = y2023.stream().filter(c -> "cold-0".equals(c.getUid())).findFirst().orElseThrow();
+            assertEquals("Notiz 0", first.getDescription());
+            assertEquals(start, first.getStart());
+            assertTrue(reopened.load(2019).isEmpty());
+        } finally {
+            deleteAll(dir.getParent());
+        }
+    }
+
+    @Test
+    void testAddMergesByUid() throws Exception {
+        Path dir = Files.createTempDirectory("cal-cold-");
+        try {
+            ColdArchive archive = ColdArchive.open(dir);
+            List<EntryValue> values = sample(5);
+            archive.add(values);
+
+            List<EntryValue> again = new ArrayList<>();
+            again.add(values.get(1).withTitle("Nachträglich geändert"));
+            again.add(EntryValue.of("Neu", "", start.plusDays(3), start.plusDays(3).plusHours(1)).withUid("cold-neu"));
+            assertEquals(1, archive.add(again));
+
+            List<CalendarEntry> back = archive.load(2023);
+            assertEquals(6, back.size());
+            assertEquals("Nachträglich geändert",
+                    back.stream().filter(c -> "cold-1".equals(c.getUid())).findFirst().orElseThrow().getTitle());
+            // Sortiert nach Start
+            assertEquals("cold-0", back.get(0).getUid());
+            assertEquals("cold-neu", back.get(1).getUid());
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    /** Im gemappten Modus entsteht je Jahr ein .evs, das beim Laden dieselben Termine liefert. */
+    @Test
+    void testMappedModeWritesAndRebuildsSidecar() throws Exception {
+        Path dir = Files.createTempDirectory("cal-cold-").resolve("calendar.archive");
+        try {
+            ColdArchive archive = ColdArchive.open(dir, true);
+            archive.add(sample(12));
+            assertTrue(Files.exists(archive.mappedFileFor(2023)));
+            List<CalendarEntry> mapped = archive.load(2023);
+            List<CalendarEntry> parsed = ColdArchive.open(dir).load(2023);
+            assertEquals(parsed.size(), mapped.size());
+            assertEquals(parsed.get(0).getUid(), mapped.get(0).getUid());
+            assertEquals(parsed.get(0).getDescription(), mapped.get(0).getDescription());
+
+            // Fehlt der gemappte Speicher, wird er aus dem ICS-Archiv neu erzeugt
+            Files.delete(archive.mappedFileFor(2024));
+            List<CalendarEntry> rebuilt = ColdArchive.open(dir, true).load(2024);
+            assertTrue(Files.exists(archive.mappedFileFor(2024)));
+            assertEquals(12 - mapped.size(), rebuilt.size());
+        } finally {
+            deleteAll(dir.getParent());
+        }
+    }
+
+    @Test
+    void testOlderThanUsesEnd() {
+        List<EntryValue> values = sample(3);
+        LocalDateTime cutoff = start.plusDays(10).plusMinutes(30);
+        List<EntryValue> aged = ColdArchive.olderThan(values, cutoff);
+        assertEquals(1, aged.size(), "Ein Termin, der zum Stichtag noch läuft, bleibt heiß");
+        assertEquals("cold-0", aged.get(0).uid());
+    }
+
+    private static void deleteAll(Path dir) throws Exception {
+        if (!Files.exists(dir)) return;
+        try (var files = Files.walk(dir)) {
+            for (Path p : files.sorted(java.util.Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für den spaltenorientierten Terminspeicher.
+ */
+public class ColumnarEntryStoreTest {
+
+    private CalendarEntry entry(String title, LocalDateTime start, int minutes) {
+        return new CalendarEntry(title, "", start, start.plusMinutes(minutes));
+    }
+
+    @Test
+    void testSortAndRangeScan() {
+        LocalDateTime base = LocalDateTime.of(2025, 3, 1, 0, 0);
+        List<CalendarEntry> src = new ArrayList<>();
+        // Absichtlich unsortiert, mit vielen identischen Zeiten
+        for (int i = 199; i >= 0; i--) {
+            src.add(entry("E" + i, base.plusHours(i), 30));
+            src.add(entry("Dup" + i, base.plusHours(i % 3), 30));
+        }
+        src.add(entry("Lang", base.minusDays(2), 3 * 24 * 60)); // überlappt den Bereich von vorne
+
+        ColumnarEntryStore store = ColumnarEntryStore.of(src);
+        assertEquals(src.size(), store.size());
+        assertTrue(store.isSorted());
+        for (int i = 1; i < store.size(); i++) {
+            assertTrue(store.startEpoch(i - 1) <= store.startEpoch(i), "Sortierung verletzt bei " + i);
+        }
+
+        List<String> hits = new ArrayList<>();
+        store.forEachInRange(base.plusHours(10), base.plusHours(13), i -> hits.add(store.title(i)));
+        assertEquals(List.of("Lang", "E10", "E11", "E12"), hits);
+        assertEquals(0, store.countInRange(
+                LocalEpoch.toSeconds(base.plusYears(1)), LocalEpoch.toSeconds(base.plusYears(2))));
+    }
+
+    @Test
+    void testFlyweightViewReadsAndWritesColumns() {
+        CalendarEntry src = entry("Planung", LocalDateTime.of(2025, 5, 5, 9, 0), 60);
+        src.setId(7);
+        src.setCategory("Arbeit");
+        src.setReminderMinutesBefore(15);
+        ColumnarEntryStore store = ColumnarEntryStore.of(List.of(src));
+
+        CalendarEntry view = store.asList().get(0);
+        assertEquals(7, view.getId());
+        assertEquals("Planung", view.getTitle());
+        assertEquals("Arbeit", view.getCategory());
+        assertEquals(15, view.getReminderMinutesBefore());
+        assertEquals(src.getStart(), view.getStart());
+        assertEquals(src.getEnd(), view.getEnd());
+        assertEquals("", view.getDescription());
+
+        view.setTitle("Planung II");
+        view.setReminderMinutesBefore(null);
+        view.setStart(LocalDateTime.of(2025, 5, 5, 8, 0));
+        assertEquals("Planung II", store.title(0));
+        assertEquals(ColumnarEntryStore.NO_VALUE, store.reminderValue(0));
+        assertFalse(store.isSorted());
+        assertEquals(1, store.categoryCount());
+        assertEquals(0, store.categoryOrdinalOf("Arbeit"));
+
+        CalendarEntry copy = store.toEntries().get(0);
+        assertEquals(LocalDateTime.of(2025, 5, 5, 8, 0), copy.getStart());
+        assertNull(copy.getReminderMinutesBefore());
+    }
+
+    /** Ersetzte Texte werden freigegeben; geteilte Texte bleiben, solange eine Zeile sie nutzt. */
+    @Test
+    void testReplacedStringsAreReclaimed() {
+        LocalDateTime base = LocalDateTime.of(2025, 6, 1, 9, 0);
+        ColumnarEntryStore store = ColumnarEntryStore.of(List.of(
+                new CalendarEntry("Daily", "Notiz", base, base.plusMinutes(15)),
+                new CalendarEntry("Daily", "Notiz", base.plusDays(1), base.plusDays(1).plusMinutes(15))));
+        assertEquals(2, store.stringCount());
+
+        ColumnarEntryStore.EntryView view = store.view(0);
+        for (int i = 0; i < 1000; i++) {
+            view.setTitle("Titel " + i);
+            view.setDescription("Beschreibung " + i);
+        }
+        // "Daily" und "Notiz" hängen noch an Zeile 1, dazu der letzte Titel und die letzte Beschreibung
+        assertEquals(4, store.stringCount());
+        assertEquals("Titel 999", store.title(0));
+        assertEquals("Beschreibung 999", store.description(0));
+        assertEquals("Daily", store.title(1));
+
+        store.view(1).setTitle("Titel 999");
+        store.view(1).setDescription(null);
+        assertEquals(2, store.stringCount());
+        assertEquals("Titel 999", store.title(1));
+        assertNull(store.description(1));
+
+        store.view(0).setCategory("A");
+        store.view(0).setCategory("B");
+        assertEquals(1, store.categoryCount());
+        assertEquals(ColumnarEntryStore.NO_VALUE, store.categoryOrdinalOf("A"));
+        assertEquals("B", store.category(0));
+    }
+
+    /** Die String-Tabelle bleibt über Wachstum, Freigaben und Wiederverwendung konsistent. */
+    @Test
+    void testStringTableSurvivesChurn() {
+        ColumnarEntryStore.StringTable table = new ColumnarEntryStore.StringTable();
+        int[] held = new int[5000];
+        for (int i = 0; i < held.length; i++) held[i] = table.acquire("s" + i);
+        assertEquals(5000, table.size());
+        for (int i = 0; i < 5000; i += 2) table.release(held[i]);
+        assertEquals(2500, table.size());
+        for (int i = 1; i < 5000; i += 2) {
+            assertEquals(held[i], table.find("s" + i));
+            assertEquals("s" + i, table.get(held[i]));
+        }
+        for (int i = 0; i < 5000; i += 2) assertEquals(ColumnarEntryStore.NO_VALUE, table.find("s" + i));
+        // Freigegebene Positionen werden wiederverwendet
+        for (int i = 0; i < 2500; i++) assertTrue(table.acquire("neu" + i) < 5000);
+        assertEquals(5000, table.size());
+        assertEquals(held[1], table.acquire("s1"));
+        table.release(held[1]);
+        assertEquals(held[1], table.find("s1"), "Eine Referenz ist noch übrig");
+    }
+
+    /** UID, X-Eigenschaften, Anhänge und ausgelagerte Beschreibung gehören zur Zeile, nicht zur Sicht. */
+    @Test
+    void testRareFieldsFollowTheRow() throws Exception {
+        DescriptionStore blobs = DescriptionStore.create();
+        LazyText lazy = blob(blobs, "Lange Beschreibung");
+        AttachmentRef attachment = new AttachmentRef(blob(blobs, "Anhang"));
+
+        CalendarEntry a = entry("A", LocalDateTime.of(2025, 5, 5, 9, 0), 60);
+        a.setUid("uid-a");
+        a.setExtraProperties("X-FOO:1");
+        a.setLazyDescription(lazy);
+        CalendarEntry b = entry("B", LocalDateTime.of(2025, 5, 6, 9, 0), 60);
+        b.setUid("uid-b");
+        ColumnarEntryStore store = ColumnarEntryStore.of(List.of(b, a));
+
+        ColumnarEntryStore.EntryView cursor = store.cursor();
+        assertEquals("uid-a", cursor.moveTo(0).getUid());
+        assertFalse(cursor.isDescriptionLoaded());
+        assertSame(lazy, cursor.getLazyDescription());
+        assertEquals("X-FOO:1", cursor.getExtraProperties());
+        cursor.setAttachments(List.of(attachment));
+        cursor.setUid("uid-a2");
+
+        cursor.moveTo(1);
+        assertEquals("uid-b", cursor.getUid());
+        assertNull(cursor.getExtraProperties());
+        assertEquals(List.of(), cursor.getAttachments());
+        assertTrue(cursor.isDescriptionLoaded());
+
+        // Zeilen samt seltener Felder werden beim Sortieren mitgetauscht
+        cursor.setStart(LocalDateTime.of(2025, 5, 1, 9, 0));
+        store.sortByStart();
+        assertEquals("uid-b", store.uid(0));
+        assertEquals("uid-a2", store.uid(1));
+        assertEquals(List.of(attachment), store.attachments(1));
+
+        assertEquals("Lange Beschreibung", cursor.moveTo(1).getDescription());
+        assertTrue(cursor.isDescriptionLoaded());
+
+        CalendarEntry copy = store.toEntries().get(1);
+        assertEquals("uid-a2", copy.getUid());
+        assertEquals("X-FOO:1", copy.getExtraProperties());
+        assertEquals(List.of(attachment), copy.getAttachments());
+    }
+
+    /** Fehlendes Ende wird Zeitpunkt-Termin, fehlender Start wird abgewiesen. */
+    @Test
+    void testNullStartAndEnd() {
+        ColumnarEntryStore store = ColumnarEntryStore.of(List.of(entry("A", LocalDateTime.of(2025, 5, 5, 9, 0), 60)));
+        CalendarEntry view = store.view(0);
+        view.setEnd(null);
+        assertEquals(view.getStart(), view.getEnd());
+        assertThrows(IllegalArgumentException.class, () -> view.setStart(null));
+    }
+
+    private static LazyText blob(DescriptionStore blobs, String text) throws Exception {
+        DescriptionStore.BlobWriter w = blobs.newBlob();
+        // Abgelegt wird die rohe iCalendar-Eigenschaft
+        w.write(("DESCRIPTION:" + text + "\r\n").getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        return w.finish(text);
+    }
+}
@@ -0,0 +1,80 @@
+import org.junit.jupiter.api.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConfigUtilTest {
+
+    private Path tempDir;
+    private Path configPath;
+
+    @BeforeEach
+    void setup() throws Exception {
+        tempDir = Files.createTempDirectory("cfg-");
+        configPath = tempDir.resolve("config.properties");
+        // Point ConfigUtil to isolated config file
+        ConfigUtil.setExternalConfigPathForTest(configPath);
+    }
+
+    @AfterEach
+    void cleanup() throws Exception {
+        try { Files.deleteIfExists(configPath); } catch (Exception ignored) {}
+        try { Files.deleteIfExists(tempDir); } catch (Exception ignored) {}
+    }
+
+    @Test
+    void defaultsAreAppliedAndPersisted() throws Exception {
+        // After pointing to empty path, load should have set sane defaults
+        Path ics = ConfigUtil.getIcsPath();
+        assertNotNull(ics);
+        assertFalse(ics.toString().isBlank());
+        assertFalse(ConfigUtil.isDarkMode());
+
+        // Change values
+        Path customIcs = tempDir.resolve("test.ics");
+        ConfigUtil.setIcsPath(customIcs);
+        ConfigUtil.setDarkMode(true);
+        ConfigUtil.save();
+
+        // Re-point and reload to ensure values are read back from file
+        ConfigUtil.setExternalConfigPathForTest(configPath);
+        assertEquals(customIcs, ConfigUtil.getIcsPath());
+        assertTrue(ConfigUtil.isDarkMode());
+    }
+
+    @Test
+    void feedsAreReadFromNamedKeysAndLegacyList() throws Exception {
+        Files.writeString(configPath, String.join("\n",
+                "feeds.refreshMinutes=15",
+                "feeds.Team.url=https://example.org/team.ics",
+                "feeds.Team.refreshMinutes=5",
+                "feeds.Ferien.url=https://example.org/ferien.ics",
+                "feeds.urls=https://cal.example.com/a.ics, https://cal.example.com/b.ics",
+                ""));
+        ConfigUtil.setExternalConfigPathForTest(configPath);
+
+        java.util.List<FeedSubscription> feeds = ConfigUtil.getFeeds();
+        assertEquals(4, feeds.size());
+        assertEquals(new FeedSubscription("Ferien", "https://example.org/ferien.ics", 15), feeds.get(0));
+        assertEquals(new FeedSubscription("Team", "https://example.org/team.ics", 5), feeds.get(1));
+        assertEquals("cal.example.com", feeds.get(2).name());
+        assertEquals("cal.example.com (2)", feeds.get(3).name());
+        assertEquals(4, ConfigUtil.getFeedsMaxPerHost());
+    }
+
+    @Test
+    void webcalFeedsAreFetchedOverHttps() throws Exception {
+        Files.writeString(configPath, String.join("\n",
+                "feeds.Abo.url=webcal://example.org/abo.ics",
+                "feeds.urls=WEBCAL://cal.example.com/a.ics",
+                ""));
+        ConfigUtil.setExternalConfigPathForTest(configPath);
+
+        java.util.List<FeedSubscription> feeds = ConfigUtil.getFeeds();
+        assertEquals("https://example.org/abo.ics", feeds.get(0).url());
+        assertEquals("https://cal.example.com/a.ics", feeds.get(1).url());
+    }
+}
@@ -0,0 +1,105 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für den unveränderlichen Termin-Wert.
+ */
+public class EntryValueTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2025, 6, 2, 10, 0);
+
+    @Test
+    void testContentEqualityAndHash() {
+        CalendarEntry a = new CalendarEntry("Review", "Sprint", start, start.plusHours(1));
+        a.setCategory("Arbeit");
+        CalendarEntry b = new CalendarEntry("Review", "Sprint", start, start.plusHours(1));
+        b.setCategory("Arbeit");
+
+        EntryValue va = EntryValue.of(a);
+        EntryValue vb = EntryValue.of(b);
+        assertEquals(va, vb);
+        assertEquals(va.hashCode(), vb.hashCode());
+        assertEquals(va.contentHash(), vb.contentHash());
+
+        // Als Map-Schlüssel nutzbar
+        Map<EntryValue, String> map = Map.of(va, "x");
+        assertEquals("x", map.get(vb));
+
+        EntryValue moved = va.withStart(start.plusDays(1));
+        assertNotEquals(va, moved);
+        assertNotEquals(va.contentHash(), moved.contentHash());
+        assertEquals(start, va.start(), "Original darf sich nicht ändern");
+        assertEquals(start.plusDays(1), moved.start());
+        assertEquals("Review", moved.title());
+    }
+
+    @Test
+    void testWithMethodsAndToEntry() {
+        EntryValue v = EntryValue.of("Arzt", null, start, start.plusMinutes(30))
+                .withCategory("Privat")
+                .withReminderMinutesBefore(15)
+                .withId(3);
+        CalendarEntry ce = v.toEntry();
+        assertEquals(3, ce.getId());
+        assertEquals("Arzt", ce.getTitle());
+        assertNull(ce.getDescription());
+        assertEquals("Privat", ce.getCategory());
+        assertEquals(15, ce.getReminderMinutesBefore());
+        assertEquals(start.plusMinutes(30), ce.getEnd());
+        assertEquals(v, EntryValue.of(ce));
+        assertNull(v.withReminderMinutesBefore(null).reminderMinutesBefore());
+    }
+
+    @Test
+    void testSnapshotExportWithoutCopy() throws Exception {
+        List<CalendarEntry> entries = new ArrayList<>();
+        entries.add(new CalendarEntry("Eins", "A", start, start.plusHours(1)));
+        entries.add(new CalendarEntry("Ohne Start", "B", null, null));
+        entries.add(new CalendarEntry("Ohne Ende", "C", start, null));
+        List<EntryValue> snapshot = EntryValue.snapshot(entries);
+        assertEquals(1, snapshot.size());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(snapshot.get(0)));
+
+        // Spätere Änderungen am veränderlichen Eintrag wirken nicht auf den Snapshot
+        entries.get(0).setTitle("Geändert");
+        Path tmp = Files.createTempFile("cal-", ".ics");
+        try {
+            IcsUtil.exportIcsValues(tmp, snapshot);
+            List<CalendarEntry> back = IcsUtil.importIcs(tmp);
+            assertEquals(1, back.size());
+            assertEquals("Eins", back.get(0).getTitle());
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Wiederholte Snapshots teilen die Werte unveränderter Einträge; geänderte werden neu erzeugt. */
+    @Test
+    void testCachedSnapshotSharesUnchangedValues() {
+        CalendarEntry a = new CalendarEntry("A", "x", start, start.plusHours(1));
+        CalendarEntry b = new CalendarEntry("B", "y", start, start.plusHours(2));
+        CalendarEntry c = new CalendarEntry("C", "z", start, start.plusHours(3));
+        Map<CalendarEntry, EntryValue> cache = new IdentityHashMap<>();
+        List<EntryValue> first = EntryValue.snapshot(List.of(a, b, c), cache);
+        assertEquals(3, cache.size());
+
+        b.setCategory("Arbeit");
+        List<EntryValue> second = EntryValue.snapshot(List.of(a, b), cache);
+        assertSame(first.get(0), second.get(0));
+        assertNotSame(first.get(1), second.get(1));
+        assertEquals(EntryValue.of(b), second.get(1));
+        assertEquals(EntryValue.snapshot(List.of(a, b)), second);
+        // Entfernte Einträge verlassen den Cache
+        assertFalse(cache.containsKey(c));
+        assertEquals(2, cache.size());
+    }
+}
@@ -0,0 +1,202 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für den Abruf abonnierter Feeds gegen einen lokalen HTTP-Server.
+ */
+public class FeedSchedulerTest {
+
+    private static final long DELAY_MILLIS = 200;
+
+    private HttpServer server;
+    private final Map<String, byte[]> bodies = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private final AtomicInteger failing = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange ex) throws java.io.IOException {
+        int now = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(now, Math::max);
+        try {
+            Thread.sleep(DELAY_MILLIS);
+            if (failing.get() > 0) {
+                failing.decrementAndGet();
+                ex.sendResponseHeaders(503, -1);
+                return;
+            }
+            byte[] body = bodies.get(ex.getRequestURI().getPath());
+            if (body == null) {
+                ex.sendResponseHeaders(404, -1);
+                return;
+            }
+            String etag = "\"" + java.util.Arrays.hashCode(body) + "\"";
+            if (etag.equals(ex.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                ex.sendResponseHeaders(304, -1);
+                return;
+            }
+            ex.getResponseHeaders().set("ETag", etag);
+            ex.getResponseHeaders().set("Content-Type", "text/calendar");
+            ex.sendResponseHeaders(200, body.length);
+            try (OutputStream out = ex.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+            ex.close();
+        }
+    }
+
+    private static byte[] ics(List<EntryValue> values) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IcsUtil.exportIcsValues(out, values);
+        return out.toByteArray();
+    }
+
+    private static List<EntryValue> events(String prefix, int n) {
+        LocalDateTime start = LocalDateTime.of(2025, 10, 6, 9, 0);
+        List<EntryValue> values = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            values.add(EntryValue.of(prefix + " " + i, "", start.plusDays(i), start.plusDays(i).plusHours(1)).withUid(prefix + "-" + i));
+        }
+        return values;
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    @Test
+    void testThirtyFeedsAreFetchedConcurrently() throws Exception {
+        List<FeedSubscription> subs = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            bodies.put("/f" + i, ics(events("f" + i, 3)));
+            subs.add(new FeedSubscription("Feed " + i, url("/f" + i), 60));
+        }
+        List<FeedScheduler.Update> updates = new CopyOnWriteArrayList<>();
+        try (FeedScheduler scheduler = new FeedScheduler(subs, 30, updates::add)) {
+            long t0 = System.nanoTime();
+            scheduler.refreshAll().get(20, TimeUnit.SECONDS);
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+            assertEquals(30, updates.size());
+            assertTrue(millis < 30 * DELAY_MILLIS / 3, "30 Abrufe dauerten " + millis + " ms");
+        }
+    }
+
+    @Test
+    void testPerHostLimit() throws Exception {
+        List<FeedSubscription> subs = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            bodies.put("/h" + i, ics(events("h" + i, 1)));
+            subs.add(new FeedSubscription("Host " + i, url("/h" + i), 60));
+        }
+        try (FeedScheduler scheduler = new FeedScheduler(subs, 2, u -> { })) {
+            scheduler.refreshAll().get(20, TimeUnit.SECONDS);
+        }
+        assertEquals(2, maxInFlight.get());
+    }
+
+    @Test
+    void testIncrementalUpdates() throws Exception {
+        List<EntryValue> values = new ArrayList<>(events("inc", 10));
+        bodies.put("/inc", ics(values));
+        try (FeedScheduler scheduler = new FeedScheduler(List.of(new FeedSubscription("Team", url("/inc"), 60)), 4, u -> { })) {
+            FeedScheduler.Update first = scheduler.refresh("Team").get(10, TimeUnit.SECONDS);
+            assertEquals(10, first.upserts().size());
+            assertEquals("Team", first.feed());
+
+            // Unverändert: 304 über ETag, kein Update
+            assertNull(scheduler.refresh("Team").get(10, TimeUnit.SECONDS));
+            assertEquals(1, notModified.get());
+
+            // Ein Termin geändert, einer entfernt
+            values.set(2, values.get(2).withTitle("Verschoben"));
+            values.remove(5);
+            bodies.put("/inc", ics(values));
+            FeedScheduler.Update next = scheduler.refresh("Team").get(10, TimeUnit.SECONDS);
+            assertEquals(List.of("inc-2"), next.upserts().stream().map(EntryValue::uid).toList());
+            assertEquals(List.of("inc-5"), next.removals());
+            assertEquals(9, next.total());
+        }
+    }
+
+    @Test
+    void testFailuresAreReportedWithBackoff() throws Exception {
+        bodies.put("/err", ics(events("err", 1)));
+        failing.set(1);
+        List<Long> retries = new CopyOnWriteArrayList<>();
+        FeedScheduler.Listener listener = new FeedScheduler.Listener() {
+            @Override
+            public void updated(FeedScheduler.Update update) {
+            }
+
+            @Override
+            public void failed(String feed, Exception error, long retryMillis) {
+                retries.add(retryMillis);
+            }
+        };
+        try (FeedScheduler scheduler = new FeedScheduler(List.of(new FeedSubscription("Kaputt", url("/err"), 60)), 4, listener)) {
+            assertThrows(Exception.class, () -> scheduler.refresh("Kaputt").get(10, TimeUnit.SECONDS));
+            assertEquals(1, retries.size());
+            long base = FeedScheduler.BACKOFF_BASE_MILLIS;
+            assertTrue(retries.get(0) >= base / 2 && retries.get(0) <= base);
+            assertNotNull(scheduler.refresh("Kaputt").get(10, TimeUnit.SECONDS), "Nächster Versuch gelingt");
+        }
+
+        for (int failures = 1; failures <= 12; failures++) {
+            long exp = Math.min(3_600_000L, FeedScheduler.BACKOFF_BASE_MILLIS << (failures - 1));
+            long d = FeedScheduler.backoffMillis(failures, FeedScheduler.BACKOFF_BASE_MILLIS, 3_600_000L);
+            assertTrue(d >= exp / 2 && d <= exp, "Versuch " + failures + ": " + d);
+        }
+    }
+
+    /** Ein sofort beendeter Abruf darf keinen veralteten Abruf "in Arbeit" hinterlassen. */
+    @Test
+    void testQuickFailuresDoNotBlockLaterRefreshes() throws Exception {
+        // Nicht unterstütztes Schema: der Abruf scheitert, ohne eine Verbindung aufzubauen
+        String broken = "ftp://127.0.0.1/weg.ics";
+        try (FeedScheduler scheduler = new FeedScheduler(List.of(new FeedSubscription("Weg", broken, 60)), 4, u -> { })) {
+            java.util.concurrent.CompletableFuture<FeedScheduler.Update> previous = null;
+            for (int i = 0; i < 200; i++) {
+                java.util.concurrent.CompletableFuture<FeedScheduler.Update> f = scheduler.refresh("Weg");
+                assertNotSame(previous, f, "Abruf " + i + " muss neu gestartet werden");
+                assertThrows(Exception.class, () -> f.get(10, TimeUnit.SECONDS));
+                previous = f;
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für den Export über zwischengespeicherte VEVENT-Blöcke.
+ */
+public class IcsFragmentCacheTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2025, 5, 12, 9, 0);
+
+    @Test
+    void testOnlyChangedEntriesAreReencoded() throws Exception {
+        IcsFragmentCache cache = IcsFragmentCache.shared();
+        cache.clear();
+
+        List<CalendarEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            CalendarEntry ce = new CalendarEntry("Termin " + i, "Notiz " + i, start.plusDays(i), start.plusDays(i).plusHours(1));
+            ce.setUid("uid-" + i);
+            if (i % 5 == 0) ce.setReminderMinutesBefore(15);
+            entries.add(ce);
+        }
+
+        Path tmp = Files.createTempFile("cal-frag-", ".ics");
+        try {
+            IcsUtil.exportIcs(tmp, entries);
+            assertEquals(50, cache.getStats().misses());
+            byte[] first = Files.readAllBytes(tmp);
+
+            IcsUtil.exportIcs(tmp, entries);
+            assertEquals(50, cache.getStats().hits());
+            assertArrayEquals(first, Files.readAllBytes(tmp), "Unveränderte Termine müssen byte-identisch bleiben");
+
+            entries.get(7).setTitle("Verschoben");
+            entries.remove(3);
+            IcsUtil.exportIcs(tmp, entries);
+            assertEquals(51, cache.getStats().misses());
+            assertEquals(49, cache.getStats().size());
+
+            List<CalendarEntry> back = IcsUtil.importIcs(tmp);
+            assertEquals(49, back.size());
+            CalendarEntry moved = back.stream().filter(e -> "uid-7".equals(e.getUid())).findFirst().orElseThrow();
+            assertEquals("Verschoben", moved.getTitle());
+            assertEquals("Notiz 7", moved.getDescription());
+            CalendarEntry withAlarm = back.stream().filter(e -> "uid-10".equals(e.getUid())).findFirst().orElseThrow();
+            assertEquals(Integer.valueOf(15), withAlarm.getReminderMinutesBefore());
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Test
+    void testUnknownXPropertiesPassThrough() throws Exception {
+        String ics = "BEGIN:VCALENDAR\r\n"
+                + "VERSION:2.0\r\n"
+                + "PRODID:-//Fremd//DE\r\n"
+                + "BEGIN:VEVENT\r\n"
+                + "UID:fremd-1\r\n"
+                + "DTSTART:20250512T070000Z\r\n"
+                + "DTEND:20250512T080000Z\r\n"
+                + "SUMMARY:Import\r\n"
+                + "X-MICROSOFT-CDO-BUSYSTATUS:BUSY\r\n"
+                + "X-APPLE-STRUCTURED-LOCATION;VALUE=URI;X-TITLE=\"Büro\":geo:52.5,13.4\r\n"
+                + "BEGIN:VALARM\r\n"
+                + "ACTION:DISPLAY\r\n"
+                + "TRIGGER:-PT10M\r\n"
+                + "X-WR-ALARMUID:bleibt-nicht\r\n"
+                + "END:VALARM\r\n"
+                + "END:VEVENT\r\n"
+                + "END:VCALENDAR\r\n";
+        Path src = Files.createTempFile("cal-x-", ".ics");
+        Path out = Files.createTempFile("cal-x-out-", ".ics");
+        try {
+            Files.writeString(src, ics, StandardCharsets.UTF_8);
+            List<CalendarEntry> back = IcsUtil.importIcs(src);
+            assertEquals(1, back.size());
+            assertEquals("fremd-1", back.get(0).getUid());
+
+            IcsUtil.exportIcs(out, back);
+            String written = Files.readString(out, StandardCharsets.UTF_8);
+            assertTrue(written.contains("\r\nX-MICROSOFT-CDO-BUSYSTATUS:BUSY\r\n"));
+            assertTrue(written.contains("\r\nX-APPLE-STRUCTURED-LOCATION;VALUE=URI;X-TITLE=\"Büro\":geo:52.5,13.4\r\n"));
+            assertTrue(written.indexOf("X-MICROSOFT") < written.indexOf("BEGIN:VALARM"), "Eigenschaften stehen vor den VALARMs");
+            assertTrue(written.contains("UID:fremd-1\r\n"));
+
+            CalendarEntry again = IcsUtil.importIcs(out).get(0);
+            assertEquals(back.get(0).getExtraProperties(), again.getExtraProperties());
+            assertEquals(Integer.valueOf(10), again.getReminderMinutesBefore());
+        } finally {
+            Files.deleteIfExists(src);
+            Files.deleteIfExists(out);
+        }
+    }
+}
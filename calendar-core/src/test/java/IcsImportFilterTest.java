@@ -0,0 +1,140 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für das Auslagern großer Beschreibungen beim ICS-Import.
+ */
+public class IcsImportFilterTest {
+
+    private static String bigText() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; sb.length() < 3 * IcsUtil.LAZY_DESCRIPTION_THRESHOLD; i++) {
+            sb.append("Zeile ").append(i).append(": Größere Notiz; mit Komma, Semikolon und Ümlauten\n");
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void testLargeDescriptionIsLoadedLazily() throws Exception {
+        String big = bigText();
+        LocalDateTime start = LocalDateTime.of(2025, 3, 4, 8, 0);
+        CalendarEntry large = new CalendarEntry("Protokoll", big, start, start.plusHours(1));
+        large.setReminderMinutesBefore(10);
+        CalendarEntry small = new CalendarEntry("Kurz", "Nur ein Satz", start, start.plusHours(2));
+
+        Path tmp = Files.createTempFile("cal-lazy-", ".ics");
+        try {
+            IcsUtil.exportIcs(tmp, List.of(large, small));
+            List<CalendarEntry> back = IcsUtil.importIcs(tmp);
+            assertEquals(2, back.size());
+
+            CalendarEntry lazy = back.stream().filter(e -> e.getTitle().equals("Protokoll")).findFirst().orElseThrow();
+            CalendarEntry eager = back.stream().filter(e -> e.getTitle().equals("Kurz")).findFirst().orElseThrow();
+
+            assertFalse(lazy.isDescriptionLoaded(), "Große Beschreibung darf nicht sofort geladen werden");
+            assertTrue(big.startsWith(lazy.getLazyDescription().preview()));
+            assertEquals(Integer.valueOf(10), lazy.getReminderMinutesBefore(), "VALARM muss erhalten bleiben");
+            assertEquals(big, lazy.getDescription());
+            assertTrue(lazy.isDescriptionLoaded());
+
+            assertTrue(eager.isDescriptionLoaded());
+            assertEquals("Nur ein Satz", eager.getDescription());
+
+            // Ein nicht geladener Wert wird beim Export vollständig zurückgeschrieben
+            CalendarEntry again = IcsUtil.importIcs(tmp).get(0);
+            List<EntryValue> values = EntryValue.snapshot(List.of(again));
+            assertNotNull(values.get(0).lazyDescription());
+            IcsUtil.exportIcsValues(tmp, values);
+            CalendarEntry roundTrip = IcsUtil.importIcs(tmp).get(0);
+            assertEquals(again.getDescription(), roundTrip.getDescription());
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Test
+    void testFilterKeepsOtherBytesAndMarksEvent() throws Exception {
+        String big = "x".repeat(200);
+        String ics = "BEGIN:VCALENDAR\r\n"
+                + "VERSION:2.0\r\n"
+                + "BEGIN:VEVENT\r\n"
+                + "SUMMARY:Test\r\n"
+                + "DESCRIPTION:" + big.substring(0, 60) + "\r\n " + big.substring(60) + "\r\n"
+                + "BEGIN:VALARM\r\n"
+                + "DESCRIPTION:" + big + "\r\n"
+                + "END:VALARM\r\n"
+                + "END:VEVENT\r\n"
+                + "END:VCALENDAR\r\n";
+
+        IcsImportFilter filter = new IcsImportFilter(new ByteArrayInputStream(ics.getBytes(StandardCharsets.UTF_8)), 100);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        filter.transferTo(out);
+        String filtered = out.toString(StandardCharsets.UTF_8);
+
+        assertFalse(filtered.contains("\r\nDESCRIPTION:" + big.substring(0, 60) + "\r\n"), "VEVENT-Beschreibung muss ausgelagert sein");
+        assertTrue(filtered.contains("DESCRIPTION:" + big + "\r\n"), "VALARM-Beschreibung bleibt unverändert");
+        assertTrue(filtered.contains(IcsImportFilter.REF_PROPERTY + ":0\r\nEND:VEVENT"));
+
+        LazyText text = filter.getExtras("0").getDescription();
+        assertEquals(big, text.load());
+        assertNull(filter.getExtras("1"));
+    }
+
+    @Test
+    void testAttachmentsAreSpooledAndExportedByteIdentical() throws Exception {
+        byte[] payload = new byte[2 * 1024 * 1024];
+        new java.util.Random(42).nextBytes(payload);
+        String base64 = java.util.Base64.getEncoder().encodeToString(payload);
+        StringBuilder attach = new StringBuilder("ATTACH;FMTTYPE=application/octet-stream;ENCODING=BASE64;VALUE=BINARY:");
+        for (int i = 0; i < base64.length(); i += 74) {
+            if (i > 0) attach.append("\r\n ");
+            attach.append(base64, i, Math.min(base64.length(), i + 74));
+        }
+        attach.append("\r\n");
+        String ics = "BEGIN:VCALENDAR\r\n"
+                + "VERSION:2.0\r\n"
+                + "PRODID:-//Test//DE\r\n"
+                + "BEGIN:VEVENT\r\n"
+                + "UID:anhang-1\r\n"
+                + "DTSTART:20250304T080000\r\n"
+                + "DTEND:20250304T090000\r\n"
+                + "SUMMARY:Mit Anhang\r\n"
+                + attach
+                + "ATTACH:https://example.org/agenda.pdf\r\n"
+                + "END:VEVENT\r\n"
+                + "END:VCALENDAR\r\n";
+
+        Path src = Files.createTempFile("cal-attach-", ".ics");
+        Path out = Files.createTempFile("cal-attach-out-", ".ics");
+        try {
+            Files.writeString(src, ics, StandardCharsets.UTF_8);
+            List<CalendarEntry> back = IcsUtil.importIcs(src);
+            assertEquals(1, back.size());
+            CalendarEntry e = back.get(0);
+            assertEquals("Mit Anhang", e.getTitle());
+            assertEquals(2, e.getAttachments().size());
+            assertEquals(attach.length(), e.getAttachments().get(0).size());
+
+            IcsUtil.exportIcs(out, back);
+            String written = Files.readString(out, StandardCharsets.UTF_8);
+            assertTrue(written.contains(attach), "Anhang muss byte-identisch exportiert werden");
+            assertTrue(written.contains("ATTACH:https://example.org/agenda.pdf\r\n"));
+            assertFalse(written.contains("X-CALJAVA"));
+
+            List<CalendarEntry> again = IcsUtil.importIcs(out);
+            assertEquals(EntryValue.of(e).attachments(), EntryValue.of(again.get(0)).attachments());
+        } finally {
+            Files.deleteIfExists(src);
+            Files.deleteIfExists(out);
+        }
+    }
+}
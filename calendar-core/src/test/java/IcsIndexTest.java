@@ -0,0 +1,175 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für den Byte-Index der ICS-Datei.
+ */
+public class IcsIndexTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2025, 1, 6, 8, 0);
+
+    private List<EntryValue> sample(int n) {
+        List<EntryValue> values = new ArrayList<>();
+        // Absichtlich nicht nach Start sortiert: der Index sortiert selbst
+        for (int i = n - 1; i >= 0; i--) {
+            values.add(EntryValue.of("Termin " + i, "Notiz " + i, start.plusDays(i), start.plusDays(i).plusHours(1))
+                    .withUid("idx-" + i));
+        }
+        return values;
+    }
+
+    @Test
+    void testExportWritesIndexAndSingleEventRead() throws Exception {
+        Path dir = Files.createTempDirectory("cal-idx-");
+        Path ics = dir.resolve("calendar.ics");
+        try {
+            IcsUtil.exportIcsIndexed(ics, sample(30));
+            assertTrue(Files.exists(IcsIndex.indexPathFor(ics)));
+
+            IcsIndex index = IcsIndex.load(ics);
+            assertEquals(30, index.size());
+            assertEquals("idx-0", index.slots().get(0).key());
+            assertEquals(start.plusDays(29), index.slots().get(29).start());
+            assertEquals(3, index.startingBetween(start.plusDays(10), start.plusDays(13)).size());
+
+            CalendarEntry e = index.readEvent("idx-17");
+            assertEquals("Termin 17", e.getTitle());
+            assertEquals("Notiz 17", e.getDescription());
+            assertNull(index.readEvent("gibt-es-nicht"));
+
+            // Neuaufbau per Zeilenscan liefert dieselben Bereiche
+            assertEquals(index.slots(), IcsIndex.rebuild(ics).slots());
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    @Test
+    void testPatchReplaceInsertAndRemove() throws Exception {
+        Path dir = Files.createTempDirectory("cal-idx-");
+        Path ics = dir.resolve("calendar.ics");
+        try {
+            List<EntryValue> before = sample(20);
+            IcsUtil.exportIcsIndexed(ics, before);
+
+            List<EntryValue> after = new ArrayList<>(before);
+            after.set(5, after.get(5).withTitle("Deutlich längerer Titel für den Termin"));
+            after.set(6, after.get(6).withStart(start.minusDays(3)).withEnd(start.minusDays(3).plusHours(2)));
+            after.remove(10);
+            after.add(EntryValue.of("Neu", "", start.plusDays(40), start.plusDays(40).plusHours(1)).withUid("idx-neu"));
+
+            assertTrue(IcsIndex.applyDiff(ics, before, after, IcsIndex.MAX_PATCH_CHANGES));
+
+            List<CalendarEntry> back = IcsUtil.importIcs(ics);
+            assertEquals(after.size(), back.size());
+            for (EntryValue v : after) {
+                CalendarEntry match = back.stream().filter(c -> v.uid().equals(c.getUid())).findFirst().orElseThrow();
+                assertEquals(v.title(), match.getTitle());
+                assertEquals(v.start(), match.getStart());
+            }
+
+            // Der gespeicherte Index passt zur geänderten Datei
+            IcsIndex index = IcsIndex.load(ics);
+            assertEquals(IcsIndex.rebuild(ics).slots(), index.slots());
+            assertEquals("idx-" + (19 - 6), index.slots().get(0).key());
+            assertEquals("Neu", index.readEvent("idx-neu").getTitle());
+
+            // Zu viele Änderungen: kein Patch, Datei unverändert
+            List<EntryValue> many = new ArrayList<>();
+            for (EntryValue v : after) many.add(v.withCategory("Arbeit"));
+            long size = Files.size(ics);
+            assertFalse(IcsIndex.applyDiff(ics, after, many, 3));
+            assertEquals(size, Files.size(ics));
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    @Test
+    void testStaleIndexIsRebuilt() throws Exception {
+        Path dir = Files.createTempDirectory("cal-idx-");
+        Path ics = dir.resolve("calendar.ics");
+        try {
+            IcsUtil.exportIcsIndexed(ics, sample(5));
+            // Datei ohne Index neu schreiben: Index ist veraltet
+            IcsUtil.exportIcsValues(ics, sample(8));
+            IcsIndex index = IcsIndex.load(ics);
+            assertEquals(8, index.size());
+            assertEquals("Termin 7", index.readEvent("idx-7").getTitle());
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    /** Serienausnahmen erhalten eigene Blöcke; Export und Zeilenscan bilden denselben Schlüssel. */
+    @Test
+    void testOverridesAreIndexedByKey() throws Exception {
+        Path dir = Files.createTempDirectory("cal-idx-");
+        Path ics = dir.resolve("calendar.ics");
+        try {
+            EntryValue master = sample(1).get(0).withUid("serie");
+            EntryValue override = master.withRecurrenceId(";TZID=Europe/Berlin:20250113T080000")
+                    .withStart(start.plusDays(7).plusHours(3)).withEnd(start.plusDays(7).plusHours(4))
+                    .withTitle("Verschoben");
+            IcsUtil.exportIcsIndexed(ics, List.of(master, override));
+
+            IcsIndex index = IcsIndex.load(ics);
+            assertEquals(List.of("serie", override.key()), index.slots().stream().map(IcsIndex.Slot::key).toList());
+            assertEquals(index.slots(), IcsIndex.rebuild(ics).slots());
+            CalendarEntry e = index.readEvent(override.key());
+            assertEquals("Verschoben", e.getTitle());
+            assertEquals(override.recurrenceId(), e.getRecurrenceId());
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    /**
+     * Blöcke ohne Schlüssel oder außerhalb von {@code before} kann der Patch nicht sicher
+     * behandeln: kein Patch statt doppelter oder nie gelöschter Termine.
+     */
+    @Test
+    void testPatchRefusesBlocksUnknownToIndexOrSnapshot() throws Exception {
+        Path dir = Files.createTempDirectory("cal-idx-");
+        Path ics = dir.resolve("calendar.ics");
+        try {
+            List<EntryValue> before = sample(5);
+            List<EntryValue> withoutUid = new ArrayList<>(before);
+            withoutUid.add(EntryValue.of("Ohne UID", "", start, start.plusHours(1)));
+            IcsUtil.exportIcsIndexed(ics, withoutUid);
+            assertEquals(1, IcsIndex.load(ics).unkeyed());
+            assertEquals(1, IcsIndex.rebuild(ics).unkeyed());
+
+            List<EntryValue> after = new ArrayList<>(before);
+            after.set(0, after.get(0).withTitle("Geändert"));
+            long size = Files.size(ics);
+            assertFalse(IcsIndex.applyDiff(ics, before, after, IcsIndex.MAX_PATCH_CHANGES));
+            assertEquals(size, Files.size(ics));
+
+            // Datei enthält einen Termin, den before nicht kennt: nicht anhängen, sondern ablehnen
+            List<EntryValue> extra = new ArrayList<>(before);
+            extra.add(EntryValue.of("Fremd", "", start, start.plusHours(1)).withUid("fremd"));
+            IcsUtil.exportIcsIndexed(ics, extra);
+            List<EntryValue> added = new ArrayList<>(before);
+            added.add(EntryValue.of("Fremd neu", "", start, start.plusHours(1)).withUid("fremd"));
+            assertFalse(IcsIndex.applyDiff(ics, before, added, IcsIndex.MAX_PATCH_CHANGES));
+            assertEquals(6, IcsUtil.importIcs(ics).size());
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    private static void deleteAll(Path dir) throws Exception {
+        try (var files = Files.list(dir)) {
+            for (Path p : files.toList()) Files.deleteIfExists(p);
+        }
+        Files.deleteIfExists(dir);
+    }
+}
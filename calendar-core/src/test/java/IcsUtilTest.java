@@ -174,6 +174,39 @@ public class IcsUtilTest {
         }
     }
 
+    /** VCS behält die UID; Dateien ohne UID erhalten sie einmalig beim Import. */
+    @Test
+    void testVcsKeepsUid() throws Exception {
+        Path tmp = Files.createTempFile("cal-", ".vcs");
+        try {
+            CalendarEntry ce = sample("Mit UID", "", LocalDateTime.of(2025, 10, 1, 9, 0), LocalDateTime.of(2025, 10, 1, 10, 0));
+            ce.setUid("vcs-1");
+            IcsUtil.exportVcs(tmp, List.of(ce));
+            assertEquals("vcs-1", IcsUtil.importVcs(tmp).get(0).getUid());
+
+            Files.writeString(tmp, "BEGIN:VCALENDAR\r\nVERSION:1.0\r\nBEGIN:VEVENT\r\n"
+                    + "DTSTART:20251001T090000\r\nSUMMARY:Ohne UID\r\nEND:VEVENT\r\nEND:VCALENDAR\r\n");
+            assertNotNull(IcsUtil.importVcs(tmp).get(0).getUid());
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Termine ohne UID werden ohne Schlüssel exportiert und landen nicht im Fragment-Cache. */
+    @Test
+    void testExportWithoutUidBypassesCache() throws Exception {
+        Path tmp = Files.createTempFile("cal-", ".ics");
+        try {
+            IcsFragmentCache.shared().clear();
+            EntryValue v = EntryValue.of("Ohne UID", "", LocalDateTime.of(2025, 10, 1, 9, 0), LocalDateTime.of(2025, 10, 1, 10, 0));
+            IcsUtil.exportIcsValues(tmp, List.of(v));
+            assertEquals(0, IcsFragmentCache.shared().getStats().size());
+            assertEquals("Ohne UID", IcsUtil.importIcs(tmp).get(0).getTitle());
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
     @Test
     void testVcsMultipleEntries() throws Exception {
         List<CalendarEntry> src = new ArrayList<>();
@@ -246,6 +279,66 @@ public class IcsUtilTest {
         }
     }
 
+    @Test
+    void testCompressedIcsRoundTrip() throws Exception {
+        List<CalendarEntry> src = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime s = LocalDateTime.of(2025, 1, 1, 8, 0).plusHours(i * 7L);
+            src.add(sample("Wiederkehrende Besprechung " + (i % 5), "Raum 4.12, Agenda wie gehabt", s, s.plusHours(1)));
+        }
+        Path dir = Files.createTempDirectory("cal-gz-");
+        Path gz = dir.resolve("calendar.ics.gz");
+        Path plain = dir.resolve("calendar.ics");
+        try {
+            IcsUtil.exportIcs(gz, src);
+            IcsUtil.exportIcs(plain, src);
+            byte[] bytes = Files.readAllBytes(gz);
+            assertEquals(0x1f, bytes[0] & 0xff);
+            assertEquals(0x8b, bytes[1] & 0xff);
+            // UIDs und Zeitstempel sind kaum komprimierbar; Text wiederholt sich stark
+            assertTrue(bytes.length * 5 < Files.size(plain), "komprimiert " + bytes.length + " vs. " + Files.size(plain));
+
+            List<CalendarEntry> back = IcsUtil.importIcs(gz);
+            assertEquals(300, back.size());
+            assertEquals(src.get(42).getTitle(), back.get(42).getTitle());
+            assertEquals(src.get(42).getStart(), back.get(42).getStart());
+            assertEquals(300, IcsUtil.importAuto(gz).size());
+        } finally {
+            Files.deleteIfExists(gz);
+            Files.deleteIfExists(plain);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    void testImportAutoDetectsMagicBytes() throws Exception {
+        List<CalendarEntry> src = new ArrayList<>();
+        src.add(sample("VCS komprimiert", "Notiz", LocalDateTime.of(2025, 6, 2, 9, 0), LocalDateTime.of(2025, 6, 2, 10, 0)));
+        Path dir = Files.createTempDirectory("cal-gz-");
+        Path vcsGz = dir.resolve("termine.vcs.gz");
+        Path unnamed = dir.resolve("termine.dat");
+        try {
+            IcsUtil.exportVcs(vcsGz, src);
+            List<CalendarEntry> back = IcsUtil.importAuto(vcsGz);
+            assertEquals(1, back.size());
+            assertEquals("VCS komprimiert", back.get(0).getTitle());
+
+            // Komprimierter Inhalt ohne passende Endung: Format und Codec werden am Inhalt erkannt
+            Files.copy(vcsGz, unnamed);
+            assertEquals("VCS komprimiert", IcsUtil.importAuto(unnamed).get(0).getTitle());
+            Files.delete(unnamed);
+            Path icsGz = dir.resolve("x.ics.gz");
+            IcsUtil.exportIcs(icsGz, src);
+            Files.move(icsGz, unnamed);
+            assertEquals("VCS komprimiert", IcsUtil.importAuto(unnamed).get(0).getTitle());
+            assertEquals("Notiz", IcsUtil.importIcs(unnamed).get(0).getDescription());
+        } finally {
+            Files.deleteIfExists(vcsGz);
+            Files.deleteIfExists(unnamed);
+            Files.deleteIfExists(dir);
+        }
+    }
+
     @Test
     void testIcsEmptyList() throws Exception {
         List<CalendarEntry> src = new ArrayList<>();
@@ -441,4 +534,35 @@ public class IcsUtilTest {
             Files.deleteIfExists(tmp);
         }
     }
+
+    @Test
+    void testStreamEventsMatchesImportAcrossBatches() throws Exception {
+        StringBuilder ics = new StringBuilder("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//Test//Test//EN\r\n"
+                + "BEGIN:VTIMEZONE\r\nTZID:Europe/Berlin\r\nBEGIN:STANDARD\r\nDTSTART:19701025T030000\r\n"
+                + "TZOFFSETFROM:+0200\r\nTZOFFSETTO:+0100\r\nEND:STANDARD\r\nEND:VTIMEZONE\r\n");
+        int count = IcsUtil.STREAM_BATCH * 2 + 7;
+        for (int i = 0; i < count; i++) {
+            ics.append("BEGIN:VEVENT\r\nUID:s-").append(i).append("\r\n")
+                    .append("DTSTART;TZID=Europe/Berlin:20251201T0900").append(String.format("%02d", i % 60)).append("\r\n")
+                    .append("DTEND;TZID=Europe/Berlin:20251201T100000\r\nSUMMARY:Termin ").append(i).append("\r\n")
+                    .append("BEGIN:VALARM\r\nACTION:DISPLAY\r\nTRIGGER:-PT15M\r\nEND:VALARM\r\nEND:VEVENT\r\n");
+        }
+        ics.append("END:VCALENDAR\r\n");
+        byte[] bytes = ics.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+
+        List<EntryValue> streamed = new ArrayList<>();
+        long n = IcsUtil.streamEvents(new java.io.ByteArrayInputStream(bytes), streamed::add);
+        List<EntryValue> whole = EntryValue.snapshot(IcsUtil.importIcs(new java.io.ByteArrayInputStream(bytes)));
+        assertEquals(count, n);
+        assertEquals(whole, streamed);
+        assertEquals(Integer.valueOf(15), streamed.get(count - 1).reminderMinutesBefore());
+
+        // Zurückschreiben und erneut lesen
+        java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+        try (IcsUtil.EventWriter writer = new IcsUtil.EventWriter(out, false)) {
+            for (EntryValue v : streamed) writer.write(v);
+        }
+        List<EntryValue> back = EntryValue.snapshot(IcsUtil.importIcs(new java.io.ByteArrayInputStream(out.toByteArray())));
+        assertEquals(streamed, back);
+    }
 }
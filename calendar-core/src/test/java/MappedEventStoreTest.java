@@ -0,0 +1,126 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für den memory-mapped Ereignisspeicher.
+ */
+public class MappedEventStoreTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    private List<EntryValue> sample(int n) {
+        List<EntryValue> values = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            values.add(EntryValue.of("Termin " + i, "Notiz " + i, start.plusDays(i), start.plusDays(i).plusHours(1))
+                    .withUid("map-" + i));
+        }
+        return values;
+    }
+
+    @Test
+    void testWriteOpenAndRangeLookup() throws Exception {
+        Path file = Files.createTempFile("cal-map-", ".evs");
+        try {
+            MappedEventStore.write(file, sample(100));
+            try (MappedEventStore store = MappedEventStore.open(file)) {
+                assertEquals(100, store.size());
+                assertEquals("Termin 42", store.get(42).getTitle());
+                assertEquals("Notiz 42", store.get(42).getDescription());
+                assertEquals("map-42", store.get(42).getUid());
+                List<CalendarEntry> hits = store.range(start.plusDays(10), start.plusDays(13));
+                assertEquals(3, hits.size());
+                assertEquals("Termin 10", hits.get(0).getTitle());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /** UID, Recurrence-ID, X-Eigenschaften, Anhänge und ausgelagerte Beschreibung überstehen den Umweg. */
+    @Test
+    void testRoundTripKeepsAllFields() throws Exception {
+        Path file = Files.createTempFile("cal-map-", ".evs");
+        DescriptionStore blobs = DescriptionStore.create();
+        try {
+            CalendarEntry entry = new CalendarEntry(7, "Serie", null, start, start.plusHours(2));
+            entry.setUid("serie-1");
+            entry.setRecurrenceId("20240101T090000");
+            entry.setReminderMinutesBefore(15);
+            entry.setCategory("Arbeit");
+            entry.setExtraProperties("X-FOO:bar\r\nX-BAZ:1\r\n");
+            entry.setLazyDescription(blob(blobs, "Lange Beschreibung"));
+            entry.setAttachments(List.of(new AttachmentRef(blob(blobs, "Anhang"))));
+            EntryValue original = EntryValue.of(entry);
+
+            MappedEventStore.write(file, List.of(original));
+            try (MappedEventStore store = MappedEventStore.open(file)) {
+                EntryValue back = store.value(0);
+                assertEquals("serie-1", back.uid());
+                assertEquals("20240101T090000", back.recurrenceId());
+                assertEquals(original.key(), back.key());
+                assertEquals(7, back.id());
+                assertEquals(15, back.reminderMinutesBefore());
+                assertEquals("Arbeit", back.category());
+                assertEquals("X-FOO:bar\r\nX-BAZ:1\r\n", back.extraProperties());
+                assertNotNull(back.lazyDescription());
+                assertEquals(original.description(), back.description());
+                assertEquals(1, back.attachments().size());
+                assertEquals(original.attachments().get(0).size(), back.attachments().get(0).size());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testWriterRejectsUnsortedInput() throws Exception {
+        Path file = Files.createTempFile("cal-map-", ".evs");
+        try {
+            List<EntryValue> values = sample(3);
+            List<EntryValue> unsorted = List.of(values.get(1), values.get(0));
+            assertThrows(IllegalArgumentException.class, () -> MappedEventStore.write(file, unsorted));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /** Nach close() sind die Mappings freigegeben: Zugriffe scheitern und die Datei lässt sich löschen. */
+    @Test
+    void testCloseUnmaps() throws Exception {
+        Path file = Files.createTempFile("cal-map-", ".evs");
+        MappedEventStore.write(file, sample(5));
+        MappedEventStore store = MappedEventStore.open(file);
+        assertEquals("Termin 1", store.get(1).getTitle());
+        store.close();
+        store.close();
+        assertThrows(IllegalStateException.class, () -> store.get(1));
+        Files.delete(file);
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void testRejectsForeignFile() throws Exception {
+        Path file = Files.createTempFile("cal-map-", ".evs");
+        try {
+            Files.write(file, new byte[128]);
+            assertThrows(IOException.class, () -> MappedEventStore.open(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static LazyText blob(DescriptionStore blobs, String text) throws Exception {
+        DescriptionStore.BlobWriter w = blobs.newBlob();
+        w.write(("DESCRIPTION:" + text + "\r\n").getBytes(StandardCharsets.UTF_8));
+        return w.finish(text);
+    }
+}
@@ -0,0 +1,155 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für den zeitlich partitionierten ICS-Speicher.
+ */
+public class SegmentedIcsStoreTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2025, 1, 10, 9, 0);
+
+    /** Ein Termin pro Woche über ca. ein halbes Jahr (Januar bis Juni). */
+    private List<EntryValue> sample() {
+        List<EntryValue> values = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            values.add(EntryValue.of("Termin " + i, "Notiz " + i, start.plusWeeks(i), start.plusWeeks(i).plusHours(1))
+                    .withUid("seg-" + i));
+        }
+        return values;
+    }
+
+    @Test
+    void testOnlyChangedSegmentsAreWritten() throws Exception {
+        Path dir = Files.createTempDirectory("cal-seg-");
+        try {
+            SegmentedIcsStore store = SegmentedIcsStore.open(dir, SegmentedIcsStore.Granularity.MONTH);
+            assertFalse(store.exists());
+            List<EntryValue> values = sample();
+            assertEquals(6, store.save(values));
+            assertTrue(store.exists());
+            assertEquals(List.of("2025-01", "2025-02", "2025-03", "2025-04", "2025-05", "2025-06"),
+                    store.segments().stream().map(SegmentedIcsStore.Segment::key).toList());
+            assertTrue(Files.exists(dir.resolve("2025-03.ics")));
+
+            // Unverändert: nichts wird geschrieben
+            assertEquals(0, store.save(values));
+
+            // Eine Änderung im März: genau ein Segment
+            long febModified = Files.getLastModifiedTime(dir.resolve("2025-02.ics")).toMillis();
+            List<EntryValue> changed = new ArrayList<>(values);
+            changed.set(9, changed.get(9).withTitle("Geändert"));
+            assertEquals(1, store.save(changed));
+            assertEquals(febModified, Files.getLastModifiedTime(dir.resolve("2025-02.ics")).toMillis());
+
+            // Alle Termine im Juni gelöscht: Segment wird entfernt
+            changed.removeIf(v -> v.start().getMonthValue() == 6);
+            assertEquals(1, store.save(changed));
+            assertFalse(Files.exists(dir.resolve("2025-06.ics")));
+            assertEquals(5, store.segments().size());
+
+            // Neu geöffnet: Manifest und Inhalt passen
+            SegmentedIcsStore reopened = SegmentedIcsStore.open(dir, SegmentedIcsStore.Granularity.MONTH);
+            List<CalendarEntry> all = reopened.loadAll();
+            assertEquals(changed.size(), all.size());
+            assertEquals("Geändert", all.stream().filter(c -> "seg-9".equals(c.getUid())).findFirst().orElseThrow().getTitle());
+            assertEquals(0, reopened.save(EntryValue.snapshot(all)));
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    @Test
+    void testPartialLoadKeepsAndMergesUnloadedSegments() throws Exception {
+        Path dir = Files.createTempDirectory("cal-seg-");
+        try {
+            SegmentedIcsStore.open(dir, SegmentedIcsStore.Granularity.MONTH).save(sample());
+
+            SegmentedIcsStore store = SegmentedIcsStore.open(dir, SegmentedIcsStore.Granularity.MONTH);
+            List<String> keys = store.keysByDistance(LocalDate.of(2025, 3, 15));
+            assertEquals("2025-03", keys.get(0));
+            assertEquals(List.of("2025-04", "2025-02"), keys.subList(1, 3));
+
+            List<CalendarEntry> march = store.load(List.of("2025-03"));
+            assertTrue(march.stream().allMatch(c -> c.getStart().getMonthValue() == 3));
+
+            // Einen Märztermin in den (nicht geladenen) Mai verschieben
+            List<EntryValue> values = new ArrayList<>(EntryValue.snapshot(march));
+            EntryValue moved = values.remove(0);
+            values.add(moved.withStart(LocalDateTime.of(2025, 5, 20, 10, 0)).withEnd(LocalDateTime.of(2025, 5, 20, 11, 0)));
+            assertEquals(2, store.save(values));
+
+            List<CalendarEntry> all = SegmentedIcsStore.open(dir, SegmentedIcsStore.Granularity.MONTH).loadAll();
+            assertEquals(24, all.size(), "Nicht geladene Segmente dürfen nicht verloren gehen");
+            CalendarEntry back = all.stream().filter(c -> moved.uid().equals(c.getUid())).findFirst().orElseThrow();
+            assertEquals(5, back.getStart().getMonthValue());
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    @Test
+    void testGranularityChangeAndSingleExport() throws Exception {
+        Path dir = Files.createTempDirectory("cal-seg-");
+        Path single = Files.createTempFile("cal-seg-single-", ".ics");
+        try {
+            SegmentedIcsStore.open(dir, SegmentedIcsStore.Granularity.MONTH).save(sample());
+
+            SegmentedIcsStore yearly = SegmentedIcsStore.open(dir, SegmentedIcsStore.Granularity.YEAR);
+            assertEquals(List.of("2025"), yearly.segments().stream().map(SegmentedIcsStore.Segment::key).toList());
+            assertFalse(Files.exists(dir.resolve("2025-01.ics")));
+            assertEquals(24, yearly.segments().get(0).count());
+
+            yearly.exportSingle(single);
+            List<CalendarEntry> back = IcsUtil.importIcs(single);
+            back.sort(Comparator.comparing(CalendarEntry::getStart));
+            assertEquals(24, back.size());
+            assertEquals("Termin 0", back.get(0).getTitle());
+            assertEquals("Notiz 23", back.get(23).getDescription());
+        } finally {
+            Files.deleteIfExists(single);
+            deleteAll(dir);
+        }
+    }
+
+    /** Eine Serienausnahme in einem nicht geladenen Segment bleibt neben ihrer Serie erhalten. */
+    @Test
+    void testUnloadedSegmentKeepsOverridesOfSameUid() throws Exception {
+        Path dir = Files.createTempDirectory("cal-seg-");
+        try {
+            List<EntryValue> values = sample();
+            EntryValue master = values.get(20); // Mai
+            values.add(master.withRecurrenceId(":20250601T090000").withTitle("Ausnahme"));
+            SegmentedIcsStore.open(dir, SegmentedIcsStore.Granularity.MONTH).save(values);
+
+            // Nur März laden und die Serie selbst (nicht geladen, Mai) unverändert mitspeichern
+            SegmentedIcsStore store = SegmentedIcsStore.open(dir, SegmentedIcsStore.Granularity.MONTH);
+            List<EntryValue> next = new ArrayList<>(EntryValue.snapshot(store.load(List.of("2025-03"))));
+            next.add(master.withTitle("Serie geändert"));
+            store.save(next);
+
+            List<CalendarEntry> all = SegmentedIcsStore.open(dir, SegmentedIcsStore.Granularity.MONTH).loadAll();
+            assertEquals(25, all.size());
+            List<String> titles = all.stream().filter(c -> master.uid().equals(c.getUid()))
+                    .map(CalendarEntry::getTitle).sorted().toList();
+            assertEquals(List.of("Ausnahme", "Serie geändert"), titles);
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    private static void deleteAll(Path dir) throws Exception {
+        try (var files = Files.list(dir)) {
+            for (Path p : files.toList()) Files.deleteIfExists(p);
+        }
+        Files.deleteIfExists(dir);
+    }
+}
@@ -0,0 +1,148 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für die gemeinsam genutzte ICS-Datei (Sperre, Generationszähler, Nachlesen).
+ * Zwei Ablagen auf derselben Datei stehen für zwei Instanzen der Anwendung.
+ */
+public class SharedIcsFileTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2025, 9, 1, 8, 0);
+
+    private List<EntryValue> sample(int n) {
+        List<EntryValue> values = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            values.add(EntryValue.of("Termin " + i, "", start.plusDays(i), start.plusDays(i).plusHours(1)).withUid("s-" + i));
+        }
+        return values;
+    }
+
+    private static String title(List<EntryValue> values, String uid) {
+        return values.stream().filter(v -> uid.equals(v.uid())).findFirst().map(EntryValue::title).orElse(null);
+    }
+
+    @Test
+    void testLosingSaveMergesChangedEventsAndRetries() throws Exception {
+        Path dir = Files.createTempDirectory("cal-shared-");
+        Path file = dir.resolve("calendar.ics");
+        try (IcsFileStore a = new IcsFileStore(file, true, true);
+             IcsFileStore b = new IcsFileStore(file, true, true)) {
+            a.replaceAll(sample(50));
+            List<EntryValue> base = EntryValue.snapshot(b.loadAll());
+            assertEquals(a.getGeneration(), b.getGeneration());
+
+            // A ändert Termin 1 und löscht Termin 2
+            List<EntryValue> fromA = new ArrayList<>(EntryValue.snapshot(a.loadAll()));
+            fromA.sort(Comparator.comparing(EntryValue::uid));
+            fromA.replaceAll(v -> "s-1".equals(v.uid()) ? v.withTitle("Von A") : v);
+            fromA.removeIf(v -> "s-2".equals(v.uid()));
+            assertEquals(2, a.replaceAll(fromA));
+
+            // B hat Termin 3 geändert und verliert das Rennen
+            List<EntryValue> fromB = new ArrayList<>(base);
+            fromB.replaceAll(v -> "s-3".equals(v.uid()) ? v.withTitle("Von B") : v);
+            assertThrows(IcsFileStore.StaleException.class, () -> b.replaceAll(fromB));
+            assertEquals("Termin 3", title(EntryValue.snapshot(IcsUtil.importIcs(file)), "s-3"), "A's Stand bleibt unangetastet");
+
+            // Nachlesen liefert A's Änderungen, Abgleich und erneuter Versuch gelingen
+            List<EntryValue> remote = b.pull();
+            assertEquals(a.getGeneration(), b.getGeneration());
+            assertEquals("Von A", title(remote, "s-1"));
+            assertNull(title(remote, "s-2"));
+            ThreeWayMerge.Result merged = ThreeWayMerge.merge(base, fromB, remote);
+            assertEquals(1, b.replaceAll(merged.merged()));
+
+            List<EntryValue> onDisk = EntryValue.snapshot(IcsUtil.importIcs(file));
+            assertEquals(49, onDisk.size());
+            assertEquals("Von A", title(onDisk, "s-1"));
+            assertEquals("Von B", title(onDisk, "s-3"));
+            assertEquals("Von B", title(a.pull(), "s-3"));
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    @Test
+    void testJournalListsOnlyChangedUids() throws Exception {
+        Path dir = Files.createTempDirectory("cal-shared-");
+        Path file = dir.resolve("calendar.ics");
+        try (IcsFileStore a = new IcsFileStore(file, true, true)) {
+            a.replaceAll(sample(200));
+            long before = a.getGeneration();
+            a.upsert(List.of(sample(200).get(7).withTitle("Geändert")));
+            a.delete(List.of("s-9"));
+
+            GenerationLock lock = GenerationLock.forFile(file);
+            try (GenerationLock.Held held = lock.acquire(true)) {
+                assertEquals(before + 2, held.generation());
+                assertEquals(Set.of("s-7", "s-9"), held.changedSince(before));
+                assertEquals(Set.of("s-9"), held.changedSince(before + 1));
+                assertEquals(Set.of(), held.changedSince(before + 2));
+                assertTrue(held.matches(Files.size(file), Files.getLastModifiedTime(file).toMillis()));
+            }
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    @Test
+    void testForeignWriteForcesFullReload() throws Exception {
+        Path dir = Files.createTempDirectory("cal-shared-");
+        Path file = dir.resolve("calendar.ics");
+        try (IcsFileStore a = new IcsFileStore(file, true, true)) {
+            a.replaceAll(sample(5));
+            // Programm ohne Sperre schreibt die Datei neu
+            List<EntryValue> foreign = new ArrayList<>(sample(6));
+            foreign.set(0, foreign.get(0).withTitle("Fremd"));
+            IcsUtil.exportIcsValues(file, foreign);
+            Files.setLastModifiedTime(file, java.nio.file.attribute.FileTime.fromMillis(System.currentTimeMillis() + 2000));
+
+            assertThrows(IcsFileStore.StaleException.class, () -> a.upsert(List.of(sample(1).get(0).withTitle("Lokal"))));
+            List<EntryValue> remote = a.pull();
+            assertEquals(6, remote.size());
+            assertEquals("Fremd", title(remote, "s-0"));
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    @Test
+    void testJournalIsTrimmed() throws Exception {
+        Path dir = Files.createTempDirectory("cal-shared-");
+        Path file = dir.resolve("calendar.ics");
+        try {
+            GenerationLock lock = GenerationLock.forFile(file);
+            List<String> many = new ArrayList<>();
+            for (int i = 0; i < GenerationLock.JOURNAL_LIMIT; i++) many.add("u-" + i);
+            try (GenerationLock.Held held = lock.acquire(false)) {
+                held.commit(List.of("erste"), 1, 1);
+                held.commit(many, 2, 2);
+                held.commit(List.of("letzte"), 3, 3);
+            }
+            try (GenerationLock.Held held = lock.acquire(true)) {
+                assertEquals(3, held.generation());
+                assertNull(held.changedSince(0), "Älteste Generationen sind verworfen");
+                assertEquals(Set.of("letzte"), held.changedSince(2));
+                assertTrue(held.matches(3, 3));
+            }
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    private static void deleteAll(Path dir) throws Exception {
+        if (!Files.exists(dir)) return;
+        try (var files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+}
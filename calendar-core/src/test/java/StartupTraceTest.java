@@ -0,0 +1,34 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für die Startmarken.
+ */
+public class StartupTraceTest {
+
+    /** Marken behalten den ersten Zeitpunkt und ihre Reihenfolge; begin() setzt neu auf. */
+    @Test
+    void testFirstMarkWinsAndBeginResets() throws Exception {
+        StartupTrace.begin();
+        assertTrue(StartupTrace.isEnabled());
+        StartupTrace.mark("entries_parsed");
+        Thread.sleep(5);
+        StartupTrace.mark("calendar_populated");
+        double parsed = StartupTrace.snapshot().get("entries_parsed");
+        Thread.sleep(5);
+        StartupTrace.mark("entries_parsed");
+
+        Map<String, Double> marks = StartupTrace.snapshot();
+        assertEquals(List.of("entries_parsed", "calendar_populated"), List.copyOf(marks.keySet()));
+        assertEquals(parsed, marks.get("entries_parsed"));
+        assertTrue(marks.get("calendar_populated") >= parsed + 4.0);
+        assertTrue(parsed >= 0 && parsed < 1000);
+
+        StartupTrace.begin();
+        assertTrue(StartupTrace.snapshot().isEmpty());
+    }
+}
@@ -0,0 +1,79 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für den deduplizierenden String-Pool.
+ */
+public class StringPoolTest {
+
+    @Test
+    void testEqualValuesShareInstance() {
+        StringPool pool = new StringPool(StringPool.DEFAULT_MAX_LENGTH);
+        String a = pool.intern(new String("Jour fixe"));
+        String b = pool.intern(new String("Jour fixe"));
+        assertSame(a, b);
+
+        StringPool.Stats stats = pool.getStats();
+        assertEquals(2, stats.lookups());
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.distinct());
+        assertTrue(stats.savedBytes() > 0);
+    }
+
+    /** Die Einsparung gilt für die aktuellen Werte und wächst nicht über mehrere Ladevorgänge. */
+    @Test
+    void testSavedBytesReflectCurrentContents() {
+        StringPool pool = new StringPool(StringPool.DEFAULT_MAX_LENGTH);
+        String kept = pool.intern(new String("Jour fixe"));
+        for (int i = 0; i < 10; i++) pool.intern(new String("Jour fixe"));
+        long once = pool.getStats().savedBytes();
+        assertEquals(10 * StringPool.estimateSize("Jour fixe"), once);
+
+        // Neuladen: dieselben Duplikate noch einmal
+        pool.resetStats();
+        assertEquals(0, pool.getStats().savedBytes());
+        for (int i = 0; i < 10; i++) pool.intern(new String("Jour fixe"));
+        assertEquals(once, pool.getStats().savedBytes());
+        assertEquals(10, pool.getStats().hits());
+        assertEquals(1, pool.getStats().distinct());
+        assertSame(kept, pool.intern(new String("Jour fixe")));
+    }
+
+    @Test
+    void testLongValuesAreNotPooled() {
+        StringPool pool = new StringPool(8);
+        String longValue = "Deutlich länger als acht Zeichen";
+        assertSame(longValue, pool.intern(longValue));
+        assertNull(pool.intern(null));
+        assertEquals(0, pool.getStats().lookups());
+    }
+
+    @Test
+    void testImportDeduplicatesRecurringTitles() throws Exception {
+        List<CalendarEntry> src = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            CalendarEntry e = new CalendarEntry("Daily Standup", "Team-Runde",
+                    LocalDateTime.of(2025, 9, 1 + i, 9, 0), LocalDateTime.of(2025, 9, 1 + i, 9, 15));
+            e.setCategory("Arbeit");
+            src.add(e);
+        }
+        Path tmp = Files.createTempFile("cal-", ".ics");
+        try {
+            IcsUtil.exportIcs(tmp, src);
+            List<CalendarEntry> back = IcsUtil.importIcs(tmp);
+            assertEquals(3, back.size());
+            assertSame(back.get(0).getTitle(), back.get(2).getTitle());
+            assertSame(back.get(0).getDescription(), back.get(1).getDescription());
+            assertSame(back.get(1).getCategory(), back.get(2).getCategory());
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
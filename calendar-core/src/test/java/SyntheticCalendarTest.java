@@ -0,0 +1,101 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für den synthetischen Kalendergenerator.
+ */
+public class SyntheticCalendarTest {
+
+    private static byte[] generate(SyntheticCalendar.Spec spec, boolean vcs) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SyntheticCalendar.write(spec, out, vcs);
+        return out.toByteArray();
+    }
+
+    /** Gleicher Seed ergibt dieselben Bytes, ein anderer Seed einen anderen Kalender. */
+    @Test
+    void testSameSeedIsByteIdentical() throws Exception {
+        SyntheticCalendar.Spec spec = SyntheticCalendar.Spec.defaults().withEvents(500).withSeed(42);
+        assertArrayEquals(generate(spec, false), generate(spec, false));
+        assertArrayEquals(generate(spec, true), generate(spec, true));
+        assertFalse(java.util.Arrays.equals(generate(spec, false), generate(spec.withSeed(43), false)));
+    }
+
+    /** Anzahl, Kategorien, Wiederholungen und Erinnerungen entsprechen der Vorgabe; ICS und VCS sind importierbar. */
+    @Test
+    void testGeneratedCalendarMatchesSpec() throws Exception {
+        SyntheticCalendar.Spec spec = SyntheticCalendar.Spec.defaults().withEvents(2000).withCategories(12).withRecurrence(0.2);
+        byte[] ics = generate(spec, false);
+        String text = new String(ics, StandardCharsets.UTF_8);
+        int rules = text.split("\r\nRRULE:", -1).length - 1;
+        int alarms = text.split("\r\nBEGIN:VALARM", -1).length - 1;
+        assertTrue(rules > 300 && rules < 500, "Wiederholungen: " + rules);
+        assertTrue(alarms > 400 && alarms < 600, "Erinnerungen: " + alarms);
+
+        List<CalendarEntry> entries = IcsUtil.importIcs(new ByteArrayInputStream(ics));
+        assertEquals(2000, entries.size());
+        Set<String> categories = new HashSet<>();
+        Set<String> uids = new HashSet<>();
+        for (CalendarEntry e : entries) {
+            categories.add(e.getCategory());
+            uids.add(e.getUid());
+            assertFalse(e.getEnd().isBefore(e.getStart()));
+        }
+        assertTrue(categories.size() <= 12 && categories.size() > 6, "Kategorien: " + categories);
+        assertEquals(2000, uids.size());
+
+        Path dir = Files.createTempDirectory("synthetic-");
+        Path vcs = dir.resolve("gross.vcs.gz");
+        assertEquals(2000, SyntheticCalendar.write(spec, vcs));
+        assertEquals(2000, IcsUtil.importAuto(vcs).size());
+    }
+
+    /** Lange Zeilen werden nach 75 Oktetten gefaltet, ohne UTF-8-Zeichen zu trennen; Beschreibungen bleiben erhalten. */
+    @Test
+    void testFoldingKeepsLinesShortAndContentIntact() throws Exception {
+        SyntheticCalendar.Spec spec = SyntheticCalendar.Spec.defaults().withEvents(200).withDescriptions(400, 0.05, 8192);
+        byte[] folded = generate(spec, false);
+        for (String line : new String(folded, StandardCharsets.UTF_8).split("\r\n")) {
+            assertTrue(line.getBytes(StandardCharsets.UTF_8).length <= SyntheticCalendar.FOLD_OCTETS, line);
+            assertFalse(line.contains("�"));
+        }
+
+        List<CalendarEntry> a = IcsUtil.importIcs(new ByteArrayInputStream(folded));
+        List<CalendarEntry> b = IcsUtil.importIcs(new ByteArrayInputStream(generate(spec.withFold(false), false)));
+        assertEquals(a.size(), b.size());
+        boolean huge = false;
+        for (int i = 0; i < a.size(); i++) {
+            assertEquals(b.get(i).getDescription(), a.get(i).getDescription());
+            huge |= a.get(i).getDescription().length() >= 8192;
+        }
+        assertTrue(huge);
+    }
+
+    /** {@code generate} auf der Kommandozeile schreibt dieselbe Datei wie der direkte Aufruf. */
+    @Test
+    void testCliGenerate() throws Exception {
+        Path dir = Files.createTempDirectory("synthetic-cli-");
+        Path file = dir.resolve("last.ics");
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int code = CalendarCli.run(new String[]{"generate", "-o", file.toString(), "--events=300", "--seed=7", "--categories=3"},
+                new ByteArrayInputStream(new byte[0]), new PrintStream(new ByteArrayOutputStream()), new PrintStream(err));
+        assertEquals(0, code, err.toString());
+        SyntheticCalendar.Spec spec = SyntheticCalendar.Spec.defaults().withEvents(300).withSeed(7).withCategories(3);
+        assertArrayEquals(generate(spec, false), Files.readAllBytes(file));
+
+        code = CalendarCli.run(new String[]{"generate", "-o", file.toString(), "--overlap=2"},
+                new ByteArrayInputStream(new byte[0]), new PrintStream(new ByteArrayOutputStream()), new PrintStream(err));
+        assertEquals(2, code);
+    }
+}
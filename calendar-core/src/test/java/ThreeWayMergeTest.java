@@ -0,0 +1,141 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für den Dreiwege-Abgleich und die Dateiüberwachung.
+ */
+public class ThreeWayMergeTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2025, 6, 2, 10, 0);
+
+    private List<EntryValue> sample(int n) {
+        List<EntryValue> values = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            values.add(EntryValue.of("Termin " + i, "", start.plusDays(i), start.plusDays(i).plusHours(1)).withUid("m-" + i));
+        }
+        return values;
+    }
+
+    private static EntryValue find(List<EntryValue> values, String uid) {
+        return values.stream().filter(v -> uid.equals(v.uid())).findFirst().orElse(null);
+    }
+
+    @Test
+    void testNonOverlappingChangesAreCombined() {
+        List<EntryValue> base = sample(5);
+        List<EntryValue> local = new ArrayList<>(base);
+        List<EntryValue> remote = new ArrayList<>(base);
+
+        local.set(0, local.get(0).withTitle("Lokal"));
+        local.add(EntryValue.of("Lokal neu", "", start, start.plusHours(1)).withUid("m-lokal"));
+        remote.set(1, remote.get(1).withTitle("Extern"));
+        remote.remove(4);
+        remote.add(EntryValue.of("Extern neu", "", start, start.plusHours(1)).withUid("m-extern"));
+
+        ThreeWayMerge.Result r = ThreeWayMerge.merge(base, local, remote);
+        assertEquals(6, r.merged().size());
+        assertEquals("Lokal", find(r.merged(), "m-0").title());
+        assertEquals("Extern", find(r.merged(), "m-1").title());
+        assertNull(find(r.merged(), "m-4"));
+        assertNotNull(find(r.merged(), "m-lokal"));
+        assertNotNull(find(r.merged(), "m-extern"));
+
+        // Nur die externen Änderungen betreffen die Ansicht
+        assertEquals(List.of("m-1", "m-extern"), r.upserts().stream().map(EntryValue::uid).sorted().toList());
+        assertEquals(List.of("m-4"), r.removals());
+        assertTrue(r.conflicts().isEmpty());
+        assertTrue(r.localOnly());
+    }
+
+    @Test
+    void testConflictsKeepLocalAndEditBeatsDelete() {
+        List<EntryValue> base = sample(3);
+        List<EntryValue> local = new ArrayList<>(base);
+        List<EntryValue> remote = new ArrayList<>(base);
+
+        local.set(0, local.get(0).withTitle("Lokal"));
+        remote.set(0, remote.get(0).withTitle("Extern"));
+        // Gleiche Änderung auf beiden Seiten ist kein Konflikt
+        local.set(2, local.get(2).withTitle("Gleich"));
+        remote.set(2, remote.get(2).withTitle("Gleich"));
+        local.remove(1);
+        remote.set(1, remote.get(1).withTitle("Extern geändert"));
+
+        ThreeWayMerge.Result r = ThreeWayMerge.merge(base, local, remote);
+        assertEquals("Lokal", find(r.merged(), "m-0").title());
+        assertEquals("Extern geändert", find(r.merged(), "m-1").title());
+        assertEquals("Gleich", find(r.merged(), "m-2").title());
+        assertEquals(List.of("m-0", "m-1"), r.conflicts().stream().sorted().toList());
+        assertEquals(List.of("m-1"), r.upserts().stream().map(EntryValue::uid).toList());
+    }
+
+    @Test
+    void testUnchangedLocalTakesRemoteWithoutLocalChanges() {
+        List<EntryValue> base = sample(4);
+        List<EntryValue> remote = new ArrayList<>(base);
+        remote.set(3, remote.get(3).withTitle("Extern"));
+        ThreeWayMerge.Result r = ThreeWayMerge.merge(base, base, remote);
+        assertFalse(r.localOnly());
+        assertEquals(1, r.upserts().size());
+        assertEquals(4, r.merged().size());
+    }
+
+    /** Ausnahmen einer Serie (gleiche UID, eigene RECURRENCE-ID) werden einzeln abgeglichen. */
+    @Test
+    void testOverridesAreMergedSeparately() {
+        EntryValue master = sample(1).get(0).withUid("serie");
+        EntryValue first = master.withRecurrenceId(":20250609T100000").withTitle("Ausnahme 1");
+        EntryValue second = master.withRecurrenceId(":20250616T100000").withTitle("Ausnahme 2");
+        List<EntryValue> base = List.of(master, first, second);
+
+        List<EntryValue> local = List.of(master.withTitle("Lokal"), first, second);
+        List<EntryValue> remote = List.of(master, first.withTitle("Extern"));
+
+        ThreeWayMerge.Result r = ThreeWayMerge.merge(base, local, remote);
+        assertEquals(List.of("Lokal", "Extern"), r.merged().stream().map(EntryValue::title).toList());
+        assertEquals(List.of(first.key()), r.upserts().stream().map(EntryValue::key).toList());
+        assertEquals(List.of(second.key()), r.removals());
+        assertTrue(r.conflicts().isEmpty());
+        assertTrue(r.localOnly());
+    }
+
+    @Test
+    void testWatcherReportsOnlyContentChanges() throws Exception {
+        Path dir = Files.createTempDirectory("cal-watch-");
+        Path file = dir.resolve("calendar.ics");
+        IcsUtil.exportIcsValues(file, sample(2));
+        BlockingQueue<String> changes = new ArrayBlockingQueue<>(10);
+        try (IcsFileWatcher watcher = IcsFileWatcher.start(file, changes::add)) {
+            // Eigener Schreibvorgang wird bestätigt und nicht gemeldet
+            IcsUtil.exportIcsValues(file, sample(3));
+            watcher.acknowledge();
+            assertNull(watcher.changedHash());
+
+            // Externer Schreibvorgang mit neuem Inhalt wird gemeldet
+            IcsUtil.exportIcsValues(file, sample(4));
+            String hash = changes.poll(10, TimeUnit.SECONDS);
+            assertNotNull(hash, "Externe Änderung nicht erkannt");
+            assertEquals(hash, watcher.changedHash());
+            watcher.acknowledge(hash);
+            assertNull(watcher.changedHash());
+
+            // Nur berührt: kein neuer Inhalt, keine Meldung
+            Files.setLastModifiedTime(file, java.nio.file.attribute.FileTime.fromMillis(System.currentTimeMillis() + 5000));
+            assertNull(watcher.changedHash());
+            assertNull(changes.poll(IcsFileWatcher.SETTLE_MILLIS * 4, TimeUnit.MILLISECONDS));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für den Versionsverlauf aus inhaltsadressierten Blöcken.
+ */
+public class VersionHistoryTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2025, 3, 3, 8, 0);
+
+    private List<EntryValue> sample(int n) {
+        List<EntryValue> values = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            values.add(EntryValue.of("Termin " + i, "Notiz zum Termin " + i, start.plusHours(i * 5L), start.plusHours(i * 5L + 1))
+                    .withUid("ver-" + i));
+        }
+        return values;
+    }
+
+    private static List<String> titles(List<CalendarEntry> entries) {
+        return entries.stream().sorted(Comparator.comparing(CalendarEntry::getUid)).map(CalendarEntry::getTitle).toList();
+    }
+
+    private static List<String> titlesOf(List<EntryValue> values) {
+        return values.stream().sorted(Comparator.comparing(EntryValue::uid)).map(EntryValue::title).toList();
+    }
+
+    @Test
+    void testRecordAndRestoreEveryVersion() throws Exception {
+        Path dir = Files.createTempDirectory("cal-hist-");
+        try {
+            VersionHistory history = VersionHistory.open(dir);
+            List<List<EntryValue>> states = new ArrayList<>();
+            List<EntryValue> values = sample(20);
+            states.add(values);
+            assertNotNull(history.record(values));
+            assertNull(history.record(values), "Unveränderter Stand ergibt keine neue Version");
+
+            values = new ArrayList<>(values);
+            values.set(3, values.get(3).withTitle("Geändert"));
+            values.remove(7);
+            states.add(values);
+            history.record(values);
+
+            values = new ArrayList<>(values);
+            values.add(EntryValue.of("Neu", "", start.plusDays(30), start.plusDays(30).plusHours(1)).withUid("ver-neu"));
+            states.add(values);
+            history.record(values);
+
+            // Neu geöffnet: alle Versionen vorhanden und exakt wiederherstellbar
+            VersionHistory reopened = VersionHistory.open(dir);
+            List<VersionHistory.Version> versions = reopened.versions();
+            assertEquals(3, versions.size());
+            for (int i = 0; i < 3; i++) {
+                assertEquals(states.get(i).size(), versions.get(i).count());
+                assertEquals(titlesOf(states.get(i)), titles(reopened.restore(versions.get(i).id())));
+            }
+
+            Path target = dir.resolve("restored.ics");
+            reopened.restoreTo(versions.get(1).id(), target);
+            List<CalendarEntry> fromFile = IcsUtil.importIcs(target);
+            assertEquals(19, fromFile.size());
+            assertEquals("Notiz zum Termin 0", fromFile.stream().filter(c -> "ver-0".equals(c.getUid())).findFirst().orElseThrow().getDescription());
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    @Test
+    void testVersionsCostOnlyChangedEvents() throws Exception {
+        Path dir = Files.createTempDirectory("cal-hist-");
+        try {
+            VersionHistory history = VersionHistory.open(dir);
+            List<EntryValue> values = new ArrayList<>(sample(200));
+            ByteArrayOutputStream full = new ByteArrayOutputStream();
+            IcsUtil.exportIcsValues(full, values);
+
+            int saves = 100;
+            for (int i = 0; i < saves; i++) {
+                values.set(i % values.size(), values.get(i % values.size()).withTitle("Bearbeitung " + i));
+                history.record(values);
+            }
+            assertEquals(saves, history.versions().size());
+            long used = history.sizeOnDisk();
+            long copies = (long) full.size() * saves;
+            assertTrue(used * 10 < copies, "Verlauf belegt " + used + " Bytes, Vollkopien " + copies);
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    @Test
+    void testPruneKeepsRestorableVersionsAndCollectsBlobs() throws Exception {
+        Path dir = Files.createTempDirectory("cal-hist-");
+        try {
+            VersionHistory history = VersionHistory.open(dir);
+            List<EntryValue> values = new ArrayList<>(sample(10));
+            List<List<EntryValue>> states = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                values.set(0, values.get(0).withTitle("Stand " + i));
+                history.record(values);
+                states.add(new ArrayList<>(values));
+            }
+            List<VersionHistory.Version> versions = history.versions();
+            long sizeBefore = history.sizeOnDisk();
+
+            // Nur die letzten vier Versionen liegen im Aufbewahrungsfenster
+            long last = versions.get(9).id();
+            Instant now = Instant.ofEpochMilli(last);
+            Duration keepAll = Duration.ofMillis(last - versions.get(6).id());
+            VersionHistory.PruneResult result = history.prune(new VersionHistory.Retention(keepAll, keepAll), now);
+            assertEquals(6, result.versionsRemoved());
+            assertEquals(6, result.blobsRemoved(), "Blöcke der entfernten Stände werden gelöscht");
+            assertTrue(history.sizeOnDisk() < sizeBefore);
+
+            VersionHistory reopened = VersionHistory.open(dir);
+            assertEquals(4, reopened.versions().size());
+            for (int i = 6; i < 10; i++) {
+                assertEquals(titlesOf(states.get(i)), titles(reopened.restore(versions.get(i).id())));
+            }
+
+            // Neue Version nach dem Bereinigen baut korrekt auf
+            values.set(1, values.get(1).withTitle("Danach"));
+            VersionHistory.Version v = reopened.record(values);
+            assertEquals(titlesOf(values), titles(reopened.restore(v.id())));
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    private static void deleteAll(Path dir) throws Exception {
+        if (!Files.exists(dir)) return;
+        try (var files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+}
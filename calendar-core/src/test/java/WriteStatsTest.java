@@ -0,0 +1,44 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests für die Zähler der Schreibzugriffe.
+ */
+public class WriteStatsTest {
+
+    /** Vollexport zählt die Dateigröße, eine Einzelkorrektur nur die geänderten bzw. verschobenen Bytes. */
+    @Test
+    void testExportAndPatchAreCounted() throws Exception {
+        Path dir = Files.createTempDirectory("write-stats-");
+        Path ics = dir.resolve("kalender.ics");
+        List<EntryValue> values = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 9, 0);
+        for (int i = 0; i < 200; i++) {
+            values.add(EntryValue.of("Termin " + i, "Beschreibung " + i, start.plusHours(i), start.plusHours(i + 1)).withUid("ws-" + i));
+        }
+
+        WriteStats.Stats before = WriteStats.shared().getStats();
+        IcsUtil.exportIcsIndexed(ics, values);
+        WriteStats.Stats export = WriteStats.shared().getStats().since(before);
+        assertEquals(1, export.exports());
+        assertEquals(0, export.patches());
+        assertEquals(Files.size(ics), export.bytes());
+
+        List<EntryValue> next = new ArrayList<>(values);
+        next.set(199, values.get(199).withTitle("Termin 199b"));
+        before = WriteStats.shared().getStats();
+        assertTrue(IcsIndex.applyDiff(ics, values, next, IcsIndex.MAX_PATCH_CHANGES));
+        WriteStats.Stats patch = WriteStats.shared().getStats().since(before);
+        assertEquals(0, patch.exports());
+        assertEquals(1, patch.patches());
+        assertTrue(patch.bytes() > 0 && patch.bytes() < Files.size(ics) / 10, "Bytes: " + patch.bytes());
+        assertTrue(patch.lastWriteNanos() > before.lastWriteNanos());
+    }
+}
@@ -0,0 +1,58 @@
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+/**
+ * JavaFX-Anwendung, die die Oberfläche aus FXML (calendar_view.fxml) lädt.
+ *
+ * Mit {@code -Dstartup.trace=true} werden die Startmarken ({@link StartupTrace}) bis zum ersten
+ * Bild ausgegeben; {@code -Dstartup.exit=true} beendet das Programm danach (Startmessung).
+ */
+public class CalendarFxmlApp extends Application {
+
+    /** Startet die JavaFX-Bühne und lädt die FXML-Szene. */
+    @Override
+    public void start(Stage stage) throws Exception {
+        StartupTrace.mark("fx_toolkit_ready");
+        FXMLLoader loader = new FXMLLoader(getClass().getResource("/calendar_view.fxml"));
+        Parent root = loader.load();
+        StartupTrace.mark("fxml_loaded");
+        Scene scene = new Scene(root, 1000, 700);
+        stage.setTitle("CalendarProjekt (FXML)");
+        stage.setScene(scene);
+        if (StartupTrace.isEnabled()) {
+            onFirstFrame(scene, () -> {
+                StartupTrace.print();
+                if (Boolean.getBoolean("startup.exit")) System.exit(0);
+            });
+        }
+        stage.show();
+        StartupTrace.mark("stage_shown");
+        System.out.println("[UI_DEBUG] FXML_APP_STARTED | Controller=" + loader.getController());
+    }
+
+    /**
+     * Setzt die Marke {@code first_frame}, sobald der erste Puls mit Layout für {@code scene}
+     * abgeschlossen ist (das Bild ist an die Render-Pipeline übergeben), und führt danach
+     * {@code then} im FX-Thread aus.
+     */
+    static void onFirstFrame(Scene scene, Runnable then) {
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            scene.removePostLayoutPulseListener(listener[0]);
+            Platform.runLater(() -> {
+                StartupTrace.mark(StartupTrace.FIRST_FRAME);
+                then.run();
+            });
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
+    }
+
+    /** Starter (Launcher) für diese FXML-Variante. */
+    public static void main(String[] args) {
+        launch(args);
+    }
+}
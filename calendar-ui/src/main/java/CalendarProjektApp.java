@@ -54,6 +54,8 @@ public class CalendarProjektApp extends Application {
     private javafx.animation.PauseTransition debounceSave;
     private javafx.animation.Timeline periodicFullSave; // Fallback-Voll-Speicher
     private final java.util.Set<Entry<?>> trackedEntries = new java.util.HashSet<>();
+    /** UID je UI-Eintrag: beim Laden übernommen, für neue Einträge einmalig vergeben. */
+    private final java.util.Map<Entry<?>, String> entryUids = new java.util.HashMap<>();
     // Neues UI-Statuslabel
     private javafx.scene.control.Label statusLabel;
     // Diagnose-Logging Schalter
@@ -128,6 +130,7 @@ public class CalendarProjektApp extends Application {
                 // Entfernen, wenn Eintrag getrennt wurde (Kalender null), um veraltete Einträge zu vermeiden
                 if (e.getCalendar() == null) {
                     trackedEntries.remove(e);
+                    entryUids.remove(e);
                 } else {
                     attachEntryListeners(e);
                 }
@@ -503,6 +506,7 @@ public class CalendarProjektApp extends Application {
         // Zunächst UI und Tracking leeren
         fxCalendar.clear();
         trackedEntries.clear();
+        entryUids.clear();
         try {
             currentEntries.clear();
             var path = ConfigUtil.getIcsPath();
@@ -524,6 +528,7 @@ public class CalendarProjektApp extends Application {
                 entry.setInterval(ce.getStart().atZone(zone), ce.getEnd().atZone(zone));
                 fxCalendar.addEntry(entry);
                 trackedEntries.add(entry);
+                entryUids.put(entry, ce.getUid());
             }
         } catch (Exception ex) {
             showError("Fehler beim Laden aus ICS", ex);
@@ -545,7 +550,9 @@ public class CalendarProjektApp extends Application {
                 String description = entry.getLocation() != null ? entry.getLocation() : "";
                 java.time.LocalDateTime start = entry.getStartAsLocalDateTime();
                 java.time.LocalDateTime end = entry.getEndAsLocalDateTime();
-                currentEntries.add(new CalendarEntry(title, description, start, end));
+                CalendarEntry ce = new CalendarEntry(title, description, start, end);
+                ce.setUid(entryUids.computeIfAbsent(entry, e -> java.util.UUID.randomUUID().toString()));
+                currentEntries.add(ce);
             }
             logDiag("Rebuild UI -> currentEntries=" + currentEntries.size() + " skippedRemoved=" + skipped);
         } catch (Exception ex) {
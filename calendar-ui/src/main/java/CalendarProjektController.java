@@ -0,0 +1,1956 @@
+import com.calendarfx.model.Calendar;
+import com.calendarfx.model.CalendarSource;
+import com.calendarfx.model.Entry;
+import com.calendarfx.view.CalendarView;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.*;
+import javafx.scene.layout.AnchorPane;
+import javafx.scene.layout.GridPane;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.ResourceBundle;
+
+/**
+ * JavaFX-Controller für die FXML-Ansicht.
+ *
+ * Diese Klasse ist das "Gehirn" der Benutzeroberfläche.
+ * Sie verbindet die Buttons und UI-Elemente aus der calendar_view.fxml Datei
+ * mit der eigentlichen Programmlogik.
+ *
+ * Wichtige Aufgaben:
+ * - Lädt Termine aus der ICS-Datei und zeigt sie im Kalender an
+ * - Reagiert auf Button-Klicks (Neuer Termin, Import, Export, etc.)
+ * - Speichert Änderungen automatisch zurück in die ICS-Datei
+ * - Verwaltet Kategorien und Erinnerungen
+ */
+public class CalendarProjektController implements Initializable {
+
+    // --- UI-Elemente aus der FXML-Datei ---
+    // @FXML bedeutet: Diese Elemente werden automatisch mit der FXML-Datei verknüpft
+
+    /** Der Container, in dem die Kalenderansicht angezeigt wird */
+    @FXML private AnchorPane calendarContainer;
+
+    /** Button zum Erstellen eines neuen Termins */
+    @FXML private Button newButton;
+
+    /** Button zum Importieren von Kalenderdateien */
+    @FXML private Button importButton;
+
+    /** Button zum Exportieren von Kalenderdateien */
+    @FXML private Button exportButton;
+
+    /** Button für die Einstellungen */
+    @FXML private Button settingsButton;
+
+    /** Button zum Beenden der Anwendung */
+    @FXML private Button exitButton;
+
+    /** Info-Button in der unteren Leiste */
+    @FXML private Button infoButton;
+
+    /** Label für allgemeine Statusmeldungen */
+    @FXML private Label statusLabel;
+
+    /** Label speziell für Speicher-Status */
+    @FXML private Label saveStatusLabel;
+
+    /** Optionaler Button zum manuellen Speichern (wird ggf. dynamisch angelegt) */
+    @FXML private Button manualSaveButton;
+
+    // --- Interne Variablen ---
+
+    /** Die CalendarFX-Komponente, die den Kalender visuell darstellt */
+    private CalendarView calendarView;
+
+    /** Der Standard-Kalender für allgemeine Termine */
+    private final Calendar<String> fxCalendar = new Calendar<>("Allgemein");
+
+    /** Eine Map (Zuordnung) von Kategorie-Namen zu Kalendern */
+    private final java.util.Map<String, Calendar<String>> categoryCalendars = new java.util.HashMap<>();
+    // Ablage für storage.mode=ics (ICS-Datei) bzw. db (eingebettete Datenbank)
+    private CalendarStore store;
+    // Zuerst geladener Zeitraum im Datenbankmodus (Monate vor/nach heute)
+    private static final int DB_FIRST_MONTHS_BEFORE = 1;
+    private static final int DB_FIRST_MONTHS_AFTER = 3;
+    // Im Datenbankmodus: UID -> Inhaltshash der geladenen bzw. geschriebenen Termine (Basis für Einzeländerungen)
+    private java.util.Map<String, Long> storedHashes;
+    // Überwachung der ICS-Datei auf externe Änderungen (nur storage.mode=ics)
+    private IcsFileWatcher fileWatcher;
+    // Gemeinsamer Ausgangsstand für den Abgleich mit externen Änderungen
+    private List<EntryValue> mergeBase;
+    // Erneute Speicherversuche, wenn ein anderer Prozess die gemeinsame Datei zwischenzeitlich geändert hat
+    private static final int SAVE_RETRIES = 5;
+    // Segmentspeicher (storage.mode=segments) und Nachladen der übrigen Segmente im Hintergrund
+    private static final int FIRST_SEGMENTS = 3;
+    private SegmentedIcsStore segmentStore;
+    private boolean backgroundLoadPending;
+    private java.util.concurrent.Future<List<CalendarEntry>> backgroundLoad;
+    private String backgroundLoadWhat;
+    // Während des Nachladens zurückgestelltes automatisches Speichern
+    private boolean saveDeferred;
+    private int loadGeneration;
+    // Archiv (kalte Ebene): schreibgeschützter Kalender, Jahre werden beim Navigieren nachgeladen
+    private static final long ARCHIVE_INTERVAL_MINUTES = 60;
+    private final Calendar<String> archiveCalendar = new Calendar<>("Archiv");
+    private final java.util.Set<Integer> loadedArchiveYears = new java.util.HashSet<>();
+    private ColdArchive coldArchive;
+    // Versionsverlauf; Speichern der Versionen, Archivieren und Bereinigen laufen im Wartungs-Thread
+    private VersionHistory history;
+    // Abonnierte Feeds: je Feed ein schreibgeschützter Kalender in einer eigenen Quelle
+    private final CalendarSource feedSource = new CalendarSource("Abonnements");
+    private final java.util.Map<String, Calendar<String>> feedCalendars = new java.util.HashMap<>();
+    private final java.util.Map<String, java.util.Map<String, Entry<String>>> feedEntries = new java.util.HashMap<>();
+    private FeedScheduler feedScheduler;
+    private int feedGeneration;
+    // CalDAV-Abgleich: Abrufen und Hochladen laufen nacheinander im Thread "caldav-sync"
+    private CalDavSyncClient calDav;
+    private java.util.concurrent.ScheduledExecutorService calDavJob;
+    private final java.util.concurrent.atomic.AtomicReference<PendingPush> pendingPush = new java.util.concurrent.atomic.AtomicReference<>();
+    // UIDs des zuletzt hochgeladenen Stands; nur daraus verschwundene gelten beim Hochladen als gelöscht
+    private java.util.Set<String> pushedUids;
+    // Nach dem Nachladen im Hintergrund auszuführende Schritte (z. B. zurückgestellter CalDAV-Abgleich)
+    private final List<Runnable> afterBackgroundLoad = new ArrayList<>();
+    private Button historyButton;
+    private java.util.concurrent.ScheduledExecutorService maintenanceJob;
+    // Ursprünglicher Termin je angezeigtem Entry (für ausgelagerte Beschreibungen)
+    private final java.util.Map<Entry<?>, CalendarEntry> entrySources = new java.util.IdentityHashMap<>();
+    // Werte des letzten Snapshots je Termininstanz; unveränderte Termine werden beim Speichern geteilt
+    private final java.util.Map<CalendarEntry, EntryValue> snapshotCache = new java.util.IdentityHashMap<>();
+
+    /** Die Zeitzone des Systems (z.B. "Europe/Berlin") */
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    /** Liste aller aktuell geladenen Termine (wird in ICS-Datei gespeichert) */
+    private final List<CalendarEntry> currentEntries = new ArrayList<>();
+
+    // --- Debug und Status-Flags ---
+
+    /** Verhindert, dass beim Laden der Daten versehentlich alles gelöscht wird */
+    private boolean suppressAutoSave = true;
+
+    /** Wurde die initiale Datenladung abgeschlossen? */
+    private boolean initialLoadCompleted = false;
+
+    /** Wie viele Einträge wurden zuletzt gespeichert? (zum Vergleich) */
+    private int lastSavedCount = -1;
+
+    /** Verhindert, dass Listener mehrfach registriert werden */
+    private boolean calendarEventsHooked = false;
+
+    /**
+     * Hilfsmethode zum Loggen von Debug-Meldungen.
+     * Schreibt formatierte Meldungen in die Konsole.
+     *
+     * @param action Was passiert gerade (z.B. "INIT", "SAVE")
+     * @param msg Die detaillierte Nachricht
+     */
+    private void log(String action, String msg) {
+        System.out.println("[UI_DEBUG] " + action + " | " + msg);
+    }
+
+    /**
+     * Initialize wird automatisch von JavaFX aufgerufen, nachdem die FXML geladen wurde.
+     * Hier bauen wir die Benutzeroberfläche auf und laden die gespeicherten Termine.
+     *
+     * @param location Die URL der FXML-Datei (wird automatisch übergeben)
+     * @param resources Sprachressourcen (wird automatisch übergeben)
+     */
+    @Override
+    public void initialize(URL location, ResourceBundle resources) {
+        StartupTrace.mark("controller_init");
+        log("INIT", "Starte Initialisierung");
+        setStatus("Status: Initialisierung");
+
+        // Stelle die Sprache auf Deutsch um (für Datums- und Zeitformate)
+        java.util.Locale.setDefault(java.util.Locale.GERMANY);
+
+        // Erstelle die CalendarFX-Komponente (die eigentliche Kalenderansicht)
+        calendarView = new CalendarView();
+
+        // Erstelle eine "Kalenderquelle" und füge unseren Standard-Kalender hinzu
+        // (CalendarFX kann mehrere Kalender gleichzeitig anzeigen)
+        CalendarSource source = new CalendarSource("Meine Kalender");
+        source.getCalendars().add(fxCalendar);
+        calendarView.getCalendarSources().add(source);
+
+        // Archivierte Termine erscheinen schreibgeschützt in einer eigenen Quelle
+        archiveCalendar.setReadOnly(true);
+        archiveCalendar.setStyle(Calendar.Style.STYLE7);
+        CalendarSource archiveSource = new CalendarSource("Archiv");
+        archiveSource.getCalendars().add(archiveCalendar);
+        calendarView.getCalendarSources().add(archiveSource);
+        calendarView.getCalendarSources().add(feedSource);
+        calendarView.dateProperty().addListener((obs, oldDate, newDate) -> ensureArchiveLoaded(newDate));
+
+        // Wenn das Design geändert wird (Hell-/Dunkelmodus), passe es an
+        calendarContainer.sceneProperty().addListener((obs, oldS, newS) -> applyTheme());
+        applyTheme();
+
+        // Füge die Kalenderansicht zum Container hinzu und lasse sie den ganzen Platz nutzen
+        AnchorPane.setTopAnchor(calendarView, 0.0);
+        AnchorPane.setRightAnchor(calendarView, 0.0);
+        AnchorPane.setBottomAnchor(calendarView, 0.0);
+        AnchorPane.setLeftAnchor(calendarView, 0.0);
+        calendarContainer.getChildren().add(calendarView);
+
+        // Ausgelagerte Beschreibungen erst laden, wenn die Details eines Termins geöffnet werden
+        javafx.util.Callback<com.calendarfx.view.DateControl.EntryDetailsParameter, Boolean> detailsCallback = calendarView.getEntryDetailsCallback();
+        calendarView.setEntryDetailsCallback(param -> {
+            materializeDescription(param.getEntry());
+            return detailsCallback != null ? detailsCallback.call(param) : Boolean.FALSE;
+        });
+
+        // Verbinde alle Buttons mit ihren Aktionen (was passiert beim Klick?)
+        newButton.setOnAction(this::onNewEntry);
+        importButton.setOnAction(this::onImport);
+        exportButton.setOnAction(this::onExport);
+        settingsButton.setOnAction(this::onSettings);
+        if (exitButton != null) {
+            exitButton.setOnAction(this::onExit);
+        }
+        if (infoButton != null) {
+            infoButton.setOnAction(this::onInfo);
+        }
+
+        // Richte Listener ein, die automatisch speichern, wenn sich etwas ändert
+        setupCalendarListeners();
+
+        // Lade die gespeicherten Termine aus der ICS-Datei
+        reloadData();
+
+        // Initialisierung abgeschlossen - ab jetzt automatisch speichern
+        initialLoadCompleted = true;
+        suppressAutoSave = false;
+        startAutosaveMonitor();
+        startMaintenanceJob();
+        startFeeds();
+        startCalDav();
+        setStatus("Status: Geladen (" + currentEntries.size() + ")");
+        log("INIT", "Initialisierung abgeschlossen");
+
+        // Versuche, einen manuellen Speichern-Button hinzuzufügen
+        calendarContainer.sceneProperty().addListener((o, oldS, newS) -> {
+            if (newS != null) {
+                javafx.application.Platform.runLater(() -> {
+                    ensureManualSaveButton();
+                    ensureHistoryButton();
+                });
+            }
+        });
+    }
+
+    /**
+     * Aktualisiert die Statusanzeige im UI.
+     *
+     * @param text Der anzuzeigende Text (z.B. "Status: Geladen (5)")
+     */
+    private void setStatus(String text) {
+        if (statusLabel != null) {
+            statusLabel.setText(text);
+        }
+    }
+
+    /**
+     * Aktualisiert die Speicher-Statusanzeige und färbt sie entsprechend ein.
+     *
+     * @param text Der anzuzeigende Text (z.B. "Gespeichert" oder "Fehler")
+     */
+    private void setSaveStatus(String text) {
+        if (saveStatusLabel != null) {
+            saveStatusLabel.setText(text);
+            // Farbe anpassen: Grün bei Erfolg, Rot bei Fehler
+            if (text.contains("erfolgreich") || text.equals("Gespeichert")) {
+                saveStatusLabel.setStyle("-fx-text-fill: #4CAF50;");
+            } else if (text.contains("Fehler")) {
+                saveStatusLabel.setStyle("-fx-text-fill: #F44336;");
+            } else {
+                saveStatusLabel.setStyle("-fx-text-fill: #666;");
+            }
+        }
+    }
+
+    /**
+     * Stellt sicher, dass ein manueller Speichern-Button vorhanden ist.
+     * Falls er in der FXML fehlt, wird er dynamisch hinzugefügt.
+     */
+    private void ensureManualSaveButton() {
+        try {
+            if (manualSaveButton != null) return; // Bereits vorhanden via FXML
+
+            // Suche die Toolbar im UI
+            var tb = calendarContainer.getScene().lookup("#toolBar");
+            if (tb instanceof ToolBar toolBar) {
+                manualSaveButton = new Button("Speichern");
+                manualSaveButton.setOnAction(e -> manualSaveAction());
+                toolBar.getItems().add(toolBar.getItems().size() - 1, manualSaveButton);
+                log("UI", "Manueller Speichern-Button hinzugefügt");
+            }
+        } catch (Exception ex) {
+            log("ERROR", "Konnte manuellen Speichern-Button nicht hinzufügen: " + ex.getMessage());
+        }
+    }
+
+    /** Fügt der Toolbar einen Button zum Wiederherstellen einer früheren Version hinzu. */
+    private void ensureHistoryButton() {
+        try {
+            if (historyButton != null) return;
+            var tb = calendarContainer.getScene().lookup("#toolBar");
+            if (tb instanceof ToolBar toolBar) {
+                historyButton = new Button("Verlauf");
+                historyButton.setOnAction(this::onHistory);
+                toolBar.getItems().add(toolBar.getItems().size() - 1, historyButton);
+            }
+        } catch (Exception ex) {
+            log("ERROR", "Konnte Verlauf-Button nicht hinzufügen: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Wird aufgerufen, wenn der Benutzer auf den manuellen Speichern-Button klickt.
+     */
+    private void manualSaveAction() {
+        log("MANUAL_SAVE", "Benutzer ausgelöst");
+        saveCurrentEntriesToIcs();
+    }
+
+    /**
+     * Lädt alle Termine neu aus der ICS-Datei.
+     * Dies geschieht beim Start und nach dem Ändern der Einstellungen.
+     */
+    private void reloadData() {
+        suppressAutoSave = true; // Während dem Laden nichts automatisch speichern!
+        log("RELOAD", "Lade Daten (ICS)");
+
+        // Lösche alle aktuell angezeigten Termine
+        fxCalendar.clear();
+        for (Calendar<String> cal : categoryCalendars.values()) cal.clear();
+        entrySources.clear();
+        stopFileWatcher();
+        closeStore();
+        archiveCalendar.clear();
+        loadedArchiveYears.clear();
+
+        loadGeneration++;
+        backgroundLoadPending = false;
+        backgroundLoad = null;
+        saveDeferred = false;
+        storedHashes = null;
+        afterBackgroundLoad.clear();
+        snapshotCache.clear();
+        try {
+            coldArchive = ColdArchive.open(ConfigUtil.getArchiveDir(), ConfigUtil.isArchiveMapped());
+        } catch (Exception ex) {
+            coldArchive = null;
+            log("ERROR", "Archiv konnte nicht geöffnet werden: " + ex.getMessage());
+        }
+        try {
+            history = ConfigUtil.getHistoryKeepDays() > 0 ? VersionHistory.open(ConfigUtil.getHistoryDir()) : null;
+        } catch (Exception ex) {
+            history = null;
+            log("ERROR", "Verlauf konnte nicht geöffnet werden: " + ex.getMessage());
+        }
+
+        try {
+            currentEntries.clear();
+            StringPool.shared().resetStats();
+            var path = ConfigUtil.getIcsPath();
+
+            if (isSegmentStorage()) {
+                loadSegments(path);
+                suppressAutoSave = false;
+                return;
+            }
+            segmentStore = null;
+
+            if (isDatabaseStorage()) {
+                loadDatabase(path);
+                suppressAutoSave = false;
+                return;
+            }
+            store = openIcsStore(path);
+
+            // Falls die ICS-Datei noch nicht existiert, erstelle eine leere
+            if (!Files.exists(path)) {
+                java.nio.file.Path parent = path.getParent();
+                if (parent == null) parent = java.nio.file.Paths.get(".");
+                if (Files.exists(parent) && Files.isWritable(parent)) {
+                    try {
+                        IcsUtil.exportIcs(path, new ArrayList<>());
+                    } catch (Exception ex) {
+                        log("RELOAD", "Konnte neue ICS nicht erzeugen: " + ex.getMessage());
+                    }
+                }
+            }
+
+            // Lade die Termine aus der ICS-Datei
+            currentEntries.addAll(store.loadAll());
+            StartupTrace.mark("entries_parsed");
+
+            log("RELOAD", "ICS-Einträge geladen: " + currentEntries.size());
+            log("RELOAD", "StringPool: " + StringPool.shared().getStats());
+
+            // Zeige die geladenen Termine im Kalender an
+            populateCalendar(currentEntries);
+
+            // Plane Erinnerungen für die Termine
+            scheduleReminders(currentEntries);
+
+            // Geladenen Stand als Ausgangsversion im Verlauf festhalten
+            mergeBase = snapshotCurrent();
+            recordHistory(mergeBase);
+
+            // Änderungen anderer Programme an der Datei übernehmen
+            startFileWatcher(path);
+
+        } catch (Exception ex) {
+            log("ERROR", "Fehler beim Laden aus ICS: " + ex.getMessage());
+            showError("Fehler beim Laden aus ICS", ex);
+        }
+
+        suppressAutoSave = false; // Nach dem Laden wieder automatisch speichern erlauben
+    }
+
+    private boolean isSegmentStorage() {
+        return "segments".equals(ConfigUtil.getStorageMode());
+    }
+
+    private boolean isDatabaseStorage() {
+        return "db".equals(ConfigUtil.getStorageMode());
+    }
+
+    private void closeStore() {
+        if (store == null) return;
+        try {
+            store.close();
+        } catch (Exception ex) {
+            log("ERROR", "Ablage konnte nicht geschlossen werden: " + ex.getMessage());
+        }
+        store = null;
+    }
+
+    private void startFileWatcher(java.nio.file.Path path) {
+        try {
+            IcsFileWatcher watcher = IcsFileWatcher.start(path, hash -> onExternalChange(hash));
+            fileWatcher = watcher;
+            log("WATCH", "Überwache " + watcher.getFile());
+        } catch (Exception ex) {
+            log("ERROR", "Dateiüberwachung nicht möglich: " + ex.getMessage());
+        }
+    }
+
+    private void stopFileWatcher() {
+        if (fileWatcher == null) return;
+        try {
+            fileWatcher.close();
+        } catch (Exception ex) {
+            log("ERROR", "Dateiüberwachung konnte nicht beendet werden: " + ex.getMessage());
+        }
+        fileWatcher = null;
+    }
+
+    /** Liest die extern geänderte Datei im Watcher-Thread und gleicht sie im FX-Thread ab. */
+    private void onExternalChange(String hash) {
+        IcsFileWatcher watcher = fileWatcher;
+        if (watcher == null) return;
+        List<EntryValue> remote;
+        try {
+            remote = readExternal(watcher.getFile());
+        } catch (Exception ex) {
+            // Datei wird eventuell noch geschrieben; das nächste Ereignis liest erneut
+            log("WATCH", "Externe Änderung noch nicht lesbar: " + ex.getMessage());
+            return;
+        }
+        javafx.application.Platform.runLater(() -> {
+            if (watcher != fileWatcher || suppressAutoSave || !initialLoadCompleted) return;
+            try {
+                // Eigene Speichervorgänge sind zu diesem Zeitpunkt bereits bekannt
+                if (watcher.changedHash() == null) return;
+                rebuildCurrentEntriesFromUI();
+                ThreeWayMerge.Result result = mergeExternal(snapshotCurrent(), remote);
+                watcher.acknowledge(hash);
+                if (result.localOnly()) saveCurrentEntriesToIcs();
+            } catch (Exception ex) {
+                log("ERROR", "Externe Änderung konnte nicht übernommen werden: " + ex.getMessage());
+            }
+        });
+    }
+
+    private IcsFileStore openIcsStore(java.nio.file.Path path) {
+        return new IcsFileStore(path, ConfigUtil.isIcsIndexEnabled(), ConfigUtil.isIcsSharedEnabled());
+    }
+
+    /**
+     * Liest den aktuellen Stand der Datei. Im gemeinsamen Modus liest die Ablage dabei nur die
+     * Termine, die andere Instanzen seit dem letzten Zugriff geändert haben.
+     */
+    private List<EntryValue> readExternal(java.nio.file.Path path) throws Exception {
+        if (store instanceof IcsFileStore ics && ConfigUtil.isIcsSharedEnabled()) return ics.pull();
+        return EntryValue.snapshot(IcsUtil.importIcs(path));
+    }
+
+    /**
+     * Gleicht den lokalen Stand mit dem extern geänderten Dateistand ab und übernimmt nur die
+     * externen Änderungen in die Ansicht. Der Dateistand wird zur neuen Basis.
+     */
+    private ThreeWayMerge.Result mergeExternal(List<EntryValue> local, List<EntryValue> remote) {
+        ThreeWayMerge.Result result = ThreeWayMerge.merge(mergeBase, local, remote);
+        applyMerge(result);
+        mergeBase = remote;
+        if (store instanceof IcsFileStore ics) ics.refresh(remote);
+        log("WATCH", "Externe Änderung übernommen: neu/geändert=" + result.upserts().size()
+                + ", entfernt=" + result.removals().size() + ", Konflikte=" + result.conflicts().size());
+        if (!result.conflicts().isEmpty()) {
+            setStatus("Status: Externe Änderung übernommen, " + result.conflicts().size() + " Konflikt(e) – lokale Fassung behalten");
+        } else if (!result.isEmpty()) {
+            setStatus("Status: Externe Änderung übernommen (" + (result.upserts().size() + result.removals().size()) + ")");
+        }
+        return result;
+    }
+
+    /** Ersetzt bzw. entfernt nur die vom Abgleich betroffenen Einträge der Ansicht. */
+    private void applyMerge(ThreeWayMerge.Result result) {
+        if (result.isEmpty()) return;
+        java.util.Set<String> affected = new java.util.HashSet<>(result.removals());
+        for (EntryValue v : result.upserts()) affected.add(v.key());
+
+        boolean prev = suppressAutoSave;
+        suppressAutoSave = true;
+        try {
+            for (java.util.Map.Entry<Entry<?>, CalendarEntry> e : new ArrayList<>(entrySources.entrySet())) {
+                if (e.getKey().getCalendar() == archiveCalendar) continue;
+                if (affected.contains(keyOf(e.getValue()))) {
+                    e.getKey().removeFromCalendar();
+                    entrySources.remove(e.getKey());
+                }
+            }
+            List<CalendarEntry> added = new ArrayList<>(result.upserts().size());
+            for (EntryValue v : result.upserts()) added.add(v.toEntry());
+            addToCalendar(added);
+            rebuildCurrentEntriesFromUI();
+            lastUiSignature = computeUiSignature();
+        } finally {
+            suppressAutoSave = prev;
+        }
+    }
+
+    /**
+     * Lädt im Datenbankmodus zuerst die Termine um das aktuelle Datum per Bereichsabfrage und den
+     * Rest im Hintergrund. Eine vorhandene ICS-Datei wird übernommen, solange die Datenbank leer ist.
+     */
+    private void loadDatabase(java.nio.file.Path icsPath) throws Exception {
+        JdbcCalendarStore db = JdbcCalendarStore.open(ConfigUtil.getDbUrl());
+        store = db;
+        if (db.isEmpty() && Files.exists(icsPath)) {
+            int n = db.replaceAll(EntryValue.snapshot(IcsUtil.importIcs(icsPath)));
+            log("RELOAD", "ICS in Datenbank übernommen: " + n);
+        }
+
+        LocalDate today = LocalDate.now();
+        List<CalendarEntry> first = db.findRange(today.minusMonths(DB_FIRST_MONTHS_BEFORE).atStartOfDay(),
+                today.plusMonths(DB_FIRST_MONTHS_AFTER).atStartOfDay());
+        currentEntries.addAll(first);
+        storedHashes = new java.util.HashMap<>();
+        rememberStored(first);
+        StartupTrace.mark("entries_parsed");
+        log("RELOAD", "Datenbank: Einträge um heute geladen=" + first.size());
+        populateCalendar(currentEntries);
+        scheduleReminders(currentEntries);
+
+        java.util.Set<String> shown = new java.util.HashSet<>();
+        for (CalendarEntry ce : first) shown.add(keyOf(ce));
+        loadInBackground("db-loader", "Restliche Termine", () -> {
+            List<CalendarEntry> rest = new ArrayList<>();
+            for (CalendarEntry ce : db.loadAll()) {
+                if (!shown.contains(keyOf(ce))) rest.add(ce);
+            }
+            return rest;
+        });
+    }
+
+    /**
+     * Lädt weitere Termine im Hintergrund und fügt sie anschließend im FX-Thread hinzu. Bis dahin
+     * ist das Speichern gesperrt ({@link #writeIcs}), damit nicht geladene Termine nicht als
+     * gelöscht gelten; zurückgestelltes automatisches Speichern wird danach nachgeholt.
+     */
+    private void loadInBackground(String threadName, String what, java.util.concurrent.Callable<List<CalendarEntry>> loader) {
+        int generation = loadGeneration;
+        java.util.concurrent.FutureTask<List<CalendarEntry>> task = new java.util.concurrent.FutureTask<>(loader);
+        backgroundLoadPending = true;
+        backgroundLoad = task;
+        backgroundLoadWhat = what;
+        Thread thread = new Thread(() -> {
+            task.run();
+            javafx.application.Platform.runLater(() -> {
+                if (generation != loadGeneration || backgroundLoad != task) return;
+                try {
+                    completeBackgroundLoad();
+                    if (saveDeferred) saveCurrentEntriesToIcs();
+                } catch (Exception ex) {
+                    log("ERROR", ex.getMessage());
+                    setStatus("Status: Laden unvollständig – Speichern gesperrt");
+                }
+            });
+        }, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Übernimmt die im Hintergrund geladenen Termine in die Ansicht und wartet dafür nötigenfalls
+     * auf den Ladevorgang. Ist das Laden fehlgeschlagen, bleibt das Speichern gesperrt, da sonst
+     * die nicht geladenen Termine gelöscht würden.
+     */
+    private void completeBackgroundLoad() throws Exception {
+        if (!backgroundLoadPending) return;
+        java.util.concurrent.Future<List<CalendarEntry>> task = backgroundLoad;
+        if (task == null) throw new IllegalStateException("Termine wurden nicht vollständig geladen, Speichern ist gesperrt");
+        if (!task.isDone()) log("RELOAD", "Warte auf " + backgroundLoadWhat);
+        List<CalendarEntry> more;
+        try {
+            more = task.get();
+        } catch (java.util.concurrent.ExecutionException ex) {
+            backgroundLoad = null;
+            throw new IllegalStateException(backgroundLoadWhat + " konnten nicht geladen werden, Speichern ist gesperrt: "
+                    + ex.getCause().getMessage(), ex.getCause());
+        }
+        backgroundLoad = null;
+        rememberStored(more);
+        if (pushedUids != null) {
+            for (CalendarEntry ce : more) pushedUids.add(ce.getUid());
+        }
+        boolean prev = suppressAutoSave;
+        suppressAutoSave = true;
+        try {
+            currentEntries.addAll(more);
+            addToCalendar(more);
+        } finally {
+            suppressAutoSave = prev;
+            backgroundLoadPending = false;
+        }
+        log("RELOAD", backgroundLoadWhat + " geladen: " + more.size() + ", Einträge=" + currentEntries.size());
+        setStatus("Status: Kalender geladen (" + currentEntries.size() + ")");
+        List<Runnable> after = new ArrayList<>(afterBackgroundLoad);
+        afterBackgroundLoad.clear();
+        after.forEach(Runnable::run);
+    }
+
+    /** Merkt sich im Datenbankmodus die Inhaltshashes geladener Termine. */
+    private void rememberStored(List<CalendarEntry> loaded) {
+        if (storedHashes == null) return;
+        for (CalendarEntry ce : loaded) storedHashes.put(keyOf(ce), EntryValue.of(ce).contentHash());
+    }
+
+    /** Speicherschlüssel eines Termins (UID, bei Serienausnahmen mit RECURRENCE-ID) oder {@code null}. */
+    private static String keyOf(CalendarEntry ce) {
+        return ce.getUid() != null ? EntryValue.key(ce.getUid(), ce.getRecurrenceId()) : null;
+    }
+
+    /**
+     * Lädt im Segmentmodus zuerst die Segmente um das aktuelle Datum und die übrigen im Hintergrund.
+     * Eine vorhandene einzelne ICS-Datei wird beim ersten Start in Segmente übernommen.
+     */
+    private void loadSegments(java.nio.file.Path icsPath) throws Exception {
+        SegmentedIcsStore segments = SegmentedIcsStore.open(ConfigUtil.getSegmentDir(),
+                SegmentedIcsStore.Granularity.parse(ConfigUtil.getSegmentGranularity()));
+        if (!segments.exists() && Files.exists(icsPath)) {
+            int n = segments.save(EntryValue.snapshot(IcsUtil.importIcs(icsPath)));
+            log("RELOAD", "ICS in Segmente übernommen: " + n + " -> " + segments.getDirectory());
+        }
+        segmentStore = segments;
+
+        List<String> keys = segments.keysByDistance(LocalDate.now());
+        int first = Math.min(FIRST_SEGMENTS, keys.size());
+        currentEntries.addAll(segments.load(keys.subList(0, first)));
+        StartupTrace.mark("entries_parsed");
+        log("RELOAD", "Segmente geladen: " + first + "/" + keys.size() + ", Einträge=" + currentEntries.size());
+        populateCalendar(currentEntries);
+        scheduleReminders(currentEntries);
+
+        List<String> rest = new ArrayList<>(keys.subList(first, keys.size()));
+        if (rest.isEmpty()) return;
+        loadInBackground("segment-loader", "Restliche Segmente", () -> segments.load(rest));
+    }
+
+    /**
+     * Lädt das Archivjahr eines Datums im Hintergrund in den Archivkalender, sobald der Benutzer
+     * dorthin navigiert. Termine, die (noch) in der ICS-Datei stehen, haben Vorrang.
+     */
+    private void ensureArchiveLoaded(LocalDate date) {
+        ColdArchive archive = coldArchive;
+        if (archive == null || date == null) return;
+        int year = date.getYear();
+        if (!archive.contains(year) || !loadedArchiveYears.add(year)) return;
+
+        int generation = loadGeneration;
+        Thread loader = new Thread(() -> {
+            try {
+                List<CalendarEntry> cold = archive.load(year);
+                javafx.application.Platform.runLater(() -> {
+                    if (generation != loadGeneration) return;
+                    showArchived(cold);
+                    log("ARCHIVE", "Archivjahr " + year + " geladen: " + cold.size());
+                });
+            } catch (Exception ex) {
+                javafx.application.Platform.runLater(() -> {
+                    if (generation == loadGeneration) loadedArchiveYears.remove(year);
+                    log("ERROR", "Archivjahr " + year + " konnte nicht geladen werden: " + ex.getMessage());
+                });
+            }
+        }, "archive-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /** Zeigt archivierte Termine im schreibgeschützten Archivkalender an. */
+    private void showArchived(List<CalendarEntry> cold) {
+        java.util.Set<String> hot = new java.util.HashSet<>();
+        for (CalendarEntry ce : entrySources.values()) {
+            if (ce.getUid() != null) hot.add(keyOf(ce));
+        }
+        List<Entry<?>> entries = new ArrayList<>(cold.size());
+        for (CalendarEntry ce : cold) {
+            if (!hot.contains(keyOf(ce))) entries.add(toFxEntry(ce));
+        }
+        boolean prev = suppressAutoSave;
+        suppressAutoSave = true;
+        try {
+            archiveCalendar.addEntries(entries);
+        } finally {
+            suppressAutoSave = prev;
+        }
+    }
+
+    private java.util.concurrent.ScheduledExecutorService maintenance() {
+        if (maintenanceJob == null) {
+            maintenanceJob = java.util.concurrent.Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "maintenance");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return maintenanceJob;
+    }
+
+    /** Startet das regelmäßige Archivieren gealterter Termine und das Ausdünnen des Verlaufs. */
+    private void startMaintenanceJob() {
+        maintenance().scheduleWithFixedDelay(() -> {
+            javafx.application.Platform.runLater(this::archiveAgedEntries);
+            pruneHistory();
+        }, 1, ARCHIVE_INTERVAL_MINUTES, java.util.concurrent.TimeUnit.MINUTES);
+    }
+
+    /** Legt einen gespeicherten Stand im Hintergrund als Version im Verlauf ab. */
+    private void recordHistory(List<EntryValue> snapshot) {
+        VersionHistory h = history;
+        if (h == null) return;
+        maintenance().execute(() -> {
+            try {
+                VersionHistory.Version v = h.record(snapshot);
+                if (v != null) log("HISTORY", "Version gespeichert: " + v.id() + " (" + v.count() + " Termine)");
+            } catch (Exception ex) {
+                log("ERROR", "Version konnte nicht gespeichert werden: " + ex.getMessage());
+            }
+        });
+    }
+
+    /** Dünnt den Verlauf nach {@code history.keepDays}/{@code history.hourlyDays} aus (Wartungs-Thread). */
+    private void pruneHistory() {
+        VersionHistory h = history;
+        if (h == null) return;
+        try {
+            VersionHistory.PruneResult r = h.prune(new VersionHistory.Retention(
+                    java.time.Duration.ofDays(ConfigUtil.getHistoryKeepDays()),
+                    java.time.Duration.ofDays(ConfigUtil.getHistoryHourlyDays())), java.time.Instant.now());
+            if (r.versionsRemoved() > 0) {
+                log("HISTORY", "Bereinigt: Versionen=" + r.versionsRemoved() + ", Blöcke=" + r.blobsRemoved());
+            }
+        } catch (Exception ex) {
+            log("ERROR", "Verlauf konnte nicht bereinigt werden: " + ex.getMessage());
+        }
+    }
+
+    /** Zeigt die gespeicherten Versionen an und stellt die gewählte wieder her. */
+    private void onHistory(ActionEvent evt) {
+        VersionHistory h = history;
+        if (h == null) {
+            showInfo("Verlauf", "Der Versionsverlauf ist deaktiviert (history.keepDays=0).");
+            return;
+        }
+        if (backgroundLoadPending) {
+            showInfo("Verlauf", "Bitte warten, bis alle Termine geladen sind.");
+            return;
+        }
+        java.time.format.DateTimeFormatter fmt = java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss");
+        java.util.Map<String, VersionHistory.Version> choices = new java.util.LinkedHashMap<>();
+        List<VersionHistory.Version> versions = h.versions();
+        for (int i = versions.size() - 1; i >= 0; i--) {
+            VersionHistory.Version v = versions.get(i);
+            choices.put(fmt.format(v.time().atZone(zone)) + " – " + v.count() + " Termine", v);
+        }
+        if (choices.isEmpty()) {
+            showInfo("Verlauf", "Es sind noch keine Versionen vorhanden.");
+            return;
+        }
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(choices.keySet().iterator().next(), choices.keySet());
+        dialog.setTitle("Verlauf");
+        dialog.setHeaderText("Version wiederherstellen");
+        dialog.setContentText("Stand:");
+        applyThemeToDialog(dialog.getDialogPane());
+        Optional<String> choice = dialog.showAndWait();
+        if (choice.isEmpty()) return;
+        VersionHistory.Version version = choices.get(choice.get());
+        try {
+            // Aktuellen Stand vorher sichern, damit die Wiederherstellung rückgängig gemacht werden kann
+            rebuildCurrentEntriesFromUI();
+            List<EntryValue> before = snapshotCurrent();
+            List<CalendarEntry> restored = maintenance().submit(() -> {
+                h.record(before);
+                return h.restore(version.id());
+            }).get();
+            log("HISTORY", "Stelle Version wieder her: " + version.id() + " (" + restored.size() + " Termine)");
+            writeIcs(EntryValue.snapshot(restored));
+            reloadData();
+            setStatus("Status: Version wiederhergestellt (" + restored.size() + ")");
+        } catch (Exception ex) {
+            log("ERROR", "Wiederherstellen fehlgeschlagen: " + ex.getMessage());
+            showError("Wiederherstellen fehlgeschlagen", ex);
+        }
+    }
+
+    /**
+     * Verschiebt Termine, die länger als {@code archive.afterDays} vorbei sind, ins Archiv. Das
+     * Archiv wird im Hintergrund geschrieben; erst danach werden die Termine aus der Ansicht und
+     * damit aus der ICS-Datei entfernt. Zwischenzeitlich geänderte Termine bleiben erhalten.
+     */
+    private void archiveAgedEntries() {
+        int days = ConfigUtil.getArchiveAfterDays();
+        ColdArchive archive = coldArchive;
+        if (days <= 0 || archive == null || suppressAutoSave || backgroundLoadPending) return;
+
+        rebuildCurrentEntriesFromUI();
+        List<EntryValue> aged = ColdArchive.olderThan(snapshotCurrent(), LocalDateTime.now().minusDays(days));
+        if (aged.isEmpty()) return;
+
+        int generation = loadGeneration;
+        Thread writer = new Thread(() -> {
+            try {
+                int files = archive.add(aged);
+                javafx.application.Platform.runLater(() -> {
+                    if (generation != loadGeneration) return;
+                    int moved = removeArchived(aged);
+                    log("ARCHIVE", "Archiviert: " + moved + " Termine, Jahresdateien geschrieben: " + files);
+                    if (moved > 0) saveCurrentEntriesToIcs();
+                });
+            } catch (Exception ex) {
+                log("ERROR", "Archivieren fehlgeschlagen: " + ex.getMessage());
+            }
+        }, "archive-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Entfernt archivierte Termine aus den Kategorie-Kalendern, sofern sie unverändert sind. */
+    private int removeArchived(List<EntryValue> archived) {
+        java.util.Map<String, Long> hashes = new java.util.HashMap<>();
+        for (EntryValue v : archived) hashes.put(v.key(), v.contentHash());
+
+        rebuildCurrentEntriesFromUI();
+        List<CalendarEntry> shown = new ArrayList<>();
+        int moved = 0;
+        boolean prev = suppressAutoSave;
+        suppressAutoSave = true;
+        try {
+            for (java.util.Map.Entry<Entry<?>, CalendarEntry> e : new ArrayList<>(entrySources.entrySet())) {
+                Entry<?> entry = e.getKey();
+                CalendarEntry ce = e.getValue();
+                if (entry.getCalendar() == archiveCalendar) continue;
+                Long hash = hashes.get(keyOf(ce));
+                if (hash == null || hash != EntryValue.of(ce).contentHash()) continue;
+                entry.removeFromCalendar();
+                entrySources.remove(entry);
+                // Archivierte Termine bleiben auf dem CalDAV-Server
+                if (pushedUids != null) pushedUids.remove(ce.getUid());
+                if (loadedArchiveYears.contains(ce.getStart().getYear())) shown.add(ce);
+                moved++;
+            }
+            if (!shown.isEmpty()) {
+                List<Entry<?>> entries = new ArrayList<>(shown.size());
+                for (CalendarEntry ce : shown) entries.add(toFxEntry(ce));
+                archiveCalendar.addEntries(entries);
+            }
+            lastUiSignature = computeUiSignature();
+        } finally {
+            suppressAutoSave = prev;
+        }
+        return moved;
+    }
+
+    /**
+     * Startet den Abruf der abonnierten Feeds neu. Jeder Feed erhält einen schreibgeschützten
+     * Kalender; seine Termine werden nicht in der ICS-Datei gespeichert.
+     */
+    private void startFeeds() {
+        if (feedScheduler != null) feedScheduler.close();
+        feedScheduler = null;
+        int generation = ++feedGeneration;
+        feedSource.getCalendars().clear();
+        feedCalendars.clear();
+        feedEntries.clear();
+
+        List<FeedSubscription> feeds = ConfigUtil.getFeeds();
+        if (feeds.isEmpty()) return;
+        Calendar.Style[] styles = Calendar.Style.values();
+        for (FeedSubscription feed : feeds) {
+            Calendar<String> cal = new Calendar<>(feed.name());
+            cal.setReadOnly(true);
+            cal.setStyle(styles[Math.abs(feed.name().hashCode()) % styles.length]);
+            feedSource.getCalendars().add(cal);
+            feedCalendars.put(feed.name(), cal);
+        }
+        feedScheduler = new FeedScheduler(feeds, ConfigUtil.getFeedsMaxPerHost(), new FeedScheduler.Listener() {
+            @Override
+            public void updated(FeedScheduler.Update update) {
+                javafx.application.Platform.runLater(() -> applyFeedUpdate(generation, update));
+            }
+
+            @Override
+            public void failed(String feed, Exception error, long retryMillis) {
+                log("FEED", "Abruf fehlgeschlagen: " + feed + " (" + error.getMessage() + "), nächster Versuch in "
+                        + (retryMillis / 1000) + " s");
+            }
+        });
+        feedScheduler.start();
+        log("FEED", "Abonnements gestartet: " + feeds.size());
+    }
+
+    /** Übernimmt nur die neuen, geänderten und entfernten Termine eines Feeds in dessen Kalender. */
+    private void applyFeedUpdate(int generation, FeedScheduler.Update update) {
+        Calendar<String> cal = feedCalendars.get(update.feed());
+        if (generation != feedGeneration || cal == null) return;
+        java.util.Map<String, Entry<String>> shown = feedEntries.computeIfAbsent(update.feed(), k -> new java.util.HashMap<>());
+
+        boolean prev = suppressAutoSave;
+        suppressAutoSave = true;
+        try {
+            for (String key : update.removals()) {
+                Entry<String> old = shown.remove(key);
+                if (old != null) old.removeFromCalendar();
+            }
+            List<Entry<?>> added = new ArrayList<>(update.upserts().size());
+            for (EntryValue v : update.upserts()) {
+                Entry<String> old = shown.remove(v.key());
+                if (old != null) old.removeFromCalendar();
+                Entry<String> entry = newFxEntry(v.toEntry());
+                shown.put(v.key(), entry);
+                added.add(entry);
+            }
+            cal.addEntries(added);
+        } finally {
+            suppressAutoSave = prev;
+        }
+        log("FEED", update.feed() + ": neu/geändert=" + update.upserts().size() + ", entfernt="
+                + update.removals().size() + ", gesamt=" + update.total());
+    }
+
+    /**
+     * Startet den Abgleich mit der CalDAV-Sammlung aus {@code caldav.url} neu. Abgerufen werden nur
+     * die Änderungen seit dem letzten Abgleich; lokale Änderungen werden nach jedem Speichern je
+     * UID hochgeladen.
+     */
+    private void startCalDav() {
+        stopCalDav();
+        String url = ConfigUtil.getCalDavUrl();
+        if (url == null) return;
+        CalDavSyncClient client;
+        try {
+            client = new CalDavSyncClient(java.net.URI.create(url), ConfigUtil.getCalDavUser(),
+                    ConfigUtil.getCalDavPassword(), ConfigUtil.getCalDavStatePath());
+        } catch (Exception ex) {
+            log("CALDAV", "Abgleich nicht möglich: " + ex.getMessage());
+            return;
+        }
+        // Seit dem letzten Abgleich unveränderte Termine gelten als bekannter Serverstand
+        rebuildCurrentEntriesFromUI();
+        List<EntryValue> known = snapshotCurrent();
+        client.adopt(known);
+        pushedUids = uids(known);
+        calDav = client;
+        calDavJob = java.util.concurrent.Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "caldav-sync");
+            t.setDaemon(true);
+            return t;
+        });
+        calDavJob.scheduleWithFixedDelay(() -> syncCalDav(client), 0, ConfigUtil.getCalDavSyncMinutes(),
+                java.util.concurrent.TimeUnit.MINUTES);
+        log("CALDAV", "Abgleich gestartet: " + url);
+    }
+
+    private void stopCalDav() {
+        if (calDavJob != null) calDavJob.shutdownNow();
+        calDavJob = null;
+        calDav = null;
+        pushedUids = null;
+        pendingPush.set(null);
+    }
+
+    /** Holt die Serveränderungen im Abgleich-Thread und gleicht sie im FX-Thread mit der Ansicht ab. */
+    private void syncCalDav(CalDavSyncClient client) {
+        List<EntryValue> before = client.values();
+        CalDavSyncClient.Changes changes;
+        try {
+            changes = client.sync();
+        } catch (Exception ex) {
+            log("CALDAV", "Abgleich fehlgeschlagen: " + ex.getMessage());
+            return;
+        }
+        List<EntryValue> after = client.values();
+        if (!changes.isEmpty()) {
+            log("CALDAV", "Serveränderungen: neu/geändert=" + changes.upserts().size() + ", entfernt="
+                    + changes.removals().size() + ", Anfragen=" + changes.requests());
+        }
+        javafx.application.Platform.runLater(() -> mergeCalDav(client, before, after));
+    }
+
+    /**
+     * Gleicht den Serverstand im FX-Thread mit der Ansicht ab. Während des Nachladens im
+     * Hintergrund fehlen Termine in der Ansicht; der Abgleich wird dann bis danach zurückgestellt.
+     */
+    private void mergeCalDav(CalDavSyncClient client, List<EntryValue> before, List<EntryValue> after) {
+        if (client != calDav || suppressAutoSave || !initialLoadCompleted) return;
+        if (backgroundLoadPending) {
+            afterBackgroundLoad.add(() -> mergeCalDav(client, before, after));
+            return;
+        }
+        rebuildCurrentEntriesFromUI();
+        List<EntryValue> local = new ArrayList<>(currentEntries.size());
+        for (EntryValue v : snapshotCurrent()) local.add(CalDavSyncClient.normalize(v));
+        ThreeWayMerge.Result result = ThreeWayMerge.merge(before, local, after);
+        applyMerge(result);
+        if (!result.conflicts().isEmpty()) {
+            setStatus("Status: CalDAV abgeglichen, " + result.conflicts().size() + " Konflikt(e) – lokale Fassung behalten");
+        }
+        // Serveränderungen in der Ablage sichern; lokale Änderungen werden dabei hochgeladen
+        if (!result.isEmpty()) saveCurrentEntriesToIcs();
+        else if (result.localOnly()) pushCalDav(local);
+    }
+
+    /** Hochzuladender Stand und seit dem letzten Hochladen gelöschte UIDs. */
+    private record PendingPush(List<EntryValue> values, java.util.Set<String> removed) {
+    }
+
+    private static java.util.Set<String> uids(List<EntryValue> values) {
+        java.util.Set<String> out = new java.util.HashSet<>(values.size() * 2);
+        for (EntryValue v : values) if (v.uid() != null) out.add(v.uid());
+        return out;
+    }
+
+    /**
+     * Lädt einen gespeicherten Stand im Abgleich-Thread hoch; schnelle Folgeaufrufe werden
+     * zusammengefasst. Gelöscht werden nur UIDs, die seit dem letzten Hochladen aus der Ansicht
+     * verschwunden sind (archivierte ausgenommen); solange Termine nachgeladen werden, wird nichts
+     * hochgeladen.
+     */
+    private void pushCalDav(List<EntryValue> snapshot) {
+        CalDavSyncClient client = calDav;
+        java.util.concurrent.ScheduledExecutorService job = calDavJob;
+        if (client == null || job == null || pushedUids == null || backgroundLoadPending) return;
+        java.util.Set<String> present = uids(snapshot);
+        java.util.Set<String> removed = new java.util.HashSet<>(pushedUids);
+        removed.removeAll(present);
+        pushedUids = present;
+        PendingPush previous = pendingPush.getAndUpdate(p -> {
+            if (p == null) return new PendingPush(snapshot, removed);
+            java.util.Set<String> all = new java.util.HashSet<>(p.removed());
+            all.addAll(removed);
+            all.removeAll(present);
+            return new PendingPush(snapshot, all);
+        });
+        if (previous != null) return;
+        try {
+            job.execute(() -> {
+                PendingPush latest = pendingPush.getAndSet(null);
+                if (latest == null) return;
+                try {
+                    CalDavSyncClient.PushResult pushed = client.push(latest.values(), latest.removed());
+                    if (pushed.requests() > 0) {
+                        log("CALDAV", "Hochgeladen: " + pushed.puts() + ", gelöscht: " + pushed.deletes()
+                                + ", Konflikte: " + pushed.conflicts().size());
+                    }
+                    // Bei Konflikten den Serverstand holen; der Abgleich behält die lokale Fassung
+                    if (!pushed.conflicts().isEmpty()) syncCalDav(client);
+                } catch (Exception ex) {
+                    log("CALDAV", "Hochladen fehlgeschlagen: " + ex.getMessage());
+                }
+            });
+        } catch (java.util.concurrent.RejectedExecutionException ex) {
+            // Abgleich wurde beendet
+            pendingPush.set(null);
+        }
+    }
+
+    /**
+     * Füllt die Kalenderansicht mit den geladenen Terminen.
+     *
+     * @param items Die Liste der anzuzeigenden Termine
+     */
+    private void populateCalendar(List<CalendarEntry> items) {
+        log("POPULATE", "Übernehme Einträge in CalendarFX: count=" + items.size());
+
+        // Lösche alle bestehenden Einträge
+        fxCalendar.clear();
+        for (Calendar<String> cal : categoryCalendars.values()) cal.clear();
+        entrySources.clear();
+
+        addToCalendar(items);
+        StartupTrace.mark("calendar_populated");
+
+        setStatus("Status: Kalender geladen (" + items.size() + ")");
+    }
+
+    /** Fügt Termine zu den bestehenden Einträgen der Kalenderansicht hinzu. */
+    @SuppressWarnings("unchecked")
+    private void addToCalendar(List<CalendarEntry> items) {
+        // Gehe durch jeden Termin und füge ihn zum passenden Kalender hinzu
+        for (CalendarEntry ce : items) {
+            Entry<String> entry = toFxEntry(ce);
+
+            // Finde den richtigen Kalender basierend auf der Kategorie
+            String cat = (ce.getCategory() == null || ce.getCategory().isBlank()) ? "Allgemein" : ce.getCategory();
+            Calendar<String> target = getOrCreateCalendar(cat);
+            target.addEntry(entry);
+        }
+    }
+
+    /** Erstellt das CalendarFX-Entry zu einem Termin und merkt sich den Ursprung. */
+    private Entry<String> toFxEntry(CalendarEntry ce) {
+        Entry<String> entry = newFxEntry(ce);
+        // UID und ausgelagerte Daten (Beschreibung, Anhänge, X-Eigenschaften) über den Entry wiederfinden
+        entrySources.put(entry, ce);
+        return entry;
+    }
+
+    private Entry<String> newFxEntry(CalendarEntry ce) {
+        // Erstelle ein CalendarFX-Entry-Objekt
+        Entry<String> entry = new Entry<>(ce.getTitle());
+
+        // Setze die Beschreibung (in CalendarFX heißt das "Location");
+        // ausgelagerte Beschreibungen zunächst nur als Vorschau
+        if (!ce.isDescriptionLoaded()) {
+            entry.setLocation(previewLocation(ce.getLazyDescription()));
+        } else if (ce.getDescription() != null && !ce.getDescription().isBlank()) {
+            entry.setLocation(ce.getDescription());
+        }
+
+        // Setze Start- und Endzeit
+        entry.setInterval(ce.getStart().atZone(zone), ce.getEnd().atZone(zone));
+        return entry;
+    }
+
+    /**
+     * Erstellt eine aktuelle Liste aller Termine aus dem UI.
+     * Dies ist wichtig, weil der Benutzer Termine direkt im CalendarFX-View
+     * verschieben, ändern oder löschen kann.
+     */
+    private void rebuildCurrentEntriesFromUI() {
+        currentEntries.clear();
+        reminderIndex = null;
+        java.util.Map<Entry<?>, CalendarEntry> sources = new java.util.IdentityHashMap<>();
+        int calendarCount = 0;
+        int entryCount = 0;
+
+        // Gehe durch alle Kalender-Quellen (abonnierte Feeds werden nicht gespeichert)
+        for (CalendarSource source : calendarView.getCalendarSources()) {
+            if (source == feedSource) continue;
+            // Gehe durch alle Kalender in dieser Quelle
+            for (Calendar<?> calendar : source.getCalendars()) {
+                // Archivierte Termine gehören nicht in die ICS-Datei
+                if (calendar == archiveCalendar) {
+                    for (Entry<?> entry : calendar.findEntries("")) {
+                        CalendarEntry origin = entrySources.get(entry);
+                        if (origin != null) sources.put(entry, origin);
+                    }
+                    continue;
+                }
+                calendarCount++;
+
+                // Finde alle Einträge in diesem Kalender (leerer String = alle)
+                List<Entry<?>> entries = calendar.findEntries("");
+
+                // Wandle jeden CalendarFX-Entry in ein CalendarEntry um
+                for (Entry<?> entry : entries) {
+                    String title = entry.getTitle() != null ? entry.getTitle() : "(Ohne Titel)";
+                    String description = entry.getLocation() != null ? entry.getLocation() : "";
+                    LocalDateTime start = entry.getStartAsLocalDateTime();
+                    LocalDateTime end = entry.getEndAsLocalDateTime();
+                    // Kategorie aus dem Kalendernamen
+                    String calendarName = calendar.getName();
+                    String category = calendarName != null && !calendarName.isEmpty()
+                            && !"Allgemein".equalsIgnoreCase(calendarName) ? calendarName : null;
+
+                    // Unveränderte Termine behalten ihre Instanz (und damit ihren Snapshot-Wert)
+                    CalendarEntry origin = entrySources.get(entry);
+                    if (origin != null && unchanged(origin, title, description, start, end, category)) {
+                        sources.put(entry, origin);
+                        currentEntries.add(origin);
+                        entryCount++;
+                        continue;
+                    }
+
+                    CalendarEntry ce = new CalendarEntry(title, description, start, end);
+
+                    // UID, Anhänge und X-Eigenschaften vom Ursprung übernehmen; unveränderte Vorschau:
+                    // ausgelagerte Beschreibung weiterverwenden statt sie zu laden
+                    if (origin != null) {
+                        if (!origin.isDescriptionLoaded()
+                                && description.equals(previewLocation(origin.getLazyDescription()))) {
+                            ce.setLazyDescription(origin.getLazyDescription());
+                        }
+                        ce.setAttachments(origin.getAttachments());
+                        ce.setUid(origin.getUid());
+                        ce.setExtraProperties(origin.getExtraProperties());
+                        ce.setReminderMinutesBefore(origin.getReminderMinutesBefore());
+                    } else {
+                        ce.setUid(java.util.UUID.randomUUID().toString());
+                    }
+                    sources.put(entry, ce);
+                    ce.setCategory(category);
+
+                    currentEntries.add(ce);
+                    entryCount++;
+                }
+            }
+        }
+
+        entrySources.clear();
+        entrySources.putAll(sources);
+        log("REBUILD", "Kalender geprüft=" + calendarCount + ", Einträge gesammelt=" + entryCount);
+    }
+
+    /** Prüft, ob ein Ursprungstermin noch dem Stand in der Ansicht entspricht. */
+    private static boolean unchanged(CalendarEntry origin, String title, String description,
+                                     LocalDateTime start, LocalDateTime end, String category) {
+        if (origin.getId() != null || !title.equals(origin.getTitle())
+                || !java.util.Objects.equals(start, origin.getStart()) || !java.util.Objects.equals(end, origin.getEnd())
+                || !java.util.Objects.equals(category, origin.getCategory())) {
+            return false;
+        }
+        return origin.isDescriptionLoaded()
+                ? description.equals(origin.getDescription())
+                : description.equals(previewLocation(origin.getLazyDescription()));
+    }
+
+    /** Snapshot von {@code currentEntries}; Werte unveränderter Termine werden wiederverwendet. */
+    private List<EntryValue> snapshotCurrent() {
+        return EntryValue.snapshot(currentEntries, snapshotCache);
+    }
+
+    /** Anzeigetext für eine noch nicht geladene Beschreibung. */
+    private static String previewLocation(LazyText lazy) {
+        return lazy.preview() + " …";
+    }
+
+    /**
+     * Ersetzt die Vorschau eines Termins durch die vollständige Beschreibung.
+     * Wird aufgerufen, bevor die Detailansicht eines Termins geöffnet wird.
+     */
+    private void materializeDescription(Entry<?> entry) {
+        CalendarEntry ce = entry != null ? entrySources.get(entry) : null;
+        if (ce == null || ce.isDescriptionLoaded()) return;
+        if (previewLocation(ce.getLazyDescription()).equals(entry.getLocation())) {
+            boolean prev = suppressAutoSave;
+            suppressAutoSave = true;
+            try {
+                entry.setLocation(ce.getDescription());
+                lastUiSignature = computeUiSignature();
+            } finally {
+                suppressAutoSave = prev;
+            }
+            log("LAZY", "Beschreibung geladen für: " + entry.getTitle());
+        }
+    }
+
+    /**
+     * Holt einen Kalender für eine bestimmte Kategorie oder erstellt ihn, falls er noch nicht existiert.
+     *
+     * @param category Der Name der Kategorie (z.B. "Arbeit", "Privat")
+     * @return Der Kalender für diese Kategorie
+     */
+    private Calendar<String> getOrCreateCalendar(String category) {
+        // "Allgemein" ist der Standard-Kalender
+        if ("Allgemein".equalsIgnoreCase(category)) return fxCalendar;
+
+        // Suche oder erstelle einen Kalender für diese Kategorie
+        return categoryCalendars.computeIfAbsent(category, c -> {
+            Calendar<String> cal = new Calendar<>(c);
+
+            // Wähle eine Farbe für den Kalender (basierend auf dem Namen)
+            Calendar.Style[] styles = Calendar.Style.values();
+            Calendar.Style style = styles[Math.abs(c.hashCode()) % styles.length];
+            cal.setStyle(style);
+
+            // Füge den neuen Kalender zur Ansicht hinzu
+            for (CalendarSource src : calendarView.getCalendarSources()) {
+                if (!src.getCalendars().contains(cal)) {
+                    src.getCalendars().add(cal);
+                    addCalendarListener(cal); // Überwache Änderungen in diesem Kalender
+                    log("CAL", "Neuer Kategorie-Kalender erstellt: " + c);
+                    break;
+                }
+            }
+            return cal;
+        });
+    }
+
+    /**
+     * Richtet Listener ein, die automatisch speichern, wenn sich Termine ändern.
+     * Das umfasst: Hinzufügen, Bearbeiten, Löschen und Verschieben von Terminen.
+     */
+    private void setupCalendarListeners() {
+        addCalendarListener(fxCalendar);
+        for (Calendar<String> cal : categoryCalendars.values()) {
+            addCalendarListener(cal);
+        }
+    }
+
+    /**
+     * Fügt Listener zu einem Kalender hinzu, die bei Änderungen reagieren.
+     *
+     * @param calendar Der zu überwachende Kalender
+     */
+    private void addCalendarListener(Calendar<?> calendar) {
+        // Registriere einmal global an der CalendarView
+        if (calendarView != null && !calendarEventsHooked) {
+            calendarView.addEventHandler(com.calendarfx.model.CalendarEvent.ANY, event -> {
+                if (suppressAutoSave) {
+                    log("CAL_EVENT_SUPPRESS", "Eintragsänderung während Initialisierung ignoriert");
+                    return;
+                }
+                log("CAL_EVENT_VIEW", "Änderung erkannt (View), Auto-Save");
+                saveCurrentEntriesToIcs();
+            });
+            calendarEventsHooked = true;
+            log("CAL", "Globaler CalendarFX-Listener registriert");
+        }
+    }
+
+    /**
+     * Übernimmt einen Snapshot in die konfigurierte Ablage: Segmente, ICS-Datei oder Datenbank.
+     * Die Ablage schreibt nur geänderte Segmente, Termine bzw. Dateibereiche. Solange Termine im
+     * Hintergrund geladen werden, ist der Snapshot unvollständig und wird abgelehnt.
+     */
+    private void writeIcs(List<EntryValue> snapshot) throws Exception {
+        if (backgroundLoadPending) {
+            throw new IllegalStateException("Speichern nicht möglich, solange Termine im Hintergrund geladen werden");
+        }
+        if (segmentStore != null) {
+            int written = segmentStore.save(snapshot);
+            log("SAVE_ICS", "Segmente geschrieben: " + written);
+        } else if (storedHashes != null && store != null) {
+            // Datenbank: nur geänderte, neue und gelöschte Zeilen gegenüber dem geladenen Stand
+            int changed = store.applyChanges(storedHashes, snapshot);
+            log("SAVE_ICS", "Geänderte Termine (Datenbank): " + changed);
+        } else {
+            if (store == null) store = openIcsStore(ConfigUtil.getIcsPath());
+            IcsFileWatcher watcher = fileWatcher;
+            String external = watcher != null ? watcher.changedHash() : null;
+            if (external != null) {
+                // Noch nicht übernommene externe Änderung nicht überschreiben
+                snapshot = mergeExternal(snapshot, readExternal(watcher.getFile())).merged();
+            }
+            int changed;
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    changed = store.replaceAll(snapshot);
+                    break;
+                } catch (IcsFileStore.StaleException ex) {
+                    // Andere Instanz war schneller: nur deren Änderungen nachlesen, abgleichen, erneut speichern
+                    if (attempt > SAVE_RETRIES) throw ex;
+                    log("SAVE_ICS", "Gleichzeitige Änderung erkannt, Versuch " + attempt + ": " + ex.getMessage());
+                    snapshot = mergeExternal(snapshot, ((IcsFileStore) store).pull()).merged();
+                }
+            }
+            log("SAVE_ICS", "Geänderte Termine: " + changed);
+            if (watcher != null) {
+                mergeBase = snapshot;
+                watcher.acknowledge();
+            }
+        }
+        recordHistory(snapshot);
+        pushCalDav(snapshot);
+    }
+
+    /**
+     * Speichert alle aktuellen Termine in die ICS-Datei.
+     * Dies wird automatisch aufgerufen, wenn sich etwas ändert.
+     */
+    private void saveCurrentEntriesToIcs() {
+        if (suppressAutoSave) {
+            log("SAVE_ICS_SUPPRESS", "Speichern unterdrückt (Initialisierung)");
+            return;
+        }
+        if (backgroundLoadPending) {
+            log("SAVE_ICS_SUPPRESS", "Speichern zurückgestellt (Termine werden noch geladen)");
+            saveDeferred = true;
+            return;
+        }
+        saveDeferred = false;
+
+        try {
+            // Sammle alle Termine aus dem UI
+            rebuildCurrentEntriesFromUI();
+
+            // Sicherheitscheck: Verhindere versehentliches Löschen aller Daten
+            if (!initialLoadCompleted && currentEntries.isEmpty() && lastSavedCount > 0) {
+                log("SAVE_ICS_SKIP", "Leere Liste erkannt vor initialLoadCompleted – Speichern übersprungen");
+                return;
+            }
+
+            // Schreibe die Termine in die ICS-Datei
+            log("SAVE_ICS", "Schreibe Einträge: count=" + currentEntries.size() + " -> " + ConfigUtil.getIcsPath());
+            writeIcs(snapshotCurrent());
+            log("SAVE_ICS", "Fragment-Cache: " + IcsFragmentCache.shared().getStats());
+            lastSavedCount = currentEntries.size();
+
+            // Aktualisiere die Statusanzeige
+            setStatus("Status: Gespeichert (" + lastSavedCount + ")");
+            setSaveStatus("Speichern erfolgreich");
+
+        } catch (Exception ex) {
+            setStatus("Status: Fehler beim Speichern");
+            setSaveStatus("Fehler beim Speichern");
+            log("ERROR", "Auto-save fehlgeschlagen: " + ex.getMessage());
+        }
+    }
+
+    private void onNewEntry(ActionEvent evt) {
+        log("NEW_DIALOG", "Öffne Dialog für neuen Termin");
+        Dialog<Void> dialog = new Dialog<>();
+        dialog.setTitle("Neuer Termin");
+        ButtonType saveType = new ButtonType("Speichern", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(saveType, ButtonType.CANCEL);
+        applyThemeToDialog(dialog.getDialogPane());
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.setStyle("-fx-padding: 10;");
+
+        TextField titleField = new TextField();
+        titleField.setPromptText("Titel");
+        TextField descField = new TextField();
+        descField.setPromptText("Beschreibung (optional)");
+        DatePicker startDate = new DatePicker(LocalDate.now());
+        TextField startTime = new TextField("09:00");
+        DatePicker endDate = new DatePicker(LocalDate.now());
+        TextField endTime = new TextField("10:00");
+
+        grid.add(new Label("Titel:"), 0, 0);
+        grid.add(titleField, 1, 0);
+        grid.add(new Label("Beschreibung:"), 0, 1);
+        grid.add(descField, 1, 1);
+        grid.add(new Label("Start (Datum / Zeit):"), 0, 2);
+        grid.add(startDate, 1, 2);
+        grid.add(startTime, 2, 2);
+        grid.add(new Label("Ende (Datum / Zeit):"), 0, 3);
+        grid.add(endDate, 1, 3);
+        grid.add(endTime, 2, 3);
+
+        dialog.getDialogPane().setContent(grid);
+
+        var saveButton = dialog.getDialogPane().lookupButton(saveType);
+        saveButton.addEventFilter(javafx.event.ActionEvent.ACTION, e -> {
+            if (!validateInputs(titleField.getText(), startDate.getValue(), startTime.getText(), endDate.getValue(), endTime.getText())) {
+                log("NEW_VALIDATE", "Validierung fehlgeschlagen für Titel='" + titleField.getText() + "'");
+                e.consume();
+                Alert a = new Alert(Alert.AlertType.WARNING, "Bitte Titel angeben und gültige Zeiten im Format HH:mm eingeben. Ende muss nach Start liegen.", ButtonType.OK);
+                a.setHeaderText("Eingaben prüfen");
+                a.showAndWait();
+                return;
+            }
+            try {
+                LocalTime parsedStart = parseTime(startTime.getText());
+                LocalTime parsedEnd = parseTime(endTime.getText());
+                if (parsedStart == null || parsedEnd == null) {
+                    throw new IllegalArgumentException("Ungültige Zeitangaben");
+                }
+                LocalDateTime start = LocalDateTime.of(startDate.getValue(), parsedStart);
+                LocalDateTime end = LocalDateTime.of(endDate.getValue(), parsedEnd);
+                CalendarEntry ce = new CalendarEntry(titleField.getText().trim(), descField.getText(), start, end);
+                log("NEW_SAVE", "Neuer Eintrag (vor Persist) title='" + ce.getTitle() + "'");
+                addEntry(ce);
+            } catch (Exception ex) {
+                log("ERROR", "Speichern neuer Eintrag fehlgeschlagen: " + ex.getMessage());
+                e.consume();
+                showError("Speichern fehlgeschlagen", ex);
+            }
+        });
+
+        dialog.showAndWait();
+        log("NEW_DIALOG", "Dialog geschlossen");
+    }
+
+    /** Speichert einen neuen Termin zusammen mit dem aktuellen Stand und lädt neu; vergibt dabei die UID. */
+    private void addEntry(CalendarEntry ce) throws Exception {
+        if (ce.getUid() == null) ce.setUid(java.util.UUID.randomUUID().toString());
+        completeBackgroundLoad();
+        rebuildCurrentEntriesFromUI();
+        currentEntries.add(ce);
+        writeIcs(snapshotCurrent());
+        lastSavedCount = currentEntries.size();
+        setStatus("Status: Eintrag gespeichert (" + ce.getTitle() + ")");
+        reloadData();
+    }
+
+    private boolean validateInputs(String title, LocalDate sd, String st, LocalDate ed, String et) {
+        if (title == null || title.isBlank() || sd == null || ed == null) return false;
+        LocalTime ltStart = parseTime(st);
+        LocalTime ltEnd = parseTime(et);
+        if (ltStart == null || ltEnd == null) return false;
+        LocalDateTime start = LocalDateTime.of(sd, ltStart);
+        LocalDateTime end = LocalDateTime.of(ed, ltEnd);
+        return end.isAfter(start);
+    }
+
+    private LocalTime parseTime(String text) {
+        try {
+            String t = text == null ? "" : text.trim();
+            if (t.matches("^\\d{1}:\\d{2}$")) {
+                t = "0" + t; // normalize 9:00 -> 09:00
+            }
+            return LocalTime.parse(t);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private void onImport(ActionEvent evt) {
+        log("IMPORT", "Starte Import-Dialog");
+        Stage stage = (Stage) calendarContainer.getScene().getWindow();
+        FileChooser chooser = new FileChooser();
+        FileChooser.ExtensionFilter all = new FileChooser.ExtensionFilter("Kalenderdateien (*.ics, *.vcs, *.gz)", "*.ics", "*.vcs", "*.ics.gz", "*.vcs.gz");
+        FileChooser.ExtensionFilter ics = new FileChooser.ExtensionFilter("iCalendar (*.ics, *.ics.gz)", "*.ics", "*.ics.gz");
+        FileChooser.ExtensionFilter vcs = new FileChooser.ExtensionFilter("vCalendar (*.vcs, *.vcs.gz)", "*.vcs", "*.vcs.gz");
+        chooser.getExtensionFilters().addAll(all, ics, vcs);
+        chooser.setSelectedExtensionFilter(all);
+        File file = chooser.showOpenDialog(stage);
+        if (file == null) { log("IMPORT", "Abgebrochen"); return; }
+        try {
+            List<CalendarEntry> imported = IcsUtil.importAuto(file.toPath());
+            log("IMPORT", "Datei='" + file.getName() + "' -> Einträge=" + imported.size());
+            completeBackgroundLoad();
+            rebuildCurrentEntriesFromUI();
+            currentEntries.addAll(imported);
+            writeIcs(snapshotCurrent());
+            reloadData();
+            setStatus("Status: Import fertig (ICS)");
+        } catch (Exception ex) {
+            log("ERROR", "Import fehlgeschlagen: " + ex.getMessage());
+            showError("Import fehlgeschlagen", ex);
+        }
+    }
+
+    private void onExport(ActionEvent evt) {
+        log("EXPORT", "Starte Export-Dialog");
+        Stage stage = (Stage) calendarContainer.getScene().getWindow();
+        FileChooser chooser = new FileChooser();
+        chooser.setInitialFileName("calendar-export.ics");
+        FileChooser.ExtensionFilter all = new FileChooser.ExtensionFilter("Kalenderdateien (*.ics, *.vcs, *.gz)", "*.ics", "*.vcs", "*.ics.gz", "*.vcs.gz");
+        FileChooser.ExtensionFilter ics = new FileChooser.ExtensionFilter("iCalendar (*.ics, *.ics.gz)", "*.ics", "*.ics.gz");
+        FileChooser.ExtensionFilter vcs = new FileChooser.ExtensionFilter("vCalendar (*.vcs, *.vcs.gz)", "*.vcs", "*.vcs.gz");
+        chooser.getExtensionFilters().addAll(all, ics, vcs);
+        chooser.setSelectedExtensionFilter(ics);
+        File file = chooser.showSaveDialog(stage);
+        if (file == null) { log("EXPORT", "Abgebrochen"); return; }
+        try {
+            // Rebuild currentEntries from UI to capture any changes made via CalendarFX
+            rebuildCurrentEntriesFromUI();
+            // Unveränderlicher Snapshot statt Listenkopie
+            List<EntryValue> items = snapshotCurrent();
+            log("EXPORT", "Exportiere count=" + items.size() + " -> Datei='" + file.getName() + "'");
+            java.nio.file.Path out = file.toPath();
+            String lower = file.getName().toLowerCase();
+            if (lower.endsWith(IcsUtil.GZIP_SUFFIX)) lower = lower.substring(0, lower.length() - IcsUtil.GZIP_SUFFIX.length());
+            if (!lower.endsWith(".ics") && !lower.endsWith(".vcs")) {
+                var sel = chooser.getSelectedExtensionFilter();
+                if (sel != null && sel.getExtensions().contains("*.vcs")) {
+                    out = out.resolveSibling(file.getName() + ".vcs");
+                } else {
+                    out = out.resolveSibling(file.getName() + ".ics");
+                }
+            }
+            if (out.toString().toLowerCase().endsWith(".vcs") || out.toString().toLowerCase().endsWith(".vcs" + IcsUtil.GZIP_SUFFIX)) {
+                IcsUtil.exportVcsValues(out, items);
+            } else {
+                IcsUtil.exportIcsValues(out, items);
+            }
+            log("EXPORT", "Export erfolgreich -> " + out);
+            setStatus("Status: Exportiert -> " + out.getFileName());
+        } catch (Exception ex) {
+            log("ERROR", "Export fehlgeschlagen: " + ex.getMessage());
+            showError("Export fehlgeschlagen", ex);
+        }
+    }
+
+    private void onSettings(ActionEvent evt) {
+        log("SETTINGS", "Öffne Einstellungen");
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Einstellungen");
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+        applyThemeToDialog(dialog.getDialogPane());
+
+        TextField icsPathField = new TextField(ConfigUtil.getIcsPath().toString());
+        Button browse = new Button("…");
+        browse.setOnAction(e -> {
+            FileChooser chooser = new FileChooser();
+            chooser.setInitialFileName(icsPathField.getText().isBlank() ? "calendar.ics" : icsPathField.getText());
+            File f = chooser.showSaveDialog(dialog.getDialogPane().getScene().getWindow());
+            if (f != null) icsPathField.setText(f.getAbsolutePath());
+        });
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.setStyle("-fx-padding: 10;");
+        grid.add(new Label("ICS-Datei:"), 0, 0);
+        grid.add(icsPathField, 1, 0);
+        grid.add(browse, 2, 0);
+
+        CheckBox darkMode = new CheckBox("Dunkelmodus");
+        darkMode.setSelected(ConfigUtil.isDarkMode());
+        grid.add(new Label("Darstellung:"), 0, 1);
+        grid.add(darkMode, 1, 1);
+
+        dialog.getDialogPane().setContent(grid);
+
+        Optional<ButtonType> res = dialog.showAndWait();
+        if (res.isPresent() && res.get() == ButtonType.OK) {
+            try {
+                ConfigUtil.setIcsPath(new java.io.File(icsPathField.getText()).toPath());
+                ConfigUtil.setDarkMode(darkMode.isSelected());
+                applyTheme();
+                ConfigUtil.save();
+                reloadData();
+                startFeeds();
+                startCalDav();
+                log("SETTINGS", "Gespeichert -> ICS=" + ConfigUtil.getIcsPath());
+                setStatus("Status: Einstellungen gespeichert");
+                Alert a = new Alert(Alert.AlertType.INFORMATION, "Einstellungen gespeichert.", ButtonType.OK);
+                a.setHeaderText(null);
+                a.showAndWait();
+            } catch (Exception ex) {
+                log("ERROR", "Einstellungen speichern fehlgeschlagen: " + ex.getMessage());
+                showError("Konnte Einstellungen nicht speichern", ex);
+            }
+        } else {
+            log("SETTINGS", "Abgebrochen");
+        }
+    }
+
+    private void showError(String header, Exception ex) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Fehler");
+        alert.setHeaderText(header);
+        alert.setContentText(ex.getMessage());
+        applyThemeToDialog(alert.getDialogPane());
+        alert.showAndWait();
+    }
+
+    private void showInfo(String header, String text) {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle(header);
+        alert.setHeaderText(null);
+        alert.setContentText(text);
+        applyThemeToDialog(alert.getDialogPane());
+        alert.showAndWait();
+    }
+
+    private void applyTheme() {
+        if (calendarContainer.getScene() == null) return;
+        var stylesheets = calendarContainer.getScene().getStylesheets();
+        URL res = getClass().getResource("/dark.css");
+        String darkCss = res != null ? res.toExternalForm() : null;
+        stylesheets.removeIf(s -> s.endsWith("dark.css"));
+        if (ConfigUtil.isDarkMode() && darkCss != null) {
+            stylesheets.add(darkCss);
+            log("THEME", "Dark mode stylesheet applied");
+        } else {
+            log("THEME", "Dark mode stylesheet removed");
+        }
+    }
+
+    private void applyThemeToDialog(DialogPane pane) {
+        if (pane == null) return;
+        try {
+            URL res = getClass().getResource("/dark.css");
+            String darkCss = res != null ? res.toExternalForm() : null;
+            pane.getStylesheets().removeIf(s -> s.endsWith("dark.css"));
+            if (ConfigUtil.isDarkMode() && darkCss != null) {
+                pane.getStylesheets().add(darkCss);
+                log("THEME", "Dialog dark mode stylesheet applied");
+            }
+        } catch (Exception ignored) {}
+    }
+
+    private javafx.animation.Timeline reminderTimeline;
+    private final java.util.Set<String> notified = new java.util.HashSet<>();
+    // Nach Start sortierte Termine mit Erinnerung (reminders.columnar); null = beim nächsten Prüfen neu aufbauen
+    private ColumnarEntryStore reminderIndex;
+    private int reminderIndexSize;
+    private long maxReminderLeadSeconds;
+    private javafx.animation.Timeline autosaveTimeline; // periodischer Auto-Speicher-Monitor
+    private String lastUiSignature; // UI-Snapshot zur Erkennung von Änderungen
+
+    private void scheduleReminders(List<CalendarEntry> items) {
+        if (reminderTimeline != null) reminderTimeline.stop();
+        reminderIndex = null;
+        boolean columnar = ConfigUtil.isRemindersColumnar();
+        reminderTimeline = new javafx.animation.Timeline(
+                new javafx.animation.KeyFrame(javafx.util.Duration.seconds(5),
+                        e -> { if (columnar) checkRemindersColumnar(items); else checkReminders(items); })
+        );
+        reminderTimeline.setCycleCount(javafx.animation.Animation.INDEFINITE);
+        reminderTimeline.play();
+        log("REMINDER", "Reminder geplant für Einträge: " + items.size());
+    }
+
+    private void checkReminders(List<CalendarEntry> items) {
+        LocalDateTime now = LocalDateTime.now();
+        for (CalendarEntry entry : items) {
+            if (entry.getReminderMinutesBefore() != null && entry.getReminderMinutesBefore() > 0) {
+                LocalDateTime reminderTime = entry.getStart().minusMinutes(entry.getReminderMinutesBefore());
+                if (now.isAfter(reminderTime) && now.isBefore(entry.getStart())) {
+                    notifyReminder(entry.getTitle(), entry.getStart());
+                }
+            }
+        }
+    }
+
+    /**
+     * Wie {@link #checkReminders(List)}, aber über einen nach Start sortierten {@link ColumnarEntryStore}
+     * der Termine mit Erinnerung: Je Prüfung werden per Binärsuche nur die Termine gelesen, die innerhalb
+     * der längsten Vorlaufzeit beginnen. Der Index wird neu aufgebaut, wenn sich die Terminliste ändert.
+     */
+    private void checkRemindersColumnar(List<CalendarEntry> items) {
+        if (reminderIndex == null || reminderIndexSize != items.size()) {
+            List<CalendarEntry> withReminder = new ArrayList<>();
+            long maxLead = 0;
+            for (CalendarEntry entry : items) {
+                Integer minutes = entry.getReminderMinutesBefore();
+                if (minutes != null && minutes > 0 && entry.getStart() != null) {
+                    withReminder.add(entry);
+                    maxLead = Math.max(maxLead, minutes * 60L);
+                }
+            }
+            reminderIndex = ColumnarEntryStore.of(withReminder);
+            reminderIndexSize = items.size();
+            maxReminderLeadSeconds = maxLead;
+        }
+        ColumnarEntryStore index = reminderIndex;
+        long now = LocalEpoch.toSeconds(LocalDateTime.now());
+        for (int i = index.lowerBound(now + 1); i < index.size() && index.startEpoch(i) <= now + maxReminderLeadSeconds; i++) {
+            long start = index.startEpoch(i);
+            if (now >= start - index.reminderValue(i) * 60L) {
+                notifyReminder(index.title(i), LocalEpoch.toDateTime(start));
+            }
+        }
+    }
+
+    /** Zeigt die Erinnerung an einen Termin einmalig an. */
+    private void notifyReminder(String title, LocalDateTime start) {
+        String key = title + "|" + start;
+        if (!notified.add(key)) return;
+        javafx.application.Platform.runLater(() -> {
+            javafx.scene.control.Alert alert = new javafx.scene.control.Alert(
+                    javafx.scene.control.Alert.AlertType.INFORMATION,
+                    "Termin: " + title + "\nStart: " + start,
+                    javafx.scene.control.ButtonType.OK
+            );
+            alert.setTitle("Erinnerung");
+            alert.setHeaderText("Bevorstehender Termin");
+            applyThemeToDialog(alert.getDialogPane());
+            alert.show();
+        });
+        log("REMINDER", "Erinnerung angezeigt für: " + title);
+    }
+
+    // Erzeugt eine stabile Signatur des UI-Zustands, um Änderungen ohne aufwändiges Diffen zu erkennen
+    private String computeUiSignature() {
+        StringBuilder sb = new StringBuilder();
+        java.util.List<String> parts = new java.util.ArrayList<>();
+        for (CalendarSource source : calendarView.getCalendarSources()) {
+            if (source == feedSource) continue;
+            for (Calendar<?> calendar : source.getCalendars()) {
+                if (calendar == archiveCalendar) continue;
+                String calName = calendar.getName() == null ? "" : calendar.getName();
+                for (Entry<?> entry : calendar.findEntries("")) {
+                    String title = entry.getTitle() == null ? "" : entry.getTitle();
+                    String desc = entry.getLocation() == null ? "" : entry.getLocation();
+                    java.time.LocalDateTime s = entry.getStartAsLocalDateTime();
+                    java.time.LocalDateTime e = entry.getEndAsLocalDateTime();
+                    parts.add(calName + "|" + title + "|" + desc + "|" + s + "|" + e);
+                }
+            }
+        }
+        java.util.Collections.sort(parts);
+        for (String p : parts) sb.append(p).append('\n');
+        return sb.toString();
+    }
+
+    private void startAutosaveMonitor() {
+        if (autosaveTimeline != null) autosaveTimeline.stop();
+        lastUiSignature = computeUiSignature();
+        autosaveTimeline = new javafx.animation.Timeline(
+                new javafx.animation.KeyFrame(javafx.util.Duration.millis(400), e -> {
+                    if (suppressAutoSave || !initialLoadCompleted) return;
+                    String sig = computeUiSignature();
+                    if (!sig.equals(lastUiSignature)) {
+                        log("AUTOSAVE", "Änderung erkannt (diff)");
+                        saveCurrentEntriesToIcs();
+                        lastUiSignature = sig;
+                    }
+                })
+        );
+        autosaveTimeline.setCycleCount(javafx.animation.Animation.INDEFINITE);
+        autosaveTimeline.play();
+        log("AUTOSAVE", "Monitor gestartet");
+    }
+
+    private void onExit(ActionEvent evt) {
+        log("EXIT", "Beenden angefordert");
+        try {
+            suppressAutoSave = true; // verhinder parallele Events
+            if (autosaveTimeline != null) autosaveTimeline.stop();
+            if (reminderTimeline != null) reminderTimeline.stop();
+            if (feedScheduler != null) feedScheduler.close();
+            // Nicht mehr hochgeladene Änderungen erkennt der nächste Start am Inhaltshash
+            stopCalDav();
+            saveBeforeExit();
+            ConfigUtil.save();
+            javafx.application.Platform.exit();
+            log("EXIT", "Anwendung beendet");
+        } catch (Exception ex) {
+            log("ERROR", "Fehler beim Speichern vor Exit: " + ex.getMessage());
+            showError("Fehler beim Speichern", ex);
+        }
+    }
+
+    /**
+     * Speichert vor dem Beenden (eine externe Änderung wird dabei noch abgeglichen). Ein noch
+     * laufendes Nachladen wird abgewartet; ist es fehlgeschlagen, bleibt die Ablage unverändert.
+     */
+    private void saveBeforeExit() throws Exception {
+        try {
+            completeBackgroundLoad();
+        } catch (IllegalStateException ex) {
+            log("EXIT", "Nicht gespeichert: " + ex.getMessage());
+            return;
+        }
+        rebuildCurrentEntriesFromUI();
+        log("EXIT", "Speichere vor Beenden: count=" + currentEntries.size());
+        if (!currentEntries.isEmpty()) {
+            writeIcs(snapshotCurrent());
+        }
+    }
+
+    private void onInfo(ActionEvent evt) {
+        log("INFO", "Öffne Info-Dialog");
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Über Calendar Java");
+        alert.setHeaderText("Calendar Java – Kalenderanwendung");
+
+        StringBuilder info = new StringBuilder();
+        info.append("JavaFX-basierte Kalenderanwendung\n\n");
+        info.append("Verwendete Bibliotheken:\n");
+        info.append("- CalendarFX (Apache-2.0)\n");
+        info.append("- Biweekly (BSD-2-Clause)\n");
+        info.append("- JavaFX (GPLv2 + Classpath Exception)\n\n");
+        info.append("Autoren:\n");
+        info.append("- Jan Erdmann\n");
+        info.append("- Kerim Talha Morca\n");
+        info.append("- Florian Alexander Knittel\n\n");
+        info.append("Version: ").append(VersionUtil.getVersion()).append("\n\n");
+        info.append("Weitere Informationen:\n");
+        info.append("- README.md\n");
+        info.append("- THIRD-PARTY-NOTICES.md\n");
+        info.append("- LICENSE\n");
+
+        alert.setContentText(info.toString());
+        applyThemeToDialog(alert.getDialogPane());
+
+        alert.getDialogPane().setMinWidth(600);
+        alert.setResizable(true);
+
+        alert.showAndWait();
+        log("INFO", "Info-Dialog geschlossen");
+    }
+
+    /**
+     * Test-Hilfsmethode: Zugriff auf die CalendarView, um in UI-Tests mit dem Kalendermodell zu arbeiten.
+     */
+    public CalendarView getCalendarViewForTest() {
+        return calendarView;
+    }
+
+    /**
+     * Test-Hilfsmethode: Lädt die Daten neu wie nach dem Ändern der Einstellungen (Last-Tests, FX-Thread).
+     */
+    void reloadDataForTest() {
+        reloadData();
+    }
+
+    /**
+     * Test-Hilfsmethode: Übernimmt Termine ohne Laden aus der Ablage in die Kalenderansicht (Last-Tests, FX-Thread).
+     */
+    void populateCalendarForTest(List<CalendarEntry> items) {
+        suppressAutoSave = true;
+        try {
+            populateCalendar(items);
+        } finally {
+            suppressAutoSave = false;
+        }
+    }
+
+    /**
+     * Test-Hilfsmethode: Legt einen Termin wie über "Neuer Termin" an (FX-Thread).
+     */
+    void addEntryForTest(CalendarEntry ce) throws Exception {
+        addEntry(ce);
+    }
+
+    /**
+     * Test-Hilfsmethode: Speichert wie beim Beenden, ohne JavaFX zu beenden (FX-Thread).
+     */
+    void saveBeforeExitForTest() throws Exception {
+        saveBeforeExit();
+    }
+
+    /**
+     * Test-Hilfsmethode: Hält Zeitgeber und Hintergrund-Jobs an, ohne zu speichern oder JavaFX zu beenden.
+     */
+    void shutdownForTest() {
+        suppressAutoSave = true;
+        if (autosaveTimeline != null) autosaveTimeline.stop();
+        if (reminderTimeline != null) reminderTimeline.stop();
+        if (feedScheduler != null) feedScheduler.close();
+        feedScheduler = null;
+        stopCalDav();
+        if (maintenanceJob != null) maintenanceJob.shutdownNow();
+        maintenanceJob = null;
+        stopFileWatcher();
+        closeStore();
+    }
+}
@@ -0,0 +1,129 @@
+import javafx.application.Platform;
+import javafx.embed.swing.JFXPanel;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import org.junit.jupiter.api.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Speichern während des Nachladens im Hintergrund (storage.mode=segments): Neuer Termin und
+ * Speichern beim Beenden dürfen keine noch nicht übernommenen Segmente löschen.
+ *
+ * Laden und Speichern laufen in derselben Aufgabe im FX-Thread, damit das Nachladen zum
+ * Zeitpunkt des Speicherns sicher noch nicht in die Ansicht übernommen ist.
+ */
+public class CalendarBackgroundLoadTest {
+
+    private static final int MONTHS = 24;
+    private static final int PER_MONTH = 5;
+
+    private Path dir;
+
+    @BeforeAll
+    static void initJavaFx() {
+        new JFXPanel();
+        Platform.setImplicitExit(false);
+    }
+
+    @BeforeEach
+    void setupSegments() throws Exception {
+        dir = Files.createTempDirectory("bg-load-");
+        Path ics = dir.resolve("kalender.ics");
+        ConfigUtil.setIcsPath(ics);
+        ConfigUtil.setStorageMode("segments");
+        ConfigUtil.setHistoryKeepDays(0);
+
+        List<EntryValue> values = new ArrayList<>();
+        LocalDateTime first = LocalDate.now().withDayOfMonth(1).minusMonths(MONTHS / 2).atTime(9, 0);
+        for (int m = 0; m < MONTHS; m++) {
+            for (int i = 0; i < PER_MONTH; i++) {
+                LocalDateTime start = first.plusMonths(m).plusDays(i);
+                values.add(EntryValue.of("Termin " + m + "/" + i, "", start, start.plusHours(1)).withUid("bg-" + m + "-" + i));
+            }
+        }
+        segments().save(values);
+    }
+
+    @AfterEach
+    void resetConfig() {
+        ConfigUtil.setStorageMode("ics");
+        ConfigUtil.setHistoryKeepDays(30);
+    }
+
+    private SegmentedIcsStore segments() throws Exception {
+        return SegmentedIcsStore.open(ConfigUtil.getSegmentDir(), SegmentedIcsStore.Granularity.MONTH);
+    }
+
+    private static <T> T onFx(Callable<T> task) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        try {
+            return result.get(30, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception ex) throw ex;
+            throw e;
+        }
+    }
+
+    private static CalendarProjektController load() throws Exception {
+        FXMLLoader loader = new FXMLLoader(CalendarBackgroundLoadTest.class.getResource("/calendar_view.fxml"));
+        Parent root = loader.load();
+        new Scene(root, 800, 600);
+        return loader.getController();
+    }
+
+    @Test
+    void testNewEntryDuringBackgroundLoadKeepsSegments() throws Exception {
+        LocalDateTime start = LocalDateTime.now().withSecond(0).withNano(0).plusHours(1);
+        CalendarEntry added = new CalendarEntry("Neu beim Laden", "", start, start.plusHours(1));
+        CalendarProjektController controller = onFx(() -> {
+            CalendarProjektController c = load();
+            c.addEntryForTest(added);
+            return c;
+        });
+        onFx(() -> {
+            controller.shutdownForTest();
+            return null;
+        });
+
+        List<CalendarEntry> back = segments().loadAll();
+        assertEquals(MONTHS * PER_MONTH + 1, back.size());
+        assertTrue(back.stream().anyMatch(ce -> "Neu beim Laden".equals(ce.getTitle())));
+        assertEquals(MONTHS, segments().segments().size());
+    }
+
+    @Test
+    void testSaveOnExitDuringBackgroundLoadKeepsSegments() throws Exception {
+        CalendarProjektController controller = onFx(() -> {
+            CalendarProjektController c = load();
+            c.saveBeforeExitForTest();
+            return c;
+        });
+        onFx(() -> {
+            controller.shutdownForTest();
+            return null;
+        });
+
+        assertEquals(MONTHS * PER_MONTH, segments().loadAll().size());
+        assertEquals(MONTHS, segments().segments().size());
+    }
+}
@@ -0,0 +1,142 @@
+import com.calendarfx.view.CalendarView;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lastmessung der Oberfläche: lädt 10k/100k/500k Termine über {@link CalendarProjektController},
+ * misst {@code reloadData} und {@code populateCalendar} sowie das Umschalten zwischen Tages-,
+ * Wochen-, Monats- und Jahresansicht.
+ *
+ * Je Phase werden Wandzeit, CPU-Zeit des FX-Threads, Layout-Zeit je Puls und Bildabstände
+ * (p50/p95/max) sowie der Heap nach GC nach {@code target/perf/ui-stress.jsonl} geschrieben.
+ * Läuft nur mit {@code mvn -Pperf test} (siehe {@link FxPerf}).
+ */
+@Tag(FxPerf.TAG)
+public class CalendarUiStressTest {
+
+    /** Pulse, die nach einer Aktion abgewartet werden, damit Layout und Darstellung nachgezogen sind. */
+    private static final int SETTLE_PULSES = 5;
+    private static final long PULSE_TIMEOUT_MS = 120_000;
+
+    @BeforeAll
+    static void initJavaFx() throws Exception {
+        FxPerf.startToolkit();
+    }
+
+    @Test
+    void testPopulateAndSwitchViews() throws Exception {
+        try (FxPerf.Report report = new FxPerf.Report("ui-stress")) {
+            for (int size : FxPerf.sizes("10000,100000,500000")) {
+                runScenario(size, report);
+            }
+            assertTrue(Files.size(report.getFile()) > 0);
+        }
+    }
+
+    private void runScenario(int size, FxPerf.Report report) throws Exception {
+        Path dir = Files.createTempDirectory("ui-stress-");
+        Path ics = dir.resolve("stress.ics");
+        SyntheticCalendar.write(SyntheticCalendar.Spec.defaults().withEvents(size).withSeed(size), ics);
+        ConfigUtil.setIcsPath(ics);
+        long heapBefore = FxPerf.usedHeapAfterGc();
+
+        // Laden: FXML, initialize (inklusive reloadData) und erste Darstellung
+        long cpu = FxPerf.fxCpuNanos();
+        long t0 = System.nanoTime();
+        Object[] loaded = FxPerf.onFx(() -> {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/calendar_view.fxml"));
+            Parent root = loader.load();
+            Stage stage = new Stage();
+            stage.setScene(new Scene(root, 1280, 800));
+            stage.show();
+            return new Object[]{loader.getController(), stage};
+        });
+        CalendarProjektController controller = (CalendarProjektController) loaded[0];
+        Stage stage = (Stage) loaded[1];
+        FxPerf.PulseRecorder pulses = FxPerf.onFx(() -> {
+            FxPerf.PulseRecorder r = new FxPerf.PulseRecorder(stage.getScene());
+            r.start();
+            return r;
+        });
+        assertTrue(pulses.awaitPulses(SETTLE_PULSES, PULSE_TIMEOUT_MS), "Keine Pulse nach dem Laden");
+        Map<String, Object> load = phase(size, "load", System.nanoTime() - t0, cpu, pulses);
+        load.put("heap_delta_mb", (FxPerf.usedHeapAfterGc() - heapBefore) / (1024.0 * 1024.0));
+        report.record(load);
+
+        try {
+            // reloadData: Ablage öffnen, Termine lesen, populateCalendar, Verlauf/Watcher
+            record(report, size, "reloadData", pulses, controller::reloadDataForTest);
+
+            // populateCalendar allein, mit bereits gelesenen Terminen
+            List<CalendarEntry> entries = IcsUtil.importIcs(ics);
+            assertEquals(size, entries.size());
+            record(report, size, "populateCalendar", pulses, () -> controller.populateCalendarForTest(entries));
+
+            CalendarView view = controller.getCalendarViewForTest();
+            for (int round = 0; round < 2; round++) {
+                record(report, size, "view_day", pulses, view::showDayPage);
+                record(report, size, "view_week", pulses, view::showWeekPage);
+                record(report, size, "view_month", pulses, view::showMonthPage);
+                record(report, size, "view_year", pulses, view::showYearPage);
+            }
+
+            Map<String, Object> heap = new LinkedHashMap<>();
+            heap.put("size", size);
+            heap.put("phase", "heap");
+            heap.put("heap_used_mb", FxPerf.usedHeapAfterGc() / (1024.0 * 1024.0));
+            report.record(heap);
+        } finally {
+            FxPerf.onFx(() -> {
+                pulses.stop();
+                controller.shutdownForTest();
+                stage.close();
+                return null;
+            });
+            Files.deleteIfExists(ics);
+        }
+    }
+
+    /** Führt {@code action} im FX-Thread aus, wartet die Folge-Pulse ab und schreibt die Kennzahlen. */
+    private static void record(FxPerf.Report report, int size, String name, FxPerf.PulseRecorder pulses,
+                               Runnable action) throws Exception {
+        FxPerf.onFx(() -> {
+            pulses.reset();
+            return null;
+        });
+        long cpu = FxPerf.fxCpuNanos();
+        long t0 = System.nanoTime();
+        long actionNanos = FxPerf.timeOnFx(action);
+        assertTrue(pulses.awaitPulses(SETTLE_PULSES, PULSE_TIMEOUT_MS), "Keine Pulse nach " + name);
+        Map<String, Object> m = phase(size, name, System.nanoTime() - t0, cpu, pulses);
+        m.put("action_ms", FxPerf.millis(actionNanos));
+        report.record(m);
+    }
+
+    private static Map<String, Object> phase(int size, String name, long wallNanos, long cpuBefore,
+                                             FxPerf.PulseRecorder pulses) throws Exception {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("size", size);
+        m.put("phase", name);
+        m.put("wall_ms", FxPerf.millis(wallNanos));
+        long cpu = FxPerf.fxCpuNanos();
+        if (cpuBefore >= 0 && cpu >= 0) {
+            m.put("fx_cpu_ms", FxPerf.millis(cpu - cpuBefore));
+            m.put("fx_busy", (double) (cpu - cpuBefore) / Math.max(1, wallNanos));
+        }
+        m.putAll(FxPerf.onFx(pulses::summary));
+        return m;
+    }
+}
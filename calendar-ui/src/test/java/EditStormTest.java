@@ -0,0 +1,262 @@
+import com.calendarfx.model.Calendar;
+import com.calendarfx.model.CalendarSource;
+import com.calendarfx.model.Entry;
+import com.calendarfx.view.CalendarView;
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lasttest der automatischen Speicherung: Bursts von Verschiebungen und Größenänderungen
+ * über {@code Entry.setInterval}, denselben Weg wie Ziehen mit der Maus in CalendarFX, sodass
+ * jede Änderung als {@code CalendarEvent} beim Listener aus {@code addCalendarListener} ankommt.
+ *
+ * Gemessen werden Anzahl Speichervorgänge (Vollexporte und Einzelkorrekturen, {@link WriteStats})
+ * und geschriebene Bytes, Blockaden des FX-Threads (Latenz einer Sonde alle 5 ms, Bildabstände,
+ * CPU-Zeit) sowie die Zeit von der letzten Änderung bis zum Speicherstand auf der Platte, der
+ * die letzte Änderung enthält (Dateiinhalt, ohne fsync). Ergebnis: {@code target/perf/edit-storm.jsonl}.
+ *
+ * Parameter: {@code -Dperf.sizes} (Termine im Kalender, Standard 2000,20000),
+ * {@code -Dperf.editRate} (Änderungen/s, Standard 300), {@code -Dperf.editSeconds} (Standard 5),
+ * {@code -Dperf.editTargets} (verschiedene bearbeitete Termine, Standard 50).
+ */
+@Tag(FxPerf.TAG)
+public class EditStormTest {
+
+    /** Abstand der Bursts; je Burst werden {@code rate / 100} Änderungen gebündelt eingestellt. */
+    private static final long BURST_MILLIS = 10;
+    private static final long PROBE_MILLIS = 5;
+    private static final long SAVE_TIMEOUT_MS = 120_000;
+
+    @BeforeAll
+    static void initJavaFx() throws Exception {
+        FxPerf.startToolkit();
+    }
+
+    @Test
+    void testEditStormAgainstAutosave() throws Exception {
+        int rate = Integer.getInteger("perf.editRate", 300);
+        int seconds = Integer.getInteger("perf.editSeconds", 5);
+        int targets = Integer.getInteger("perf.editTargets", 50);
+        try (FxPerf.Report report = new FxPerf.Report("edit-storm")) {
+            for (int size : FxPerf.sizes("2000,20000")) {
+                runStorm(size, rate, seconds, targets, report);
+            }
+        }
+    }
+
+    private void runStorm(int size, int rate, int seconds, int targetCount, FxPerf.Report report) throws Exception {
+        Path dir = Files.createTempDirectory("edit-storm-");
+        Path ics = dir.resolve("storm.ics");
+        SyntheticCalendar.write(SyntheticCalendar.Spec.defaults().withEvents(size).withSeed(size).withRecurrence(0), ics);
+        ConfigUtil.setIcsPath(ics);
+
+        Object[] loaded = FxPerf.onFx(() -> {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/calendar_view.fxml"));
+            Parent root = loader.load();
+            Stage stage = new Stage();
+            stage.setScene(new Scene(root, 1280, 800));
+            stage.show();
+            return new Object[]{loader.getController(), stage};
+        });
+        CalendarProjektController controller = (CalendarProjektController) loaded[0];
+        Stage stage = (Stage) loaded[1];
+        FxPerf.PulseRecorder pulses = FxPerf.onFx(() -> new FxPerf.PulseRecorder(stage.getScene()));
+        ScheduledExecutorService driver = Executors.newScheduledThreadPool(2);
+        try {
+            CalendarView view = controller.getCalendarViewForTest();
+            List<Entry<?>> targets = FxPerf.onFx(() -> editableEntries(view, targetCount));
+            assertFalse(targets.isEmpty(), "Keine bearbeitbaren Termine");
+            FxPerf.awaitIdle();
+
+            ConcurrentLinkedQueue<Long> probes = new ConcurrentLinkedQueue<>();
+            ConcurrentLinkedQueue<Long> editDelays = new ConcurrentLinkedQueue<>();
+            AtomicInteger submitted = new AtomicInteger();
+            AtomicInteger applied = new AtomicInteger();
+            AtomicLong lastEdit = new AtomicLong();
+            int total = rate * seconds;
+            int perBurst = Math.max(1, (int) (rate * BURST_MILLIS / 1000));
+            CountDownLatch allSubmitted = new CountDownLatch(1);
+
+            FxPerf.onFx(() -> {
+                pulses.start();
+                return null;
+            });
+            WriteStats.Stats before = WriteStats.shared().getStats();
+            long cpu = FxPerf.fxCpuNanos();
+            long t0 = System.nanoTime();
+
+            // Sonde: Wartezeit eines leeren runLater als Maß für Blockaden des FX-Threads
+            ScheduledFuture<?> probe = driver.scheduleAtFixedRate(() -> {
+                long sent = System.nanoTime();
+                Platform.runLater(() -> probes.add(System.nanoTime() - sent));
+            }, 0, PROBE_MILLIS, TimeUnit.MILLISECONDS);
+
+            // Änderungen: abwechselnd verschieben (+/-15 min) und verlängern/verkürzen
+            ScheduledFuture<?> editor = driver.scheduleAtFixedRate(() -> {
+                for (int k = 0; k < perBurst; k++) {
+                    int n = submitted.getAndIncrement();
+                    if (n >= total) {
+                        allSubmitted.countDown();
+                        return;
+                    }
+                    Entry<?> entry = targets.get(n % targets.size());
+                    long sent = System.nanoTime();
+                    Platform.runLater(() -> {
+                        long now = System.nanoTime();
+                        editDelays.add(now - sent);
+                        lastEdit.set(now);
+                        edit(entry, n);
+                        applied.incrementAndGet();
+                    });
+                }
+            }, 0, BURST_MILLIS, TimeUnit.MILLISECONDS);
+
+            assertTrue(allSubmitted.await(seconds * 10L + 60, TimeUnit.SECONDS), "Änderungen nicht eingestellt");
+            editor.cancel(false);
+            // Alle Änderungen sind angewendet, sobald die FX-Warteschlange bis hierhin abgearbeitet ist
+            FxPerf.awaitIdle();
+            assertEquals(total, applied.get());
+            long stormNanos = System.nanoTime() - t0;
+            long cpuStorm = FxPerf.fxCpuNanos();
+            probe.cancel(false);
+
+            long durable = awaitDurableSave(view, ics, lastEdit.get());
+            WriteStats.Stats writes = WriteStats.shared().getStats().since(before);
+
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("size", size);
+            m.put("edits", total);
+            m.put("edit_rate", rate);
+            m.put("targets", targets.size());
+            m.put("storm_ms", FxPerf.millis(stormNanos));
+            m.put("exports", writes.exports());
+            m.put("patches", writes.patches());
+            m.put("saves_per_edit", (double) (writes.exports() + writes.patches()) / total);
+            m.put("bytes_written", writes.bytes());
+            m.put("bytes_per_edit", (double) writes.bytes() / total);
+            m.put("last_edit_to_durable_ms", FxPerf.millis(durable));
+            if (cpu >= 0 && cpuStorm >= 0) {
+                m.put("fx_cpu_ms", FxPerf.millis(cpuStorm - cpu));
+                m.put("fx_busy", (double) (cpuStorm - cpu) / Math.max(1, stormNanos));
+            }
+            putLatencies(m, "probe", probes);
+            putLatencies(m, "edit_delay", editDelays);
+            long stalled = probes.stream().mapToLong(Long::longValue).filter(p -> p > 16_000_000L).sum();
+            m.put("fx_stall_ms", FxPerf.millis(stalled));
+            m.putAll(FxPerf.onFx(pulses::summary));
+            report.record(m);
+        } finally {
+            driver.shutdownNow();
+            FxPerf.onFx(() -> {
+                pulses.stop();
+                controller.shutdownForTest();
+                stage.close();
+                return null;
+            });
+            Files.deleteIfExists(ics);
+        }
+    }
+
+    /** Bearbeitbare Termine aus den eigenen Kalendern (ohne Archiv und Abonnements). */
+    private static List<Entry<?>> editableEntries(CalendarView view, int count) {
+        List<Entry<?>> out = new ArrayList<>();
+        for (CalendarSource source : view.getCalendarSources()) {
+            for (Calendar<?> cal : source.getCalendars()) {
+                if (cal.isReadOnly()) continue;
+                for (Entry<?> e : cal.findEntries("")) {
+                    if (e.isRecurrence()) continue;
+                    out.add(e);
+                    if (out.size() >= count) return out;
+                }
+            }
+        }
+        return out;
+    }
+
+    private static void edit(Entry<?> entry, int n) {
+        ZonedDateTime start = entry.getStartAsZonedDateTime();
+        ZonedDateTime end = entry.getEndAsZonedDateTime();
+        switch (n % 4) {
+            case 0 -> entry.setInterval(start.plusMinutes(15), end.plusMinutes(15));
+            case 1 -> entry.setInterval(start, end.plusMinutes(15));
+            case 2 -> entry.setInterval(start.minusMinutes(15), end.minusMinutes(15));
+            default -> entry.setInterval(start, end.minusMinutes(15));
+        }
+    }
+
+    /**
+     * Wartet auf den ersten nach {@code lastEdit} (Beginn der letzten Änderung) abgeschlossenen
+     * Speichervorgang, nach dem die Datei den Stand der Ansicht enthält; liefert die Zeit ab
+     * {@code lastEdit}.
+     */
+    private static long awaitDurableSave(CalendarView view, Path ics, long lastEdit) throws Exception {
+        List<String> expected = FxPerf.onFx(() -> uiSignature(view));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SAVE_TIMEOUT_MS);
+        long checked = 0;
+        while (System.nanoTime() < deadline) {
+            long written = WriteStats.shared().getStats().lastWriteNanos();
+            if (written - lastEdit > 0 && written != checked) {
+                checked = written;
+                if (expected.equals(fileSignature(ics))) return written - lastEdit;
+            }
+            Thread.sleep(20);
+        }
+        fail("Letzte Änderung wurde nicht gespeichert");
+        return -1;
+    }
+
+    private static List<String> uiSignature(CalendarView view) {
+        List<String> out = new ArrayList<>();
+        for (CalendarSource source : view.getCalendarSources()) {
+            for (Calendar<?> cal : source.getCalendars()) {
+                if (cal.isReadOnly()) continue;
+                for (Entry<?> e : cal.findEntries("")) {
+                    if (e.isRecurrence()) continue;
+                    out.add(e.getTitle() + "|" + e.getStartAsLocalDateTime() + "|" + e.getEndAsLocalDateTime());
+                }
+            }
+        }
+        out.sort(null);
+        return out;
+    }
+
+    private static List<String> fileSignature(Path ics) throws Exception {
+        List<String> out = new ArrayList<>();
+        for (CalendarEntry ce : IcsUtil.importIcs(ics)) {
+            out.add(ce.getTitle() + "|" + ce.getStart() + "|" + ce.getEnd());
+        }
+        out.sort(null);
+        return out;
+    }
+
+    private static void putLatencies(Map<String, Object> m, String name, ConcurrentLinkedQueue<Long> values) {
+        long[] sorted = values.stream().mapToLong(Long::longValue).sorted().toArray();
+        m.put(name + "_p50_ms", FxPerf.millis(FxPerf.percentile(sorted, 0.50)));
+        m.put(name + "_p99_ms", FxPerf.millis(FxPerf.percentile(sorted, 0.99)));
+        m.put(name + "_max_ms", FxPerf.millis(sorted.length > 0 ? sorted[sorted.length - 1] : 0));
+    }
+}
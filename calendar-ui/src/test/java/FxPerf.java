@@ -0,0 +1,237 @@
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.embed.swing.JFXPanel;
+import javafx.scene.Scene;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hilfsmittel für die Leistungsmessungen der Oberfläche (JUnit-Tag {@value #TAG}).
+ *
+ * Die Messungen laufen nur mit {@code mvn -Pperf test} und benötigen eine Anzeige (unter Linux
+ * ohne Bildschirm z. B. {@code xvfb-run mvn -Pperf test}). Ergebnisse werden als JSON-Zeilen
+ * unter {@code perf.out} (Standard: {@code target/perf}) geschrieben, eine Datei je Messung.
+ * Größen lassen sich über {@code -Dperf.sizes=10000,100000} einschränken.
+ */
+final class FxPerf {
+
+    static final String TAG = "perf";
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static volatile long fxThreadId = -1;
+
+    private FxPerf() {
+    }
+
+    /** Startet das JavaFX-Toolkit (wie {@code CalendarUiPersistenceTest}) und merkt sich den FX-Thread. */
+    static void startToolkit() throws Exception {
+        new JFXPanel();
+        Platform.setImplicitExit(false);
+        fxThreadId = onFx(() -> Thread.currentThread().getId());
+    }
+
+    /** Führt {@code task} im FX-Thread aus und wartet auf das Ergebnis; Ausnahmen werden weitergereicht. */
+    static <T> T onFx(Callable<T> task) throws Exception {
+        if (Platform.isFxApplicationThread()) return task.call();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        try {
+            return result.get(10, TimeUnit.MINUTES);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception ex) throw ex;
+            throw e;
+        }
+    }
+
+    /** Führt {@code task} im FX-Thread aus und liefert die Dauer in Nanosekunden. */
+    static long timeOnFx(Runnable task) throws Exception {
+        return onFx(() -> {
+            long t0 = System.nanoTime();
+            task.run();
+            return System.nanoTime() - t0;
+        });
+    }
+
+    /** Wartet, bis die FX-Warteschlange abgearbeitet ist, und liefert die Wartezeit in Nanosekunden. */
+    static long awaitIdle() throws Exception {
+        long t0 = System.nanoTime();
+        onFx(() -> null);
+        return System.nanoTime() - t0;
+    }
+
+    /** Bisherige CPU-Zeit des FX-Threads in Nanosekunden (-1, falls nicht messbar). */
+    static long fxCpuNanos() {
+        return fxThreadId >= 0 && THREADS.isThreadCpuTimeSupported() ? THREADS.getThreadCpuTime(fxThreadId) : -1;
+    }
+
+    /** Belegter Heap nach einer vollständigen Speicherbereinigung, in Bytes. */
+    static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /** Zu messende Größen aus {@code -Dperf.sizes}, sonst {@code defaults}. */
+    static int[] sizes(String defaults) {
+        return Arrays.stream(System.getProperty("perf.sizes", defaults).split(","))
+                .map(String::trim).filter(s -> !s.isEmpty()).mapToInt(Integer::parseInt).toArray();
+    }
+
+    /** Wert an der Stelle {@code p} (0..1) einer aufsteigend sortierten Reihe. */
+    static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Zeichnet je Puls die Zeit für CSS und Layout einer Szene (vor/nach dem Layout-Puls) sowie
+     * den Abstand zwischen zwei Bildern auf. Der Abstand enthält alles, was den FX-Thread
+     * zwischen zwei Pulsen blockiert.
+     */
+    static final class PulseRecorder {
+        private final Scene scene;
+        private final List<Long> layouts = new ArrayList<>();
+        private final List<Long> frames = new ArrayList<>();
+        private final Runnable pre = this::preLayout;
+        private final Runnable post = this::postLayout;
+        private final AnimationTimer timer;
+        private long layoutStart;
+        private long lastFrame;
+        private volatile int pulses;
+
+        PulseRecorder(Scene scene) {
+            this.scene = scene;
+            this.timer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    if (lastFrame > 0) frames.add(now - lastFrame);
+                    lastFrame = now;
+                }
+            };
+        }
+
+        /** Beginnt die Aufzeichnung (FX-Thread). */
+        void start() {
+            scene.addPreLayoutPulseListener(pre);
+            scene.addPostLayoutPulseListener(post);
+            timer.start();
+        }
+
+        /** Beendet die Aufzeichnung (FX-Thread). */
+        void stop() {
+            timer.stop();
+            scene.removePreLayoutPulseListener(pre);
+            scene.removePostLayoutPulseListener(post);
+        }
+
+        private void preLayout() {
+            layoutStart = System.nanoTime();
+        }
+
+        private void postLayout() {
+            if (layoutStart > 0) layouts.add(System.nanoTime() - layoutStart);
+            layoutStart = 0;
+            pulses++;
+        }
+
+        /** Verwirft die bisherigen Werte (FX-Thread). */
+        void reset() {
+            layouts.clear();
+            frames.clear();
+            lastFrame = 0;
+        }
+
+        /** Wartet auf {@code count} weitere Pulse; liefert {@code false} bei Zeitüberschreitung. */
+        boolean awaitPulses(int count, long timeoutMillis) throws InterruptedException {
+            int target = pulses + count;
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            while (pulses < target) {
+                if (System.currentTimeMillis() > deadline) return false;
+                Thread.sleep(2);
+            }
+            return true;
+        }
+
+        /** Kennzahlen seit dem letzten {@link #reset()} (FX-Thread). */
+        Map<String, Object> summary() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            put(m, "layout", layouts);
+            put(m, "frame", frames);
+            return m;
+        }
+
+        private static void put(Map<String, Object> m, String name, List<Long> values) {
+            long[] sorted = values.stream().mapToLong(Long::longValue).sorted().toArray();
+            m.put(name + "_count", sorted.length);
+            m.put(name + "_p50_ms", millis(percentile(sorted, 0.50)));
+            m.put(name + "_p95_ms", millis(percentile(sorted, 0.95)));
+            m.put(name + "_max_ms", millis(sorted.length > 0 ? sorted[sorted.length - 1] : 0));
+        }
+    }
+
+    /** Schreibt Messwerte als JSON-Zeilen nach {@code <perf.out>/<name>.jsonl}. */
+    static final class Report implements AutoCloseable {
+        private final Path file;
+        private final BufferedWriter out;
+
+        Report(String name) throws Exception {
+            Path dir = Paths.get(System.getProperty("perf.out", "target/perf"));
+            Files.createDirectories(dir);
+            file = dir.resolve(name + ".jsonl");
+            out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        }
+
+        Path getFile() {
+            return file;
+        }
+
+        /** Schreibt einen Datensatz; Werte sind Zahlen, Wahrheitswerte oder Texte. */
+        void record(Map<String, Object> values) throws Exception {
+            StringBuilder sb = new StringBuilder("{");
+            for (Map.Entry<String, Object> e : values.entrySet()) {
+                if (sb.length() > 1) sb.append(',');
+                sb.append('"').append(e.getKey()).append("\":");
+                Object v = e.getValue();
+                if (v instanceof Double d) sb.append(String.format(Locale.ROOT, "%.3f", d));
+                else if (v instanceof Number || v instanceof Boolean) sb.append(v);
+                else sb.append('"').append(String.valueOf(v).replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+            }
+            out.write(sb.append('}').toString());
+            out.newLine();
+            out.flush();
+            System.out.println("[PERF] " + sb);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Startzeit bis zum ersten Bild ({@link StartupTrace}) mit erzeugten Kalendern verschiedener Größe.
+ *
+ * Kalt: je Lauf eine neue JVM über {@code org.example.Main} mit {@code -Dstartup.trace=true
+ * -Dstartup.exit=true}, Marken ab JVM-Start ({@code main} bis {@code first_frame}). Warm: in
+ * dieser JVM mit laufendem Toolkit und geladenen Klassen wiederholt FXML laden, anzeigen und
+ * auf das erste Bild warten; Marken ab Beginn des Laufs. Je Größe und Art werden die Läufe
+ * sowie p50/p90/p99/max je Marke nach {@code target/perf/startup.jsonl} geschrieben.
+ *
+ * Parameter: {@code -Dperf.sizes} (Standard 1000,10000,100000), {@code -Dperf.startupRuns}
+ * (Läufe je Größe und Art, Standard 10), {@code -Dperf.startupJvmArgs} (zusätzliche
+ * JVM-Optionen der kalten Läufe, durch Leerzeichen getrennt).
+ */
+@Tag(FxPerf.TAG)
+public class StartupTimeTest {
+
+    private static final long LAUNCH_TIMEOUT_S = 300;
+
+    @Test
+    void testTimeToFirstFrame() throws Exception {
+        int runs = Integer.getInteger("perf.startupRuns", 10);
+        try (FxPerf.Report report = new FxPerf.Report("startup")) {
+            int[] sizes = FxPerf.sizes("1000,10000,100000");
+            List<Path> files = new ArrayList<>();
+            for (int size : sizes) {
+                Path dir = Files.createTempDirectory("startup-");
+                Path ics = dir.resolve("startup.ics");
+                SyntheticCalendar.write(SyntheticCalendar.Spec.defaults().withEvents(size).withSeed(size), ics);
+                files.add(ics);
+
+                List<Map<String, Double>> cold = new ArrayList<>();
+                for (int i = 0; i < runs; i++) cold.add(record(report, size, "cold", i, launchCold(dir, ics)));
+                summarize(report, size, "cold", cold);
+            }
+
+            // Warme Läufe erst nach allen kalten, damit diese JVM die kalten Messungen nicht belastet
+            FxPerf.startToolkit();
+            for (int s = 0; s < sizes.length; s++) {
+                launchWarm(files.get(s)); // Aufwärmen, nicht gewertet
+                List<Map<String, Double>> warm = new ArrayList<>();
+                for (int i = 0; i < runs; i++) warm.add(record(report, sizes[s], "warm", i, launchWarm(files.get(s))));
+                summarize(report, sizes[s], "warm", warm);
+            }
+            assertTrue(Files.size(report.getFile()) > 0);
+            for (Path ics : files) Files.deleteIfExists(ics);
+        }
+    }
+
+    /** Startet die Anwendung in einer neuen JVM mit eigener config.properties und liest die Marken. */
+    private static Map<String, Double> launchCold(Path dir, Path ics) throws Exception {
+        Files.writeString(dir.resolve("config.properties"),
+                "ics.path=" + ics.toAbsolutePath().toString().replace("\\", "/") + "\n", StandardCharsets.UTF_8);
+        List<String> cmd = new ArrayList<>();
+        cmd.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (String arg : System.getProperty("perf.startupJvmArgs", "").split(" ")) {
+            if (!arg.isBlank()) cmd.add(arg);
+        }
+        cmd.add("-Dstartup.trace=true");
+        cmd.add("-Dstartup.exit=true");
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add("org.example.Main");
+
+        Process process = new ProcessBuilder(cmd).directory(dir.toFile()).redirectErrorStream(true).start();
+        Map<String, Double> marks = new LinkedHashMap<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.startsWith("startup.") || !line.contains("_ms=")) continue;
+                int eq = line.indexOf('=');
+                marks.put(line.substring("startup.".length(), eq - "_ms".length()), Double.parseDouble(line.substring(eq + 1)));
+            }
+        }
+        if (!process.waitFor(LAUNCH_TIMEOUT_S, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            fail("Start nicht beendet");
+        }
+        assertEquals(0, process.exitValue(), "Start fehlgeschlagen");
+        assertTrue(marks.containsKey(StartupTrace.FIRST_FRAME), "Kein erstes Bild: " + marks);
+        return marks;
+    }
+
+    /** Wiederholt in dieser JVM den Weg aus {@code CalendarFxmlApp.start} bis zum ersten Bild. */
+    private static Map<String, Double> launchWarm(Path ics) throws Exception {
+        ConfigUtil.setIcsPath(ics);
+        CompletableFuture<Map<String, Double>> firstFrame = new CompletableFuture<>();
+        StartupTrace.begin();
+        Object[] loaded = FxPerf.onFx(() -> {
+            FXMLLoader loader = new FXMLLoader(StartupTimeTest.class.getResource("/calendar_view.fxml"));
+            Parent root = loader.load();
+            StartupTrace.mark("fxml_loaded");
+            Stage stage = new Stage();
+            Scene scene = new Scene(root, 1000, 700);
+            stage.setScene(scene);
+            CalendarFxmlApp.onFirstFrame(scene, () -> firstFrame.complete(StartupTrace.snapshot()));
+            stage.show();
+            StartupTrace.mark("stage_shown");
+            return new Object[]{loader.getController(), stage};
+        });
+        try {
+            return firstFrame.get(LAUNCH_TIMEOUT_S, TimeUnit.SECONDS);
+        } finally {
+            FxPerf.onFx(() -> {
+                ((CalendarProjektController) loaded[0]).shutdownForTest();
+                ((Stage) loaded[1]).close();
+                return null;
+            });
+        }
+    }
+
+    private static Map<String, Double> record(FxPerf.Report report, int size, String mode, int run,
+                                              Map<String, Double> marks) throws Exception {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("size", size);
+        m.put("mode", mode);
+        m.put("run", run);
+        for (Map.Entry<String, Double> e : marks.entrySet()) m.put(e.getKey() + "_ms", e.getValue());
+        report.record(m);
+        return marks;
+    }
+
+    /** Perzentile je Marke über alle Läufe einer Größe und Art. */
+    private static void summarize(FxPerf.Report report, int size, String mode,
+                                  List<Map<String, Double>> runs) throws Exception {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("size", size);
+        m.put("mode", mode);
+        m.put("runs", runs.size());
+        for (String mark : runs.get(0).keySet()) {
+            long[] sorted = runs.stream().filter(r -> r.containsKey(mark))
+                    .mapToLong(r -> Math.round(r.get(mark) * 1_000_000)).sorted().toArray();
+            m.put(mark + "_p50_ms", FxPerf.millis(FxPerf.percentile(sorted, 0.50)));
+            m.put(mark + "_p90_ms", FxPerf.millis(FxPerf.percentile(sorted, 0.90)));
+            m.put(mark + "_p99_ms", FxPerf.millis(FxPerf.percentile(sorted, 0.99)));
+            m.put(mark + "_max_ms", FxPerf.millis(sorted[sorted.length - 1]));
+        }
+        report.record(m);
+    }
+}